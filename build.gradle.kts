@@ -97,6 +97,15 @@ dependencies {
     implementation("io.netty:netty-common:${property("netty.version")}")
     implementation("io.netty:netty-handler:${property("netty.version")}")
     implementation("io.netty:netty-transport:${property("netty.version")}")
+    // native transports, the transport classes are always present, the native libraries are only loaded on Linux
+    implementation("io.netty:netty-transport-classes-epoll:${property("netty.version")}")
+    runtimeOnly("io.netty:netty-transport-native-epoll:${property("netty.version")}:linux-x86_64")
+    runtimeOnly("io.netty:netty-transport-native-epoll:${property("netty.version")}:linux-aarch_64")
+    implementation("io.netty.incubator:netty-incubator-transport-classes-io_uring:${property("netty-io_uring.version")}")
+    runtimeOnly("io.netty.incubator:netty-incubator-transport-native-io_uring:${property("netty-io_uring.version")}:linux-x86_64")
+    runtimeOnly("io.netty.incubator:netty-incubator-transport-native-io_uring:${property("netty-io_uring.version")}:linux-aarch_64")
+    // OpenSSL (BoringSSL) TLS provider, only used if selected for a TLS listener
+    runtimeOnly("io.netty:netty-tcnative-boringssl-static:${property("netty-tcnative.version")}")
 
     // logging
     implementation("org.slf4j:slf4j-api:${property("slf4j.version")}")
@@ -206,6 +215,45 @@ tasks.test {
 }
 
 
+/* ******************** benchmarks ******************** */
+
+val jmh: SourceSet by sourceSets.creating {
+    // the benchmarks reuse the test utilities to set up the codecs and to mock collaborators that are not measured
+    compileClasspath += sourceSets.main.get().output + sourceSets.test.get().output
+    runtimeClasspath += sourceSets.main.get().output + sourceSets.test.get().output
+}
+
+configurations {
+    jmh.implementationConfigurationName { extendsFrom(configurations.testImplementation.get()) }
+    jmh.runtimeOnlyConfigurationName { extendsFrom(configurations.testRuntimeOnly.get()) }
+}
+
+dependencies {
+    jmh.implementationConfigurationName("org.openjdk.jmh:jmh-core:${property("jmh.version")}")
+    jmh.annotationProcessorConfigurationName("org.openjdk.jmh:jmh-generator-annprocess:${property("jmh.version")}")
+}
+
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    description = "Runs the JMH benchmarks, a subset can be selected with -Pjmh.include=<regex>. " +
+            "The results are written as JSON to build/reports/jmh/results.json, or -Pjmh.results=<file>."
+    classpath = jmh.runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    val results = if (project.hasProperty("jmh.results")) {
+        file(project.property("jmh.results").toString())
+    } else {
+        buildDir.resolve("reports/jmh/results.json")
+    }
+    outputs.file(results)
+    outputs.upToDateWhen { false }
+    doFirst { results.parentFile.mkdirs() }
+    args("-rf", "json", "-rff", results.absolutePath)
+    if (project.hasProperty("jmh.include")) {
+        args(project.property("jmh.include").toString())
+    }
+}
+
+
 /* ******************** distribution ******************** */
 
 tasks.jar {
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.codec;
+
+import com.hivemq.bootstrap.ClientConnection;
+import com.hivemq.codec.encoder.MqttEncoder;
+import com.hivemq.codec.encoder.mqtt3.Mqtt3PublishEncoder;
+import com.hivemq.codec.encoder.mqtt5.Mqtt5PublishEncoder;
+import com.hivemq.configuration.service.impl.SecurityConfigurationServiceImpl;
+import com.hivemq.mqtt.message.ProtocolVersion;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.dropping.MessageDroppedService;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.mqtt.message.publish.PUBLISHFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.*;
+import util.TestMqttDecoder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Measures decoding of incoming and encoding of outgoing PUBLISH packets for MQTT 3 and MQTT 5.
+ * <p>
+ * Decoding runs through the {@link com.hivemq.codec.decoder.MQTTMessageDecoder} including the fixed header, encoding
+ * calls the PUBLISH encoder of the protocol version directly, in the same way as the
+ * {@link com.hivemq.codec.encoder.MQTTMessageEncoder} does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PublishCodecBenchmark {
+
+    @Param({"MQTTv3_1_1", "MQTTv5"})
+    public ProtocolVersion protocolVersion;
+
+    @Param({"16", "1024", "65536"})
+    public int payloadSize;
+
+    private EmbeddedChannel decoderChannel;
+    private ClientConnection encoderConnection;
+    private MqttEncoder<? super PUBLISH> encoder;
+    private PUBLISH publish;
+    private byte[] encodedPublish;
+    private ByteBuf out;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final byte[] payload = new byte[payloadSize];
+        new Random(42).nextBytes(payload);
+        publish = new PUBLISHFactory.Mqtt5Builder()
+                .withHivemqId("hivemqId")
+                .withTopic("site/42/device/4711/temperature")
+                .withQoS(QoS.AT_LEAST_ONCE)
+                .withOnwardQos(QoS.AT_LEAST_ONCE)
+                .withPacketIdentifier(1)
+                .withPayload(payload)
+                .build();
+
+        if (protocolVersion == ProtocolVersion.MQTTv5) {
+            encoder = new Mqtt5PublishEncoder(mock(MessageDroppedService.class), new SecurityConfigurationServiceImpl());
+        } else {
+            encoder = new Mqtt3PublishEncoder();
+        }
+        encoderConnection = new ClientConnection(new EmbeddedChannel(), null);
+        encoderConnection.setProtocolVersion(protocolVersion);
+        out = Unpooled.buffer(encoder.bufferSize(encoderConnection, publish));
+
+        encoder.encode(encoderConnection, publish, out);
+        encodedPublish = new byte[out.readableBytes()];
+        out.readBytes(encodedPublish);
+
+        decoderChannel = new EmbeddedChannel(TestMqttDecoder.create());
+        final ClientConnection decoderConnection = new ClientConnection(decoderChannel, null);
+        decoderConnection.setProtocolVersion(protocolVersion);
+        decoderChannel.attr(ClientConnection.CHANNEL_ATTRIBUTE_NAME).set(decoderConnection);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        decoderChannel.close();
+        out.release();
+    }
+
+    @Benchmark
+    public Object decode() {
+        decoderChannel.writeInbound(Unpooled.wrappedBuffer(encodedPublish));
+        return decoderChannel.readInbound();
+    }
+
+    @Benchmark
+    public ByteBuf encode() {
+        out.clear();
+        out.ensureWritable(encoder.bufferSize(encoderConnection, publish));
+        encoder.encode(encoderConnection, publish, out);
+        return out;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.mqtt.topic.tree;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.metrics.MetricsHolder;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.subscribe.Topic;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures subscriber matching for concrete topics in a topic tree with exact, single level wildcard, multi level
+ * wildcard and shared subscriptions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TopicMatchingBenchmark {
+
+    private static final int TOPIC_COUNT = 1024;
+
+    @Param({"1000", "100000"})
+    public int subscriptionCount;
+
+    /**
+     * Every n-th subscription is a wildcard subscription.
+     */
+    @Param({"10"})
+    public int wildcardInterval;
+
+    private LocalTopicTree topicTree;
+    private String[] topics;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        topicTree = new LocalTopicTree(new MetricsHolder(new MetricRegistry()));
+        final Random random = new Random(42);
+        final int siteCount = Math.max(1, subscriptionCount / 100);
+        for (int i = 0; i < subscriptionCount; i++) {
+            final String client = "client-" + i;
+            final int site = random.nextInt(siteCount);
+            final String topic;
+            if (i % wildcardInterval != 0) {
+                topic = "site/" + site + "/device/" + i + "/temperature";
+            } else if ((i / wildcardInterval) % 3 == 0) {
+                topic = "site/" + site + "/device/+/temperature";
+            } else if ((i / wildcardInterval) % 3 == 1) {
+                topic = "site/" + site + "/#";
+            } else {
+                topic = "site/+/device/" + i + "/#";
+            }
+            final String sharedName = i % (wildcardInterval * 10) == 1 ? "group-" + site : null;
+            topicTree.addTopic(client, new Topic(topic, QoS.AT_LEAST_ONCE), (byte) 0, sharedName);
+        }
+        topics = new String[TOPIC_COUNT];
+        for (int i = 0; i < TOPIC_COUNT; i++) {
+            topics[i] = "site/" + random.nextInt(siteCount) + "/device/" + random.nextInt(subscriptionCount) +
+                    "/temperature";
+        }
+    }
+
+    @Benchmark
+    public TopicSubscribers match() {
+        index = (index + 1) & (TOPIC_COUNT - 1);
+        return topicTree.findTopicSubscribers(topics[index]);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.mqtt.topic.tree;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.metrics.MetricsHolder;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.subscribe.Topic;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures subscriber matching while subscriptions are added and removed concurrently on the same segments, once with
+ * the lock based topic tree and once in copy-on-write mode.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TopicTreeContentionBenchmark {
+
+    @Param({"false", "true"})
+    public boolean copyOnWrite;
+
+    @Param({"10000"})
+    public int subscriptionCount;
+
+    private LocalTopicTree topicTree;
+    private String[] topics;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InternalConfigurations.TOPIC_TREE_COPY_ON_WRITE_ENABLED.set(copyOnWrite);
+        topicTree = new LocalTopicTree(new MetricsHolder(new MetricRegistry()));
+        topics = new String[subscriptionCount];
+        for (int i = 0; i < subscriptionCount; i++) {
+            topics[i] = "devices/" + (i % 64) + "/sensor-" + i + "/status";
+            topicTree.addTopic("client-" + i, new Topic(topics[i], QoS.AT_LEAST_ONCE), (byte) 0, null);
+            if (i % 10 == 0) {
+                topicTree.addTopic("client-" + i, new Topic("devices/" + (i % 64) + "/+/status", QoS.AT_MOST_ONCE), (byte) 0, null);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        InternalConfigurations.TOPIC_TREE_COPY_ON_WRITE_ENABLED.set(false);
+    }
+
+    @Benchmark
+    @Group("contention")
+    @GroupThreads(3)
+    public void match(final Blackhole blackhole) {
+        final String topic = topics[ThreadLocalRandom.current().nextInt(topics.length)];
+        blackhole.consume(topicTree.findTopicSubscribers(topic));
+    }
+
+    @Benchmark
+    @Group("contention")
+    @GroupThreads(1)
+    public void subscribeAndUnsubscribe() {
+        final int index = ThreadLocalRandom.current().nextInt(topics.length);
+        final String client = "resubscriber-" + index;
+        topicTree.addTopic(client, new Topic(topics[index], QoS.AT_LEAST_ONCE), (byte) 0, null);
+        topicTree.removeSubscriber(client, topics[index], null);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.mqtt.topic.tree;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.metrics.MetricsHolder;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.subscribe.Topic;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures subscribing to and unsubscribing from a node with many children and many subscribers, once with the lock
+ * based topic tree and once in copy-on-write mode, where every modification copies the path to the modified node.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TopicTreeWideNodeBenchmark {
+
+    @Param({"false", "true"})
+    public boolean copyOnWrite;
+
+    @Param({"1000", "100000"})
+    public int width;
+
+    private LocalTopicTree topicTree;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InternalConfigurations.TOPIC_TREE_COPY_ON_WRITE_ENABLED.set(copyOnWrite);
+        topicTree = new LocalTopicTree(new MetricsHolder(new MetricRegistry()));
+        for (int i = 0; i < width; i++) {
+            topicTree.addTopic("client-" + i, new Topic("wide/" + i, QoS.AT_LEAST_ONCE), (byte) 0, null);
+            topicTree.addTopic("client-" + i, new Topic("wide/all", QoS.AT_LEAST_ONCE), (byte) 0, null);
+            topicTree.addTopic("client-" + i, new Topic("wide/all", QoS.AT_LEAST_ONCE), (byte) 0, "group");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        InternalConfigurations.TOPIC_TREE_COPY_ON_WRITE_ENABLED.set(false);
+    }
+
+    @Benchmark
+    public void subscribeNewChild() {
+        final String topic = "wide/new-" + (next++ % width);
+        topicTree.addTopic("resubscriber", new Topic(topic, QoS.AT_LEAST_ONCE), (byte) 0, null);
+        topicTree.removeSubscriber("resubscriber", topic, null);
+    }
+
+    @Benchmark
+    public void subscribeWideSubscriptions() {
+        topicTree.addTopic("resubscriber", new Topic("wide/all", QoS.AT_LEAST_ONCE), (byte) 0, null);
+        topicTree.removeSubscriber("resubscriber", "wide/all", null);
+    }
+
+    @Benchmark
+    public void subscribeWideSharedGroup() {
+        topicTree.addTopic("resubscriber", new Topic("wide/all", QoS.AT_LEAST_ONCE), (byte) 0, "group");
+        topicTree.removeSubscriber("resubscriber", "wide/all", "group");
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of tasks submitted to the single writer from several producer threads, for the thread pool
+ * based, the thread-affine and the in-memory single writer.
+ * <p>
+ * Every invocation of the throughput benchmark submits a batch of tasks to random buckets and waits for the whole
+ * batch, so the queues stay bounded. The latency benchmark samples the time from submitting a single task until its
+ * future completes, which includes waking up an idle writer thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class SingleWriterBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"default", "thread-affine", "in-memory"})
+    public String singleWriter;
+
+    private SingleWriterService singleWriterService;
+    private ProducerQueues producerQueues;
+    private int bucketCount;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if ("in-memory".equals(singleWriter)) {
+            singleWriterService = new InMemorySingleWriter();
+        } else if ("thread-affine".equals(singleWriter)) {
+            singleWriterService = new ThreadAffineSingleWriter();
+        } else {
+            final SingleWriterServiceImpl singleWriterServiceImpl = new SingleWriterServiceImpl();
+            singleWriterServiceImpl.postConstruct();
+            singleWriterService = singleWriterServiceImpl;
+        }
+        producerQueues = singleWriterService.getQueuedMessagesQueue();
+        bucketCount = singleWriterService.getPersistenceBucketCount();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        singleWriterService.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<Integer> submit() throws ExecutionException, InterruptedException {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final List<ListenableFuture<Integer>> futures = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            futures.add(producerQueues.submit(random.nextInt(bucketCount), bucketIndex -> bucketIndex));
+        }
+        return Futures.allAsList(futures).get();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Integer latency() throws ExecutionException, InterruptedException {
+        return producerQueues.submit(ThreadLocalRandom.current().nextInt(bucketCount), bucketIndex -> bucketIndex).get();
+    }
+}
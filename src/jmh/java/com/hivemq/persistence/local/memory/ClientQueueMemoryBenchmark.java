@@ -0,0 +1,89 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.local.memory;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.ImmutableIntArray;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.dropping.MessageDroppedService;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.mqtt.message.publish.PUBLISHFactory;
+import com.hivemq.persistence.payload.PublishPayloadPersistence;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.hivemq.configuration.service.MqttConfigurationService.QueuedMessagesStrategy.DISCARD;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Measures the in-memory client queue for a client that keeps up with its queue: every operation adds a message,
+ * reads the oldest new message as in-flight message and acknowledges it, so the amount of queued messages stays
+ * constant.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClientQueueMemoryBenchmark {
+
+    private static final String QUEUE_ID = "client";
+    private static final int BUCKET_INDEX = 0;
+    private static final long BYTES_LIMIT = 1024 * 1024;
+    private static final int MAX_PACKET_ID = 65535;
+
+    @Param({"10", "1000", "100000"})
+    public int queuedMessages;
+
+    private ClientQueueMemoryLocalPersistence persistence;
+    private PUBLISH publish;
+    private int packetId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final PublishPayloadPersistence payloadPersistence = mock(PublishPayloadPersistence.class);
+        persistence = new ClientQueueMemoryLocalPersistence(
+                payloadPersistence, mock(MessageDroppedService.class), new MetricRegistry());
+        publish = new PUBLISHFactory.Mqtt5Builder()
+                .withHivemqId("hivemqId")
+                .withTopic("site/42/device/4711/temperature")
+                .withQoS(QoS.AT_LEAST_ONCE)
+                .withOnwardQos(QoS.AT_LEAST_ONCE)
+                .withPayload(new byte[64])
+                .withPersistence(payloadPersistence)
+                .build();
+        for (int i = 0; i < queuedMessages; i++) {
+            persistence.add(QUEUE_ID, false, publish, Long.MAX_VALUE, DISCARD, false, BUCKET_INDEX);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        persistence.closeDB(BUCKET_INDEX);
+    }
+
+    @Benchmark
+    public String addReadAck() {
+        packetId = packetId % MAX_PACKET_ID + 1;
+        persistence.add(QUEUE_ID, false, publish, Long.MAX_VALUE, DISCARD, false, BUCKET_INDEX);
+        final ImmutableList<PUBLISH> read =
+                persistence.readNew(QUEUE_ID, false, ImmutableIntArray.of(packetId), BYTES_LIMIT, BUCKET_INDEX);
+        return persistence.remove(QUEUE_ID, read.get(0).getPacketIdentifier(), BUCKET_INDEX);
+    }
+}
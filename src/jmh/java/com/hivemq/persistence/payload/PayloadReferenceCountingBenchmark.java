@@ -0,0 +1,152 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.payload;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.ListeningScheduledExecutorService;
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.persistence.local.xodus.bucket.BucketUtils;
+import org.eclipse.collections.impl.map.mutable.primitive.LongIntHashMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Measures the reference counting of the payload persistence under contention: every operation increments the
+ * reference count of a random payload, like a new subscriber queueing a message, and decrements it again, like the
+ * acknowledgement of the message.
+ * <p>
+ * Every payload keeps one reference, so no payload is ever removed and the local persistence is not involved.
+ * <p>
+ * The "callback" implementation reproduces the previous bucket access, which hashed the payload id as a string,
+ * took a reentrant lock and invoked a capturing callback, as a baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadReferenceCountingBenchmark {
+
+    private static final byte[] PAYLOAD = new byte[64];
+
+    @Param({"1000", "100000"})
+    public int payloadCount;
+
+    @Param({"striped", "callback"})
+    public String implementation;
+
+    private PublishPayloadPersistenceImpl persistence;
+    private CallbackReferenceCounting callbackReferenceCounting;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if ("callback".equals(implementation)) {
+            callbackReferenceCounting =
+                    new CallbackReferenceCounting(InternalConfigurations.PAYLOAD_PERSISTENCE_BUCKET_COUNT.get());
+        } else {
+            persistence = new PublishPayloadPersistenceImpl(
+                    mock(PublishPayloadLocalPersistence.class), mock(ListeningScheduledExecutorService.class),
+                    new MetricRegistry());
+        }
+        for (long payloadId = 0; payloadId < payloadCount; payloadId++) {
+            add(payloadId);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void incrementDecrement_singleThread() {
+        incrementDecrement();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void incrementDecrement_fourThreads() {
+        incrementDecrement();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void incrementDecrement_sixteenThreads() {
+        incrementDecrement();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public void incrementDecrement_thirtyTwoThreads() {
+        incrementDecrement();
+    }
+
+    private void incrementDecrement() {
+        final long payloadId = ThreadLocalRandom.current().nextInt(payloadCount);
+        add(payloadId);
+        if (persistence != null) {
+            persistence.decrementReferenceCounter(payloadId);
+        } else {
+            callbackReferenceCounting.decrement(payloadId);
+        }
+    }
+
+    private void add(final long payloadId) {
+        if (persistence != null) {
+            persistence.add(PAYLOAD, 1, payloadId);
+        } else {
+            callbackReferenceCounting.increment(payloadId);
+        }
+    }
+
+    private static class CallbackReferenceCounting {
+
+        private final Lock[] locks;
+        private final LongIntHashMap[] buckets;
+
+        CallbackReferenceCounting(final int bucketCount) {
+            locks = new Lock[bucketCount];
+            buckets = new LongIntHashMap[bucketCount];
+            for (int i = 0; i < bucketCount; i++) {
+                locks[i] = new ReentrantLock();
+                buckets[i] = new LongIntHashMap();
+            }
+        }
+
+        void increment(final long payloadId) {
+            final int index = BucketUtils.getBucket(Long.toString(payloadId), buckets.length);
+            access(index, () -> buckets[index].addToValue(payloadId, 1));
+        }
+
+        void decrement(final long payloadId) {
+            final int index = BucketUtils.getBucket(Long.toString(payloadId), buckets.length);
+            access(index, () -> buckets[index].addToValue(payloadId, -1));
+        }
+
+        private void access(final int index, final Runnable callback) {
+            final Lock lock = locks[index];
+            lock.lock();
+            try {
+                callback.run();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.util;
+
+import com.google.common.base.Utf8;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the validation and decoding of UTF-8 encoded Strings as done for topics, client ids and user properties of
+ * incoming packets.
+ * <p>
+ * The baseline copies the bytes into an array and validates them in separate passes, which is how Strings were
+ * decoded before {@link Utf8Utils#decodeValidated}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Utf8DecodingBenchmark {
+
+    private static final String[] TOPICS = {
+            "enterprise/site-0042/area-north/production-line-07/cell-003/machine-0815/spindle/temperature/celsius",
+            "vehicles/fleet-eu-central/truck-4711/telemetry/powertrain/engine/oil-pressure/kilopascal/current",
+            "buildings/munich-hq/floor-12/room-1204/hvac/air-handling-unit-02/supply-air/humidity/relative"};
+
+    private static final String[] USER_PROPERTIES = {
+            "content-encoding", "gzip", "correlation-id", "4f1c2a9e-7d3b-4e8a-9c61-0b5d2f8e1a73", "source", "edge-gateway-17",
+            "schema-version", "2.4.1", "tenant", "acme-manufacturing", "trace-parent",
+            "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01"};
+
+    private static final String[] NON_ASCII_TOPICS = {
+            "gebäude/münchen/stockwerk-12/raum-1204/lüftung/zuluft/feuchtigkeit/relative-luftfeuchte",
+            "设备/工厂-0042/生产线-07/机器-0815/主轴/温度/摄氏度",
+            "sensors/device-4711/status/🚀/launch-sequence/stage-2"};
+
+    @Param({"topics", "user-properties", "non-ascii-topics"})
+    public String corpus;
+
+    @Param({"heap", "direct"})
+    public String bufferType;
+
+    private ByteBuf buffer;
+    private int[] offsets;
+    private int[] lengths;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final String[] strings;
+        switch (corpus) {
+            case "user-properties":
+                strings = USER_PROPERTIES;
+                break;
+            case "non-ascii-topics":
+                strings = NON_ASCII_TOPICS;
+                break;
+            default:
+                strings = TOPICS;
+        }
+        buffer = "direct".equals(bufferType) ? Unpooled.directBuffer() : Unpooled.buffer();
+        offsets = new int[strings.length];
+        lengths = new int[strings.length];
+        for (int i = 0; i < strings.length; i++) {
+            final byte[] bytes = strings[i].getBytes(StandardCharsets.UTF_8);
+            offsets[i] = buffer.writerIndex();
+            lengths[i] = bytes.length;
+            buffer.writeBytes(bytes);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        buffer.release();
+    }
+
+    @Benchmark
+    public void decodeValidated(final Blackhole blackhole) {
+        for (int i = 0; i < offsets.length; i++) {
+            blackhole.consume(Utf8Utils.decodeValidated(buffer, offsets[i], lengths[i], true));
+        }
+    }
+
+    @Benchmark
+    public void copyAndValidate(final Blackhole blackhole) {
+        for (int i = 0; i < offsets.length; i++) {
+            final byte[] bytes = new byte[lengths[i]];
+            buffer.getBytes(offsets[i], bytes);
+            if (!Utf8.isWellFormed(bytes) || containsNull(bytes) || Utf8Utils.hasControlOrNonCharacter(bytes)) {
+                blackhole.consume(null);
+            } else {
+                blackhole.consume(new String(bytes, StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private static boolean containsNull(final byte[] bytes) {
+        for (final byte b : bytes) {
+            if (b == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
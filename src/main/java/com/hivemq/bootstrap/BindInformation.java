@@ -15,6 +15,8 @@
  */
 package com.hivemq.bootstrap;
 
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.hivemq.extension.sdk.api.annotations.Immutable;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.configuration.service.entity.Listener;
@@ -32,12 +34,29 @@ public class BindInformation {
 
     private final ChannelFuture bindFuture;
 
+    private final ListenableFuture<Integer> acceptorThreadsFuture;
+
 
     public BindInformation(@NotNull final Listener listener, @NotNull final ChannelFuture bindFuture) {
+        this(listener, bindFuture, Futures.immediateFuture(1));
+    }
+
+    /**
+     * @param listener              the listener
+     * @param bindFuture            the future of the bind of the first acceptor of the listener
+     * @param acceptorThreadsFuture a future that completes with the amount of bound acceptors of the listener after
+     *                              the first acceptor was bound
+     */
+    public BindInformation(
+            @NotNull final Listener listener,
+            @NotNull final ChannelFuture bindFuture,
+            @NotNull final ListenableFuture<Integer> acceptorThreadsFuture) {
         checkNotNull(listener, "Listener must not be null");
         checkNotNull(bindFuture, "Future must not be null");
+        checkNotNull(acceptorThreadsFuture, "Acceptor threads future must not be null");
         this.listener = listener;
         this.bindFuture = bindFuture;
+        this.acceptorThreadsFuture = acceptorThreadsFuture;
     }
 
     public Listener getListener() {
@@ -47,4 +66,8 @@ public class BindInformation {
     public ChannelFuture getBindFuture() {
         return bindFuture;
     }
+
+    public ListenableFuture<Integer> getAcceptorThreadsFuture() {
+        return acceptorThreadsFuture;
+    }
 }
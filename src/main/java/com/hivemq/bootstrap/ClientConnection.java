@@ -17,6 +17,7 @@ package com.hivemq.bootstrap;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.SettableFuture;
+import com.hivemq.codec.encoder.mqtt5.OutboundTopicAliasMapping;
 import com.hivemq.configuration.service.entity.Listener;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.extension.sdk.api.annotations.Nullable;
@@ -70,6 +71,7 @@ public class ClientConnection {
     private @Nullable Long connectReceivedTimestamp;
     private @Nullable Long maxPacketSizeSend;
     private @Nullable String[] topicAliasMapping;
+    private @Nullable OutboundTopicAliasMapping outboundTopicAliasMapping;
     private boolean noSharedSubscription;
     private boolean clientIdAssigned;
     private boolean incomingPublishesSkipRest;
@@ -288,6 +290,14 @@ public class ClientConnection {
         this.topicAliasMapping = topicAliasMapping;
     }
 
+    public @Nullable OutboundTopicAliasMapping getOutboundTopicAliasMapping() {
+        return outboundTopicAliasMapping;
+    }
+
+    public void setOutboundTopicAliasMapping(final @Nullable OutboundTopicAliasMapping outboundTopicAliasMapping) {
+        this.outboundTopicAliasMapping = outboundTopicAliasMapping;
+    }
+
     /**
      * True if it is guarantied that this client has no shared subscriptions, if false it is unclear.
      */
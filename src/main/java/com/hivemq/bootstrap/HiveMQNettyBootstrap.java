@@ -19,19 +19,27 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.hivemq.bootstrap.netty.ChannelInitializerFactory;
 import com.hivemq.bootstrap.netty.NettyConfiguration;
+import com.hivemq.bootstrap.netty.NettyTransport;
 import com.hivemq.common.shutdown.ShutdownHooks;
 import com.hivemq.configuration.service.InternalConfigurations;
 import com.hivemq.configuration.service.entity.*;
 import com.hivemq.configuration.service.impl.listener.ListenerConfigurationService;
 import com.hivemq.extension.sdk.api.annotations.Immutable;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.metrics.MetricsHolder;
+import com.hivemq.metrics.handler.AcceptorMetricHandler;
 import com.hivemq.persistence.connection.ConnectionPersistence;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.*;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.channel.unix.UnixChannelOption;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,6 +47,8 @@ import javax.inject.Inject;
 import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -52,6 +62,8 @@ public class HiveMQNettyBootstrap {
     private final @NotNull ChannelInitializerFactory channelInitializerFactory;
     private final @NotNull ConnectionPersistence connectionPersistence;
     private final @NotNull NettyConfiguration nettyConfiguration;
+    private final @NotNull MetricsHolder metricsHolder;
+    private final @NotNull List<EventLoopGroup> acceptorGroups = new CopyOnWriteArrayList<>();
 
     public static final ClientWriteBufferProperties DEFAULT_WRITE_BUFFER_PROPERTIES =
             new ClientWriteBufferProperties(64 * 1024, 32 * 1024);
@@ -62,13 +74,15 @@ public class HiveMQNettyBootstrap {
             final @NotNull ListenerConfigurationService listenerConfigurationService,
             final @NotNull ChannelInitializerFactory channelInitializerFactory,
             final @NotNull ConnectionPersistence connectionPersistence,
-            final @NotNull NettyConfiguration nettyConfiguration) {
+            final @NotNull NettyConfiguration nettyConfiguration,
+            final @NotNull MetricsHolder metricsHolder) {
 
         this.shutdownHooks = shutdownHooks;
         this.listenerConfigurationService = listenerConfigurationService;
         this.channelInitializerFactory = channelInitializerFactory;
         this.connectionPersistence = connectionPersistence;
         this.nettyConfiguration = nettyConfiguration;
+        this.metricsHolder = metricsHolder;
     }
 
     public @NotNull ListenableFuture<List<ListenerStartupInformation>> bootstrapServer() {
@@ -81,7 +95,8 @@ public class HiveMQNettyBootstrap {
                 nettyConfiguration.getParentEventLoopGroup(),
                 shutdownTimeout,
                 channelsShutdownTimeout,
-                connectionPersistence));
+                connectionPersistence,
+                acceptorGroups));
 
         final List<BindInformation> futures = new ArrayList<>();
 
@@ -107,11 +122,8 @@ public class HiveMQNettyBootstrap {
 
         for (final TcpListener listener : tcpListeners) {
 
-            final ServerBootstrap b = createServerBootstrap(nettyConfiguration.getParentEventLoopGroup(), nettyConfiguration.getChildEventLoopGroup(), listener);
             log.info("Starting TCP listener on address {} and port {}", listener.getBindAddress(), listener.getPort());
-            final ChannelFuture bind = b.bind(listener.getBindAddress(), listener.getPort());
-            connectionPersistence.addServerChannel(listener.getName(), bind.channel());
-            futures.add(new BindInformation(listener, bind));
+            futures.add(bindListener(listener));
         }
         return futures.build();
     }
@@ -122,11 +134,8 @@ public class HiveMQNettyBootstrap {
 
         for (final TlsTcpListener listener : tlsTcpListeners) {
 
-            final ServerBootstrap b = createServerBootstrap(nettyConfiguration.getParentEventLoopGroup(), nettyConfiguration.getChildEventLoopGroup(), listener);
             log.info("Starting TLS TCP listener on address {} and port {}", listener.getBindAddress(), listener.getPort());
-            final ChannelFuture bind = b.bind(listener.getBindAddress(), listener.getPort());
-            connectionPersistence.addServerChannel(listener.getName(), bind.channel());
-            futures.add(new BindInformation(listener, bind));
+            futures.add(bindListener(listener));
         }
         return futures.build();
     }
@@ -137,11 +146,8 @@ public class HiveMQNettyBootstrap {
 
         for (final WebsocketListener listener : websocketListeners) {
 
-            final ServerBootstrap b = createServerBootstrap(nettyConfiguration.getParentEventLoopGroup(), nettyConfiguration.getChildEventLoopGroup(), listener);
             log.info("Starting Websocket listener on address {} and port {}", listener.getBindAddress(), listener.getPort());
-            final ChannelFuture bind = b.bind(listener.getBindAddress(), listener.getPort());
-            connectionPersistence.addServerChannel(listener.getName(), bind.channel());
-            futures.add(new BindInformation(listener, bind));
+            futures.add(bindListener(listener));
         }
         return futures.build();
     }
@@ -153,15 +159,85 @@ public class HiveMQNettyBootstrap {
         final ImmutableList.Builder<BindInformation> futures = ImmutableList.builder();
         for (final TlsWebsocketListener listener : tlsWebsocketListeners) {
 
-            final ServerBootstrap b = createServerBootstrap(nettyConfiguration.getParentEventLoopGroup(), nettyConfiguration.getChildEventLoopGroup(), listener);
             log.info("Starting Websocket TLS listener on address {} and port {}", listener.getBindAddress(), listener.getPort());
-            final ChannelFuture bind = b.bind(listener.getBindAddress(), listener.getPort());
-            connectionPersistence.addServerChannel(listener.getName(), bind.channel());
-            futures.add(new BindInformation(listener, bind));
+            futures.add(bindListener(listener));
         }
         return futures.build();
     }
 
+    /**
+     * Binds the listener once per acceptor thread. Listeners with a single acceptor thread share the parent event loop
+     * group, listeners with multiple acceptor threads get an own acceptor event loop group and are bound with
+     * SO_REUSEPORT once per thread of the group, so the kernel distributes new connections across the acceptors.
+     *
+     * @param listener the listener to bind
+     * @return the bind information of the listener
+     */
+    private @NotNull BindInformation bindListener(final @NotNull Listener listener) {
+
+        final int acceptorThreads = getAcceptorThreads(listener);
+        if (acceptorThreads == 1) {
+            final ServerBootstrap b = createServerBootstrap(nettyConfiguration.getParentEventLoopGroup(), nettyConfiguration.getChildEventLoopGroup(), listener);
+            return new BindInformation(listener, bindAcceptor(b, listener, 0, listener.getPort()));
+        }
+
+        final EventLoopGroup acceptorGroup = nettyConfiguration.getTransport().createEventLoopGroup(acceptorThreads,
+                new ThreadFactoryBuilder().setNameFormat("hivemq-eventloop-acceptor-" + listener.getName() + "-%d").build());
+        acceptorGroups.add(acceptorGroup);
+
+        final ServerBootstrap b = createServerBootstrap(acceptorGroup, nettyConfiguration.getChildEventLoopGroup(), listener);
+        final ChannelFuture firstBind = bindAcceptor(b, listener, 0, listener.getPort());
+        final SettableFuture<Integer> acceptorThreadsFuture = SettableFuture.create();
+
+        firstBind.addListener((ChannelFutureListener) future -> {
+            if (!future.isSuccess()) {
+                acceptorThreadsFuture.set(0);
+                return;
+            }
+            //the other acceptors must bind the port of the first acceptor, as the port may have been chosen by the OS
+            final int port = ((InetSocketAddress) future.channel().localAddress()).getPort();
+            final AtomicInteger bound = new AtomicInteger(1);
+            final AtomicInteger pending = new AtomicInteger(acceptorThreads - 1);
+            for (int acceptor = 1; acceptor < acceptorThreads; acceptor++) {
+                final int acceptorIndex = acceptor;
+                bindAcceptor(b, listener, acceptor, port).addListener((ChannelFutureListener) acceptorFuture -> {
+                    if (acceptorFuture.isSuccess()) {
+                        bound.incrementAndGet();
+                    } else {
+                        log.warn("Could not bind acceptor {} of listener {}: {}", acceptorIndex, listener.getName(),
+                                acceptorFuture.cause().getMessage());
+                    }
+                    if (pending.decrementAndGet() == 0) {
+                        acceptorThreadsFuture.set(bound.get());
+                    }
+                });
+            }
+        });
+        return new BindInformation(listener, firstBind, acceptorThreadsFuture);
+    }
+
+    private @NotNull ChannelFuture bindAcceptor(
+            final @NotNull ServerBootstrap b, final @NotNull Listener listener, final int acceptor, final int port) {
+
+        final String metricName = AcceptorMetricHandler.metricName(listener.getName(), acceptor);
+        final ChannelFuture bind = b.clone()
+                .handler(new AcceptorMetricHandler(metricsHolder.getMetricRegistry().meter(metricName)))
+                .bind(listener.getBindAddress(), port);
+        final String serverChannelName = acceptor == 0 ? listener.getName() : listener.getName() + "-acceptor-" + acceptor;
+        connectionPersistence.addServerChannel(serverChannelName, bind.channel());
+        return bind;
+    }
+
+    private int getAcceptorThreads(final @NotNull Listener listener) {
+        final int acceptorThreads = listener.getNativeTransportOptions().getAcceptorThreads();
+        if (acceptorThreads > 1 && nettyConfiguration.getTransport() == NettyTransport.NIO) {
+            log.warn("Listener {} is configured with {} acceptor threads, which requires a native transport. " +
+                    "Using a single acceptor thread.", listener.getName(), acceptorThreads);
+            return 1;
+        }
+        return acceptorThreads;
+    }
+
     /**
      * Creates an aggregated future which allows to wait for all futures at once
      *
@@ -198,9 +274,40 @@ public class HiveMQNettyBootstrap {
                 .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
 
         setAdvancedOptions(b);
+        setNativeTransportOptions(b, listener);
         return b;
     }
 
+    /**
+     * Sets the socket options of the listener which are only supported by the native transports
+     *
+     * @param b        the server bootstrap
+     * @param listener the listener
+     */
+    private void setNativeTransportOptions(final @NotNull ServerBootstrap b, final @NotNull Listener listener) {
+
+        final NativeTransportOptions options = listener.getNativeTransportOptions();
+        final NettyTransport transport = nettyConfiguration.getTransport();
+
+        if (transport == NettyTransport.NIO) {
+            if (options != NativeTransportOptions.DEFAULT) {
+                log.debug("Ignoring native transport options of listener {} because the NIO transport is used.",
+                        listener.getName());
+            }
+            return;
+        }
+        if (options.isReusePort()) {
+            b.option(UnixChannelOption.SO_REUSEPORT, true);
+        }
+        if (transport == NettyTransport.EPOLL) {
+            b.childOption(EpollChannelOption.EPOLL_MODE,
+                    options.isEdgeTriggered() ? EpollMode.EDGE_TRIGGERED : EpollMode.LEVEL_TRIGGERED);
+            if (options.isTcpQuickAck()) {
+                b.childOption(EpollChannelOption.TCP_QUICKACK, true);
+            }
+        }
+    }
+
     /**
      * Sets all advanced properties
      *
@@ -270,7 +377,10 @@ public class HiveMQNettyBootstrap {
             final int bindPort = ((InetSocketAddress) future.channel().localAddress()).getPort();
             listener.setPort(bindPort);
             if (future.isSuccess()) {
-                settableFuture.set(ListenerStartupInformation.successfulListenerStartup(bindPort, listener));
+                final ListenableFuture<Integer> acceptorThreadsFuture = bindInformation.getAcceptorThreadsFuture();
+                acceptorThreadsFuture.addListener(() -> settableFuture.set(
+                        ListenerStartupInformation.successfulListenerStartup(bindPort, listener,
+                                Futures.getUnchecked(acceptorThreadsFuture))), MoreExecutors.directExecutor());
             } else {
                 settableFuture.set(ListenerStartupInformation.failedListenerStartup(bindPort, listener, future.cause()));
             }
@@ -31,11 +31,13 @@ public class ListenerStartupInformation {
 
     private final boolean successful;
     private final Listener originalListener;
+    private final int acceptorThreads;
 
     private final Optional<Throwable> exception;
 
     private ListenerStartupInformation(final int port, final boolean successful,
                                        @NotNull final Listener originalListener,
+                                       final int acceptorThreads,
                                        @Nullable final Throwable exception) {
 
         checkNotNull(originalListener, "Original Listener must not be null");
@@ -43,6 +45,7 @@ public class ListenerStartupInformation {
         this.port = port;
         this.successful = successful;
         this.originalListener = originalListener;
+        this.acceptorThreads = acceptorThreads;
         this.exception = Optional.ofNullable(exception);
     }
 
@@ -62,11 +65,22 @@ public class ListenerStartupInformation {
         return originalListener;
     }
 
+    /**
+     * @return the amount of acceptor threads the listener was bound with, 0 if the listener could not be started
+     */
+    public int getAcceptorThreads() {
+        return acceptorThreads;
+    }
+
     public static ListenerStartupInformation successfulListenerStartup(final int port, @NotNull final Listener originalListener) {
-        return new ListenerStartupInformation(port, true, originalListener, null);
+        return successfulListenerStartup(port, originalListener, 1);
+    }
+
+    public static ListenerStartupInformation successfulListenerStartup(final int port, @NotNull final Listener originalListener, final int acceptorThreads) {
+        return new ListenerStartupInformation(port, true, originalListener, acceptorThreads, null);
     }
 
     public static ListenerStartupInformation failedListenerStartup(final int port, @NotNull final Listener originalListener, @Nullable final Throwable exception) {
-        return new ListenerStartupInformation(port, false, originalListener, exception);
+        return new ListenerStartupInformation(port, false, originalListener, 0, exception);
     }
 }
@@ -23,6 +23,8 @@ import io.netty.util.concurrent.Future;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -36,6 +38,7 @@ public class NettyShutdownHook implements HiveMQShutdownHook {
     private final int eventLoopsShutdownTimeout;
     private final int connectionPersistenceShutdownTimeout;
     private final @NotNull ConnectionPersistence connectionPersistence;
+    private final @NotNull List<EventLoopGroup> acceptorGroups;
 
     public NettyShutdownHook(
             final @NotNull EventLoopGroup workerGroup,
@@ -43,11 +46,27 @@ public class NettyShutdownHook implements HiveMQShutdownHook {
             final int eventLoopsShutdownTimeout,
             final int connectionPersistenceShutdownTimeout,
             final @NotNull ConnectionPersistence connectionPersistence) {
+        this(workerGroup, bossGroup, eventLoopsShutdownTimeout, connectionPersistenceShutdownTimeout,
+                connectionPersistence, List.of());
+    }
+
+    /**
+     * @param acceptorGroups the event loop groups of listeners with multiple acceptor threads. The list is read when
+     *                       the hook runs, so listeners may add their groups after the hook was created.
+     */
+    public NettyShutdownHook(
+            final @NotNull EventLoopGroup workerGroup,
+            final @NotNull EventLoopGroup bossGroup,
+            final int eventLoopsShutdownTimeout,
+            final int connectionPersistenceShutdownTimeout,
+            final @NotNull ConnectionPersistence connectionPersistence,
+            final @NotNull List<EventLoopGroup> acceptorGroups) {
         this.workerGroup = workerGroup;
         this.bossGroup = bossGroup;
         this.eventLoopsShutdownTimeout = eventLoopsShutdownTimeout;
         this.connectionPersistenceShutdownTimeout = connectionPersistenceShutdownTimeout;
         this.connectionPersistence = connectionPersistence;
+        this.acceptorGroups = acceptorGroups;
     }
 
     @Override
@@ -83,10 +102,18 @@ public class NettyShutdownHook implements HiveMQShutdownHook {
         log.debug("Shutting down worker and boss threads");
         final Future<?> workerFinished = workerGroup.shutdownGracefully(2, eventLoopsShutdownTimeout, TimeUnit.SECONDS); //TimeUnit effects both parameters!
         final Future<?> bossFinished = bossGroup.shutdownGracefully(2, eventLoopsShutdownTimeout, TimeUnit.SECONDS);
+        final List<Future<?>> acceptorsFinished = new ArrayList<>(acceptorGroups.size());
+        for (final EventLoopGroup acceptorGroup : acceptorGroups) {
+            acceptorsFinished.add(acceptorGroup.shutdownGracefully(2, eventLoopsShutdownTimeout, TimeUnit.SECONDS));
+        }
 
         log.trace("Waiting for Worker threads to finish");
         workerFinished.syncUninterruptibly();
         log.trace("Waiting for Boss threads to finish");
         bossFinished.syncUninterruptibly();
+        log.trace("Waiting for Acceptor threads to finish");
+        for (final Future<?> acceptorFinished : acceptorsFinished) {
+            acceptorFinished.syncUninterruptibly();
+        }
     }
 }
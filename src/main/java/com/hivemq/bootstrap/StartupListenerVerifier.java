@@ -85,6 +85,11 @@ public class StartupListenerVerifier {
         builder.append(listener.getBindAddress());
         builder.append(" and on port ");
         builder.append(startupInfo.getPort());
+        if (startupInfo.getAcceptorThreads() > 1) {
+            builder.append(" with ");
+            builder.append(startupInfo.getAcceptorThreads());
+            builder.append(" acceptor threads");
+        }
 
         return builder.toString();
     }
@@ -291,6 +291,11 @@ public class ChannelDependencies {
         return new PublishFlushHandler(metricsHolder);
     }
 
+    @NotNull
+    public FlushCoalescingHandler createFlushCoalescingHandler() {
+        return new FlushCoalescingHandler(metricsHolder);
+    }
+
     @NotNull
     public ShutdownHooks getShutdownHooks() {
         return shutdownHooks;
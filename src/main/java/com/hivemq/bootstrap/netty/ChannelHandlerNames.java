@@ -55,6 +55,7 @@ public class ChannelHandlerNames {
 
     public static final String HTTP_SERVER_CODEC = "http_server_codec";
     public static final String HTTP_OBJECT_AGGREGATOR = "http_object_aggregator";
+    public static final String WEBSOCKET_SERVER_COMPRESSION_HANDLER = "websocket_server_compression_handler";
     public static final String WEBSOCKET_SERVER_PROTOCOL_HANDLER = "websocket_server_protocol_handler";
     public static final String WEBSOCKET_BINARY_FRAME_HANDLER = "websocket_binary_frame_handler";
     public static final String WEBSOCKET_CONTINUATION_FRAME_HANDLER = "websocket_continuation_frame_handler";
@@ -76,6 +77,7 @@ public class ChannelHandlerNames {
 
     public static final String MQTT_MESSAGE_ENCODER = "mqtt_message_encoder";
     public static final String MQTT_WEBSOCKET_ENCODER = "mqtt_websocket_encoder";
+    public static final String FLUSH_COALESCING_HANDLER = "flush_coalescing_handler";
     public static final String MESSAGE_EXPIRY_HANDLER = "message_expiry_handler";
 
     /* *************
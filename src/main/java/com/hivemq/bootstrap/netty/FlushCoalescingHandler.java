@@ -0,0 +1,172 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.bootstrap.netty;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.metrics.MetricsHolder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.hivemq.configuration.service.InternalConfigurations.FLUSH_COALESCING_MAX_DELAY_MICROS;
+import static com.hivemq.configuration.service.InternalConfigurations.FLUSH_COALESCING_MAX_PENDING_BYTES;
+
+/**
+ * Coalesces the flushes of all outgoing messages of a channel, so multiple flushes result in a single write syscall.
+ * <p>
+ * A flush is deferred until the current read of the channel completed or, if the channel is not reading, until the
+ * tasks that are queued on the event loop of the channel were executed. A deferred flush is executed immediately if
+ * the bytes written since the last flush reach {@link
+ * com.hivemq.configuration.service.InternalConfigurations#FLUSH_COALESCING_MAX_PENDING_BYTES} or the first deferred
+ * flush is older than {@link com.hivemq.configuration.service.InternalConfigurations#FLUSH_COALESCING_MAX_DELAY_MICROS}.
+ * <p>
+ * All state is only accessed by the event loop of the channel.
+ */
+public class FlushCoalescingHandler extends ChannelDuplexHandler {
+
+    private final long maxPendingBytes;
+    private final long maxDelayNanos;
+    private final @NotNull Counter flushesSavedCounter;
+    private final @NotNull Histogram bytesPerFlushHistogram;
+    private final @NotNull Runnable flushTask = this::executeScheduledFlush;
+
+    private @Nullable ChannelHandlerContext ctx;
+    private boolean readInProgress;
+    private boolean flushScheduled;
+    private int pendingFlushes;
+    private long pendingBytes;
+    private long firstPendingFlushNanos;
+
+    public FlushCoalescingHandler(final @NotNull MetricsHolder metricsHolder) {
+        maxPendingBytes = FLUSH_COALESCING_MAX_PENDING_BYTES.get();
+        maxDelayNanos = TimeUnit.MICROSECONDS.toNanos(FLUSH_COALESCING_MAX_DELAY_MICROS.get());
+        flushesSavedCounter = metricsHolder.getFlushCoalescingFlushesSavedCounter();
+        bytesPerFlushHistogram = metricsHolder.getFlushCoalescingBytesPerFlushHistogram();
+    }
+
+    @Override
+    public void handlerAdded(final @NotNull ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void handlerRemoved(final @NotNull ChannelHandlerContext ctx) {
+        flushIfPending(ctx);
+    }
+
+    @Override
+    public void write(
+            final @NotNull ChannelHandlerContext ctx, final @NotNull Object msg, final @NotNull ChannelPromise promise) {
+
+        pendingBytes += readableBytes(msg);
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void flush(final @NotNull ChannelHandlerContext ctx) {
+        final long now = System.nanoTime();
+        if (pendingFlushes == 0) {
+            firstPendingFlushNanos = now;
+        }
+        pendingFlushes++;
+        if (pendingBytes >= maxPendingBytes || now - firstPendingFlushNanos >= maxDelayNanos) {
+            flushNow(ctx);
+        } else if (!readInProgress && !flushScheduled) {
+            // a read in progress flushes in channelReadComplete
+            flushScheduled = true;
+            ctx.channel().eventLoop().execute(flushTask);
+        }
+    }
+
+    @Override
+    public void channelRead(final @NotNull ChannelHandlerContext ctx, final @NotNull Object msg) {
+        readInProgress = true;
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void channelReadComplete(final @NotNull ChannelHandlerContext ctx) {
+        // flushes of the handlers that react to the read complete event are coalesced as well
+        ctx.fireChannelReadComplete();
+        readInProgress = false;
+        flushIfPending(ctx);
+    }
+
+    @Override
+    public void channelWritabilityChanged(final @NotNull ChannelHandlerContext ctx) {
+        // the pending bytes must be written for the channel to become writable again
+        if (!ctx.channel().isWritable()) {
+            flushIfPending(ctx);
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void exceptionCaught(final @NotNull ChannelHandlerContext ctx, final @NotNull Throwable cause) {
+        flushIfPending(ctx);
+        ctx.fireExceptionCaught(cause);
+    }
+
+    @Override
+    public void disconnect(final @NotNull ChannelHandlerContext ctx, final @NotNull ChannelPromise promise) {
+        flushIfPending(ctx);
+        ctx.disconnect(promise);
+    }
+
+    @Override
+    public void close(final @NotNull ChannelHandlerContext ctx, final @NotNull ChannelPromise promise) {
+        flushIfPending(ctx);
+        ctx.close(promise);
+    }
+
+    private void executeScheduledFlush() {
+        flushScheduled = false;
+        if (ctx != null) {
+            flushIfPending(ctx);
+        }
+    }
+
+    private void flushIfPending(final @NotNull ChannelHandlerContext ctx) {
+        if (pendingFlushes > 0) {
+            flushNow(ctx);
+        }
+    }
+
+    private void flushNow(final @NotNull ChannelHandlerContext ctx) {
+        flushesSavedCounter.inc(pendingFlushes - 1);
+        bytesPerFlushHistogram.update(pendingBytes);
+        pendingFlushes = 0;
+        pendingBytes = 0;
+        ctx.flush();
+    }
+
+    private static long readableBytes(final @NotNull Object msg) {
+        if (msg instanceof ByteBuf) {
+            return ((ByteBuf) msg).readableBytes();
+        }
+        if (msg instanceof ByteBufHolder) {
+            return ((ByteBufHolder) msg).content().readableBytes();
+        }
+        return 0;
+    }
+}
@@ -38,21 +38,34 @@ public class NettyConfiguration {
 
     private final EventLoopGroup childEventLoopGroup;
 
+    private final NettyTransport transport;
+
 
     public NettyConfiguration(final Class<? extends ServerSocketChannel> serverSocketChannelClass,
                               final Class<? extends SocketChannel> clientSocketChannelClass,
                               final EventLoopGroup parentEventLoopGroup,
                               final EventLoopGroup childEventLoopGroup) {
+        this(serverSocketChannelClass, clientSocketChannelClass, parentEventLoopGroup, childEventLoopGroup,
+                NettyTransport.NIO);
+    }
+
+    public NettyConfiguration(final Class<? extends ServerSocketChannel> serverSocketChannelClass,
+                              final Class<? extends SocketChannel> clientSocketChannelClass,
+                              final EventLoopGroup parentEventLoopGroup,
+                              final EventLoopGroup childEventLoopGroup,
+                              final NettyTransport transport) {
 
         checkNotNull(serverSocketChannelClass, "Server Socket Channel Class must not be null");
         checkNotNull(clientSocketChannelClass, "Client Socket Channel Class must not be null");
         checkNotNull(parentEventLoopGroup, "Parent Event Loop Group must not be null");
         checkNotNull(childEventLoopGroup, "Child Event Loop Group must not be null");
+        checkNotNull(transport, "Transport must not be null");
 
         this.serverSocketChannelClass = serverSocketChannelClass;
         this.clientSocketChannelClass = clientSocketChannelClass;
         this.parentEventLoopGroup = parentEventLoopGroup;
         this.childEventLoopGroup = childEventLoopGroup;
+        this.transport = transport;
     }
 
     public Class<? extends ServerSocketChannel> getServerSocketChannelClass() {
@@ -70,4 +83,11 @@ public class NettyConfiguration {
     public Class<? extends SocketChannel> getClientSocketChannelClass() {
         return clientSocketChannelClass;
     }
+
+    /**
+     * @return the transport that the channels and event loops belong to, never {@link NettyTransport#AUTO}
+     */
+    public NettyTransport getTransport() {
+        return transport;
+    }
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.bootstrap.netty;
+
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.incubator.channel.uring.IOUringEventLoopGroup;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * The Netty transports that HiveMQ can use for its listeners.
+ * <p>
+ * The transport is selected with the system property {@link com.hivemq.configuration.SystemProperties#NETTY_TRANSPORT}.
+ */
+public enum NettyTransport {
+
+    /**
+     * The Java NIO transport, available on all platforms.
+     */
+    NIO("nio"),
+
+    /**
+     * The native epoll transport, only available on Linux.
+     */
+    EPOLL("epoll"),
+
+    /**
+     * The native io_uring transport, only available on Linux with a kernel that supports io_uring.
+     */
+    IO_URING("io_uring"),
+
+    /**
+     * Uses the native epoll transport if it is available and falls back to NIO otherwise.
+     */
+    AUTO("auto");
+
+    private final @NotNull String configName;
+
+    NettyTransport(final @NotNull String configName) {
+        this.configName = configName;
+    }
+
+    public @NotNull String getConfigName() {
+        return configName;
+    }
+
+    /**
+     * Creates an event loop group of this transport.
+     *
+     * @param threads       the amount of threads, 0 for the Netty default
+     * @param threadFactory the factory for the threads of the event loop group
+     * @return the event loop group
+     * @throws IllegalStateException if called on {@link #AUTO}, which has to be resolved to a concrete transport first
+     */
+    public @NotNull EventLoopGroup createEventLoopGroup(final int threads, final @NotNull ThreadFactory threadFactory) {
+        switch (this) {
+            case NIO:
+                return new NioEventLoopGroup(threads, threadFactory);
+            case EPOLL:
+                return new EpollEventLoopGroup(threads, threadFactory);
+            case IO_URING:
+                return new IOUringEventLoopGroup(threads, threadFactory);
+            default:
+                throw new IllegalStateException("The transport " + configName + " must be resolved first.");
+        }
+    }
+
+    /**
+     * @param configName the name of the transport as it is configured.
+     * @return the transport with the given name or null if no transport has the name.
+     */
+    public static @Nullable NettyTransport fromConfigName(final @NotNull String configName) {
+        final String normalized = configName.trim().toLowerCase(Locale.ROOT);
+        for (final NettyTransport transport : values()) {
+            if (transport.configName.equals(normalized)) {
+                return transport;
+            }
+        }
+        return null;
+    }
+}
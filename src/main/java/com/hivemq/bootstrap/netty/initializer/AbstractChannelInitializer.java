@@ -45,6 +45,7 @@ public abstract class AbstractChannelInitializer extends ChannelInitializer<Chan
     private final @NotNull Listener listener;
     private final boolean throttlingEnabled;
     private final boolean legacyNettyShutdown;
+    private final boolean flushCoalescingEnabled;
 
     public AbstractChannelInitializer(
             final @NotNull ChannelDependencies channelDependencies, final @NotNull Listener listener) {
@@ -53,6 +54,7 @@ public abstract class AbstractChannelInitializer extends ChannelInitializer<Chan
         final boolean incomingEnabled = channelDependencies.getRestrictionsConfigurationService().incomingLimit() > 0;
         final boolean outgoingEnabled = InternalConfigurations.OUTGOING_BANDWIDTH_THROTTLING_DEFAULT_BYTES_PER_SEC > 0;
         legacyNettyShutdown = InternalConfigurations.NETTY_SHUTDOWN_LEGACY;
+        flushCoalescingEnabled = InternalConfigurations.FLUSH_COALESCING_ENABLED.get();
         throttlingEnabled = incomingEnabled || outgoingEnabled;
     }
 
@@ -76,6 +78,10 @@ public abstract class AbstractChannelInitializer extends ChannelInitializer<Chan
         clientConnection.setConnectedListener(listener);
 
         ch.pipeline().addLast(ALL_CHANNELS_GROUP_HANDLER, new ChannelGroupHandler(channelDependencies.getChannelGroup()));
+        if (flushCoalescingEnabled) {
+            // close to the head of the pipeline, so the flushes of all outgoing messages are coalesced
+            ch.pipeline().addLast(FLUSH_COALESCING_HANDLER, channelDependencies.createFlushCoalescingHandler());
+        }
         if (throttlingEnabled) {
             ch.pipeline().addLast(GLOBAL_THROTTLING_HANDLER, channelDependencies.getGlobalTrafficShapingHandler());
         }
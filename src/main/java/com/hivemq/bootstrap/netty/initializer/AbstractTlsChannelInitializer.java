@@ -26,6 +26,7 @@ import com.hivemq.security.ssl.SslClientCertificateHandler;
 import com.hivemq.security.ssl.SslExceptionHandler;
 import com.hivemq.security.ssl.SslFactory;
 import com.hivemq.security.ssl.SslSniHandler;
+import com.hivemq.security.ssl.TlsHandshakeMetrics;
 import io.netty.channel.Channel;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslHandler;
@@ -43,6 +44,7 @@ public abstract class AbstractTlsChannelInitializer extends AbstractChannelIniti
     private final @NotNull TlsListener tlsListener;
     private final @NotNull SslFactory sslFactory;
     private final @NotNull ChannelDependencies channelDependencies;
+    private final @NotNull TlsHandshakeMetrics tlsHandshakeMetrics;
 
     public AbstractTlsChannelInitializer(@NotNull final ChannelDependencies channelDependencies,
                                          @NotNull final TlsListener tlsListener,
@@ -52,6 +54,8 @@ public abstract class AbstractTlsChannelInitializer extends AbstractChannelIniti
         this.tlsListener = tlsListener;
         this.sslFactory = sslFactory;
         this.channelDependencies = channelDependencies;
+        tlsHandshakeMetrics = new TlsHandshakeMetrics(channelDependencies.getMetricsHolder().getMetricRegistry(),
+                tlsListener.getName());
     }
 
     @Override
@@ -78,6 +82,7 @@ public abstract class AbstractTlsChannelInitializer extends AbstractChannelIniti
         final Tls tls = tlsListener.getTls();
         final SslContext sslContext = sslFactory.getSslContext(tls);
         final SslHandler sslHandler = sslFactory.getSslHandler(ch, tls, sslContext);
+        tlsHandshakeMetrics.track(sslHandler);
         sslHandler.handshakeFuture().addListener(future -> {
             if (handshakeTimeout > 0) {
                 ch.pipeline().remove(idleStateHandler);
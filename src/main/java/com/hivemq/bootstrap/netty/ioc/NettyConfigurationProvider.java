@@ -15,13 +15,24 @@
  */
 package com.hivemq.bootstrap.netty.ioc;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
-import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.bootstrap.netty.NettyConfiguration;
+import com.hivemq.bootstrap.netty.NettyTransport;
+import com.hivemq.configuration.SystemProperties;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.incubator.channel.uring.IOUring;
+import io.netty.incubator.channel.uring.IOUringServerSocketChannel;
+import io.netty.incubator.channel.uring.IOUringSocketChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.inject.Provider;
 import javax.inject.Singleton;
@@ -31,43 +42,115 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * This Provider creates the configuration for Netty.
+ * <p>
+ * The transport is selected with the system property {@link SystemProperties#NETTY_TRANSPORT}. If a native transport
+ * is selected but not available on this platform, NIO is used instead.
  *
  * @author Dominik Obermaier
  */
 @Singleton
 public class NettyConfigurationProvider implements Provider<NettyConfiguration> {
 
+    private static final Logger log = LoggerFactory.getLogger(NettyConfigurationProvider.class);
+
+    private final @NotNull NettyTransport configuredTransport;
+
+    public NettyConfigurationProvider() {
+        this(configuredTransport(System.getProperty(SystemProperties.NETTY_TRANSPORT)));
+    }
+
+    @VisibleForTesting
+    NettyConfigurationProvider(final @NotNull NettyTransport configuredTransport) {
+        this.configuredTransport = configuredTransport;
+    }
+
     @NotNull
     @Override
     public NettyConfiguration get() {
 
-        final EventLoopGroup parentGroup = createParentEventLoop();
-        final EventLoopGroup childGroup = createChildEventLoop();
+        final NettyTransport transport = resolveTransport(configuredTransport);
+        log.info("Using Netty {} transport.", transport.getConfigName());
+
+        final EventLoopGroup parentGroup = createParentEventLoop(transport);
+        final EventLoopGroup childGroup = createChildEventLoop(transport);
 
-        return new NettyConfiguration(NioServerSocketChannel.class, NioSocketChannel.class, parentGroup, childGroup);
+        switch (transport) {
+            case EPOLL:
+                return new NettyConfiguration(EpollServerSocketChannel.class, EpollSocketChannel.class, parentGroup,
+                        childGroup, transport);
+            case IO_URING:
+                return new NettyConfiguration(IOUringServerSocketChannel.class, IOUringSocketChannel.class,
+                        parentGroup, childGroup, transport);
+            default:
+                return new NettyConfiguration(NioServerSocketChannel.class, NioSocketChannel.class, parentGroup,
+                        childGroup, transport);
+        }
     }
 
     /**
-     * Creates the Parent Eventloop. Creates either a NIO Eventloop or a native Epoll Eventloop with a preference
-     * for native Epoll.
+     * Resolves the configured transport to a transport that is available on this platform.
+     *
+     * @param configuredTransport the configured transport
+     * @return the transport to use, never {@link NettyTransport#AUTO}
+     */
+    @VisibleForTesting
+    static @NotNull NettyTransport resolveTransport(final @NotNull NettyTransport configuredTransport) {
+        switch (configuredTransport) {
+            case AUTO:
+                return Epoll.isAvailable() ? NettyTransport.EPOLL : NettyTransport.NIO;
+            case EPOLL:
+                if (Epoll.isAvailable()) {
+                    return NettyTransport.EPOLL;
+                }
+                log.warn("The Netty epoll transport is not available, falling back to NIO. Reason: {}",
+                        Epoll.unavailabilityCause().getMessage());
+                log.debug("Original Exception:", Epoll.unavailabilityCause());
+                return NettyTransport.NIO;
+            case IO_URING:
+                if (IOUring.isAvailable()) {
+                    return NettyTransport.IO_URING;
+                }
+                log.warn("The Netty io_uring transport is not available, falling back to NIO. Reason: {}",
+                        IOUring.unavailabilityCause().getMessage());
+                log.debug("Original Exception:", IOUring.unavailabilityCause());
+                return NettyTransport.NIO;
+            default:
+                return NettyTransport.NIO;
+        }
+    }
+
+    private static @NotNull NettyTransport configuredTransport(final @Nullable String property) {
+        if (property == null || property.isBlank()) {
+            return NettyTransport.NIO;
+        }
+        final NettyTransport transport = NettyTransport.fromConfigName(property);
+        if (transport == null) {
+            log.warn("Unknown Netty transport '{}' configured with {}, using nio. Valid values are nio, epoll, " +
+                    "io_uring and auto.", property, SystemProperties.NETTY_TRANSPORT);
+            return NettyTransport.NIO;
+        }
+        return transport;
+    }
+
+    /**
+     * Creates the Parent Eventloop for the given transport.
      *
      * @return the Boss EventLoopGroup
      */
     @NotNull
-    private EventLoopGroup createParentEventLoop() {
-        return new NioEventLoopGroup(1, createThreadFactory("hivemq-eventloop-parent-%d"));
+    private EventLoopGroup createParentEventLoop(final @NotNull NettyTransport transport) {
+        return transport.createEventLoopGroup(1, createThreadFactory("hivemq-eventloop-parent-%d"));
     }
 
     /**
-     * Creates the Child Eventloop. Creates either a NIO Eventloop or a native Epoll Eventloop with a preference
-     * for native Epoll.
+     * Creates the Child Eventloop for the given transport.
      *
-     * @return the Boss EventLoopGroup
+     * @return the Worker EventLoopGroup
      */
     @NotNull
-    private EventLoopGroup createChildEventLoop() {
+    private EventLoopGroup createChildEventLoop(final @NotNull NettyTransport transport) {
         //Default Netty Threads.
-        return new NioEventLoopGroup(0, createThreadFactory("hivemq-eventloop-child-%d"));
+        return transport.createEventLoopGroup(0, createThreadFactory("hivemq-eventloop-child-%d"));
     }
 
     /**
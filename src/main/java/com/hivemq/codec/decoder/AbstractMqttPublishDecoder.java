@@ -23,9 +23,12 @@ import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.extension.sdk.api.annotations.Nullable;
 import com.hivemq.mqtt.handler.disconnect.MqttServerDisconnector;
 import com.hivemq.mqtt.message.Message;
+import com.hivemq.mqtt.message.MessageType;
 import com.hivemq.mqtt.message.reason.Mqtt5DisconnectReasonCode;
+import com.hivemq.mqtt.topic.TopicInternPool;
 import com.hivemq.util.Bytes;
 import com.hivemq.util.ReasonStrings;
+import com.hivemq.util.Strings;
 import io.netty.buffer.ByteBuf;
 
 
@@ -36,10 +39,41 @@ public abstract class AbstractMqttPublishDecoder<T extends Message> extends Abst
 
     private static final byte @NotNull [] EMPTY_PAYLOAD = new byte[0];
 
+    private final @NotNull TopicInternPool topicInternPool;
+
     protected AbstractMqttPublishDecoder(
             final @NotNull MqttServerDisconnector disconnector,
-            final @NotNull FullConfigurationService configurationService) {
+            final @NotNull FullConfigurationService configurationService,
+            final @NotNull TopicInternPool topicInternPool) {
         super(disconnector, configurationService);
+        this.topicInternPool = topicInternPool;
+    }
+
+    /**
+     * Decodes the topic of a PUBLISH with a given length. Topics that are present in the {@link TopicInternPool} are
+     * resolved without allocating a new String.
+     *
+     * @param clientConnection the connection of the mqtt client
+     * @param buf              the encoded ByteBuf of the message
+     * @param utf8StringLength length of the topic
+     * @param validate         whether the topic must be validated
+     * @return the topic as String or {@code null} if failed
+     */
+    protected @Nullable String decodePublishTopic(
+            final @NotNull ClientConnection clientConnection,
+            final @NotNull ByteBuf buf,
+            final int utf8StringLength,
+            final boolean validate) {
+
+        final String internedTopic = topicInternPool.intern(buf, buf.readerIndex(), utf8StringLength);
+        if (internedTopic != null) {
+            buf.skipBytes(utf8StringLength);
+            return internedTopic;
+        }
+        if (validate) {
+            return decodeUTF8Topic(clientConnection, buf, utf8StringLength, "topic", MessageType.PUBLISH);
+        }
+        return Strings.getPrefixedString(buf, utf8StringLength);
     }
 
     /**
@@ -28,7 +28,7 @@ import com.hivemq.mqtt.message.MessageType;
 import com.hivemq.mqtt.message.QoS;
 import com.hivemq.mqtt.message.publish.Mqtt3PUBLISH;
 import com.hivemq.mqtt.message.publish.PUBLISHFactory;
-import com.hivemq.util.Strings;
+import com.hivemq.mqtt.topic.TopicInternPool;
 import io.netty.buffer.ByteBuf;
 
 /**
@@ -44,8 +44,9 @@ public class Mqtt3PublishDecoder extends AbstractMqttPublishDecoder<Mqtt3PUBLISH
     public Mqtt3PublishDecoder(
             final @NotNull HivemqId hivemqId,
             final @NotNull MqttServerDisconnector disconnector,
-            final @NotNull FullConfigurationService configurationService) {
-        super(disconnector, configurationService);
+            final @NotNull FullConfigurationService configurationService,
+            final @NotNull TopicInternPool topicInternPool) {
+        super(disconnector, configurationService, topicInternPool);
         this.hivemqId = hivemqId;
     }
 
@@ -73,15 +74,9 @@ public class Mqtt3PublishDecoder extends AbstractMqttPublishDecoder<Mqtt3PUBLISH
             return null;
         }
 
-        final String topicName;
-
-        if (validateUTF8) {
-            topicName = decodeUTF8Topic(clientConnection, buf, utf8StringLength, "topic", MessageType.PUBLISH);
-            if (topicName == null) {
-                return null;
-            }
-        } else {
-            topicName = Strings.getPrefixedString(buf, utf8StringLength);
+        final String topicName = decodePublishTopic(clientConnection, buf, utf8StringLength, validateUTF8);
+        if (topicName == null) {
+            return null;
         }
 
         if (topicInvalid(clientConnection, topicName, MessageType.PUBLISH)) {
@@ -35,6 +35,7 @@ import com.hivemq.mqtt.message.mqtt5.MqttUserProperty;
 import com.hivemq.mqtt.message.publish.Mqtt5PUBLISH;
 import com.hivemq.mqtt.message.publish.PUBLISHFactory.Mqtt5Builder;
 import com.hivemq.mqtt.message.reason.Mqtt5DisconnectReasonCode;
+import com.hivemq.mqtt.topic.TopicInternPool;
 import com.hivemq.util.ReasonStrings;
 import io.netty.buffer.ByteBuf;
 
@@ -57,8 +58,9 @@ public class Mqtt5PublishDecoder extends AbstractMqttPublishDecoder<Mqtt5PUBLISH
             final @NotNull MqttServerDisconnector disconnector,
             final @NotNull HivemqId hiveMQId,
             final @NotNull FullConfigurationService fullConfigurationService,
-            final @NotNull TopicAliasLimiter topicAliasLimiter) {
-        super(disconnector, fullConfigurationService);
+            final @NotNull TopicAliasLimiter topicAliasLimiter,
+            final @NotNull TopicInternPool topicInternPool) {
+        super(disconnector, fullConfigurationService, topicInternPool);
         this.hiveMQId = hiveMQId;
         this.topicAliasLimiter = topicAliasLimiter;
         validatePayloadFormat = fullConfigurationService.securityConfiguration().payloadFormatValidation();
@@ -83,7 +85,12 @@ public class Mqtt5PublishDecoder extends AbstractMqttPublishDecoder<Mqtt5PUBLISH
             return null;
         }
 
-        String topicName = decodeUTF8Topic(clientConnection, buf, "topic", MessageType.PUBLISH);
+        final int utf8StringLength = decodeUTF8StringLength(clientConnection, buf, "topic", MessageType.PUBLISH);
+        if (utf8StringLength == DISCONNECTED) {
+            return null;
+        }
+
+        String topicName = decodePublishTopic(clientConnection, buf, utf8StringLength, true);
         if (topicName == null) {
             return null;
         }
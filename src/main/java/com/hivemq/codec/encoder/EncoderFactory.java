@@ -19,6 +19,7 @@ import com.google.inject.Inject;
 import com.hivemq.bootstrap.ClientConnection;
 import com.hivemq.codec.encoder.mqtt3.*;
 import com.hivemq.codec.encoder.mqtt5.*;
+import com.hivemq.configuration.service.InternalConfigurations;
 import com.hivemq.configuration.service.SecurityConfigurationService;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.extension.sdk.api.annotations.Nullable;
@@ -38,6 +39,8 @@ import com.hivemq.mqtt.message.pubrel.PUBREL;
 import com.hivemq.mqtt.message.suback.SUBACK;
 import com.hivemq.mqtt.message.unsuback.UNSUBACK;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -56,6 +59,8 @@ public class EncoderFactory {
 
     private final @NotNull Mqtt5EncoderFactory mqtt5Instance;
     private final @NotNull Mqtt3EncoderFactory mqtt3Instance;
+    private final @NotNull SharedPayloadBufferCache sharedPayloadBufferCache;
+    private final @NotNull PublishFrameCache publishFrameCache;
 
     @Inject
     public EncoderFactory(
@@ -64,6 +69,11 @@ public class EncoderFactory {
             final @NotNull MqttServerDisconnector mqttServerDisconnector) {
         mqtt5Instance = new Mqtt5EncoderFactory(messageDroppedService, securityConfigurationService);
         mqtt3Instance = new Mqtt3EncoderFactory(mqttServerDisconnector);
+        sharedPayloadBufferCache = new SharedPayloadBufferCache(PooledByteBufAllocator.DEFAULT,
+                InternalConfigurations.PUBLISH_PAYLOAD_SHARED_BUFFER_CACHE_SIZE_BYTES.get(),
+                InternalConfigurations.PUBLISH_PAYLOAD_SHARED_BUFFER_EXPIRY_MSEC.get());
+        publishFrameCache = new PublishFrameCache(InternalConfigurations.PUBLISH_FRAME_CACHE_SIZE_BYTES.get(),
+                InternalConfigurations.PUBLISH_FRAME_CACHE_EXPIRY_MSEC.get());
     }
 
     /**
@@ -84,6 +94,113 @@ public class EncoderFactory {
         }
     }
 
+    /**
+     * @param publish the PUBLISH to encode
+     * @return true if the payload of the PUBLISH should be encoded as a shared buffer with
+     *         {@link #encodeWithSharedPayload}
+     */
+    public boolean isSharedPayloadEncoding(final @NotNull PUBLISH publish) {
+        if (!InternalConfigurations.PUBLISH_PAYLOAD_SHARED_BUFFER_ENABLED.get()) {
+            return false;
+        }
+        final byte[] payload = publish.getPayload();
+        return payload != null &&
+                payload.length >= InternalConfigurations.PUBLISH_PAYLOAD_SHARED_BUFFER_THRESHOLD_BYTES.get();
+    }
+
+    /**
+     * Encodes the PUBLISH into a composite buffer that consists of the encoded header and a shared buffer for the
+     * payload, so the payload is not copied for every subscriber.
+     *
+     * @param clientConnection the {@link ClientConnection} of the client
+     * @param publish          the PUBLISH to encode, its payload must not be null
+     * @param allocator        the allocator for the header and the composite buffer
+     * @return the encoded PUBLISH or null if the PUBLISH exceeds the maximum packet size of the client and was dropped
+     */
+    public @Nullable ByteBuf encodeWithSharedPayload(
+            final @NotNull ClientConnection clientConnection,
+            final @NotNull PUBLISH publish,
+            final @NotNull ByteBufAllocator allocator) {
+
+        final byte[] payload = publish.getPayload();
+        final boolean mqtt5 = clientConnection.getProtocolVersion() == ProtocolVersion.MQTTv5;
+        final MqttEncoder encoder = mqtt5 ? mqtt5Instance.mqtt5PublishEncoder : mqtt3Instance.publishEncoder;
+
+        final int bufferSize = encoder.bufferSize(clientConnection, publish);
+        final ByteBuf header = allocator.ioBuffer(Math.max(bufferSize - payload.length, 0));
+        boolean encoded = false;
+        try {
+            if (mqtt5) {
+                encoded = mqtt5Instance.mqtt5PublishEncoder.encodeHeader(clientConnection, publish, header);
+            } else {
+                mqtt3Instance.publishEncoder.encodeHeader(publish, header);
+                encoded = true;
+            }
+        } finally {
+            if (!encoded) {
+                header.release();
+            }
+        }
+        if (!encoded) {
+            return null;
+        }
+        final ByteBuf payloadBuffer = sharedPayloadBufferCache.retainedPayload(publish.getPublishId(), payload);
+        return allocator.compositeDirectBuffer(2).addComponents(true, header, payloadBuffer);
+    }
+
+    /**
+     * @param clientConnection the {@link ClientConnection} of the client
+     * @return true if outgoing PUBLISHes should be encoded with {@link #encodeWithFrameCache}, which is not possible
+     *         if the client uses outgoing topic aliases as the frames then differ per client
+     */
+    public boolean isFrameCacheEncoding(final @NotNull ClientConnection clientConnection) {
+        return InternalConfigurations.PUBLISH_FRAME_CACHE_ENABLED.get() &&
+                clientConnection.getOutboundTopicAliasMapping() == null;
+    }
+
+    /**
+     * Encodes the PUBLISH from the cached frame of a previous subscriber of the same PUBLISH with only the packet
+     * identifier encoded for this client. If no frame is cached yet, the PUBLISH is encoded and its frame is cached.
+     *
+     * @param clientConnection the {@link ClientConnection} of the client
+     * @param publish          the PUBLISH to encode
+     * @param allocator        the allocator for the encoded PUBLISH
+     * @return the encoded PUBLISH or null if the PUBLISH exceeds the maximum packet size of the client and was dropped
+     */
+    public @Nullable ByteBuf encodeWithFrameCache(
+            final @NotNull ClientConnection clientConnection,
+            final @NotNull PUBLISH publish,
+            final @NotNull ByteBufAllocator allocator) {
+
+        final ProtocolVersion protocolVersion = clientConnection.getProtocolVersion();
+        final ByteBuf cached = publishFrameCache.retainedFrame(publish, protocolVersion, allocator);
+        if (cached != null) {
+            final Long maximumPacketSize = clientConnection.getMaxPacketSizeSend();
+            if (maximumPacketSize == null || cached.readableBytes() <= maximumPacketSize) {
+                return cached;
+            }
+            // encode the PUBLISH for this client, so it is dropped the same way as without the cache
+            cached.release();
+        }
+
+        final MqttEncoder encoder = getEncoder(publish, clientConnection);
+        final ByteBuf frame = allocator.ioBuffer(encoder.bufferSize(clientConnection, publish));
+        boolean encoded = false;
+        try {
+            encoder.encode(clientConnection, publish, frame);
+            encoded = frame.isReadable();
+        } finally {
+            if (!encoded) {
+                frame.release();
+            }
+        }
+        if (!encoded) {
+            return null;
+        }
+        publishFrameCache.put(publish, protocolVersion, frame);
+        return frame;
+    }
+
     /**
      * This method finds the Mqtt encoder depending on the message and the protocol version.
      *
@@ -21,9 +21,13 @@ import com.hivemq.bootstrap.ClientConnection;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.metrics.handler.GlobalMQTTMessageCounter;
 import com.hivemq.mqtt.message.Message;
+import com.hivemq.mqtt.message.publish.PUBLISH;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.EncoderException;
 import io.netty.handler.codec.MessageToByteEncoder;
 
 /**
@@ -43,6 +47,56 @@ public class MQTTMessageEncoder extends MessageToByteEncoder<Message> {
         this.globalMQTTMessageCounter = globalMQTTMessageCounter;
     }
 
+    @Override
+    public void write(
+            final @NotNull ChannelHandlerContext ctx, final @NotNull Object msg, final @NotNull ChannelPromise promise)
+            throws Exception {
+
+        if (msg instanceof PUBLISH) {
+            final PUBLISH publish = (PUBLISH) msg;
+            final ClientConnection clientConnection =
+                    ctx.channel().attr(ClientConnection.CHANNEL_ATTRIBUTE_NAME).get();
+            if (encoderFactory.isFrameCacheEncoding(clientConnection)) {
+                writePublish(ctx, clientConnection, publish, promise, true);
+                return;
+            }
+            if (encoderFactory.isSharedPayloadEncoding(publish)) {
+                writePublish(ctx, clientConnection, publish, promise, false);
+                return;
+            }
+        }
+        super.write(ctx, msg, promise);
+    }
+
+    private void writePublish(
+            final @NotNull ChannelHandlerContext ctx,
+            final @NotNull ClientConnection clientConnection,
+            final @NotNull PUBLISH publish,
+            final @NotNull ChannelPromise promise,
+            final boolean frameCache) {
+
+        final ByteBuf buf;
+        try {
+            globalMQTTMessageCounter.countOutbound(publish);
+            if (frameCache) {
+                buf = encoderFactory.encodeWithFrameCache(clientConnection, publish, ctx.alloc());
+            } else {
+                buf = encoderFactory.encodeWithSharedPayload(clientConnection, publish, ctx.alloc());
+            }
+        } catch (final EncoderException e) {
+            throw e;
+        } catch (final Throwable t) {
+            throw new EncoderException(t);
+        }
+        if (buf == null) {
+            //the PUBLISH was dropped, we still complete the promise like the MessageToByteEncoder does
+            ctx.write(Unpooled.EMPTY_BUFFER, promise);
+            return;
+        }
+        globalMQTTMessageCounter.countOutboundTraffic(buf.readableBytes());
+        ctx.write(buf, promise);
+    }
+
     @Override
     protected void encode(
             final @NotNull ChannelHandlerContext ctx, final @NotNull Message msg, final @NotNull ByteBuf out) {
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.codec.encoder;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.Weigher;
+import com.google.common.primitives.ImmutableIntArray;
+import com.hivemq.codec.encoder.mqtt5.Mqtt5PayloadFormatIndicator;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.mqtt.message.ProtocolVersion;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.mqtt5.Mqtt5UserProperties;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the encoded frames of outgoing PUBLISHes, so a PUBLISH that is sent to many subscribers with the same QoS,
+ * protocol version and properties is encoded once and the frame of every further subscriber only consists of slices of
+ * the cached frame and its own packet identifier.
+ * <p>
+ * The cache holds one reference of each frame and every outgoing frame holds its own reference, so a frame is released
+ * after it was evicted from the cache and the last outgoing frame that contains it was written.
+ * <p>
+ * Entries are keyed by the publish id and all values that differ between the subscribers of a PUBLISH. As extensions
+ * may modify a single outgoing PUBLISH without changing its publish id, the cached frame is only used if it was
+ * encoded from the same topic, payload and properties. Payloads are compared by identity, as the subscribers of a
+ * PUBLISH share its payload array and comparing the content would cost as much for every subscriber as the encoding.
+ */
+class PublishFrameCache {
+
+    private final @NotNull Cache<Key, Entry> entries;
+
+    PublishFrameCache(final long maximumSizeBytes, final long expiryMsec) {
+        entries = CacheBuilder.newBuilder()
+                .maximumWeight(maximumSizeBytes)
+                .weigher((Weigher<Key, Entry>) (key, entry) -> entry.weight())
+                .expireAfterAccess(expiryMsec, TimeUnit.MILLISECONDS)
+                .removalListener((RemovalListener<Key, Entry>) notification -> notification.getValue().frame.release())
+                .build();
+    }
+
+    /**
+     * @param publish         the PUBLISH to encode.
+     * @param protocolVersion the protocol version of the client.
+     * @param allocator       the allocator for the packet identifier of the client.
+     * @return the encoded frame of the PUBLISH with the packet identifier of the PUBLISH or null if no matching frame is
+     *         cached, the caller is responsible for releasing it.
+     */
+    @Nullable ByteBuf retainedFrame(
+            final @NotNull PUBLISH publish,
+            final @NotNull ProtocolVersion protocolVersion,
+            final @NotNull ByteBufAllocator allocator) {
+
+        final Entry[] matched = new Entry[1];
+        final ByteBuf[] retained = new ByteBuf[1];
+        // the frame is retained while its entry is locked, so an eviction can only release it after the retain
+        entries.asMap().computeIfPresent(new Key(publish, protocolVersion), (key, entry) -> {
+            if (entry.matches(publish)) {
+                matched[0] = entry;
+                retained[0] = entry.frame.retainedDuplicate();
+            }
+            return entry;
+        });
+        final ByteBuf frame = retained[0];
+        if (frame == null) {
+            return null;
+        }
+        if (publish.getQoS() == QoS.AT_MOST_ONCE) {
+            return frame;
+        }
+        final int packetIdentifierIndex = matched[0].packetIdentifierIndex;
+        final int tailIndex = packetIdentifierIndex + 2;
+        final ByteBuf packetIdentifier = allocator.ioBuffer(2, 2).writeShort(publish.getPacketIdentifier());
+        // the head slice owns the reference of the duplicate, the tail slice its own
+        final ByteBuf head = frame.slice(0, packetIdentifierIndex);
+        final ByteBuf tail = frame.retainedSlice(tailIndex, frame.readableBytes() - tailIndex);
+        return allocator.compositeDirectBuffer(3).addComponents(true, head, packetIdentifier, tail);
+    }
+
+    /**
+     * Caches the encoded frame of the PUBLISH. The frame is not modified and stays owned by the caller.
+     *
+     * @param publish         the encoded PUBLISH.
+     * @param protocolVersion the protocol version the PUBLISH was encoded for.
+     * @param frame           the encoded frame of the PUBLISH.
+     */
+    void put(
+            final @NotNull PUBLISH publish,
+            final @NotNull ProtocolVersion protocolVersion,
+            final @NotNull ByteBuf frame) {
+
+        // the frame is only retained if the entry is added, an already cached frame keeps its entry
+        entries.asMap()
+                .computeIfAbsent(new Key(publish, protocolVersion),
+                        key -> new Entry(publish, frame.retainedDuplicate(), packetIdentifierIndex(frame)));
+    }
+
+    @VisibleForTesting
+    long size() {
+        entries.cleanUp();
+        return entries.size();
+    }
+
+    @VisibleForTesting
+    void invalidateAll() {
+        entries.invalidateAll();
+        entries.cleanUp();
+    }
+
+    /**
+     * The packet identifier directly follows the fixed header and the length prefixed topic.
+     */
+    private static int packetIdentifierIndex(final @NotNull ByteBuf frame) {
+        int index = frame.readerIndex() + 1;
+        // skip the variable byte integer of the remaining length
+        byte encodedByte;
+        do {
+            encodedByte = frame.getByte(index++);
+        } while ((encodedByte & 0x80) != 0);
+        return index + 2 + frame.getUnsignedShort(index) - frame.readerIndex();
+    }
+
+    private static class Key {
+
+        private final long publishId;
+        private final @NotNull ProtocolVersion protocolVersion;
+        private final @NotNull QoS qos;
+        private final boolean duplicateDelivery;
+        private final boolean retain;
+        private final long messageExpiryInterval;
+        private final @Nullable ImmutableIntArray subscriptionIdentifiers;
+        private final int hashCode;
+
+        Key(final @NotNull PUBLISH publish, final @NotNull ProtocolVersion protocolVersion) {
+            publishId = publish.getPublishId();
+            this.protocolVersion = protocolVersion;
+            qos = publish.getQoS();
+            duplicateDelivery = publish.isDuplicateDelivery();
+            retain = publish.isRetain();
+            messageExpiryInterval = publish.getMessageExpiryInterval();
+            subscriptionIdentifiers = publish.getSubscriptionIdentifiers();
+            hashCode = Objects.hash(publishId, protocolVersion, qos, duplicateDelivery, retain, messageExpiryInterval,
+                    subscriptionIdentifiers);
+        }
+
+        @Override
+        public boolean equals(final @Nullable Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key that = (Key) o;
+            return publishId == that.publishId &&
+                    duplicateDelivery == that.duplicateDelivery &&
+                    retain == that.retain &&
+                    messageExpiryInterval == that.messageExpiryInterval &&
+                    protocolVersion == that.protocolVersion &&
+                    qos == that.qos &&
+                    Objects.equals(subscriptionIdentifiers, that.subscriptionIdentifiers);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static class Entry {
+
+        private final @NotNull String topic;
+        private final byte @Nullable [] payload;
+        private final @NotNull Mqtt5UserProperties userProperties;
+        private final @Nullable Mqtt5PayloadFormatIndicator payloadFormatIndicator;
+        private final @Nullable String contentType;
+        private final @Nullable String responseTopic;
+        private final byte @Nullable [] correlationData;
+        private final @NotNull ByteBuf frame;
+        private final int packetIdentifierIndex;
+
+        Entry(final @NotNull PUBLISH publish, final @NotNull ByteBuf frame, final int packetIdentifierIndex) {
+            topic = publish.getTopic();
+            payload = publish.getPayload();
+            userProperties = publish.getUserProperties();
+            payloadFormatIndicator = publish.getPayloadFormatIndicator();
+            contentType = publish.getContentType();
+            responseTopic = publish.getResponseTopic();
+            correlationData = publish.getCorrelationData();
+            this.frame = frame;
+            this.packetIdentifierIndex = packetIdentifierIndex;
+        }
+
+        boolean matches(final @NotNull PUBLISH publish) {
+            return topic.equals(publish.getTopic()) &&
+                    payload == publish.getPayload() &&
+                    userProperties.equals(publish.getUserProperties()) &&
+                    payloadFormatIndicator == publish.getPayloadFormatIndicator() &&
+                    Objects.equals(contentType, publish.getContentType()) &&
+                    Objects.equals(responseTopic, publish.getResponseTopic()) &&
+                    Arrays.equals(correlationData, publish.getCorrelationData());
+        }
+
+        /**
+         * @return the weight of the entry, which also retains the payload of the PUBLISH besides its frame.
+         */
+        int weight() {
+            return frame.readableBytes() + (payload == null ? 0 : payload.length);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.codec.encoder;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.Weigher;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the payloads of outgoing PUBLISHes as direct buffers, so a payload that is sent to many subscribers is copied
+ * into a direct buffer once and then added to the frame of every subscriber without copying it again.
+ * <p>
+ * The cache holds one reference of each buffer and every outgoing frame holds its own reference, so a buffer is
+ * released after it was evicted from the cache and the last frame that contains it was written.
+ * <p>
+ * Entries are keyed by the publish id and only used for the same payload array the buffer was created from. As
+ * extensions may modify the payload of a single outgoing PUBLISH without changing its publish id, a different payload
+ * array is encoded from its own buffer instead of comparing its content with the cached payload.
+ * <p>
+ * A buffer is only retained while its entry is locked in the cache, so an eviction can only release the reference of
+ * the cache after all retains of the entry.
+ */
+class SharedPayloadBufferCache {
+
+    private final @NotNull ByteBufAllocator allocator;
+    private final @NotNull Cache<Long, Entry> entries;
+
+    SharedPayloadBufferCache(
+            final @NotNull ByteBufAllocator allocator, final long maximumSizeBytes, final long expiryMsec) {
+        this.allocator = allocator;
+        entries = CacheBuilder.newBuilder()
+                .maximumWeight(maximumSizeBytes)
+                .weigher((Weigher<Long, Entry>) (publishId, entry) -> entry.payload.length)
+                .expireAfterAccess(expiryMsec, TimeUnit.MILLISECONDS)
+                .removalListener((RemovalListener<Long, Entry>) notification -> notification.getValue().buffer.release())
+                .build();
+    }
+
+    /**
+     * @param publishId the publish id of the PUBLISH.
+     * @param payload   the payload of the PUBLISH.
+     * @return a retained duplicate of the shared buffer for the payload, the caller is responsible for releasing it.
+     */
+    @NotNull ByteBuf retainedPayload(final long publishId, final byte @NotNull [] payload) {
+        final ByteBuf[] retained = new ByteBuf[1];
+        entries.asMap().compute(publishId, (id, entry) -> {
+            if (entry == null) {
+                entry = new Entry(payload, copy(payload));
+            }
+            if (entry.payload == payload) {
+                retained[0] = entry.buffer.retainedDuplicate();
+            }
+            return entry;
+        });
+        if (retained[0] == null) {
+            // a different payload for the same publish id is not cached, so it does not evict the shared buffer
+            return copy(payload);
+        }
+        return retained[0];
+    }
+
+    @VisibleForTesting
+    long size() {
+        entries.cleanUp();
+        return entries.size();
+    }
+
+    @VisibleForTesting
+    void invalidateAll() {
+        entries.invalidateAll();
+        entries.cleanUp();
+    }
+
+    private @NotNull ByteBuf copy(final byte @NotNull [] payload) {
+        return allocator.directBuffer(payload.length, payload.length).writeBytes(payload);
+    }
+
+    private static class Entry {
+
+        private final byte @NotNull [] payload;
+        private final @NotNull ByteBuf buffer;
+
+        Entry(final byte @NotNull [] payload, final @NotNull ByteBuf buffer) {
+            this.payload = payload;
+            this.buffer = buffer;
+        }
+    }
+}
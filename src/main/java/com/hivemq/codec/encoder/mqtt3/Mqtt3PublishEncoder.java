@@ -35,6 +35,18 @@ public class Mqtt3PublishEncoder extends AbstractVariableHeaderLengthEncoder<Mqt
             final @NotNull Mqtt3PUBLISH msg,
             final @NotNull ByteBuf out) {
 
+        encodeHeader(msg, out);
+        out.writeBytes(msg.getPayload());
+    }
+
+    /**
+     * Encodes the PUBLISH without its payload. The payload has to be written directly after the header.
+     *
+     * @param msg the PUBLISH to encode
+     * @param out the {@link ByteBuf} into which the header will be written
+     */
+    public void encodeHeader(final @NotNull Mqtt3PUBLISH msg, final @NotNull ByteBuf out) {
+
         byte header = PUBLISH_FIXED_HEADER;
         final int qos = msg.getQoS().getQosNumber();
         if (msg.isDuplicateDelivery()) {
@@ -53,7 +65,6 @@ public class Mqtt3PublishEncoder extends AbstractVariableHeaderLengthEncoder<Mqt
         if (qos > 0) {
             out.writeShort(msg.getPacketIdentifier());
         }
-        out.writeBytes(msg.getPayload());
     }
 
     protected int remainingLength(final @NotNull Mqtt3PUBLISH msg) {
@@ -72,6 +72,21 @@ abstract class Mqtt5MessageWithUserPropertiesEncoder<T extends Message> implemen
         Preconditions.checkNotNull(msg, "Message must never be null");
         Preconditions.checkNotNull(out, "ByteBuf must never be null");
 
+        if (isEncodable(clientConnection, msg)) {
+            encode(msg, out);
+        }
+    }
+
+    /**
+     * Checks if the message can be encoded within the maximum packet size of the client.
+     *
+     * @param clientConnection the {@link ClientConnection} of the client
+     * @param msg              the message to encode
+     * @return false if the message is a PUBLISH that exceeds the maximum packet size and was dropped
+     * @throws EncoderException if any other message exceeds the maximum packet size
+     */
+    boolean isEncodable(final @NotNull ClientConnection clientConnection, final @NotNull T msg) {
+
         if (msg.getOmittedProperties() > 0) {
 
             final String clientIdFromChannel = clientConnection.getClientId();
@@ -87,7 +102,7 @@ abstract class Mqtt5MessageWithUserPropertiesEncoder<T extends Message> implemen
                 if (log.isTraceEnabled()) {
                     log.trace("Could not encode publish message for client ({}): Maximum packet size limit exceeded", clientId);
                 }
-                return;
+                return false;
             }
 
             if (msg.getPropertyLength() < 0 && msg.getEncodedLength() > maximumPacketSize) {
@@ -98,8 +113,7 @@ abstract class Mqtt5MessageWithUserPropertiesEncoder<T extends Message> implemen
                 throw new EncoderException("Maximum packet size exceeded");
             }
         }
-
-        encode(msg, out);
+        return true;
     }
 
     @Override
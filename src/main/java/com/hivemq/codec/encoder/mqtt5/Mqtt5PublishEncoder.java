@@ -16,8 +16,10 @@
 package com.hivemq.codec.encoder.mqtt5;
 
 import com.google.common.primitives.ImmutableIntArray;
+import com.hivemq.bootstrap.ClientConnection;
 import com.hivemq.configuration.service.SecurityConfigurationService;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
 import com.hivemq.mqtt.message.MessageType;
 import com.hivemq.mqtt.message.QoS;
 import com.hivemq.mqtt.message.dropping.MessageDroppedService;
@@ -30,6 +32,7 @@ import javax.inject.Singleton;
 import static com.hivemq.codec.encoder.mqtt5.Mqtt5MessageEncoderUtil.*;
 import static com.hivemq.configuration.entity.mqtt.MqttConfigurationDefaults.MAX_EXPIRY_INTERVAL_DEFAULT;
 import static com.hivemq.mqtt.message.mqtt5.MessageProperties.*;
+import static com.hivemq.mqtt.message.publish.PUBLISH.DEFAULT_NO_TOPIC_ALIAS;
 
 /**
  * @author Silvio Giebl
@@ -46,6 +49,18 @@ public class Mqtt5PublishEncoder extends Mqtt5MessageWithUserPropertiesEncoder<P
         super(messageDroppedService, securityConfigurationService);
     }
 
+    @Override
+    public void encode(
+            final @NotNull ClientConnection clientConnection,
+            final @NotNull PUBLISH publish,
+            final @NotNull ByteBuf out) {
+
+        if (isEncodable(clientConnection, publish)) {
+            useTopicAlias(clientConnection, publish);
+            encode(publish, out);
+        }
+    }
+
     @Override
     void encode(final @NotNull PUBLISH publish, final @NotNull ByteBuf out) {
         encodeFixedHeader(publish, out);
@@ -53,12 +68,66 @@ public class Mqtt5PublishEncoder extends Mqtt5MessageWithUserPropertiesEncoder<P
         encodePayload(publish, out);
     }
 
+    /**
+     * Encodes the PUBLISH without its payload. The payload has to be written directly after the header.
+     *
+     * @param clientConnection the {@link ClientConnection} of the client
+     * @param publish          the PUBLISH to encode
+     * @param out              the {@link ByteBuf} into which the header will be written
+     * @return false if the PUBLISH exceeds the maximum packet size of the client and was dropped
+     */
+    public boolean encodeHeader(
+            final @NotNull ClientConnection clientConnection,
+            final @NotNull PUBLISH publish,
+            final @NotNull ByteBuf out) {
+
+        if (!isEncodable(clientConnection, publish)) {
+            return false;
+        }
+        useTopicAlias(clientConnection, publish);
+        encodeFixedHeader(publish, out);
+        encodeVariableHeader(publish, out);
+        return true;
+    }
+
+    @Override
+    public int bufferSize(final @NotNull ClientConnection clientConnection, final @NotNull PUBLISH publish) {
+        prepareTopicAlias(clientConnection.getOutboundTopicAliasMapping(), publish);
+        return super.bufferSize(clientConnection, publish);
+    }
+
+    /**
+     * Decides with which outbound topic alias the PUBLISH is encoded. The alias is only assigned to the topic in
+     * {@link #useTopicAlias} once the PUBLISH is actually encoded, as it may still be dropped.
+     */
+    private static void prepareTopicAlias(
+            final @Nullable OutboundTopicAliasMapping topicAliasMapping, final @NotNull PUBLISH publish) {
+
+        if (topicAliasMapping == null) {
+            publish.setTopicAlias(DEFAULT_NO_TOPIC_ALIAS, false);
+            return;
+        }
+        final int alias = topicAliasMapping.getAlias(publish.getTopic());
+        if (alias != DEFAULT_NO_TOPIC_ALIAS) {
+            publish.setTopicAlias(alias, true);
+        } else {
+            publish.setTopicAlias(topicAliasMapping.nextAlias(), false);
+        }
+    }
+
+    private static void useTopicAlias(final @NotNull ClientConnection clientConnection, final @NotNull PUBLISH publish) {
+        final OutboundTopicAliasMapping topicAliasMapping = clientConnection.getOutboundTopicAliasMapping();
+        if (topicAliasMapping != null && publish.getTopicAlias() != DEFAULT_NO_TOPIC_ALIAS) {
+            topicAliasMapping.use(publish.getTopic(), publish.getTopicAlias(), publish.isTopicOmitted());
+        }
+    }
+
     @Override
     int calculateRemainingLengthWithoutProperties(final @NotNull PUBLISH publish) {
 
         int remainingLength = 0;
 
-        remainingLength += MqttBinaryData.encodedLength(publish.getTopic());
+        remainingLength += publish.isTopicOmitted() ? 2 : MqttBinaryData.encodedLength(publish.getTopic());
 
         //packetIdentifier
         if (publish.getQoS() != QoS.AT_MOST_ONCE) {
@@ -100,6 +169,7 @@ public class Mqtt5PublishEncoder extends Mqtt5MessageWithUserPropertiesEncoder<P
         int propertyLength = 0;
 
         propertyLength += intPropertyEncodedLength(publish.getMessageExpiryInterval(), MAX_EXPIRY_INTERVAL_DEFAULT);
+        propertyLength += shortPropertyEncodedLength(publish.getTopicAlias(), DEFAULT_NO_TOPIC_ALIAS);
         propertyLength += nullablePropertyEncodedLength(publish.getPayloadFormatIndicator());
         propertyLength += nullablePropertyEncodedLength(publish.getContentType());
         propertyLength += nullablePropertyEncodedLength(publish.getResponseTopic());
@@ -126,7 +196,11 @@ public class Mqtt5PublishEncoder extends Mqtt5MessageWithUserPropertiesEncoder<P
 
     private void encodeVariableHeader(final @NotNull PUBLISH publish, final @NotNull ByteBuf out) {
 
-        MqttBinaryData.encode(publish.getTopic(), out);
+        if (publish.isTopicOmitted()) {
+            MqttBinaryData.encodeEmpty(out);
+        } else {
+            MqttBinaryData.encode(publish.getTopic(), out);
+        }
 
         if (publish.getQoS() != QoS.AT_MOST_ONCE) {
             out.writeShort(publish.getPacketIdentifier());
@@ -151,6 +225,7 @@ public class Mqtt5PublishEncoder extends Mqtt5MessageWithUserPropertiesEncoder<P
 
     private static void encodeFixedProperties(final @NotNull PUBLISH publish, final @NotNull ByteBuf out) {
         encodeIntProperty(MESSAGE_EXPIRY_INTERVAL, publish.getMessageExpiryInterval(), MAX_EXPIRY_INTERVAL_DEFAULT, out);
+        encodeShortProperty(TOPIC_ALIAS, publish.getTopicAlias(), DEFAULT_NO_TOPIC_ALIAS, out);
         encodeNullableProperty(PAYLOAD_FORMAT_INDICATOR, publish.getPayloadFormatIndicator(), out);
         encodeNullableProperty(CONTENT_TYPE, publish.getContentType(), out);
         encodeNullableProperty(RESPONSE_TOPIC, publish.getResponseTopic(), out);
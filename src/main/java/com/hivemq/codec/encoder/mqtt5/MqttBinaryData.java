@@ -57,14 +57,16 @@ public final class MqttBinaryData {
     }
 
     public static @Nullable String decodeString(final @NotNull ByteBuf byteBuf, final boolean validateUTF8) {
-        final byte[] binary = decode(byteBuf);
-        if (binary != null && Utf8Utils.containsMustNotCharacters(binary)) {
+        if (byteBuf.readableBytes() < EMPTY_LENGTH) {
             return null;
         }
-        if (binary != null && validateUTF8 && Utf8Utils.hasControlOrNonCharacter(binary)) {
+        final int length = byteBuf.readUnsignedShort();
+        if (byteBuf.readableBytes() < length) {
             return null;
         }
-        return (binary == null) ? null : new String(binary, StandardCharsets.UTF_8);
+        final String string = Utf8Utils.decodeValidated(byteBuf, byteBuf.readerIndex(), length, validateUTF8);
+        byteBuf.skipBytes(length);
+        return string;
     }
 
     /**
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.codec.encoder.mqtt5;
+
+import com.codahale.metrics.Counter;
+import com.google.common.base.Preconditions;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.limitation.TopicAliasLimiter;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+
+import java.util.LinkedHashMap;
+
+/**
+ * The topic aliases the broker assigned to the topics of outgoing PUBLISHes of a MQTT 5 client.
+ * <p>
+ * The number of aliases is bounded by the topic alias maximum of the client. If all aliases are assigned, the alias of
+ * the least recently used topic is replaced. The memory of the mapping is accounted in the {@link TopicAliasLimiter}
+ * the same way as the mapping of incoming topic aliases.
+ * <p>
+ * The mapping is only accessed by the event loop of the channel of the client and is therefore not thread safe.
+ */
+public class OutboundTopicAliasMapping {
+
+    public static final int NO_TOPIC_ALIAS = PUBLISH.DEFAULT_NO_TOPIC_ALIAS;
+
+    private final @NotNull TopicAliasLimiter topicAliasLimiter;
+    private final @NotNull Counter bytesSavedCounter;
+    private final @Nullable String @NotNull [] topics;
+    // access ordered, so the first entry is the least recently used topic
+    private final @NotNull LinkedHashMap<String, Integer> aliases;
+
+    public OutboundTopicAliasMapping(
+            final int topicAliasMaximum,
+            final @NotNull TopicAliasLimiter topicAliasLimiter,
+            final @NotNull Counter bytesSavedCounter) {
+
+        Preconditions.checkArgument(topicAliasMaximum > 0, "Topic alias maximum must be greater than 0");
+        this.topicAliasLimiter = topicAliasLimiter;
+        this.bytesSavedCounter = bytesSavedCounter;
+        topics = new String[topicAliasMaximum];
+        aliases = new LinkedHashMap<>(16, 0.75f, true);
+        topicAliasLimiter.initUsage(topicAliasMaximum);
+    }
+
+    /**
+     * @param topic the topic of the PUBLISH.
+     * @return the alias that is assigned to the topic or {@link #NO_TOPIC_ALIAS} if no alias is assigned.
+     */
+    public int getAlias(final @NotNull String topic) {
+        final Integer alias = aliases.get(topic);
+        return alias == null ? NO_TOPIC_ALIAS : alias;
+    }
+
+    /**
+     * Returns the alias that will be assigned to a new topic. This is the next unassigned alias or the alias of the
+     * least recently used topic if all aliases are assigned.
+     *
+     * @return the alias for a new topic or {@link #NO_TOPIC_ALIAS} if the memory limit for topic aliases is reached.
+     */
+    public int nextAlias() {
+        if (aliases.size() < topics.length) {
+            return topicAliasLimiter.aliasesAvailable() ? aliases.size() + 1 : NO_TOPIC_ALIAS;
+        }
+        return aliases.values().iterator().next();
+    }
+
+    /**
+     * Must be called after a PUBLISH was encoded with a topic alias.
+     *
+     * @param topic        the topic of the PUBLISH.
+     * @param alias        the alias the PUBLISH was encoded with.
+     * @param topicOmitted whether the topic was omitted because the alias was already assigned to it.
+     */
+    public void use(final @NotNull String topic, final int alias, final boolean topicOmitted) {
+        if (topicOmitted) {
+            // empty topic (2) and topic alias property (3) instead of the topic
+            bytesSavedCounter.inc(MqttBinaryData.encodedLength(topic) - 5);
+            return;
+        }
+        final String previousTopic = topics[alias - 1];
+        if (previousTopic != null) {
+            aliases.remove(previousTopic);
+            topicAliasLimiter.removeUsage(previousTopic);
+        }
+        topics[alias - 1] = topic;
+        aliases.put(topic, alias);
+        topicAliasLimiter.addUsage(topic);
+        // topic alias property
+        bytesSavedCounter.dec(3);
+    }
+
+    /**
+     * Removes the memory usage of the mapping from the {@link TopicAliasLimiter}. Must be called once the client is
+     * disconnected.
+     */
+    public void release() {
+        topicAliasLimiter.finishUsage(topics);
+        aliases.clear();
+    }
+
+    public int size() {
+        return aliases.size();
+    }
+}
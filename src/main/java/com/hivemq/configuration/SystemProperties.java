@@ -31,4 +31,9 @@ public class SystemProperties {
     public static final String EXTENSIONS_FOLDER = "hivemq.extensions.folder";
 
     public static final String DIAGNOSTIC_MODE = "diagnosticMode";
+
+    /**
+     * The Netty transport that is used for the listeners: nio, epoll, io_uring or auto.
+     */
+    public static final String NETTY_TRANSPORT = "hivemq.netty.transport";
 }
@@ -35,6 +35,9 @@ public abstract class ListenerEntity {
     @XmlElement(name = "name")
     private @Nullable String name;
 
+    @XmlElement(name = "native-transport")
+    private @Nullable NativeTransportEntity nativeTransport;
+
     public int getPort() {
         return port;
     }
@@ -46,4 +49,8 @@ public abstract class ListenerEntity {
     public @Nullable String getName() {
         return name;
     }
+
+    public @Nullable NativeTransportEntity getNativeTransport() {
+        return nativeTransport;
+    }
 }
\ No newline at end of file
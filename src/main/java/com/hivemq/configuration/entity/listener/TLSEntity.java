@@ -18,6 +18,7 @@ package com.hivemq.configuration.entity.listener;
 
 import com.hivemq.configuration.entity.listener.tls.ClientAuthenticationModeEntity;
 import com.hivemq.configuration.entity.listener.tls.KeystoreEntity;
+import com.hivemq.configuration.entity.listener.tls.TlsProviderEntity;
 import com.hivemq.configuration.entity.listener.tls.TruststoreEntity;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.extension.sdk.api.annotations.Nullable;
@@ -58,6 +59,18 @@ public class TLSEntity {
     @XmlElement(name = "prefer-server-cipher-suites")
     private @Nullable Boolean preferServerCipherSuites = null;
 
+    @XmlElement(name = "tls-provider", defaultValue = "JDK")
+    private @NotNull TlsProviderEntity provider = TlsProviderEntity.JDK;
+
+    @XmlElement(name = "session-cache-size", defaultValue = "0")
+    private @NotNull Integer sessionCacheSize = 0;
+
+    @XmlElement(name = "session-timeout", defaultValue = "0")
+    private @NotNull Integer sessionTimeout = 0;
+
+    @XmlElement(name = "session-tickets", defaultValue = "true")
+    private @NotNull Boolean sessionTicketsEnabled = true;
+
     public @NotNull KeystoreEntity getKeystoreEntity() {
         return keystoreEntity;
     }
@@ -86,4 +99,20 @@ public class TLSEntity {
         return preferServerCipherSuites;
     }
 
+    public @NotNull TlsProviderEntity getProvider() {
+        return provider;
+    }
+
+    public int getSessionCacheSize() {
+        return sessionCacheSize;
+    }
+
+    public int getSessionTimeout() {
+        return sessionTimeout;
+    }
+
+    public boolean isSessionTicketsEnabled() {
+        return sessionTicketsEnabled;
+    }
+
 }
\ No newline at end of file
@@ -20,6 +20,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.hivemq.configuration.entity.listener.*;
 import com.hivemq.configuration.entity.listener.tls.ClientAuthenticationModeEntity;
+import com.hivemq.configuration.entity.listener.tls.TlsProviderEntity;
 import com.hivemq.configuration.info.SystemInformation;
 import com.hivemq.configuration.service.entity.*;
 import com.hivemq.configuration.service.impl.listener.ListenerConfigurationService;
@@ -89,7 +90,10 @@ public class ListenerConfigurator {
     }
 
     @NotNull TcpListener convertTcpListener(final @NotNull TCPListenerEntity entity) {
-        return new TcpListener(entity.getPort(), entity.getBindAddress(), getName(entity, "tcp-listener-"));
+        return new TcpListener(entity.getPort(),
+                entity.getBindAddress(),
+                getName(entity, "tcp-listener-"),
+                convertNativeTransport(entity.getNativeTransport()));
     }
 
     @NotNull WebsocketListener convertWebsocketListener(final @NotNull WebsocketListenerEntity entity) {
@@ -99,6 +103,7 @@ public class ListenerConfigurator {
                 .port(entity.getPort())
                 .subprotocols(entity.getSubprotocols())
                 .name(getName(entity, "websocket-listener-"))
+                .nativeTransportOptions(convertNativeTransport(entity.getNativeTransport()))
                 .build();
     }
 
@@ -106,7 +111,8 @@ public class ListenerConfigurator {
         return new TlsTcpListener(entity.getPort(),
                 entity.getBindAddress(),
                 convertTls(entity.getTls()),
-                getName(entity, "tls-tcp-listener-"));
+                getName(entity, "tls-tcp-listener-"),
+                convertNativeTransport(entity.getNativeTransport()));
     }
 
     @NotNull TlsWebsocketListener convertTlsWebsocketListener(final @NotNull TlsWebsocketListenerEntity entity) {
@@ -117,6 +123,24 @@ public class ListenerConfigurator {
                 .tls(convertTls(entity.getTls()))
                 .subprotocols(entity.getSubprotocols())
                 .name(getName(entity, "tls-websocket-listener-"))
+                .nativeTransportOptions(convertNativeTransport(entity.getNativeTransport()))
+                .build();
+    }
+
+    @NotNull NativeTransportOptions convertNativeTransport(final @Nullable NativeTransportEntity entity) {
+        if (entity == null) {
+            return NativeTransportOptions.DEFAULT;
+        }
+        int acceptorThreads = entity.getAcceptorThreads();
+        if (acceptorThreads < 1) {
+            log.warn("The amount of acceptor threads of a listener must be greater than 0, but was {}. Using 1.",
+                    acceptorThreads);
+            acceptorThreads = 1;
+        }
+        return new NativeTransportOptions.Builder().edgeTriggered(entity.isEdgeTriggered())
+                .tcpQuickAck(entity.isTcpQuickAck())
+                .reusePort(entity.isReusePort())
+                .acceptorThreads(acceptorThreads)
                 .build();
     }
 
@@ -174,6 +198,11 @@ public class ListenerConfigurator {
 
                 .withHandshakeTimeout(entity.getHandshakeTimeout())
 
+                .withProvider(getProvider(entity.getProvider()))
+                .withSessionCacheSize(entity.getSessionCacheSize())
+                .withSessionTimeout(entity.getSessionTimeout())
+                .withSessionTicketsEnabled(entity.isSessionTicketsEnabled())
+
                 .build();
     }
 
@@ -198,6 +227,18 @@ public class ListenerConfigurator {
         }
     }
 
+    @NotNull Tls.Provider getProvider(final @NotNull TlsProviderEntity entity) {
+        switch (entity) {
+            case OPENSSL:
+                return Tls.Provider.OPENSSL;
+            case AUTO:
+                return Tls.Provider.AUTO;
+            case JDK:
+            default:
+                return Tls.Provider.JDK;
+        }
+    }
+
     @NotNull Tls.ClientAuthMode getClientAuthMode(final @NotNull ClientAuthenticationModeEntity entity) {
         switch (entity) {
             case OPTIONAL:
@@ -77,6 +77,34 @@ public class InternalConfigurations {
     public static final AtomicInteger SINGLE_WRITER_CREDITS_PER_EXECUTION = new AtomicInteger(65);
     public static final AtomicInteger SINGLE_WRITER_INTERVAL_TO_CHECK_PENDING_TASKS_AND_SCHEDULE_MSEC = new AtomicInteger(500);
 
+    /**
+     * Activates the SingleWriter that assigns every queue to exactly one writer thread, which parks while its queues
+     * are empty, instead of the thread pool that polls random queues. Only applies if the in-memory SingleWriter is
+     * not used.
+     */
+    public static final AtomicBoolean SINGLE_WRITER_THREAD_AFFINE = new AtomicBoolean(false);
+
+    /**
+     * Enables executing consecutive single writer tasks for the same bucket of a Xodus persistence in one transaction.
+     */
+    public static final AtomicBoolean SINGLE_WRITER_GROUP_COMMIT_ENABLED = new AtomicBoolean(false);
+
+    /**
+     * The maximum amount of single writer tasks that are executed in one group transaction.
+     */
+    public static final AtomicInteger SINGLE_WRITER_GROUP_COMMIT_MAX_TASKS = new AtomicInteger(64);
+
+    /**
+     * The time after which a group transaction is committed, even if there are more tasks for the same bucket.
+     */
+    public static final AtomicInteger SINGLE_WRITER_GROUP_COMMIT_MAX_DELAY_MICROS = new AtomicInteger(1000);
+
+    /**
+     * One in this many single writer tasks is sampled for the queue wait time and execution time histograms. 0 disables
+     * the sampling.
+     */
+    public static final AtomicInteger SINGLE_WRITER_METRICS_SAMPLE_RATE = new AtomicInteger(128);
+
     public static final AtomicInteger PERSISTENCE_CLOSE_RETRIES = new AtomicInteger(500);
     public static final AtomicInteger PERSISTENCE_CLOSE_RETRY_INTERVAL_MSEC = new AtomicInteger(100);
 
@@ -100,6 +128,30 @@ public class InternalConfigurations {
      */
     public static final AtomicInteger TOPIC_TREE_MAP_CREATION_THRESHOLD = new AtomicInteger(16);
 
+    /**
+     * Switches the topic tree to copy-on-write mode. Subscriber matching then works without locks on immutable node
+     * versions, while subscribe and unsubscribe copy the affected path and publish it atomically. This makes writes
+     * more expensive, especially for nodes with many children, but writers never block matching.
+     */
+    public static final AtomicBoolean TOPIC_TREE_COPY_ON_WRITE_ENABLED = new AtomicBoolean(false);
+
+    /**
+     * The maximum amount of concrete topics for which the matching subscribers are cached in front of the topic tree.
+     * The cache is disabled when set to '0'.
+     */
+    public static final AtomicInteger TOPIC_TREE_SUBSCRIBERS_CACHE_MAX_SIZE_ENTRIES = new AtomicInteger(0);
+
+    /**
+     * The concurrency level of the topic tree subscribers cache
+     */
+    public static final AtomicInteger TOPIC_TREE_SUBSCRIBERS_CACHE_CONCURRENCY_LEVEL = new AtomicInteger(AVAILABLE_PROCESSORS);
+
+    /**
+     * The amount of topics that are held in the pool of canonical topic Strings for incoming PUBLISHes, rounded up to a
+     * power of two. The pool is disabled when set to '0'.
+     */
+    public static final AtomicInteger TOPIC_INTERN_POOL_SIZE = new AtomicInteger(0);
+
     /**
      * The configuration for qos 0 memory hard limit divisor, must be greater than 0.
      */
@@ -230,6 +282,12 @@ public class InternalConfigurations {
      */
     public static final AtomicInteger PAYLOAD_PERSISTENCE_CLEANUP_THREADS = new AtomicInteger(AVAILABLE_PROCESSORS_TIMES_TWO);
 
+    /**
+     * The maximum amount of payloads of the same bucket that the cleanup removes from the payload persistence in a
+     * single write. A value of 1 removes every payload on its own.
+     */
+    public static final AtomicInteger PAYLOAD_PERSISTENCE_CLEANUP_BATCH_SIZE = new AtomicInteger(256);
+
     /**
      * The bucket count for the payload persistence.
      */
@@ -321,6 +379,17 @@ public class InternalConfigurations {
     public static final AtomicInteger TOPIC_ALIAS_GLOBAL_MEMORY_HARD_LIMIT_BYTES = new AtomicInteger(1024 * 1024 * 200); //200Mb
     public static final AtomicInteger TOPIC_ALIAS_GLOBAL_MEMORY_SOFT_LIMIT_BYTES = new AtomicInteger(1024 * 1024 * 50); //50Mb
 
+    /**
+     * Enables assigning topic aliases to the topics of outgoing PUBLISHes for clients that accept topic aliases.
+     */
+    public static final AtomicBoolean TOPIC_ALIAS_OUTBOUND_ENABLED = new AtomicBoolean(false);
+
+    /**
+     * The maximum amount of outgoing topic aliases per client, if the topic alias maximum of the client is lower, the
+     * maximum of the client is used.
+     */
+    public static final AtomicInteger TOPIC_ALIAS_OUTBOUND_MAX_PER_CLIENT = new AtomicInteger(32);
+
     public static final AtomicBoolean DISCONNECT_WITH_REASON_CODE_ENABLED = new AtomicBoolean(true);
     public static final AtomicBoolean DISCONNECT_WITH_REASON_STRING_ENABLED = new AtomicBoolean(true);
 
@@ -378,6 +447,18 @@ public class InternalConfigurations {
 
     public static final AtomicInteger INTERVAL_BETWEEN_CLEANUP_JOBS_SEC = new AtomicInteger(4);
 
+    /**
+     * The interval between two checks for expired client sessions. A check only submits a clean up task for the
+     * buckets that contain a session whose session expiry interval passed.
+     */
+    public static final AtomicInteger SESSION_EXPIRY_CHECK_INTERVAL_MSEC = new AtomicInteger(1000);
+
+    /**
+     * The maximum amount of expired client sessions that are removed from a bucket by a single clean up task, the
+     * remaining expired sessions are removed by the next checks.
+     */
+    public static final AtomicInteger SESSION_EXPIRY_MAX_SESSIONS_PER_CLEANUP = new AtomicInteger(1000);
+
     public static final AtomicBoolean MQTT_ALLOW_DOLLAR_TOPICS = new AtomicBoolean(false);
 
     public static final AtomicInteger MQTT_EVENT_EXECUTOR_THREAD_COUNT = new AtomicInteger(AVAILABLE_PROCESSORS_TIMES_TWO);
@@ -387,6 +468,12 @@ public class InternalConfigurations {
      */
     public static final AtomicBoolean ACKNOWLEDGE_INCOMING_PUBLISH_AFTER_PERSISTING_ENABLED = new AtomicBoolean(true);
 
+    /**
+     * The amount of non-shared subscribers of a single PUBLISH from which on the PUBLISH is distributed by one task per
+     * persistence bucket instead of sequentially. The parallel distribution is disabled when set to '0'.
+     */
+    public static final AtomicInteger PUBLISH_DISTRIBUTION_PARALLEL_THRESHOLD = new AtomicInteger(1000);
+
     public static final boolean XODUS_LOG_CACHE_USE_NIO = false;
 
     public static final long SHARED_SUBSCRIPTION_CACHE_TIME_TO_LIVE_MSEC = 1000;
@@ -415,6 +502,87 @@ public class InternalConfigurations {
 
     public static final AtomicInteger COUNT_OF_PUBLISHES_WRITTEN_TO_CHANNEL_TO_TRIGGER_FLUSH = new AtomicInteger(128);
 
+    /**
+     * Enables coalescing the flushes of all outgoing messages of a channel until the current read or the queued tasks
+     * of its event loop completed, so multiple flushes result in a single write syscall.
+     */
+    public static final AtomicBoolean FLUSH_COALESCING_ENABLED = new AtomicBoolean(false);
+
+    /**
+     * The amount of bytes written to a channel after which a coalesced flush is executed immediately.
+     */
+    public static final AtomicInteger FLUSH_COALESCING_MAX_PENDING_BYTES = new AtomicInteger(64 * 1024);
+
+    /**
+     * The maximum time a flush is deferred when subsequent flushes of the channel are coalesced with it.
+     */
+    public static final AtomicInteger FLUSH_COALESCING_MAX_DELAY_MICROS = new AtomicInteger(1000);
+
+    /**
+     * Encodes the payload of outgoing PUBLISHes as a shared direct buffer that is added to the outgoing frame without
+     * copying it, instead of copying the payload into the frame of every subscriber.
+     */
+    public static final AtomicBoolean PUBLISH_PAYLOAD_SHARED_BUFFER_ENABLED = new AtomicBoolean(false);
+
+    /**
+     * The minimum payload size from which on the payload of an outgoing PUBLISH is encoded as a shared buffer.
+     */
+    public static final AtomicInteger PUBLISH_PAYLOAD_SHARED_BUFFER_THRESHOLD_BYTES = new AtomicInteger(8 * 1024);
+
+    /**
+     * The maximum size of all cached shared payload buffers.
+     */
+    public static final AtomicLong PUBLISH_PAYLOAD_SHARED_BUFFER_CACHE_SIZE_BYTES = new AtomicLong(64 * 1024 * 1024);
+
+    /**
+     * The time after which a shared payload buffer that was not used for an outgoing PUBLISH is released.
+     */
+    public static final AtomicInteger PUBLISH_PAYLOAD_SHARED_BUFFER_EXPIRY_MSEC = new AtomicInteger(5000);
+
+    /**
+     * Enables encoding an outgoing PUBLISH once for all subscribers with the same QoS, protocol version and
+     * properties. Only the packet identifier is encoded for each subscriber.
+     */
+    public static final AtomicBoolean PUBLISH_FRAME_CACHE_ENABLED = new AtomicBoolean(false);
+
+    /**
+     * The maximum size of all cached PUBLISH frames.
+     */
+    public static final AtomicLong PUBLISH_FRAME_CACHE_SIZE_BYTES = new AtomicLong(64 * 1024 * 1024);
+
+    /**
+     * The time after which a cached PUBLISH frame that was not used for an outgoing PUBLISH is released.
+     */
+    public static final AtomicInteger PUBLISH_FRAME_CACHE_EXPIRY_MSEC = new AtomicInteger(5000);
+
+    /**
+     * Enables writing all MQTT packets that are flushed together to a websocket connection as a single binary
+     * websocket frame, instead of a separate frame for every packet.
+     */
+    public static final AtomicBoolean WEBSOCKET_FRAME_COALESCING_ENABLED = new AtomicBoolean(false);
+
+    /**
+     * The maximum payload size of a coalesced websocket frame. A single MQTT packet that is larger is still written
+     * as one frame.
+     */
+    public static final AtomicInteger WEBSOCKET_FRAME_COALESCING_MAX_FRAME_SIZE_BYTES = new AtomicInteger(64 * 1024);
+
+    /**
+     * Enables the negotiation of the permessage-deflate extension (RFC 7692) for websocket listeners.
+     */
+    public static final AtomicBoolean WEBSOCKET_PERMESSAGE_DEFLATE_ENABLED = new AtomicBoolean(false);
+
+    /**
+     * The deflate compression level (0-9) used for outgoing websocket messages.
+     */
+    public static final AtomicInteger WEBSOCKET_PERMESSAGE_DEFLATE_COMPRESSION_LEVEL = new AtomicInteger(6);
+
+    /**
+     * The LZ77 window size in bits (8-15) which is requested from clients via client_max_window_bits and up to which
+     * clients may reduce the window of the broker via server_max_window_bits.
+     */
+    public static final AtomicInteger WEBSOCKET_PERMESSAGE_DEFLATE_WINDOW_BITS = new AtomicInteger(15);
+
     public static final long SHARED_SUBSCRIBER_CACHE_TIME_TO_LIVE_MSEC = 1000;
 
     public static final int SHARED_SUBSCRIBER_CACHE_MAX_SIZE_SUBSCRIBERS = 10000;
@@ -52,4 +52,12 @@ public interface Listener {
      * @since 4.1
      */
     @NotNull String getName();
+
+    /**
+     * @return the socket options of the listener which only apply to native transports
+     * @since 2023.1
+     */
+    default @NotNull NativeTransportOptions getNativeTransportOptions() {
+        return NativeTransportOptions.DEFAULT;
+    }
 }
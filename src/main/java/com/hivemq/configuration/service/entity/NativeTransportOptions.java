@@ -0,0 +1,131 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.configuration.service.entity;
+
+import com.hivemq.extension.sdk.api.annotations.Immutable;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Socket options of a listener which only apply if a native Netty transport (epoll or io_uring) is used.
+ * <p>
+ * The options are ignored if the NIO transport is used.
+ *
+ * @since 2023.1
+ */
+@Immutable
+public class NativeTransportOptions {
+
+    public static final @NotNull NativeTransportOptions DEFAULT = new Builder().build();
+
+    private final boolean edgeTriggered;
+    private final boolean tcpQuickAck;
+    private final boolean reusePort;
+    private final int acceptorThreads;
+
+    private NativeTransportOptions(
+            final boolean edgeTriggered, final boolean tcpQuickAck, final boolean reusePort, final int acceptorThreads) {
+        this.edgeTriggered = edgeTriggered;
+        this.tcpQuickAck = tcpQuickAck;
+        this.reusePort = reusePort;
+        this.acceptorThreads = acceptorThreads;
+    }
+
+    /**
+     * @return if the channels of the listener use edge triggered (EPOLLET) instead of level triggered epoll mode.
+     *         Only applies to the epoll transport.
+     */
+    public boolean isEdgeTriggered() {
+        return edgeTriggered;
+    }
+
+    /**
+     * @return if TCP_QUICKACK is set on the channels of the listener. Only applies to the epoll transport.
+     */
+    public boolean isTcpQuickAck() {
+        return tcpQuickAck;
+    }
+
+    /**
+     * @return if SO_REUSEPORT is set on the server socket of the listener. Always true if the listener uses more than
+     *         one acceptor thread.
+     */
+    public boolean isReusePort() {
+        return reusePort || acceptorThreads > 1;
+    }
+
+    /**
+     * The listener is bound once per acceptor thread with SO_REUSEPORT, so the kernel distributes new connections
+     * across the acceptor threads.
+     *
+     * @return the amount of acceptor threads of the listener
+     */
+    public int getAcceptorThreads() {
+        return acceptorThreads;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "NativeTransportOptions{" +
+                "edgeTriggered=" + edgeTriggered +
+                ", tcpQuickAck=" + tcpQuickAck +
+                ", reusePort=" + reusePort +
+                ", acceptorThreads=" + acceptorThreads +
+                '}';
+    }
+
+    public static class Builder {
+
+        private boolean edgeTriggered = true;
+        private boolean tcpQuickAck = false;
+        private boolean reusePort = false;
+        private int acceptorThreads = 1;
+
+        public @NotNull Builder from(final @NotNull NativeTransportOptions options) {
+            edgeTriggered = options.isEdgeTriggered();
+            tcpQuickAck = options.isTcpQuickAck();
+            reusePort = options.reusePort;
+            acceptorThreads = options.getAcceptorThreads();
+            return this;
+        }
+
+        public @NotNull Builder edgeTriggered(final boolean edgeTriggered) {
+            this.edgeTriggered = edgeTriggered;
+            return this;
+        }
+
+        public @NotNull Builder tcpQuickAck(final boolean tcpQuickAck) {
+            this.tcpQuickAck = tcpQuickAck;
+            return this;
+        }
+
+        public @NotNull Builder reusePort(final boolean reusePort) {
+            this.reusePort = reusePort;
+            return this;
+        }
+
+        public @NotNull Builder acceptorThreads(final int acceptorThreads) {
+            checkArgument(acceptorThreads > 0, "acceptorThreads must be greater than 0");
+            this.acceptorThreads = acceptorThreads;
+            return this;
+        }
+
+        public @NotNull NativeTransportOptions build() {
+            return new NativeTransportOptions(edgeTriggered, tcpQuickAck, reusePort, acceptorThreads);
+        }
+    }
+}
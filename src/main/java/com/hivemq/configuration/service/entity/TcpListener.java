@@ -36,6 +36,7 @@ public class TcpListener implements Listener {
 
     private final @NotNull String name;
     private final @NotNull String bindAddress;
+    private final @NotNull NativeTransportOptions nativeTransportOptions;
 
     /**
      * Creates a new TCP listener which listens to a specific port and bind address
@@ -56,13 +57,31 @@ public class TcpListener implements Listener {
      * @param name        the name of the listener
      */
     public TcpListener(final int port, final @NotNull String bindAddress, final @NotNull String name) {
+        this(port, bindAddress, name, NativeTransportOptions.DEFAULT);
+    }
+
+    /**
+     * Creates a new TCP listener which listens to a specific port and bind address
+     *
+     * @param port                   the port
+     * @param bindAddress            the bind address
+     * @param name                   the name of the listener
+     * @param nativeTransportOptions the socket options which only apply to native transports
+     */
+    public TcpListener(
+            final int port,
+            final @NotNull String bindAddress,
+            final @NotNull String name,
+            final @NotNull NativeTransportOptions nativeTransportOptions) {
 
         checkNotNull(bindAddress, "bindAddress must not be null");
         checkNotNull(name, "name must not be null");
+        checkNotNull(nativeTransportOptions, "nativeTransportOptions must not be null");
 
         this.port = port;
         this.bindAddress = bindAddress;
         this.name = name;
+        this.nativeTransportOptions = nativeTransportOptions;
     }
 
     @Override
@@ -90,16 +109,23 @@ public class TcpListener implements Listener {
         return name;
     }
 
+    @Override
+    public @NotNull NativeTransportOptions getNativeTransportOptions() {
+        return nativeTransportOptions;
+    }
+
     public static class Builder {
 
         private @Nullable String name;
         private @Nullable Integer port;
         private @Nullable String bindAddress;
+        private @NotNull NativeTransportOptions nativeTransportOptions = NativeTransportOptions.DEFAULT;
 
         public @NotNull Builder from(final @NotNull TcpListener tcpListener) {
             port = tcpListener.getPort();
             bindAddress = tcpListener.getBindAddress();
             name = tcpListener.getName();
+            nativeTransportOptions = tcpListener.getNativeTransportOptions();
             return this;
         }
 
@@ -120,6 +146,12 @@ public class TcpListener implements Listener {
             return this;
         }
 
+        public @NotNull Builder nativeTransportOptions(final @NotNull NativeTransportOptions nativeTransportOptions) {
+            checkNotNull(nativeTransportOptions);
+            this.nativeTransportOptions = nativeTransportOptions;
+            return this;
+        }
+
         public @NotNull TcpListener build() throws IllegalStateException {
             if (port == null) {
                 throw new IllegalStateException("The port for a TCP listener was not set.");
@@ -130,7 +162,7 @@ public class TcpListener implements Listener {
             if (name == null) {
                 name = "tcp-listener-" + port;
             }
-            return new TcpListener(port, bindAddress, name);
+            return new TcpListener(port, bindAddress, name, nativeTransportOptions);
         }
     }
 }
@@ -45,6 +45,10 @@ public class Tls {
     private final @NotNull List<String> protocols;
     private final @NotNull List<String> cipherSuites;
     private final @Nullable Boolean preferServerCipherSuites;
+    private final @NotNull Provider provider;
+    private final int sessionCacheSize;
+    private final int sessionTimeout;
+    private final boolean sessionTicketsEnabled;
 
     /**
      * Creates a new TLS configuration
@@ -63,6 +67,11 @@ public class Tls {
      * @param cipherSuites             the supported cipher suites. <code>null</code> means that all enabled cipher
      *                                 suites by the JVM are enabled
      * @param preferServerCipherSuites if the server cipher suites are preferred over the client cipher suites
+     * @param provider                 the TLS implementation
+     * @param sessionCacheSize         the maximum amount of cached TLS sessions, 0 means the default of the provider
+     * @param sessionTimeout           the timeout of cached TLS sessions in seconds, 0 means the default of the
+     *                                 provider
+     * @param sessionTicketsEnabled    if TLS sessions can be resumed with session tickets
      * @since 3.3
      */
     protected Tls(final @NotNull String keystorePath,
@@ -76,9 +85,14 @@ public class Tls {
                   final @NotNull ClientAuthMode clientAuthMode,
                   final @NotNull List<String> protocols,
                   final @NotNull List<String> cipherSuites,
-                  final @Nullable Boolean preferServerCipherSuites) {
+                  final @Nullable Boolean preferServerCipherSuites,
+                  final @NotNull Provider provider,
+                  final int sessionCacheSize,
+                  final int sessionTimeout,
+                  final boolean sessionTicketsEnabled) {
 
         checkNotNull(clientAuthMode, "clientAuthMode must not be null");
+        checkNotNull(provider, "provider must not be null");
         checkNotNull(protocols, "protocols must not be null");
         checkNotNull(cipherSuites, "cipher suites must not be null");
         this.keystorePath = keystorePath;
@@ -93,6 +107,10 @@ public class Tls {
         this.protocols = protocols;
         this.cipherSuites = cipherSuites;
         this.preferServerCipherSuites = preferServerCipherSuites;
+        this.provider = provider;
+        this.sessionCacheSize = sessionCacheSize;
+        this.sessionTimeout = sessionTimeout;
+        this.sessionTicketsEnabled = sessionTicketsEnabled;
     }
 
     /**
@@ -179,6 +197,34 @@ public class Tls {
         return preferServerCipherSuites;
     }
 
+    /**
+     * @return the TLS implementation
+     */
+    public @NotNull Provider getProvider() {
+        return provider;
+    }
+
+    /**
+     * @return the maximum amount of cached TLS sessions, 0 means the default of the provider
+     */
+    public int getSessionCacheSize() {
+        return sessionCacheSize;
+    }
+
+    /**
+     * @return the timeout of cached TLS sessions in seconds, 0 means the default of the provider
+     */
+    public int getSessionTimeout() {
+        return sessionTimeout;
+    }
+
+    /**
+     * @return if TLS sessions can be resumed with session tickets
+     */
+    public boolean isSessionTicketsEnabled() {
+        return sessionTicketsEnabled;
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) return true;
@@ -202,6 +248,10 @@ public class Tls {
         if (!protocols.equals(tls.protocols)) return false;
         if (preferServerCipherSuites != null ? !preferServerCipherSuites.equals(tls.preferServerCipherSuites) : tls.preferServerCipherSuites != null)
             return false;
+        if (provider != tls.provider) return false;
+        if (sessionCacheSize != tls.sessionCacheSize) return false;
+        if (sessionTimeout != tls.sessionTimeout) return false;
+        if (sessionTicketsEnabled != tls.sessionTicketsEnabled) return false;
         return cipherSuites.equals(tls.cipherSuites);
     }
 
@@ -219,6 +269,10 @@ public class Tls {
         result = 31 * result + protocols.hashCode();
         result = 31 * result + cipherSuites.hashCode();
         result = 31 * result + (preferServerCipherSuites != null ? preferServerCipherSuites.hashCode() : 0);
+        result = 31 * result + provider.hashCode();
+        result = 31 * result + sessionCacheSize;
+        result = 31 * result + sessionTimeout;
+        result = 31 * result + (sessionTicketsEnabled ? 1 : 0);
         return result;
     }
 
@@ -251,6 +305,35 @@ public class Tls {
         }
     }
 
+    /**
+     * The TLS implementation.
+     */
+    public enum Provider {
+        /**
+         * The TLS implementation of the JDK
+         */
+        JDK("jdk"),
+        /**
+         * OpenSSL (BoringSSL) via netty-tcnative, falls back to the JDK if it is not available
+         */
+        OPENSSL("openssl"),
+        /**
+         * OpenSSL if it is available, otherwise the JDK
+         */
+        AUTO("auto");
+
+        private final @NotNull String provider;
+
+        Provider(final @NotNull String provider) {
+            this.provider = provider;
+        }
+
+        @Override
+        public @NotNull String toString() {
+            return provider;
+        }
+    }
+
     /**
      * A builder which allows to conveniently build a tls object with a fluent API
      */
@@ -268,6 +351,10 @@ public class Tls {
         private @Nullable List<String> protocols;
         private @Nullable List<String> cipherSuites;
         private @Nullable Boolean preferServerCipherSuites;
+        private @NotNull Provider provider = Provider.JDK;
+        private int sessionCacheSize;
+        private int sessionTimeout;
+        private boolean sessionTicketsEnabled = true;
 
         public @NotNull Builder withKeystorePath(final @NotNull String keystorePath) {
             this.keystorePath = keystorePath;
@@ -329,6 +416,26 @@ public class Tls {
             return this;
         }
 
+        public @NotNull Builder withProvider(final @NotNull Provider provider) {
+            this.provider = provider;
+            return this;
+        }
+
+        public @NotNull Builder withSessionCacheSize(final int sessionCacheSize) {
+            this.sessionCacheSize = sessionCacheSize;
+            return this;
+        }
+
+        public @NotNull Builder withSessionTimeout(final int sessionTimeout) {
+            this.sessionTimeout = sessionTimeout;
+            return this;
+        }
+
+        public @NotNull Builder withSessionTicketsEnabled(final boolean sessionTicketsEnabled) {
+            this.sessionTicketsEnabled = sessionTicketsEnabled;
+            return this;
+        }
+
         public @NotNull Tls build() {
             checkNotNull(keystorePath, "keystorePath must not be null");
             checkNotNull(keystorePassword, "keystorePassword must not be null");
@@ -349,7 +456,11 @@ public class Tls {
                     clientAuthMode,
                     protocols,
                     cipherSuites,
-                    preferServerCipherSuites) {
+                    preferServerCipherSuites,
+                    provider,
+                    sessionCacheSize,
+                    sessionTimeout,
+                    sessionTicketsEnabled) {
             };
         }
     }
@@ -54,7 +54,25 @@ public class TlsTcpListener extends TcpListener implements TlsListener {
      */
     public TlsTcpListener(
             final int port, final @NotNull String bindAddress, final @NotNull Tls tls, final @NotNull String name) {
-        super(port, bindAddress, name);
+        this(port, bindAddress, tls, name, NativeTransportOptions.DEFAULT);
+    }
+
+    /**
+     * Creates a new TLS Listener which listens to a specific port and bind address.
+     *
+     * @param port                   the port
+     * @param bindAddress            the bind address
+     * @param tls                    the TLS configuration
+     * @param name                   the name of the listener
+     * @param nativeTransportOptions the socket options which only apply to native transports
+     */
+    public TlsTcpListener(
+            final int port,
+            final @NotNull String bindAddress,
+            final @NotNull Tls tls,
+            final @NotNull String name,
+            final @NotNull NativeTransportOptions nativeTransportOptions) {
+        super(port, bindAddress, name, nativeTransportOptions);
         checkNotNull(tls);
         this.tls = tls;
     }
@@ -75,12 +93,14 @@ public class TlsTcpListener extends TcpListener implements TlsListener {
         private @Nullable Integer port;
         private @Nullable String bindAddress;
         private @Nullable Tls tls;
+        private @NotNull NativeTransportOptions nativeTransportOptions = NativeTransportOptions.DEFAULT;
 
         public @NotNull Builder from(final @NotNull TlsTcpListener tlsTcpListener) {
             port = tlsTcpListener.getPort();
             bindAddress = tlsTcpListener.getBindAddress();
             name = tlsTcpListener.getName();
             tls = tlsTcpListener.getTls();
+            nativeTransportOptions = tlsTcpListener.getNativeTransportOptions();
             return this;
         }
 
@@ -107,6 +127,12 @@ public class TlsTcpListener extends TcpListener implements TlsListener {
             return this;
         }
 
+        public @NotNull Builder nativeTransportOptions(final @NotNull NativeTransportOptions nativeTransportOptions) {
+            checkNotNull(nativeTransportOptions);
+            this.nativeTransportOptions = nativeTransportOptions;
+            return this;
+        }
+
         public @NotNull TlsTcpListener build() throws IllegalStateException {
             if (port == null) {
                 throw new IllegalStateException("The port for a TLS TCP listener was not set.");
@@ -120,7 +146,7 @@ public class TlsTcpListener extends TcpListener implements TlsListener {
             if (tls == null) {
                 throw new IllegalStateException("The TLS settings for a TLS TCP listener was not set.");
             }
-            return new TlsTcpListener(port, bindAddress, tls, name);
+            return new TlsTcpListener(port, bindAddress, tls, name, nativeTransportOptions);
         }
     }
 }
@@ -46,8 +46,9 @@ public class TlsWebsocketListener extends WebsocketListener implements TlsListen
             final @NotNull Boolean allowExtensions,
             final @NotNull List<String> subprotocols,
             final @NotNull Tls tls,
-            final @NotNull String name) {
-        super(port, bindAddress, path, allowExtensions, subprotocols, name);
+            final @NotNull String name,
+            final @NotNull NativeTransportOptions nativeTransportOptions) {
+        super(port, bindAddress, path, allowExtensions, subprotocols, name, nativeTransportOptions);
         this.tls = tls;
     }
 
@@ -72,6 +73,7 @@ public class TlsWebsocketListener extends WebsocketListener implements TlsListen
         protected @Nullable Integer port;
         protected @Nullable String bindAddress;
         protected boolean allowExtensions;
+        protected @NotNull NativeTransportOptions nativeTransportOptions = NativeTransportOptions.DEFAULT;
 
         private @Nullable Tls tls;
 
@@ -89,6 +91,7 @@ public class TlsWebsocketListener extends WebsocketListener implements TlsListen
             name = tlsWebsocketListener.getName();
             allowExtensions = tlsWebsocketListener.getAllowExtensions();
             subprotocols = new ArrayList<>(tlsWebsocketListener.getSubprotocols());
+            nativeTransportOptions = tlsWebsocketListener.getNativeTransportOptions();
             tls = tlsWebsocketListener.getTls();
             return this;
         }
@@ -177,6 +180,18 @@ public class TlsWebsocketListener extends WebsocketListener implements TlsListen
             return this;
         }
 
+        /**
+         * Sets the socket options of the websocket listener which only apply to native transports
+         *
+         * @param nativeTransportOptions the native transport options
+         * @return the Builder
+         */
+        public @NotNull Builder nativeTransportOptions(final @NotNull NativeTransportOptions nativeTransportOptions) {
+            checkNotNull(nativeTransportOptions);
+            this.nativeTransportOptions = nativeTransportOptions;
+            return this;
+        }
+
         /**
          * Creates the TLS Websocket Listener
          *
@@ -195,7 +210,8 @@ public class TlsWebsocketListener extends WebsocketListener implements TlsListen
             if (tls == null) {
                 throw new IllegalStateException("The TLS settings for a TLS Websocket listener was not set.");
             }
-            return new TlsWebsocketListener(port, bindAddress, path, allowExtensions, subprotocols, tls, name);
+            return new TlsWebsocketListener(port, bindAddress, path, allowExtensions, subprotocols, tls, name,
+                    nativeTransportOptions);
         }
     }
 }
@@ -43,6 +43,7 @@ public class WebsocketListener implements Listener {
     private final boolean allowExtensions;
     private final @NotNull List<String> subprotocols;
     private final @NotNull String name;
+    private final @NotNull NativeTransportOptions nativeTransportOptions;
 
     protected WebsocketListener(
             final int port,
@@ -51,12 +52,24 @@ public class WebsocketListener implements Listener {
             final boolean allowExtensions,
             final @NotNull List<String> subprotocols,
             final @NotNull String name) {
+        this(port, bindAddress, path, allowExtensions, subprotocols, name, NativeTransportOptions.DEFAULT);
+    }
+
+    protected WebsocketListener(
+            final int port,
+            final @NotNull String bindAddress,
+            final @NotNull String path,
+            final boolean allowExtensions,
+            final @NotNull List<String> subprotocols,
+            final @NotNull String name,
+            final @NotNull NativeTransportOptions nativeTransportOptions) {
         this.port = port;
         this.bindAddress = bindAddress;
         this.path = path;
         this.allowExtensions = allowExtensions;
         this.subprotocols = subprotocols;
         this.name = name;
+        this.nativeTransportOptions = nativeTransportOptions;
     }
 
     @Override
@@ -84,6 +97,11 @@ public class WebsocketListener implements Listener {
         return name;
     }
 
+    @Override
+    public @NotNull NativeTransportOptions getNativeTransportOptions() {
+        return nativeTransportOptions;
+    }
+
     /**
      * @return the path of the websocket
      */
@@ -117,6 +135,7 @@ public class WebsocketListener implements Listener {
         protected @Nullable Integer port;
         protected @Nullable String bindAddress;
         protected boolean allowExtensions;
+        protected @NotNull NativeTransportOptions nativeTransportOptions = NativeTransportOptions.DEFAULT;
 
         public Builder() {
             path = "";
@@ -132,6 +151,7 @@ public class WebsocketListener implements Listener {
             name = websocketListener.getName();
             allowExtensions = websocketListener.getAllowExtensions();
             subprotocols = new ArrayList<>(websocketListener.getSubprotocols());
+            nativeTransportOptions = websocketListener.getNativeTransportOptions();
             return this;
         }
 
@@ -207,6 +227,18 @@ public class WebsocketListener implements Listener {
             return this;
         }
 
+        /**
+         * Sets the socket options of the websocket listener which only apply to native transports
+         *
+         * @param nativeTransportOptions the native transport options
+         * @return the Builder
+         */
+        public @NotNull Builder nativeTransportOptions(final @NotNull NativeTransportOptions nativeTransportOptions) {
+            checkNotNull(nativeTransportOptions);
+            this.nativeTransportOptions = nativeTransportOptions;
+            return this;
+        }
+
         /**
          * Creates the Websocket Listener
          *
@@ -222,7 +254,8 @@ public class WebsocketListener implements Listener {
             if (name == null) {
                 name = "websocket-listener-" + port;
             }
-            return new WebsocketListener(port, bindAddress, path, allowExtensions, subprotocols, name);
+            return new WebsocketListener(port, bindAddress, path, allowExtensions, subprotocols, name,
+                    nativeTransportOptions);
         }
     }
 }
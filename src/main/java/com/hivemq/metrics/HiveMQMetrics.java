@@ -17,6 +17,8 @@ package com.hivemq.metrics;
 
 import com.codahale.metrics.Counter;
 import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Timer;
 
 /**
  * This class holds a constant {@link HiveMQMetric} for every metric which is provided by HiveMQ
@@ -157,6 +159,15 @@ public class HiveMQMetrics {
     public static final HiveMQMetric<Gauge<Number>> QUEUED_MESSAGES_MEMORY_PERSISTENCE_TOTAL_SIZE =
             HiveMQMetric.gaugeValue("com.hivemq.persistence.queued-messages.in-memory.total-size");
 
+    /**
+     * Represents a {@link Counter}, which counts the queued messages that were removed by the clean up because their
+     * message expiry interval passed.
+     *
+     * @since 2023.1
+     */
+    public static final HiveMQMetric<Counter> QUEUED_MESSAGES_EXPIRED_COUNT =
+            HiveMQMetric.valueOf("com.hivemq.persistence.queued-messages.expired.count", Counter.class);
+
     /**
      * represents a {@link Counter} for the number of MQTT client channels which are currently not writable.
      */
@@ -180,5 +191,244 @@ public class HiveMQMetrics {
     public static final HiveMQMetric<Counter> WILL_MESSAGE_PUBLISHED_COUNT_TOTAL =
             HiveMQMetric.valueOf("com.hivemq.messages.will.published.count.total", Counter.class);
 
-}
+    /**
+     * Represents a {@link Counter}, which counts the topic subscriber lookups that were answered by the topic tree
+     * cache.
+     *
+     * @since 2023.1
+     */
+    public static final HiveMQMetric<Counter> TOPIC_TREE_CACHE_HIT_COUNT =
+            HiveMQMetric.valueOf("com.hivemq.topic-tree.cache.hit.count", Counter.class);
+
+    /**
+     * Represents a {@link Counter}, which counts the topic subscriber lookups that had to traverse the topic tree
+     * because no valid cache entry was present.
+     *
+     * @since 2023.1
+     */
+    public static final HiveMQMetric<Counter> TOPIC_TREE_CACHE_MISS_COUNT =
+            HiveMQMetric.valueOf("com.hivemq.topic-tree.cache.miss.count", Counter.class);
+
+    /**
+     * Represents a {@link Counter}, which counts the topic tree cache entries that were invalidated by a subscription
+     * change.
+     *
+     * @since 2023.1
+     */
+    public static final HiveMQMetric<Counter> TOPIC_TREE_CACHE_INVALIDATION_COUNT =
+            HiveMQMetric.valueOf("com.hivemq.topic-tree.cache.invalidation.count", Counter.class);
+
+    /**
+     * Represents a {@link Counter}, which holds the total amount of bytes that outgoing PUBLISHes saved by using
+     * topic aliases instead of their topics.
+     *
+     * @since 2023.1
+     */
+    public static final HiveMQMetric<Counter> TOPIC_ALIAS_OUTBOUND_BYTES_SAVED_COUNT =
+            HiveMQMetric.valueOf("com.hivemq.messages.topic-alias.outgoing.bytes-saved.count", Counter.class);
+
+    /**
+     * Represents a {@link Counter}, which counts the topics of incoming PUBLISHes that were found in the topic intern
+     * pool.
+     *
+     * @since 2023.1
+     */
+    public static final HiveMQMetric<Counter> TOPIC_INTERN_POOL_HIT_COUNT =
+            HiveMQMetric.valueOf("com.hivemq.topic-intern-pool.hit.count", Counter.class);
+
+    /**
+     * Represents a {@link Counter}, which counts the topics of incoming PUBLISHes that were not found in the topic
+     * intern pool.
+     *
+     * @since 2023.1
+     */
+    public static final HiveMQMetric<Counter> TOPIC_INTERN_POOL_MISS_COUNT =
+            HiveMQMetric.valueOf("com.hivemq.topic-intern-pool.miss.count", Counter.class);
+
+    /**
+     * Represents a {@link Counter}, which counts the topics that were evicted from the topic intern pool.
+     *
+     * @since 2023.1
+     */
+    public static final HiveMQMetric<Counter> TOPIC_INTERN_POOL_EVICTION_COUNT =
+            HiveMQMetric.valueOf("com.hivemq.topic-intern-pool.eviction.count", Counter.class);
+
+    /**
+     * Represents a {@link Counter}, which counts the flushes of channels that were coalesced with another flush and did
+     * therefore not cause a write syscall.
+     *
+     * @since 2023.1
+     */
+    public static final HiveMQMetric<Counter> FLUSH_COALESCING_FLUSHES_SAVED_COUNT =
+            HiveMQMetric.valueOf("com.hivemq.networking.flush-coalescing.flushes-saved.count", Counter.class);
+
+    /**
+     * Represents a {@link Histogram}, which measures the bytes written to a channel per coalesced flush.
+     *
+     * @since 2023.1
+     */
+    public static final HiveMQMetric<Histogram> FLUSH_COALESCING_BYTES_PER_FLUSH =
+            HiveMQMetric.valueOf("com.hivemq.networking.flush-coalescing.bytes-per-flush", Histogram.class);
+
+    /**
+     * Represents a {@link Counter}, which counts the group transactions committed by the single writer.
+     *
+     * @since 2023.1
+     */
+    public static final HiveMQMetric<Counter> SINGLE_WRITER_GROUP_COMMIT_COUNT =
+            HiveMQMetric.valueOf("com.hivemq.persistence.group-commit.commits.count", Counter.class);
+
+    /**
+     * Represents a {@link Histogram}, which measures the single writer tasks executed per group transaction.
+     *
+     * @since 2023.1
+     */
+    public static final HiveMQMetric<Histogram> SINGLE_WRITER_GROUP_COMMIT_TASKS_PER_COMMIT =
+            HiveMQMetric.valueOf("com.hivemq.persistence.group-commit.tasks-per-commit", Histogram.class);
+
+    /**
+     * Represents a {@link Timer}, which measures the time it takes to commit a group transaction.
+     *
+     * @since 2023.1
+     */
+    public static final HiveMQMetric<Timer> SINGLE_WRITER_GROUP_COMMIT_TIME =
+            HiveMQMetric.valueOf("com.hivemq.persistence.group-commit.commit.time", Timer.class);
+
+    /**
+     * Represents a {@link Gauge}, which holds the current amount of payloads that wait to be removed by the payload
+     * cleanup.
+     *
+     * @since 2023.1
+     */
+    public static final HiveMQMetric<Gauge<Number>> PAYLOAD_PERSISTENCE_CLEANUP_BACKLOG =
+            HiveMQMetric.gaugeValue("com.hivemq.persistence.payload.cleanup.backlog.current");
+
+    /**
+     * Represents a {@link Histogram}, which measures how many milliseconds past its configured remove delay a payload
+     * was removed by the payload cleanup.
+     *
+     * @since 2023.1
+     */
+    public static final HiveMQMetric<Histogram> PAYLOAD_PERSISTENCE_CLEANUP_LAG =
+            HiveMQMetric.valueOf("com.hivemq.persistence.payload.cleanup.lag-millis", Histogram.class);
+
+    /**
+     * Represents a {@link Gauge}, which holds the current amount of tasks of all single writer producer queues.
+     *
+     * @since 2023.1
+     */
+    public static final HiveMQMetric<Gauge<Number>> SINGLE_WRITER_TASKS_CURRENT =
+            HiveMQMetric.gaugeValue("com.hivemq.persistence.single-writer.tasks.current");
+
+    /**
+     * Represents a {@link Gauge}, which holds the current amount of single writer queues that have pending tasks.
+     *
+     * @since 2023.1
+     */
+    public static final HiveMQMetric<Gauge<Number>> SINGLE_WRITER_NONEMPTY_QUEUES_CURRENT =
+            HiveMQMetric.gaugeValue("com.hivemq.persistence.single-writer.nonempty-queues.current");
+
+    /**
+     * Represents a {@link Gauge}, which holds the current amount of single writer threads that are executing tasks.
+     *
+     * @since 2023.1
+     */
+    public static final HiveMQMetric<Gauge<Number>> SINGLE_WRITER_RUNNING_THREADS_CURRENT =
+            HiveMQMetric.gaugeValue("com.hivemq.persistence.single-writer.running-threads.current");
+
+    /**
+     * The prefix of the metrics of the retained message producer queues of the single writer.
+     * <p>
+     * Each producer registers the {@link Gauge} <code>tasks.current</code> with its current amount of tasks, the
+     * {@link Histogram}s <code>wait-time-micros</code> and <code>execution-time-micros</code> with the sampled time its
+     * tasks wait in a queue and take to execute, and a {@link Gauge} <code>queue-&lt;index&gt;.tasks.current</code>
+     * with the current amount of tasks of each of its queues.
+     *
+     * @since 2023.1
+     */
+    public static final String SINGLE_WRITER_RETAINED_MESSAGES_PREFIX =
+            "com.hivemq.persistence.single-writer.retained-messages.";
+
+    /**
+     * The prefix of the metrics of the client session producer queues of the single writer, see
+     * {@link #SINGLE_WRITER_RETAINED_MESSAGES_PREFIX} for the registered metrics.
+     *
+     * @since 2023.1
+     */
+    public static final String SINGLE_WRITER_CLIENT_SESSIONS_PREFIX =
+            "com.hivemq.persistence.single-writer.client-sessions.";
+
+    /**
+     * The prefix of the metrics of the subscription producer queues of the single writer, see
+     * {@link #SINGLE_WRITER_RETAINED_MESSAGES_PREFIX} for the registered metrics.
+     *
+     * @since 2023.1
+     */
+    public static final String SINGLE_WRITER_SUBSCRIPTIONS_PREFIX =
+            "com.hivemq.persistence.single-writer.subscriptions.";
+
+    /**
+     * The prefix of the metrics of the queued message producer queues of the single writer, see
+     * {@link #SINGLE_WRITER_RETAINED_MESSAGES_PREFIX} for the registered metrics.
+     *
+     * @since 2023.1
+     */
+    public static final String SINGLE_WRITER_QUEUED_MESSAGES_PREFIX =
+            "com.hivemq.persistence.single-writer.queued-messages.";
+
+    /**
+     * The prefix of the metrics of the attribute store producer queues of the single writer, see
+     * {@link #SINGLE_WRITER_RETAINED_MESSAGES_PREFIX} for the registered metrics.
+     *
+     * @since 2023.1
+     */
+    public static final String SINGLE_WRITER_ATTRIBUTE_STORE_PREFIX =
+            "com.hivemq.persistence.single-writer.attribute-store.";
 
+    /**
+     * The name format of the {@link com.codahale.metrics.Meter}, which measures the rate of connections accepted by a
+     * single acceptor of a listener. The format arguments are the name of the listener and the index of the acceptor.
+     *
+     * @since 2023.1
+     */
+    public static final String LISTENER_ACCEPTOR_ACCEPTED_NAME_FORMAT =
+            "com.hivemq.networking.listener.%s.acceptor-%d.accepted";
+
+    /**
+     * The name format of the {@link Counter}, which counts the successful TLS handshakes of a listener. The format argument is the name of the listener.
+     *
+     * @since 2023.1
+     */
+    public static final String TLS_HANDSHAKE_COUNT_NAME_FORMAT = "com.hivemq.networking.tls.%s.handshake.count";
+
+    /**
+     * The name format of the {@link Counter}, which counts the failed TLS handshakes of a listener. The format argument is the name of the listener.
+     *
+     * @since 2023.1
+     */
+    public static final String TLS_HANDSHAKE_FAILED_COUNT_NAME_FORMAT = "com.hivemq.networking.tls.%s.handshake.failed.count";
+
+    /**
+     * The name format of the {@link Counter}, which counts the successful TLS handshakes of a listener that resumed a
+     * previous session. The format argument is the name of the listener.
+     *
+     * @since 2023.1
+     */
+    public static final String TLS_HANDSHAKE_RESUMED_COUNT_NAME_FORMAT = "com.hivemq.networking.tls.%s.handshake.resumed.count";
+
+    /**
+     * The name format of the {@link Timer}, which measures the duration of the successful TLS handshakes of a listener. The format argument is the name of the listener.
+     *
+     * @since 2023.1
+     */
+    public static final String TLS_HANDSHAKE_TIME_NAME_FORMAT = "com.hivemq.networking.tls.%s.handshake.time";
+
+    /**
+     * The name format of the {@link Gauge}, which holds the ratio of resumed to successful TLS handshakes of a
+     * listener. The format argument is the name of the listener.
+     *
+     * @since 2023.1
+     */
+    public static final String TLS_HANDSHAKE_RESUMPTION_RATIO_NAME_FORMAT =
+            "com.hivemq.networking.tls.%s.handshake.resumption.ratio";
+}
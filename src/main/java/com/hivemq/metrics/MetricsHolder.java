@@ -16,7 +16,10 @@
 package com.hivemq.metrics;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.LockFreeExponentiallyDecayingReservoir;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 
 import javax.inject.Singleton;
@@ -50,6 +53,23 @@ public class MetricsHolder {
     private final @NotNull Counter storedWillMessagesCount;
     private final @NotNull Counter publishedWillMessagesCount;
 
+    private final @NotNull Counter topicTreeCacheHitCounter;
+    private final @NotNull Counter topicTreeCacheMissCounter;
+    private final @NotNull Counter topicTreeCacheInvalidationCounter;
+
+    private final @NotNull Counter topicAliasOutboundBytesSavedCounter;
+
+    private final @NotNull Counter topicInternPoolHitCounter;
+    private final @NotNull Counter topicInternPoolMissCounter;
+    private final @NotNull Counter topicInternPoolEvictionCounter;
+
+    private final @NotNull Counter flushCoalescingFlushesSavedCounter;
+    private final @NotNull Histogram flushCoalescingBytesPerFlushHistogram;
+
+    private final @NotNull Counter singleWriterGroupCommitCounter;
+    private final @NotNull Histogram singleWriterGroupCommitTasksPerCommitHistogram;
+    private final @NotNull Timer singleWriterGroupCommitTimer;
+
     public MetricsHolder(final @NotNull MetricRegistry metricRegistry) {
 
         this.metricRegistry = metricRegistry;
@@ -72,6 +92,27 @@ public class MetricsHolder {
 
         storedWillMessagesCount = metricRegistry.counter(WILL_MESSAGE_COUNT.name());
         publishedWillMessagesCount = metricRegistry.counter(WILL_MESSAGE_PUBLISHED_COUNT_TOTAL.name());
+
+        topicTreeCacheHitCounter = metricRegistry.counter(TOPIC_TREE_CACHE_HIT_COUNT.name());
+        topicTreeCacheMissCounter = metricRegistry.counter(TOPIC_TREE_CACHE_MISS_COUNT.name());
+        topicTreeCacheInvalidationCounter = metricRegistry.counter(TOPIC_TREE_CACHE_INVALIDATION_COUNT.name());
+
+        topicAliasOutboundBytesSavedCounter = metricRegistry.counter(TOPIC_ALIAS_OUTBOUND_BYTES_SAVED_COUNT.name());
+
+        topicInternPoolHitCounter = metricRegistry.counter(TOPIC_INTERN_POOL_HIT_COUNT.name());
+        topicInternPoolMissCounter = metricRegistry.counter(TOPIC_INTERN_POOL_MISS_COUNT.name());
+        topicInternPoolEvictionCounter = metricRegistry.counter(TOPIC_INTERN_POOL_EVICTION_COUNT.name());
+
+        flushCoalescingFlushesSavedCounter = metricRegistry.counter(FLUSH_COALESCING_FLUSHES_SAVED_COUNT.name());
+        // updated on every flush of every event loop, so use the lock-free variant of the time-weighted default
+        // reservoir, which does not serialize the event loops on a single lock
+        flushCoalescingBytesPerFlushHistogram = metricRegistry.histogram(FLUSH_COALESCING_BYTES_PER_FLUSH.name(),
+                () -> new Histogram(LockFreeExponentiallyDecayingReservoir.builder().build()));
+
+        singleWriterGroupCommitCounter = metricRegistry.counter(SINGLE_WRITER_GROUP_COMMIT_COUNT.name());
+        singleWriterGroupCommitTasksPerCommitHistogram =
+                metricRegistry.histogram(SINGLE_WRITER_GROUP_COMMIT_TASKS_PER_COMMIT.name());
+        singleWriterGroupCommitTimer = metricRegistry.timer(SINGLE_WRITER_GROUP_COMMIT_TIME.name());
     }
 
     public @NotNull MetricRegistry getMetricRegistry() {
@@ -121,4 +162,52 @@ public class MetricsHolder {
     public @NotNull Counter getPublishedWillMessagesCount() {
         return publishedWillMessagesCount;
     }
+
+    public @NotNull Counter getTopicTreeCacheHitCounter() {
+        return topicTreeCacheHitCounter;
+    }
+
+    public @NotNull Counter getTopicTreeCacheMissCounter() {
+        return topicTreeCacheMissCounter;
+    }
+
+    public @NotNull Counter getTopicTreeCacheInvalidationCounter() {
+        return topicTreeCacheInvalidationCounter;
+    }
+
+    public @NotNull Counter getTopicAliasOutboundBytesSavedCounter() {
+        return topicAliasOutboundBytesSavedCounter;
+    }
+
+    public @NotNull Counter getTopicInternPoolHitCounter() {
+        return topicInternPoolHitCounter;
+    }
+
+    public @NotNull Counter getTopicInternPoolMissCounter() {
+        return topicInternPoolMissCounter;
+    }
+
+    public @NotNull Counter getTopicInternPoolEvictionCounter() {
+        return topicInternPoolEvictionCounter;
+    }
+
+    public @NotNull Counter getFlushCoalescingFlushesSavedCounter() {
+        return flushCoalescingFlushesSavedCounter;
+    }
+
+    public @NotNull Histogram getFlushCoalescingBytesPerFlushHistogram() {
+        return flushCoalescingBytesPerFlushHistogram;
+    }
+
+    public @NotNull Counter getSingleWriterGroupCommitCounter() {
+        return singleWriterGroupCommitCounter;
+    }
+
+    public @NotNull Histogram getSingleWriterGroupCommitTasksPerCommitHistogram() {
+        return singleWriterGroupCommitTasksPerCommitHistogram;
+    }
+
+    public @NotNull Timer getSingleWriterGroupCommitTimer() {
+        return singleWriterGroupCommitTimer;
+    }
 }
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.metrics.handler;
+
+import com.codahale.metrics.Meter;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.metrics.HiveMQMetrics;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+
+/**
+ * Marks the accept rate of a single acceptor of a listener. The handler is added to the pipeline of the server channel,
+ * which reads every accepted client channel as a message.
+ */
+public class AcceptorMetricHandler extends ChannelInboundHandlerAdapter {
+
+    private final @NotNull Meter acceptedMeter;
+
+    public AcceptorMetricHandler(final @NotNull Meter acceptedMeter) {
+        this.acceptedMeter = acceptedMeter;
+    }
+
+    @Override
+    public void channelRead(final @NotNull ChannelHandlerContext ctx, final @NotNull Object msg) {
+        acceptedMeter.mark();
+        ctx.fireChannelRead(msg);
+    }
+
+    /**
+     * @param listenerName the name of the listener
+     * @param acceptor     the index of the acceptor of the listener
+     * @return the name of the meter for the accepted connections of the acceptor
+     */
+    public static @NotNull String metricName(final @NotNull String listenerName, final int acceptor) {
+        return String.format(HiveMQMetrics.LISTENER_ACCEPTOR_ACCEPTED_NAME_FORMAT, listenerName, acceptor);
+    }
+}
@@ -22,6 +22,7 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import com.hivemq.bootstrap.ClientConnection;
 import com.hivemq.bootstrap.ClientState;
+import com.hivemq.codec.encoder.mqtt5.OutboundTopicAliasMapping;
 import com.hivemq.configuration.service.FullConfigurationService;
 import com.hivemq.configuration.service.InternalConfigurations;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
@@ -39,6 +40,7 @@ import com.hivemq.extensions.handler.tasks.PublishAuthorizerResult;
 import com.hivemq.extensions.packets.general.ModifiableDefaultPermissionsImpl;
 import com.hivemq.extensions.services.auth.Authorizers;
 import com.hivemq.limitation.TopicAliasLimiter;
+import com.hivemq.metrics.MetricsHolder;
 import com.hivemq.mqtt.handler.KeepAliveDisconnectHandler;
 import com.hivemq.mqtt.handler.KeepAliveDisconnectService;
 import com.hivemq.mqtt.handler.connack.MqttConnacker;
@@ -101,6 +103,7 @@ public class ConnectHandler extends SimpleChannelInboundHandler<CONNECT> {
     private final @NotNull PluginAuthorizerService pluginAuthorizerService;
     private final @NotNull MqttServerDisconnector mqttServerDisconnector;
     private final @NotNull KeepAliveDisconnectService keepAliveDisconnectService;
+    private final @NotNull MetricsHolder metricsHolder;
 
     private int maxClientIdLength;
     private long configuredSessionExpiryInterval;
@@ -124,7 +127,8 @@ public class ConnectHandler extends SimpleChannelInboundHandler<CONNECT> {
             final @NotNull Authorizers authorizers,
             final @NotNull PluginAuthorizerService pluginAuthorizerService,
             final @NotNull MqttServerDisconnector mqttServerDisconnector,
-            final @NotNull KeepAliveDisconnectService keepAliveDisconnectService) {
+            final @NotNull KeepAliveDisconnectService keepAliveDisconnectService,
+            final @NotNull MetricsHolder metricsHolder) {
 
         this.clientSessionPersistence = clientSessionPersistence;
         this.connectionPersistence = connectionPersistence;
@@ -140,6 +144,7 @@ public class ConnectHandler extends SimpleChannelInboundHandler<CONNECT> {
         this.pluginAuthorizerService = pluginAuthorizerService;
         this.mqttServerDisconnector = mqttServerDisconnector;
         this.keepAliveDisconnectService = keepAliveDisconnectService;
+        this.metricsHolder = metricsHolder;
     }
 
     @PostConstruct
@@ -594,6 +599,17 @@ public class ConnectHandler extends SimpleChannelInboundHandler<CONNECT> {
             topicAliasLimiter.initUsage(topicAliasMaximum);
         }
 
+        //init outgoing Topic Alias Mapping if the client accepts topic aliases and aliases are available
+        final int outboundTopicAliasMaximum =
+                Math.min(msg.getTopicAliasMaximum(), InternalConfigurations.TOPIC_ALIAS_OUTBOUND_MAX_PER_CLIENT.get());
+        if (InternalConfigurations.TOPIC_ALIAS_OUTBOUND_ENABLED.get() &&
+                outboundTopicAliasMaximum > 0 &&
+                topicAliasLimiter.aliasesAvailable()) {
+            clientConnection.setOutboundTopicAliasMapping(new OutboundTopicAliasMapping(outboundTopicAliasMaximum,
+                    topicAliasLimiter,
+                    metricsHolder.getTopicAliasOutboundBytesSavedCounter()));
+        }
+
         //Set session expiry interval to channel for DISCONNECT
         clientConnection.setClientSessionExpiryInterval(sessionExpiryInterval);
 
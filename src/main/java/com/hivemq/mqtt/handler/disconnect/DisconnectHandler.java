@@ -18,6 +18,7 @@ package com.hivemq.mqtt.handler.disconnect;
 import com.google.common.util.concurrent.*;
 import com.hivemq.bootstrap.ClientConnection;
 import com.hivemq.bootstrap.ClientState;
+import com.hivemq.codec.encoder.mqtt5.OutboundTopicAliasMapping;
 import com.hivemq.configuration.service.InternalConfigurations;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.extension.sdk.api.annotations.Nullable;
@@ -127,6 +128,10 @@ public class DisconnectHandler extends SimpleChannelInboundHandler<DISCONNECT> {
         if (topicAliasMapping != null) {
             topicAliasLimiter.finishUsage(topicAliasMapping);
         }
+        final OutboundTopicAliasMapping outboundTopicAliasMapping = clientConnection.getOutboundTopicAliasMapping();
+        if (outboundTopicAliasMapping != null) {
+            outboundTopicAliasMapping.release();
+        }
 
         super.channelInactive(ctx);
     }
@@ -76,6 +76,10 @@ public class PUBLISH extends MqttMessageWithUserProperties implements Mqtt3PUBLI
 
     private int sizeInMemory = SIZE_NOT_CALCULATED;
 
+    // the outbound topic alias of the client this PUBLISH is encoded for
+    private int topicAlias = DEFAULT_NO_TOPIC_ALIAS;
+    private boolean topicOmitted;
+
     //MQTT 5
     PUBLISH(
             final @NotNull String hivemqId,
@@ -313,6 +317,25 @@ public class PUBLISH extends MqttMessageWithUserProperties implements Mqtt3PUBLI
         return subscriptionIdentifiers;
     }
 
+    /**
+     * @return the outbound topic alias this PUBLISH is encoded with or {@link #DEFAULT_NO_TOPIC_ALIAS}.
+     */
+    public int getTopicAlias() {
+        return topicAlias;
+    }
+
+    /**
+     * @return true if this PUBLISH is encoded with an empty topic, because its topic alias is already assigned.
+     */
+    public boolean isTopicOmitted() {
+        return topicOmitted;
+    }
+
+    public void setTopicAlias(final int topicAlias, final boolean topicOmitted) {
+        this.topicAlias = topicAlias;
+        this.topicOmitted = topicOmitted;
+    }
+
     @Override
     public long getTimestamp() {
         return timestamp;
@@ -20,6 +20,7 @@ import com.google.common.primitives.ImmutableIntArray;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.SettableFuture;
 import com.hivemq.configuration.service.MqttConfigurationService;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
@@ -31,18 +32,26 @@ import com.hivemq.mqtt.message.publish.PUBLISHFactory;
 import com.hivemq.mqtt.topic.SubscriberWithIdentifiers;
 import com.hivemq.persistence.SingleWriterService;
 import com.hivemq.persistence.clientqueue.ClientQueuePersistence;
+import com.hivemq.persistence.clientqueue.ClientQueuePublish;
 import com.hivemq.persistence.clientsession.ClientSession;
 import com.hivemq.persistence.clientsession.ClientSessionPersistence;
+import com.hivemq.persistence.local.xodus.bucket.BucketUtils;
 import com.hivemq.persistence.payload.PublishPayloadPersistence;
 import com.hivemq.persistence.util.FutureUtils;
+import com.hivemq.util.Exceptions;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static com.hivemq.configuration.service.InternalConfigurations.PUBLISH_DISTRIBUTION_PARALLEL_THRESHOLD;
 import static com.hivemq.mqtt.handler.publish.PublishStatus.*;
 
 /**
@@ -63,6 +72,8 @@ public class PublishDistributorImpl implements PublishDistributor {
     @NotNull
     private final MqttConfigurationService mqttConfigurationService;
 
+    private final int parallelThreshold;
+
     @Inject
     public PublishDistributorImpl(@NotNull final PublishPayloadPersistence payloadPersistence,
                                   @NotNull final ClientQueuePersistence clientQueuePersistence,
@@ -74,6 +85,7 @@ public class PublishDistributorImpl implements PublishDistributor {
         this.clientSessionPersistence = clientSessionPersistence;
         this.singleWriterService = singleWriterService;
         this.mqttConfigurationService = mqttConfigurationService;
+        this.parallelThreshold = PUBLISH_DISTRIBUTION_PARALLEL_THRESHOLD.get();
     }
 
     @NotNull
@@ -81,6 +93,10 @@ public class PublishDistributorImpl implements PublishDistributor {
     public ListenableFuture<Void> distributeToNonSharedSubscribers(@NotNull final Map<String, SubscriberWithIdentifiers> subscribers,
                                                                    @NotNull final PUBLISH publish, @NotNull final ExecutorService executorService) {
 
+        if (parallelThreshold > 0 && subscribers.size() >= parallelThreshold) {
+            return distributeToNonSharedSubscribersPerBucket(subscribers, publish, executorService);
+        }
+
         final ImmutableList.Builder<ListenableFuture<Void>> publishResultFutureBuilder = ImmutableList.builder();
 
         for (final Map.Entry<String, SubscriberWithIdentifiers> entry : subscribers.entrySet()) {
@@ -97,6 +113,114 @@ public class PublishDistributorImpl implements PublishDistributor {
         return FutureUtils.voidFutureFromList(publishResultFutureBuilder.build());
     }
 
+    /**
+     * Distributes the PUBLISH with one task per persistence bucket. The tasks run on the given executor, so the
+     * subscribers are processed in parallel and in the same layout as their client queues, without blocking the
+     * callback executors of the single writer. The completion of all buckets is tracked by a single counter.
+     */
+    @NotNull
+    private ListenableFuture<Void> distributeToNonSharedSubscribersPerBucket(@NotNull final Map<String, SubscriberWithIdentifiers> subscribers,
+                                                                           @NotNull final PUBLISH publish,
+                                                                           @NotNull final ExecutorService executorService) {
+
+        final int bucketCount = singleWriterService.getPersistenceBucketCount();
+        @SuppressWarnings("unchecked")
+        final List<SubscriberWithIdentifiers>[] buckets = new List[bucketCount];
+        final int expectedBucketSize = subscribers.size() / bucketCount + 1;
+        int usedBuckets = 0;
+
+        for (final Map.Entry<String, SubscriberWithIdentifiers> entry : subscribers.entrySet()) {
+            final int bucketIndex = BucketUtils.getBucket(entry.getKey(), bucketCount);
+            List<SubscriberWithIdentifiers> bucket = buckets[bucketIndex];
+            if (bucket == null) {
+                bucket = new ArrayList<>(expectedBucketSize);
+                buckets[bucketIndex] = bucket;
+                usedBuckets++;
+            }
+            bucket.add(entry.getValue());
+        }
+
+        final FanOutCallback fanOutCallback = new FanOutCallback(publish, usedBuckets);
+        for (final List<SubscriberWithIdentifiers> bucket : buckets) {
+            if (bucket == null) {
+                continue;
+            }
+            try {
+                executorService.execute(() -> {
+                    try {
+                        Futures.addCallback(queuePublishToMany(publish, bucket), fanOutCallback, MoreExecutors.directExecutor());
+                    } catch (final Exception e) {
+                        fanOutCallback.onFailure(e);
+                    }
+                });
+            } catch (final RejectedExecutionException e) {
+                // the bucket is never distributed, so it must not keep the publish pending forever
+                fanOutCallback.onFailure(e);
+            }
+        }
+
+        return fanOutCallback.publishFinishedFuture;
+    }
+
+    /**
+     * Queues the PUBLISH for all subscribers of a bucket that have a session, with a single payload reference increment
+     * and a single client queue task.
+     */
+    @NotNull
+    private ListenableFuture<Void> queuePublishToMany(@NotNull final PUBLISH publish, @NotNull final List<SubscriberWithIdentifiers> subscribers) {
+
+        final int publishQos = publish.getQoS().getQosNumber();
+        final List<SubscriberWithIdentifiers> queuedSubscribers = new ArrayList<>(subscribers.size());
+        final long[] queueLimits = new long[subscribers.size()];
+
+        for (final SubscriberWithIdentifiers subscriber : subscribers) {
+            // a failure for one subscriber must not stop the delivery to the other subscribers of the bucket
+            try {
+                final boolean qos0Message = Math.min(subscriber.getQos(), publishQos) == 0;
+                final ClientSession clientSession = clientSessionPersistence.getSession(subscriber.getSubscriber(), false);
+
+                //no session present, session already expired or qos 0 message for an offline client
+                if (clientSession == null || (qos0Message && !clientSession.isConnected())) {
+                    continue;
+                }
+                queueLimits[queuedSubscribers.size()] =
+                        Objects.requireNonNullElseGet(clientSession.getQueueLimit(), mqttConfigurationService::maxQueuedMessages);
+                queuedSubscribers.add(subscriber);
+            } catch (final Exception e) {
+                logSubscriberFailure(publish, subscriber.getSubscriber(), e);
+            }
+        }
+
+        if (queuedSubscribers.isEmpty()) {
+            return Futures.immediateFuture(null);
+        }
+
+        final boolean removePayload = payloadPersistence.add(publish.getPayload(), queuedSubscribers.size(), publish.getPublishId());
+
+        final List<ClientQueuePublish> queuePublishes = new ArrayList<>(queuedSubscribers.size());
+        for (int i = 0; i < queuedSubscribers.size(); i++) {
+            final SubscriberWithIdentifiers subscriber = queuedSubscribers.get(i);
+            try {
+                queuePublishes.add(new ClientQueuePublish(subscriber.getSubscriber(), createPublish(publish, subscriber.getQos(),
+                        subscriber.isRetainAsPublished(), subscriber.getSubscriptionIdentifier(), removePayload), queueLimits[i]));
+            } catch (final Exception e) {
+                // the payload reference of this subscriber was already counted
+                if (removePayload) {
+                    payloadPersistence.decrementReferenceCounter(publish.getPublishId());
+                }
+                logSubscriberFailure(publish, subscriber.getSubscriber(), e);
+            }
+        }
+        if (queuePublishes.isEmpty()) {
+            return Futures.immediateFuture(null);
+        }
+        return clientQueuePersistence.addToMany(queuePublishes, false, false);
+    }
+
+    private static void logSubscriberFailure(@NotNull final PUBLISH publish, @NotNull final String subscriber, @NotNull final Exception e) {
+        Exceptions.rethrowError("Unable to send message with id " + publish.getUniqueId() + " on topic " + publish.getTopic() + " to client " + subscriber, e);
+    }
+
     @NotNull
     @Override
     public ListenableFuture<Void> distributeToSharedSubscribers(@NotNull final Set<String> sharedSubscribers, @NotNull final PUBLISH publish,
@@ -178,6 +302,12 @@ public class PublishDistributorImpl implements PublishDistributor {
     @NotNull
     private PUBLISH createPublish(@NotNull final PUBLISH publish, final int subscriptionQos, final boolean retainAsPublished, @Nullable final ImmutableIntArray subscriptionIdentifier) {
         final boolean removePayload = payloadPersistence.add(publish.getPayload(), 1, publish.getPublishId());
+        return createPublish(publish, subscriptionQos, retainAsPublished, subscriptionIdentifier, removePayload);
+    }
+
+    @NotNull
+    private PUBLISH createPublish(@NotNull final PUBLISH publish, final int subscriptionQos, final boolean retainAsPublished,
+                                  @Nullable final ImmutableIntArray subscriptionIdentifier, final boolean removePayload) {
         final ImmutableIntArray identifiers;
         if (subscriptionIdentifier == null) {
             identifiers = ImmutableIntArray.of();
@@ -203,4 +333,37 @@ public class PublishDistributorImpl implements PublishDistributor {
 
         return builder.build();
     }
+
+    /**
+     * Completes the future of a parallel distribution when the PUBLISH was handled for all subscribers.
+     */
+    private static class FanOutCallback implements FutureCallback<Void> {
+
+        private final @NotNull PUBLISH publish;
+        private final @NotNull AtomicInteger pendingBuckets;
+        private final @NotNull SettableFuture<Void> publishFinishedFuture = SettableFuture.create();
+
+        FanOutCallback(final @NotNull PUBLISH publish, final int bucketCount) {
+            this.publish = publish;
+            this.pendingBuckets = new AtomicInteger(bucketCount);
+        }
+
+        @Override
+        public void onSuccess(final @Nullable Void result) {
+            bucketFinished();
+        }
+
+        @Override
+        public void onFailure(final @NotNull Throwable throwable) {
+            bucketFinished();
+
+            Exceptions.rethrowError("Unable to send message with id " + publish.getUniqueId() + " on topic " + publish.getTopic() + " to subscribers", throwable);
+        }
+
+        private void bucketFinished() {
+            if (pendingBuckets.decrementAndGet() == 0) {
+                publishFinishedFuture.set(null);
+            }
+        }
+    }
 }
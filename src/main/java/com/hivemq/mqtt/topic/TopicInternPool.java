@@ -0,0 +1,184 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.mqtt.topic;
+
+import com.codahale.metrics.Counter;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.math.IntMath;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.metrics.MetricsHolder;
+import com.hivemq.util.Utf8Utils;
+import io.netty.buffer.ByteBuf;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static com.hivemq.configuration.service.InternalConfigurations.TOPIC_INTERN_POOL_SIZE;
+
+/**
+ * A bounded pool of canonical topic Strings for the topics of incoming PUBLISHes.
+ * <p>
+ * Topics are looked up directly from their UTF-8 encoded bytes, so a topic that is already present in the pool is
+ * decoded without allocating a new String. All PUBLISHes (and the queued and retained messages created from them)
+ * with the same topic then share a single String instance.
+ * <p>
+ * The pool is a direct mapped table, an entry is evicted when a topic with the same slot is interned. The hash of an
+ * ASCII topic is computed over its bytes the same way as {@link String#hashCode()}, so the entry of an interned topic
+ * can also be found by the topic String. The entries cache the segments of their topic, so the {@link
+ * com.hivemq.mqtt.topic.tree.LocalTopicTree} splits a topic only once per distinct topic.
+ */
+@Singleton
+public class TopicInternPool {
+
+    private final @Nullable AtomicReferenceArray<Entry> entries;
+    private final int mask;
+    private final @NotNull Counter hitCounter;
+    private final @NotNull Counter missCounter;
+    private final @NotNull Counter evictionCounter;
+
+    @Inject
+    public TopicInternPool(final @NotNull MetricsHolder metricsHolder) {
+        this(TOPIC_INTERN_POOL_SIZE.get(), metricsHolder);
+    }
+
+    @VisibleForTesting
+    public TopicInternPool(final int size, final @NotNull MetricsHolder metricsHolder) {
+        if (size > 0) {
+            final int capacity = IntMath.ceilingPowerOfTwo(size);
+            entries = new AtomicReferenceArray<>(capacity);
+            mask = capacity - 1;
+        } else {
+            entries = null;
+            mask = 0;
+        }
+        hitCounter = metricsHolder.getTopicInternPoolHitCounter();
+        missCounter = metricsHolder.getTopicInternPoolMissCounter();
+        evictionCounter = metricsHolder.getTopicInternPoolEvictionCounter();
+    }
+
+    /**
+     * Returns the canonical String of the UTF-8 encoded topic. The topic is decoded and added to the pool if it is not
+     * present yet. The reader index of the byte buffer is not modified.
+     * <p>
+     * Only non empty topics that are valid UTF-8 without control and non characters are interned. For other topics
+     * and if the pool is disabled null is returned, they have to be decoded and validated by the caller.
+     *
+     * @param byteBuf the byte buffer to decode from.
+     * @param index   the index of the first byte of the topic.
+     * @param length  the length of the UTF-8 encoded topic in bytes.
+     * @return the canonical topic or null if the topic was not interned.
+     */
+    public @Nullable String intern(final @NotNull ByteBuf byteBuf, final int index, final int length) {
+        if (entries == null || length == 0) {
+            return null;
+        }
+        int hash = 0;
+        for (int i = index; i < index + length; i++) {
+            hash = 31 * hash + byteBuf.getByte(i);
+        }
+        final int slot = slot(hash);
+        final Entry entry = entries.get(slot);
+        if (entry != null && entry.hash == hash && entry.matches(byteBuf, index, length)) {
+            hitCounter.inc();
+            return entry.topic;
+        }
+        missCounter.inc();
+        final String topic = Utf8Utils.decodeValidated(byteBuf, index, length, true);
+        if (topic == null) {
+            return null;
+        }
+        final Entry newEntry = new Entry(topic, hash, topic.length() == length ? null :
+                topic.getBytes(StandardCharsets.UTF_8));
+        if (entries.getAndSet(slot, newEntry) != null) {
+            evictionCounter.inc();
+        }
+        return topic;
+    }
+
+    /**
+     * Returns the segments of the topic. The segments are cached if the topic is the canonical String of an entry in
+     * the pool. The returned array must not be modified.
+     *
+     * @param topic the topic.
+     * @return the segments of the topic, split by '/'.
+     */
+    public @NotNull String @NotNull [] segments(final @NotNull String topic) {
+        if (entries != null) {
+            final Entry entry = entries.get(slot(topic.hashCode()));
+            //Only the identical String guarantees that the cached segments belong to the topic without comparing it
+            if (entry != null && entry.topic == topic) {
+                return entry.segments();
+            }
+        }
+        return StringUtils.splitPreserveAllTokens(topic, '/');
+    }
+
+    private int slot(final int hash) {
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static class Entry {
+
+        private final @NotNull String topic;
+        private final int hash;
+        // only present for topics that are not ASCII, ASCII topics are compared to their chars
+        private final byte @Nullable [] utf8Bytes;
+        private volatile @NotNull String @Nullable [] segments;
+
+        Entry(final @NotNull String topic, final int hash, final byte @Nullable [] utf8Bytes) {
+            this.topic = topic;
+            this.hash = hash;
+            this.utf8Bytes = utf8Bytes;
+        }
+
+        boolean matches(final @NotNull ByteBuf byteBuf, final int index, final int length) {
+            if (utf8Bytes == null) {
+                if (topic.length() != length) {
+                    return false;
+                }
+                for (int i = 0; i < length; i++) {
+                    if (topic.charAt(i) != byteBuf.getByte(index + i)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            if (utf8Bytes.length != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (utf8Bytes[i] != byteBuf.getByte(index + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @NotNull String @NotNull [] segments() {
+            String[] segments = this.segments;
+            if (segments == null) {
+                // concurrent callers may split the topic more than once, this is cheaper than synchronizing
+                segments = StringUtils.splitPreserveAllTokens(topic, '/');
+                this.segments = segments;
+            }
+            return segments;
+        }
+    }
+}
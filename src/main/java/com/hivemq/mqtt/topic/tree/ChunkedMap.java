@@ -0,0 +1,203 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.mqtt.topic.tree;
+
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A map for the copy-on-write mode of the {@link LocalTopicTree} that splits its entries into chunks which are shared
+ * between a map and its copies. Copying the map only clones the fixed size chunk array, the first modification of a
+ * chunk in either map then clones this single chunk. This way modifying a private copy of a wide node costs about
+ * {@code size / CHUNK_COUNT} instead of {@code size} entry copies.
+ * <p>
+ * The views of the map are read-only. The class is not thread safe, modifications must be guarded by the segment
+ * write lock like all other modifications of the topic tree.
+ *
+ * @param <K> the type of the keys.
+ * @param <V> the type of the values.
+ */
+class ChunkedMap<K, V> extends AbstractMap<K, V> {
+
+    private static final int CHUNK_BITS = 6;
+    static final int CHUNK_COUNT = 1 << CHUNK_BITS;
+
+    private final @Nullable HashMap<K, V> @NotNull [] chunks;
+
+    /**
+     * Whether a chunk is exclusively owned by this map and may be modified in place.
+     */
+    private final boolean @NotNull [] ownedChunks;
+
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    ChunkedMap() {
+        chunks = new HashMap[CHUNK_COUNT];
+        ownedChunks = new boolean[CHUNK_COUNT];
+    }
+
+    /**
+     * Creates a copy that shares all chunks with the original map. Neither map owns the shared chunks afterwards, so a
+     * modification of either map clones the affected chunk first.
+     *
+     * @param original the map to copy.
+     */
+    private ChunkedMap(final @NotNull ChunkedMap<K, V> original) {
+        chunks = original.chunks.clone();
+        ownedChunks = new boolean[CHUNK_COUNT];
+        Arrays.fill(original.ownedChunks, false);
+        size = original.size;
+    }
+
+    /**
+     * Creates a copy of the given map. Copying a {@link ChunkedMap} only shares its chunks, any other map is copied
+     * entry by entry once.
+     *
+     * @param original the map to copy.
+     * @param <K>      the type of the keys.
+     * @param <V>      the type of the values.
+     * @return the copy which can be modified without affecting the original map.
+     */
+    static <K, V> @NotNull ChunkedMap<K, V> copyOf(final @NotNull Map<K, V> original) {
+        if (original instanceof ChunkedMap) {
+            return new ChunkedMap<>((ChunkedMap<K, V>) original);
+        }
+        final ChunkedMap<K, V> copy = new ChunkedMap<>();
+        copy.putAll(original);
+        return copy;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public @Nullable V get(final @Nullable Object key) {
+        final HashMap<K, V> chunk = chunks[chunkIndex(key)];
+        return chunk != null ? chunk.get(key) : null;
+    }
+
+    @Override
+    public boolean containsKey(final @Nullable Object key) {
+        final HashMap<K, V> chunk = chunks[chunkIndex(key)];
+        return chunk != null && chunk.containsKey(key);
+    }
+
+    @Override
+    public @Nullable V put(final @NotNull K key, final @NotNull V value) {
+        final HashMap<K, V> chunk = ownedChunk(chunkIndex(key));
+        final int chunkSize = chunk.size();
+        final V previous = chunk.put(key, value);
+        size += chunk.size() - chunkSize;
+        return previous;
+    }
+
+    @Override
+    public @Nullable V remove(final @Nullable Object key) {
+        final int index = chunkIndex(key);
+        if (chunks[index] == null || !chunks[index].containsKey(key)) {
+            return null;
+        }
+        final HashMap<K, V> chunk = ownedChunk(index);
+        final V previous = chunk.remove(key);
+        size--;
+        if (chunk.isEmpty()) {
+            chunks[index] = null;
+            ownedChunks[index] = false;
+        }
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(chunks, null);
+        Arrays.fill(ownedChunks, false);
+        size = 0;
+    }
+
+    @Override
+    public @NotNull Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public @NotNull Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private @NotNull HashMap<K, V> ownedChunk(final int index) {
+        HashMap<K, V> chunk = chunks[index];
+        if (!ownedChunks[index]) {
+            chunk = chunk != null ? new HashMap<>(chunk) : new HashMap<>();
+            chunks[index] = chunk;
+            ownedChunks[index] = true;
+        }
+        return chunk;
+    }
+
+    /**
+     * Uses the high bits of the scrambled hash code, so the entries of a chunk still spread over the buckets of the
+     * chunk's {@link HashMap} which uses the low bits.
+     */
+    private static int chunkIndex(final @Nullable Object key) {
+        return key == null ? 0 : (key.hashCode() * 0x9E3779B9) >>> (Integer.SIZE - CHUNK_BITS);
+    }
+
+    private class EntryIterator implements Iterator<Entry<K, V>> {
+
+        private int nextChunk;
+        private @NotNull Iterator<Entry<K, V>> current = Collections.emptyIterator();
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                if (nextChunk == CHUNK_COUNT) {
+                    return false;
+                }
+                final HashMap<K, V> chunk = chunks[nextChunk++];
+                if (chunk != null) {
+                    current = Collections.unmodifiableMap(chunk).entrySet().iterator();
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public @NotNull Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+    }
+}
@@ -26,7 +26,9 @@ import com.hivemq.metrics.MetricsHolder;
 import com.hivemq.mqtt.message.subscribe.Topic;
 import com.hivemq.mqtt.topic.SubscriberWithIdentifiers;
 import com.hivemq.mqtt.topic.SubscriberWithQoS;
+import com.hivemq.mqtt.topic.TopicInternPool;
 import org.apache.commons.lang3.StringUtils;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,23 +37,45 @@ import javax.inject.Singleton;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.hivemq.configuration.service.InternalConfigurations.TOPIC_TREE_COPY_ON_WRITE_ENABLED;
 import static com.hivemq.configuration.service.InternalConfigurations.TOPIC_TREE_MAP_CREATION_THRESHOLD;
+import static com.hivemq.configuration.service.InternalConfigurations.TOPIC_TREE_SUBSCRIBERS_CACHE_CONCURRENCY_LEVEL;
+import static com.hivemq.configuration.service.InternalConfigurations.TOPIC_TREE_SUBSCRIBERS_CACHE_MAX_SIZE_ENTRIES;
 
 /**
  * A topic tree implementation which works with a standard read write lock with fairness guarantees. Either the whole
  * tree is locked or unlocked.
+ * <p>
+ * In copy-on-write mode (see {@link com.hivemq.configuration.service.InternalConfigurations#TOPIC_TREE_COPY_ON_WRITE_ENABLED})
+ * the nodes reachable from {@link #segments} are never modified. Writers are still serialized per segment, but they
+ * copy the path to the modified node and publish the new segment version by replacing it in {@link #segments}.
+ * Readers do not take any locks.
+ * <p>
+ * Every modification increments {@link #modificationCount} and afterwards the generations of the changed nodes (see
+ * {@link TopicTreeNode#generation}), of the segment key if a segment was added or removed and of the root wildcard
+ * subscriptions. The optional {@link TopicSubscribersCache} uses these generations for its invalidation.
  */
 @Singleton
 public class LocalTopicTree {
 
     private static final Logger log = LoggerFactory.getLogger(LocalTopicTree.class);
 
+    /**
+     * Groups the subscriptions of the same subscriber by the cached hash code of their canonical client id, which is
+     * cheaper to compare than the client id itself. Within a group the subscriptions are sorted by their natural order
+     * (by client id first and QoS after), which separates clients with colliding hash codes.
+     */
+    private static final @NotNull Comparator<SubscriberWithQoS> DISTINCT_SUBSCRIBERS_ORDER =
+            Comparator.<SubscriberWithQoS>comparingInt(subscriber -> subscriber.getSubscriber().hashCode())
+                    .thenComparing(Comparator.naturalOrder());
+
     final CopyOnWriteArrayList<SubscriberWithQoS> rootWildcardSubscribers = new CopyOnWriteArrayList<>();
 
     private final @NotNull Striped<ReadWriteLock> segmentLocks;
@@ -64,13 +88,40 @@ public class LocalTopicTree {
 
     private final int mapCreationThreshold;
 
-    @Inject
+    private final boolean copyOnWrite;
+
+    private final @NotNull AtomicLong modificationCount = new AtomicLong();
+    private final @NotNull AtomicLong @NotNull [] segmentGenerations = new AtomicLong[64];
+    private final @NotNull AtomicLong rootWildcardGeneration = new AtomicLong();
+
+    @VisibleForTesting
+    final @Nullable TopicSubscribersCache subscribersCache;
+
+    @VisibleForTesting
+    final @NotNull SubscriberRegistry subscriberRegistry = new SubscriberRegistry();
+
+    private final @NotNull TopicInternPool topicInternPool;
+
+    @VisibleForTesting
     public LocalTopicTree(final @NotNull MetricsHolder metricsHolder) {
+        this(metricsHolder, new TopicInternPool(0, metricsHolder));
+    }
+
+    @Inject
+    public LocalTopicTree(final @NotNull MetricsHolder metricsHolder, final @NotNull TopicInternPool topicInternPool) {
 
+        this.topicInternPool = topicInternPool;
         counters = new SubscriptionCounters(metricsHolder.getSubscriptionCounter());
         mapCreationThreshold = TOPIC_TREE_MAP_CREATION_THRESHOLD.get();
+        copyOnWrite = TOPIC_TREE_COPY_ON_WRITE_ENABLED.get();
+        final int subscribersCacheSize = TOPIC_TREE_SUBSCRIBERS_CACHE_MAX_SIZE_ENTRIES.get();
+        subscribersCache = subscribersCacheSize > 0 ? new TopicSubscribersCache(subscribersCacheSize,
+                TOPIC_TREE_SUBSCRIBERS_CACHE_CONCURRENCY_LEVEL.get(), metricsHolder) : null;
 
         segmentLocks = Striped.readWriteLock(64);
+        for (int i = 0; i < segmentGenerations.length; i++) {
+            segmentGenerations[i] = new AtomicLong();
+        }
     }
 
     public boolean addTopic(
@@ -95,8 +146,10 @@ public class LocalTopicTree {
             return false;
         }
 
-        final SubscriberWithQoS entry = new SubscriberWithQoS(subscriber, topic.getQoS().getQosNumber(), flags,
-                sharedName, topic.getSubscriptionIdentifier(), null);
+        //The entry references the canonical client id of the registry, the reference is released when the entry is
+        //removed or replaced
+        final SubscriberWithQoS entry = new SubscriberWithQoS(subscriberRegistry.acquire(subscriber),
+                topic.getQoS().getQosNumber(), flags, sharedName, topic.getSubscriptionIdentifier(), null);
 
         if (contents.length == 1 && "#".equals(contents[0])) {
             if (!rootWildcardSubscribers.contains(entry)) {
@@ -104,9 +157,11 @@ public class LocalTopicTree {
                 final boolean removed = removeRootWildcardSubscriber(subscriber, sharedName);
                 rootWildcardSubscribers.add(entry);
                 counters.getSubscriptionCounter().inc();
+                publishModification(List.of(rootWildcardGeneration));
 
                 return removed;
             }
+            subscriberRegistry.release(subscriber);
             return true;
         }
 
@@ -117,17 +172,31 @@ public class LocalTopicTree {
         lock.lock();
         try {
 
-            TopicTreeNode node = segments.get(segmentKey);
-            if (node == null) {
-                node = new TopicTreeNode(segmentKey);
-                segments.put(segmentKey, node);
+            final boolean replaced;
+            if (copyOnWrite) {
+                replaced = addTopicCopyOnWrite(entry, topic.getTopic(), contents);
+            } else {
+                final List<AtomicLong> changedGenerations = new ArrayList<>(2);
+                TopicTreeNode node = segments.get(segmentKey);
+                if (node == null) {
+                    node = new TopicTreeNode(segmentKey);
+                    segments.put(segmentKey, node);
+                    changedGenerations.add(segmentGeneration(segmentKey));
+                }
+
+                if (contents.length == 1) {
+                    replaced = node.exactSubscriptions.addSubscriber(entry, topic.getTopic(), counters, mapCreationThreshold);
+                    changedGenerations.add(node.generation);
+                } else {
+                    replaced = addNode(entry, topic.getTopic(), contents, node, 1, changedGenerations);
+                }
+                publishModification(changedGenerations);
             }
 
-            if (contents.length == 1) {
-                return node.exactSubscriptions.addSubscriber(entry, topic.getTopic(), counters, mapCreationThreshold);
-            } else {
-                return addNode(entry, topic.getTopic(), contents, node, 1);
+            if (replaced) {
+                subscriberRegistry.release(subscriber);
             }
+            return replaced;
         } finally {
             lock.unlock();
         }
@@ -138,21 +207,82 @@ public class LocalTopicTree {
             final @NotNull String topicFilter,
             final @NotNull String[] contents,
             final @NotNull TopicTreeNode node,
-            final int i) {
+            final int i,
+            final @NotNull List<AtomicLong> changedGenerations) {
 
         final String content = contents[i];
 
         if ("#".equals(content)) {
+            changedGenerations.add(node.generation);
             return node.wildcardSubscriptions.addSubscriber(subscriber, topicFilter, counters, mapCreationThreshold);
         }
 
+        if (node.getChild(content) == null) {
+            changedGenerations.add(node.generation);
+        }
         final TopicTreeNode subNode = node.addChildNodeIfAbsent(content, mapCreationThreshold);
 
         if (i + 1 == contents.length) {
+            changedGenerations.add(subNode.generation);
             return subNode.exactSubscriptions.addSubscriber(subscriber, topicFilter, counters, mapCreationThreshold);
         } else {
-            return addNode(subscriber, topicFilter, contents, subNode, i + 1);
+            return addNode(subscriber, topicFilter, contents, subNode, i + 1, changedGenerations);
+        }
+    }
+
+    private boolean addTopicCopyOnWrite(
+            final @NotNull SubscriberWithQoS subscriber,
+            final @NotNull String topicFilter,
+            final @NotNull String[] contents) {
+
+        final String segmentKey = contents[0];
+        final List<AtomicLong> changedGenerations = new ArrayList<>(2);
+        final TopicTreeNode publishedSegmentNode = segments.get(segmentKey);
+        final TopicTreeNode segmentNode;
+        if (publishedSegmentNode == null) {
+            segmentNode = new TopicTreeNode(segmentKey);
+            changedGenerations.add(segmentGeneration(segmentKey));
+        } else {
+            segmentNode = new TopicTreeNode(publishedSegmentNode, isSubscriptionLevel(contents, 0));
+        }
+
+        final boolean replaced;
+        if (contents.length == 1) {
+            replaced = segmentNode.exactSubscriptions.addSubscriber(subscriber, topicFilter, counters, mapCreationThreshold);
+            changedGenerations.add(segmentNode.generation);
+        } else {
+            TopicTreeNode node = segmentNode;
+            int i = 1;
+            while (true) {
+                if ("#".equals(contents[i])) {
+                    replaced = node.wildcardSubscriptions.addSubscriber(subscriber, topicFilter, counters, mapCreationThreshold);
+                    changedGenerations.add(node.generation);
+                    break;
+                }
+                if (node.getChild(contents[i]) == null) {
+                    changedGenerations.add(node.generation);
+                }
+                node = node.copyChildNodeForUpdate(contents[i], mapCreationThreshold, isSubscriptionLevel(contents, i));
+                if (i + 1 == contents.length) {
+                    replaced = node.exactSubscriptions.addSubscriber(subscriber, topicFilter, counters, mapCreationThreshold);
+                    changedGenerations.add(node.generation);
+                    break;
+                }
+                i++;
+            }
         }
+
+        segments.put(segmentKey, segmentNode);
+        publishModification(changedGenerations);
+        return replaced;
+    }
+
+    /**
+     * @return whether the subscriptions of the node at the given depth are modified by a subscribe or unsubscribe for
+     *         the given topic filter.
+     */
+    private static boolean isSubscriptionLevel(final @NotNull String[] contents, final int depth) {
+        return depth + 1 == contents.length || "#".equals(contents[depth + 1]);
     }
 
     /**
@@ -169,6 +299,10 @@ public class LocalTopicTree {
             final @NotNull String topic,
             final boolean excludeRootLevelWildcard) {
 
+        if (subscribersCache != null && !excludeRootLevelWildcard) {
+            return findTopicSubscribersCached(topic, subscribersCache);
+        }
+
         final ImmutableList.Builder<SubscriberWithQoS> subscribers = ImmutableList.builder();
         final ImmutableSet.Builder<String> sharedSubscriptions = ImmutableSet.builder();
 
@@ -181,6 +315,61 @@ public class LocalTopicTree {
         return new TopicSubscribers(distinctSubscribers, sharedSubscriptions.build());
     }
 
+    private @NotNull TopicSubscribers findTopicSubscribersCached(
+            final @NotNull String topic,
+            final @NotNull TopicSubscribersCache subscribersCache) {
+
+        final TopicSubscribers cachedSubscribers = subscribersCache.getIfValid(topic);
+        if (cachedSubscribers != null) {
+            return cachedSubscribers;
+        }
+
+        final long modificationCountBefore = modificationCount.get();
+
+        final ImmutableList.Builder<SubscriberWithQoS> subscribers = ImmutableList.builder();
+        final ImmutableSet.Builder<String> sharedSubscriptions = ImmutableSet.builder();
+
+        final GenerationRecordingSubscriptionInfoFinder subscriberConsumer =
+                new GenerationRecordingSubscriptionInfoFinder(subscribers, sharedSubscriptions);
+        subscriberConsumer.visitGeneration(rootWildcardGeneration);
+        subscriberConsumer.visitGeneration(segmentGeneration(SegmentKeyUtil.firstSegmentKey(topic)));
+        subscriberConsumer.visitGeneration(segmentGeneration("+"));
+
+        findSubscribers(topic, false, subscriberConsumer);
+
+        final ImmutableSet<SubscriberWithIdentifiers> distinctSubscribers = createDistinctSubscribers(subscribers.build());
+        final TopicSubscribers topicSubscribers = new TopicSubscribers(distinctSubscribers, sharedSubscriptions.build());
+
+        //A concurrent modification may have been only partially visible, so the result is not cached in this case
+        if (modificationCount.get() == modificationCountBefore) {
+            subscribersCache.put(topic, topicSubscribers,
+                    subscriberConsumer.generations.toArray(new AtomicLong[0]),
+                    subscriberConsumer.expectedGenerations.toArray());
+        }
+        return topicSubscribers;
+    }
+
+    /**
+     * @return the generation that changes when a segment with the given key is added or removed (shared with other
+     *         segment keys with the same hash).
+     */
+    private @NotNull AtomicLong segmentGeneration(final @NotNull String segmentKey) {
+        return segmentGenerations[Math.floorMod(segmentKey.hashCode(), segmentGenerations.length)];
+    }
+
+    /**
+     * Makes a modification visible for the {@link TopicSubscribersCache}. Must be called after the modification is
+     * visible for readers.
+     *
+     * @param changedGenerations the generations of everything that was changed by the modification.
+     */
+    private void publishModification(final @NotNull List<AtomicLong> changedGenerations) {
+        modificationCount.incrementAndGet();
+        for (final AtomicLong changedGeneration : changedGenerations) {
+            changedGeneration.incrementAndGet();
+        }
+    }
+
     private void findSubscribers(
             final @NotNull String topic,
             final boolean excludeRootLevelWildcard,
@@ -198,11 +387,11 @@ public class LocalTopicTree {
             return;
         }
 
-        final String[] topicPart = StringUtils.splitPreserveAllTokens(topic, '/');
+        //The segments of interned topics are only split once per distinct topic
+        final String[] topicPart = topicInternPool.segments(topic);
         final String segmentKey = topicPart[0];
 
-        final Lock lock = segmentLocks.get(segmentKey).readLock();
-        lock.lock();
+        final @Nullable Lock lock = lockSegmentForRead(segmentKey);
 
         try {
             final TopicTreeNode firstSegmentNode = segments.get(segmentKey);
@@ -210,14 +399,13 @@ public class LocalTopicTree {
                 traverseTree(firstSegmentNode, subscriberAndTopicConsumer, topicPart, 0);
             }
         } finally {
-            lock.unlock();
+            unlockSegmentForRead(lock);
         }
 
         //We now have to traverse the wildcard node if something matches here
         if (!excludeRootLevelWildcard) {
 
-            final Lock wildcardLock = segmentLocks.get("+").readLock();
-            wildcardLock.lock();
+            final @Nullable Lock wildcardLock = lockSegmentForRead("+");
 
             try {
                 final TopicTreeNode firstSegmentNode = segments.get("+");
@@ -225,7 +413,7 @@ public class LocalTopicTree {
                     traverseTree(firstSegmentNode, subscriberAndTopicConsumer, topicPart, 0);
                 }
             } finally {
-                wildcardLock.unlock();
+                unlockSegmentForRead(wildcardLock);
             }
         }
     }
@@ -238,16 +426,18 @@ public class LocalTopicTree {
      * @param subscribers a list of subscribers
      * @return a immutable Set of distinct Subscribers with the maximum QoS.
      */
-    private static @NotNull ImmutableSet<SubscriberWithIdentifiers> createDistinctSubscribers(
+    @VisibleForTesting
+    static @NotNull ImmutableSet<SubscriberWithIdentifiers> createDistinctSubscribers(
             final @NotNull ImmutableList<SubscriberWithQoS> subscribers) {
 
         final ImmutableSet.Builder<SubscriberWithIdentifiers> newSet = ImmutableSet.builder();
 
-        final ImmutableList<SubscriberWithQoS> subscriberWithQoS = ImmutableList.sortedCopyOf(Comparator.naturalOrder(), subscribers);
+        final ImmutableList<SubscriberWithQoS> subscriberWithQoS = ImmutableList.sortedCopyOf(DISTINCT_SUBSCRIBERS_ORDER, subscribers);
 
         final Iterator<SubscriberWithQoS> iterator = subscriberWithQoS.iterator();
 
         SubscriberWithIdentifiers last = null;
+        SubscriberWithQoS lastSubscription = null;
 
         // Create a single entry per client id, with the highest QoS an all subscription identifiers
         while (iterator.hasNext()) {
@@ -255,7 +445,7 @@ public class LocalTopicTree {
 
             if (last != null) {
 
-                if (!equalSubscription(current, last)) {
+                if (!equalSubscription(current, lastSubscription)) {
                     newSet.add(last);
                     last = new SubscriberWithIdentifiers(current);
                 } else {
@@ -273,6 +463,7 @@ public class LocalTopicTree {
             } else {
                 last = new SubscriberWithIdentifiers(current);
             }
+            lastSubscription = current;
 
             if (!iterator.hasNext()) {
                 newSet.add(last);
@@ -284,25 +475,20 @@ public class LocalTopicTree {
 
     private static boolean equalSubscription(
             final @NotNull SubscriberWithQoS first,
-            final @NotNull SubscriberWithIdentifiers second) {
-
-        return equalSubscription(first, second.getSubscriber(), second.getTopicFilter(),
-                second.getSharedName());
-    }
-
-    private static boolean equalSubscription(
-            final @NotNull SubscriberWithQoS first,
-            final @NotNull String secondClient,
-            final @Nullable String secondTopicFilter,
-            final @Nullable String secondSharedName) {
+            final @NotNull SubscriberWithQoS second) {
 
-        if (!first.getSubscriber().equals(secondClient)) {
+        if (!equalSubscriber(first, second)) {
             return false;
         }
-        if (!Objects.equals(first.getTopicFilter(), secondTopicFilter)) {
+        if (!Objects.equals(first.getTopicFilter(), second.getTopicFilter())) {
             return false;
         }
-        return Objects.equals(first.getSharedName(), secondSharedName);
+        return Objects.equals(first.getSharedName(), second.getSharedName());
+    }
+
+    private static boolean equalSubscriber(final @NotNull SubscriberWithQoS first, final @NotNull SubscriberWithQoS second) {
+        // Subscriptions in the tree share the canonical client id, so this is usually a reference comparison
+        return first.getSubscriber().equals(second.getSubscriber());
     }
 
     private static void traverseTree(
@@ -315,6 +501,7 @@ public class LocalTopicTree {
             return;
         }
 
+        subscriberAndTopicConsumer.visitGeneration(node.generation);
         subscriberAndTopicConsumer.acceptNonRootState(node.wildcardSubscriptions);
 
         final boolean end = topicPart.length - 1 == depth;
@@ -391,7 +578,14 @@ public class LocalTopicTree {
         final ImmutableList<SubscriberWithQoS> foundSubscriberList = foundSubscribers.build();
         rootWildcardSubscribers.removeAll(foundSubscriberList);
         counters.getSubscriptionCounter().dec(foundSubscriberList.size());
-        return !foundSubscriberList.isEmpty();
+        if (foundSubscriberList.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < foundSubscriberList.size(); i++) {
+            subscriberRegistry.release(subscriber);
+        }
+        publishModification(List.of(rootWildcardGeneration));
+        return true;
     }
 
     public void removeSubscriber(
@@ -423,18 +617,29 @@ public class LocalTopicTree {
         final Lock lock = segmentLocks.get(segmentKey).writeLock();
         lock.lock();
         try {
+            if (copyOnWrite) {
+                removeSubscriberCopyOnWrite(subscriber, topic, sharedName, topicPart);
+                return;
+            }
+
             //The segment doesn't exist, we can abort
             final TopicTreeNode segmentNode = segments.get(segmentKey);
             if (segmentNode == null) {
                 return;
             }
 
+            final List<AtomicLong> changedGenerations = new ArrayList<>(2);
+
+            boolean removed = false;
+
             if (topicPart.length == 1) {
-                segmentNode.exactSubscriptions.removeSubscriber(subscriber, sharedName, topic, counters);
+                removed = segmentNode.exactSubscriptions.removeSubscriber(subscriber, sharedName, topic, counters);
+                changedGenerations.add(segmentNode.generation);
             }
 
             if (topicPart.length == 2 && "#".equals(topicPart[1])) {
-                segmentNode.wildcardSubscriptions.removeSubscriber(subscriber, sharedName, topic, counters);
+                removed |= segmentNode.wildcardSubscriptions.removeSubscriber(subscriber, sharedName, topic, counters);
+                changedGenerations.add(segmentNode.generation);
             }
 
             iterateChildNodesForSubscriberRemoval(segmentNode, topicPart, nodes, 0);
@@ -443,13 +648,19 @@ public class LocalTopicTree {
             if (lastFoundNode != null) {
                 final String lastTopicPart = topicPart[topicPart.length - 1];
                 if ("#".equals(lastTopicPart)) {
-                    lastFoundNode.wildcardSubscriptions.removeSubscriber(subscriber, sharedName, topic, counters);
+                    removed |= lastFoundNode.wildcardSubscriptions.removeSubscriber(subscriber, sharedName, topic, counters);
+                    changedGenerations.add(lastFoundNode.generation);
 
                 } else if (lastTopicPart.equals(lastFoundNode.getTopicPart())) {
-                    lastFoundNode.exactSubscriptions.removeSubscriber(subscriber, sharedName, topic, counters);
+                    removed |= lastFoundNode.exactSubscriptions.removeSubscriber(subscriber, sharedName, topic, counters);
+                    changedGenerations.add(lastFoundNode.generation);
                 }
             }
 
+            if (removed) {
+                subscriberRegistry.release(subscriber);
+            }
+
             //Delete all nodes recursively if they are not needed anymore
 
             for (int i = nodes.length - 1; i > 0; i--) {
@@ -466,12 +677,14 @@ public class LocalTopicTree {
                             for (int j = 0; j < childrenOfParent.length; j++) {
                                 if (childrenOfParent[j] == node) {
                                     childrenOfParent[j] = null;
+                                    changedGenerations.add(parent.generation);
                                 }
                             }
                         } else if (parent.getChildrenMap() != null) {
                             final TopicTreeNode childOfParent = parent.getChildrenMap().get(node.getTopicPart());
                             if (childOfParent == node) {
                                 parent.getChildrenMap().remove(childOfParent.getTopicPart());
+                                changedGenerations.add(parent.generation);
                             }
                         }
                     }
@@ -483,13 +696,75 @@ public class LocalTopicTree {
                     segmentNode.exactSubscriptions.getSubscriberCount() == 0 &&
                     segmentNode.wildcardSubscriptions.getSubscriberCount() == 0) {
                 segments.remove(segmentNode.getTopicPart());
+                changedGenerations.add(segmentGeneration(segmentKey));
             }
 
+            publishModification(changedGenerations);
         } finally {
             lock.unlock();
         }
     }
 
+    private void removeSubscriberCopyOnWrite(
+            final @NotNull String subscriber,
+            final @NotNull String topic,
+            final @Nullable String sharedName,
+            final @NotNull String[] topicPart) {
+
+        final String segmentKey = topicPart[0];
+        final TopicTreeNode publishedSegmentNode = segments.get(segmentKey);
+        if (publishedSegmentNode == null) {
+            return;
+        }
+
+        //Look up the path first, so nothing is copied if the subscription can not exist
+        int depth = 1;
+        TopicTreeNode publishedNode = publishedSegmentNode;
+        while (depth < topicPart.length && !"#".equals(topicPart[depth])) {
+            publishedNode = publishedNode.getChild(topicPart[depth]);
+            if (publishedNode == null) {
+                return;
+            }
+            depth++;
+        }
+
+        final TopicTreeNode[] nodes = new TopicTreeNode[depth];
+        nodes[0] = new TopicTreeNode(publishedSegmentNode, isSubscriptionLevel(topicPart, 0));
+        for (int i = 1; i < depth; i++) {
+            nodes[i] = nodes[i - 1].copyChildNodeForUpdate(topicPart[i], mapCreationThreshold,
+                    isSubscriptionLevel(topicPart, i));
+        }
+
+        final List<AtomicLong> changedGenerations = new ArrayList<>(2);
+        final TopicTreeNode lastNode = nodes[depth - 1];
+        final boolean removed;
+        if ("#".equals(topicPart[topicPart.length - 1])) {
+            removed = lastNode.wildcardSubscriptions.removeSubscriber(subscriber, sharedName, topic, counters);
+        } else {
+            removed = lastNode.exactSubscriptions.removeSubscriber(subscriber, sharedName, topic, counters);
+        }
+        changedGenerations.add(lastNode.generation);
+        if (removed) {
+            subscriberRegistry.release(subscriber);
+        }
+
+        //Delete all nodes of the copied path if they are not needed anymore
+        for (int i = depth - 1; i > 0; i--) {
+            if (nodes[i].isNodeEmpty()) {
+                nodes[i - 1].removeChild(nodes[i]);
+                changedGenerations.add(nodes[i - 1].generation);
+            }
+        }
+
+        if (nodes[0].isNodeEmpty()) {
+            segments.remove(segmentKey);
+            changedGenerations.add(segmentGeneration(segmentKey));
+        } else {
+            segments.put(segmentKey, nodes[0]);
+        }
+        publishModification(changedGenerations);
+    }
+
     private static @Nullable TopicTreeNode getLastNode(final @NotNull TopicTreeNode[] nodes) {
         //Search for the last node which is not null
         for (int i = nodes.length - 1; i >= 0; i--) {
@@ -594,11 +869,11 @@ public class LocalTopicTree {
             return subscribers.build();
         }
 
-        final String[] topicPart = StringUtils.splitPreserveAllTokens(topic, '/');
+        //The segments of interned topics are only split once per distinct topic
+        final String[] topicPart = topicInternPool.segments(topic);
         final String segmentKey = topicPart[0];
 
-        final Lock lock = segmentLocks.get(segmentKey).readLock();
-        lock.lock();
+        final @Nullable Lock lock = lockSegmentForRead(segmentKey);
 
         try {
             final TopicTreeNode firstSegmentNode = segments.get(segmentKey);
@@ -606,14 +881,13 @@ public class LocalTopicTree {
                 traverseTreeWithFilter(firstSegmentNode, subscribers, topicPart, 0, itemFilter);
             }
         } finally {
-            lock.unlock();
+            unlockSegmentForRead(lock);
         }
 
         //We now have to traverse the wildcard node if something matches here
         if (!excludeRootLevelWildcard) {
 
-            final Lock wildcardLock = segmentLocks.get("+").readLock();
-            wildcardLock.lock();
+            final @Nullable Lock wildcardLock = lockSegmentForRead("+");
 
             try {
                 final TopicTreeNode firstSegmentNode = segments.get("+");
@@ -621,7 +895,7 @@ public class LocalTopicTree {
                     traverseTreeWithFilter(firstSegmentNode, subscribers, topicPart, 0, itemFilter);
                 }
             } finally {
-                wildcardLock.unlock();
+                unlockSegmentForRead(wildcardLock);
             }
         }
 
@@ -707,8 +981,7 @@ public class LocalTopicTree {
 
         final String[] contents = StringUtils.splitPreserveAllTokens(topicFilter, '/');
         final String firstSegment = contents[0];
-        final Lock lock = segmentLocks.get(firstSegment).readLock();
-        lock.lock();
+        final @Nullable Lock lock = lockSegmentForRead(firstSegment);
         try {
             TopicTreeNode node = segments.get(firstSegment);
             if (node == null) {
@@ -755,7 +1028,7 @@ public class LocalTopicTree {
             }
             return subscribers.build();
         } finally {
-            lock.unlock();
+            unlockSegmentForRead(lock);
         }
     }
 
@@ -799,6 +1072,28 @@ public class LocalTopicTree {
         Utilities
      **************/
 
+    /**
+     * Acquires the read lock of a segment. In copy-on-write mode readers don't lock, as the published node versions
+     * are immutable.
+     *
+     * @return the acquired lock that must be passed to {@link #unlockSegmentForRead(Lock)} or null in copy-on-write
+     *         mode
+     */
+    private @Nullable Lock lockSegmentForRead(final @NotNull String segmentKey) {
+        if (copyOnWrite) {
+            return null;
+        }
+        final Lock lock = segmentLocks.get(segmentKey).readLock();
+        lock.lock();
+        return lock;
+    }
+
+    private static void unlockSegmentForRead(final @Nullable Lock lock) {
+        if (lock != null) {
+            lock.unlock();
+        }
+    }
+
     /**
      * Returns the number of children of a node.
      *
@@ -843,6 +1138,14 @@ public class LocalTopicTree {
          * @param rootWildcardSubscriptions root wildcard subscriptions of the topic tree.
          */
         void acceptRootState(@NotNull List<SubscriberWithQoS> rootWildcardSubscriptions);
+
+        /**
+         * Called for every node that matches the topic, before its subscription information is processed.
+         *
+         * @param generation the generation of the matching node.
+         */
+        default void visitGeneration(final @NotNull AtomicLong generation) {
+        }
     }
 
     /**
@@ -889,6 +1192,27 @@ public class LocalTopicTree {
         }
     }
 
+    /**
+     * Additionally records the generations of the matching nodes, so the result can be cached.
+     */
+    private static final class GenerationRecordingSubscriptionInfoFinder extends ClientQueueDispatchingSubscriptionInfoFinder {
+
+        private final @NotNull List<AtomicLong> generations = new ArrayList<>();
+        private final @NotNull LongArrayList expectedGenerations = new LongArrayList();
+
+        GenerationRecordingSubscriptionInfoFinder(
+                final @NotNull ImmutableList.Builder<SubscriberWithQoS> subscribersBuilder,
+                final @NotNull ImmutableSet.Builder<String> sharedSubscriptionsBuilder) {
+            super(subscribersBuilder, sharedSubscriptionsBuilder);
+        }
+
+        @Override
+        public void visitGeneration(final @NotNull AtomicLong generation) {
+            generations.add(generation);
+            expectedGenerations.add(generation.get());
+        }
+    }
+
     /**
      * Filters subscription information for the purpose of delivering PUBLISH control packet to the subscriber.
      * Outbound flow.
@@ -51,8 +51,32 @@ class MatchingNodeSubscriptions {
      */
     @NotNull Map<String, SubscriptionGroup> sharedSubscribersMap;
 
+    /**
+     * Incremented for every copy-on-write copy. A {@link SubscriptionGroup} may only be modified in place by the copy
+     * with the version it was created for, other copies share it and replace it with their own copy first.
+     */
+    private final int version;
+
     MatchingNodeSubscriptions() {
         sharedSubscribersMap = Map.of();
+        version = 0;
+    }
+
+    /**
+     * Creates a copy of the given subscriptions that can be modified while readers still access the original. The
+     * maps are copied into {@link ChunkedMap}s and the subscription groups are shared until they are modified, so
+     * the cost of the copy does not grow with the number of subscriptions of the node.
+     *
+     * @param original the subscriptions to copy.
+     */
+    MatchingNodeSubscriptions(final @NotNull MatchingNodeSubscriptions original) {
+        nonSharedSubscribersArray =
+                original.nonSharedSubscribersArray != null ? original.nonSharedSubscribersArray.clone() : null;
+        nonSharedSubscribersMap = original.nonSharedSubscribersMap != null ?
+                ChunkedMap.copyOf(original.nonSharedSubscribersMap) : null;
+        sharedSubscribersMap = original.sharedSubscribersMap.isEmpty() ?
+                Map.of() : ChunkedMap.copyOf(original.sharedSubscribersMap);
+        version = original.version + 1;
     }
 
     /**
@@ -91,8 +115,9 @@ class MatchingNodeSubscriptions {
      * @param sharedName  the name of the group that the shared subscriber belongs to (if set).
      * @param topicFilter topic filter for the to-be-removed subscription represented as a string.
      * @param counters    container with subscription counters that are updated upon subscription removal.
+     * @return whether a subscription was removed.
      */
-    public void removeSubscriber(
+    public boolean removeSubscriber(
             final @NotNull String subscriber,
             final @Nullable String sharedName,
             final @Nullable String topicFilter,
@@ -103,7 +128,9 @@ class MatchingNodeSubscriptions {
 
         if (subscriptionInfoRemovalStatus != null) {
             counters.getSubscriptionCounter().dec();
+            return true;
         }
+        return false;
     }
 
     public void populateWithSubscriberNamesUsingFilter(
@@ -207,7 +234,22 @@ class MatchingNodeSubscriptions {
      */
     private static class SubscriptionGroup {
 
-        private final @NotNull Map<String, SubscriberWithQoS> subscriptions = new HashMap<>();
+        private final @NotNull Map<String, SubscriberWithQoS> subscriptions;
+        private final int version;
+
+        SubscriptionGroup(final int version) {
+            subscriptions = new HashMap<>();
+            this.version = version;
+        }
+
+        SubscriptionGroup(final @NotNull SubscriptionGroup original, final int version) {
+            subscriptions = ChunkedMap.copyOf(original.subscriptions);
+            this.version = version;
+        }
+
+        boolean contains(final @NotNull String subscriber) {
+            return subscriptions.containsKey(subscriber);
+        }
 
         @Nullable SubscriberWithQoS put(final @NotNull SubscriberWithQoS subscription) {
             return subscriptions.put(subscription.getSubscriber(), subscription);
@@ -244,11 +286,15 @@ class MatchingNodeSubscriptions {
             if (sharedSubscribersMap.isEmpty()) {
                 sharedSubscribersMap = new HashMap<>(subscriberMapCreationThreshold);
             }
-            final SubscriberWithQoS prev = sharedSubscribersMap
-                    .computeIfAbsent(
-                            sharedSubscriptionKey(subscriberToAdd.getSharedName(), topicFilter),
-                            key -> new SubscriptionGroup())
-                    .put(subscriberToAdd);
+            final String sharedSubscriptionKey = sharedSubscriptionKey(subscriberToAdd.getSharedName(), topicFilter);
+            SubscriptionGroup group = sharedSubscribersMap.get(sharedSubscriptionKey);
+            if (group == null) {
+                group = new SubscriptionGroup(version);
+                sharedSubscribersMap.put(sharedSubscriptionKey, group);
+            } else {
+                group = ownedSubscriptionGroup(sharedSubscriptionKey, group);
+            }
+            final SubscriberWithQoS prev = group.put(subscriberToAdd);
 
             return prev == null ? null : new SubscriptionInfoPresenceStatus(prev.equals(subscriberToAdd));
         }
@@ -324,8 +370,9 @@ class MatchingNodeSubscriptions {
         SubscriberWithQoS remove = null;
         if (sharedName != null && topicFilter != null) { // shared subscription removal
             final String sharedSubscriptionKey = sharedSubscriptionKey(sharedName, topicFilter);
-            final SubscriptionGroup group = sharedSubscribersMap.get(sharedSubscriptionKey);
-            if (group != null) {
+            final SubscriptionGroup sharedGroup = sharedSubscribersMap.get(sharedSubscriptionKey);
+            if (sharedGroup != null && sharedGroup.contains(subscriber)) {
+                final SubscriptionGroup group = ownedSubscriptionGroup(sharedSubscriptionKey, sharedGroup);
                 remove = group.remove(subscriber);
 
                 if (group.size() == 0) {
@@ -352,6 +399,18 @@ class MatchingNodeSubscriptions {
         return remove == null ? null : new SubscriptionInfoRemovalStatus(remove.isSharedSubscription());
     }
 
+    private @NotNull SubscriptionGroup ownedSubscriptionGroup(
+            final @NotNull String sharedSubscriptionKey,
+            final @NotNull SubscriptionGroup group) {
+
+        if (group.version == version) {
+            return group;
+        }
+        final SubscriptionGroup copy = new SubscriptionGroup(group, version);
+        sharedSubscribersMap.put(sharedSubscriptionKey, copy);
+        return copy;
+    }
+
     private static boolean isEmptyArray(final @Nullable Object @Nullable [] array) {
         if (array == null) {
             return true;
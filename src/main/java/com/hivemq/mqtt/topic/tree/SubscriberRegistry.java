@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.mqtt.topic.tree;
+
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.util.ObjectMemoryEstimation;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a single canonical client id String per subscriber in the {@link LocalTopicTree}.
+ * <p>
+ * Every subscription in the topic tree holds a reference to its client id. Subscriptions of the same client reference
+ * the canonical client id of the registry, so they do not hold duplicate Strings.
+ * <p>
+ * The client ids are reference counted by subscription and removed after the last subscription of a client was
+ * removed.
+ * <p>
+ * The registry is thread-safe. Subscribes and unsubscribes of different clients do not block each other.
+ */
+class SubscriberRegistry {
+
+    private final @NotNull ConcurrentHashMap<String, Registration> registrations = new ConcurrentHashMap<>();
+
+    /**
+     * Increments the reference count of the client id.
+     *
+     * @param clientId the client id of the subscriber.
+     * @return the canonical client id of the subscriber.
+     */
+    @NotNull String acquire(final @NotNull String clientId) {
+        return registrations.compute(clientId, (key, registration) -> {
+            if (registration == null) {
+                registration = new Registration(key);
+            }
+            registration.references++;
+            return registration;
+        }).clientId;
+    }
+
+    /**
+     * Decrements the reference count of the client id and removes it if it is not referenced anymore.
+     *
+     * @param clientId the client id of the subscriber.
+     */
+    void release(final @NotNull String clientId) {
+        registrations.computeIfPresent(clientId,
+                (key, registration) -> --registration.references > 0 ? registration : null);
+    }
+
+    int size() {
+        return registrations.size();
+    }
+
+    /**
+     * @return the estimated heap size of the registry in bytes, including the canonical client ids.
+     */
+    long estimatedSize() {
+        long size = ObjectMemoryEstimation.objectShellSize();
+        // map entries (key and value) and the registrations
+        size += ObjectMemoryEstimation.collectionOverhead();
+        for (final Registration registration : registrations.values()) {
+            size += ObjectMemoryEstimation.objectRefSize() * 2L;
+            size += ObjectMemoryEstimation.objectShellSize() + ObjectMemoryEstimation.objectRefSize() +
+                    ObjectMemoryEstimation.intSize();
+            size += ObjectMemoryEstimation.stringSize(registration.clientId);
+        }
+        return size;
+    }
+
+    private static final class Registration {
+
+        final @NotNull String clientId;
+        // only modified while the registration is computed in the map
+        private int references;
+
+        private Registration(final @NotNull String clientId) {
+            this.clientId = clientId;
+        }
+    }
+}
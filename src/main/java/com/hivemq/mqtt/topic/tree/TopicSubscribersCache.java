@@ -0,0 +1,109 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.mqtt.topic.tree;
+
+import com.codahale.metrics.Counter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.metrics.MetricsHolder;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the computed {@link TopicSubscribers} per concrete topic.
+ * <p>
+ * Each entry remembers the generations of all topic tree nodes that contributed to the result, as well as the
+ * generations of the segment map and the root wildcard subscriptions. The {@link LocalTopicTree} increments the
+ * generation of a node whenever its subscriptions or its set of children change, so an entry is valid exactly as long
+ * as none of the generations it depends on changed.
+ */
+class TopicSubscribersCache {
+
+    private final @NotNull Cache<String, Entry> cache;
+    private final @NotNull Counter hitCounter;
+    private final @NotNull Counter missCounter;
+    private final @NotNull Counter invalidationCounter;
+
+    TopicSubscribersCache(final int maximumSize, final int concurrencyLevel, final @NotNull MetricsHolder metricsHolder) {
+        cache = CacheBuilder.newBuilder()
+                .concurrencyLevel(concurrencyLevel)
+                .maximumSize(maximumSize)
+                .build();
+        hitCounter = metricsHolder.getTopicTreeCacheHitCounter();
+        missCounter = metricsHolder.getTopicTreeCacheMissCounter();
+        invalidationCounter = metricsHolder.getTopicTreeCacheInvalidationCounter();
+    }
+
+    /**
+     * @param topic the concrete topic.
+     * @return the cached subscribers for the topic or null if no valid entry is present.
+     */
+    @Nullable TopicSubscribers getIfValid(final @NotNull String topic) {
+        final Entry entry = cache.getIfPresent(topic);
+        if (entry == null) {
+            missCounter.inc();
+            return null;
+        }
+        if (!entry.isValid()) {
+            invalidationCounter.inc();
+            missCounter.inc();
+            cache.asMap().remove(topic, entry);
+            return null;
+        }
+        hitCounter.inc();
+        return entry.topicSubscribers;
+    }
+
+    void put(
+            final @NotNull String topic,
+            final @NotNull TopicSubscribers topicSubscribers,
+            final @NotNull AtomicLong @NotNull [] generations,
+            final long @NotNull [] expectedGenerations) {
+
+        cache.put(topic, new Entry(topicSubscribers, generations, expectedGenerations));
+    }
+
+    long size() {
+        return cache.size();
+    }
+
+    private static class Entry {
+
+        private final @NotNull TopicSubscribers topicSubscribers;
+        private final @NotNull AtomicLong @NotNull [] generations;
+        private final long @NotNull [] expectedGenerations;
+
+        Entry(
+                final @NotNull TopicSubscribers topicSubscribers,
+                final @NotNull AtomicLong @NotNull [] generations,
+                final long @NotNull [] expectedGenerations) {
+            this.topicSubscribers = topicSubscribers;
+            this.generations = generations;
+            this.expectedGenerations = expectedGenerations;
+        }
+
+        boolean isValid() {
+            for (int i = 0; i < generations.length; i++) {
+                if (generations[i].get() != expectedGenerations[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
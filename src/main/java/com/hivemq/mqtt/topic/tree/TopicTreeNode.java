@@ -21,6 +21,7 @@ import com.hivemq.extension.sdk.api.annotations.Nullable;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 class TopicTreeNode {
 
@@ -47,12 +48,42 @@ class TopicTreeNode {
      */
     @Nullable Map<String, TopicTreeNode> childrenMap;
 
+    /**
+     * Incremented by the {@link LocalTopicTree} after the subscriptions or the set of children of this node changed.
+     * Copies of the node share the generation, so it identifies the node across all of its copy-on-write versions.
+     */
+    final @NotNull AtomicLong generation;
+
     TopicTreeNode(final @NotNull String topicPart) {
         this.topicPart = topicPart;
+        generation = new AtomicLong();
         wildcardSubscriptions = new MatchingNodeSubscriptions();
         exactSubscriptions = new MatchingNodeSubscriptions();
     }
 
+    /**
+     * Creates a private copy of a node for the copy-on-write mode of the {@link LocalTopicTree}. The children are
+     * copied shallowly, so the children of the copy can be replaced without affecting the original node. A children
+     * map is copied into a {@link ChunkedMap}, so copies of wide nodes only clone the chunk that is modified.
+     *
+     * @param original          the node to copy.
+     * @param copySubscriptions whether the subscriptions are copied (they are about to be modified) or shared with
+     *                          the original node.
+     */
+    TopicTreeNode(final @NotNull TopicTreeNode original, final boolean copySubscriptions) {
+        topicPart = original.topicPart;
+        generation = original.generation;
+        if (copySubscriptions) {
+            wildcardSubscriptions = new MatchingNodeSubscriptions(original.wildcardSubscriptions);
+            exactSubscriptions = new MatchingNodeSubscriptions(original.exactSubscriptions);
+        } else {
+            wildcardSubscriptions = original.wildcardSubscriptions;
+            exactSubscriptions = original.exactSubscriptions;
+        }
+        children = original.children != null ? original.children.clone() : null;
+        childrenMap = original.childrenMap != null ? ChunkedMap.copyOf(original.childrenMap) : null;
+    }
+
     public @NotNull TopicTreeNode addChildNodeIfAbsent(
             final @NotNull String childNodeTopicPart,
             final int indexMapCreationThreshold) {
@@ -112,6 +143,63 @@ class TopicTreeNode {
         return childNode;
     }
 
+    /**
+     * Replaces the child node for the given topic part with a private copy, or creates the child node if it does not
+     * exist yet. Must only be called on a node that is itself a private copy.
+     *
+     * @param childNodeTopicPart        the topic part of the child node.
+     * @param indexMapCreationThreshold the threshold for creating the children map.
+     * @param copySubscriptions         whether the subscriptions of the child are about to be modified.
+     * @return the new child node which is not yet visible for readers.
+     */
+    @NotNull TopicTreeNode copyChildNodeForUpdate(
+            final @NotNull String childNodeTopicPart,
+            final int indexMapCreationThreshold,
+            final boolean copySubscriptions) {
+
+        final TopicTreeNode child = getChild(childNodeTopicPart);
+        if (child == null) {
+            return addChildNodeIfAbsent(childNodeTopicPart, indexMapCreationThreshold);
+        }
+        final TopicTreeNode copy = new TopicTreeNode(child, copySubscriptions);
+        if (children != null) {
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] == child) {
+                    children[i] = copy;
+                }
+            }
+        } else if (childrenMap != null) {
+            childrenMap.put(childNodeTopicPart, copy);
+        }
+        return copy;
+    }
+
+    @Nullable TopicTreeNode getChild(final @NotNull String childNodeTopicPart) {
+        if (childrenMap != null) {
+            return childrenMap.get(childNodeTopicPart);
+        }
+        if (children != null) {
+            for (final TopicTreeNode child : children) {
+                if (child != null && child.getTopicPart().equals(childNodeTopicPart)) {
+                    return child;
+                }
+            }
+        }
+        return null;
+    }
+
+    void removeChild(final @NotNull TopicTreeNode childNode) {
+        if (children != null) {
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] == childNode) {
+                    children[i] = null;
+                }
+            }
+        } else if (childrenMap != null && childrenMap.get(childNode.getTopicPart()) == childNode) {
+            childrenMap.remove(childNode.getTopicPart());
+        }
+    }
+
     /**
      * Checks if the node is empty, that is if:
      * <p>
@@ -0,0 +1,394 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence;
+
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.*;
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.persistence.local.xodus.bucket.BucketUtils;
+import com.hivemq.util.ThreadFactoryUtil;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hivemq.persistence.SingleWriterService.Task;
+
+/**
+ * The part of the producer queues that is common to all single writer implementations: routing the tasks of a bucket
+ * to the queue of the bucket, completing the tasks, the metrics and the shutdown.
+ * <p>
+ * Implementations only decide how a task is handed to the writer thread of its queue and how that thread is woken up.
+ */
+@SuppressWarnings("unchecked")
+public abstract class AbstractProducerQueues implements ProducerQueues {
+
+    private final int persistenceBucketCount;
+    final int amountOfQueues;
+    @VisibleForTesting
+    final int bucketsPerQueue;
+    private final long shutdownGracePeriod;
+
+    private final @NotNull AtomicLong taskCount = new AtomicLong(0);
+    final @NotNull ImmutableList<AtomicLong> queueTaskCounter;
+
+    private final int metricsSampleRate;
+    private final @NotNull Histogram waitTimeHistogram = new Histogram(new ExponentiallyDecayingReservoir());
+    private final @NotNull Histogram executionTimeHistogram = new Histogram(new ExponentiallyDecayingReservoir());
+
+    private final @NotNull AtomicBoolean shutdown = new AtomicBoolean(false);
+    private @Nullable ListenableFuture<Void> closeFuture;
+    private long shutdownStartTime = Long.MAX_VALUE; // Initialized as long max value, to ensure that the grace period condition is not met, when shutdown is true but the start time is not yet set.
+
+    protected AbstractProducerQueues(
+            final int persistenceBucketCount, final int amountOfQueues, final long shutdownGracePeriod) {
+        this.persistenceBucketCount = persistenceBucketCount;
+        this.amountOfQueues = amountOfQueues;
+        bucketsPerQueue = persistenceBucketCount / amountOfQueues;
+        this.shutdownGracePeriod = shutdownGracePeriod;
+
+        final ImmutableList.Builder<AtomicLong> counterBuilder = ImmutableList.builder();
+        for (int i = 0; i < amountOfQueues; i++) {
+            counterBuilder.add(new AtomicLong(0));
+        }
+        queueTaskCounter = counterBuilder.build();
+        metricsSampleRate = InternalConfigurations.SINGLE_WRITER_METRICS_SAMPLE_RATE.get();
+    }
+
+    /**
+     * Hands the task to the writer thread of the queue.
+     *
+     * @param queueIndex     the index of the queue of the bucket of the task
+     * @param taskWithFuture the task
+     */
+    protected abstract void enqueue(int queueIndex, @NotNull TaskWithFuture<?> taskWithFuture);
+
+    /**
+     * @param queueIndex the index of a queue
+     * @return the executor that executes the success and failed callbacks of the tasks of the queue
+     */
+    protected abstract @NotNull ExecutorService callbackExecutor(int queueIndex);
+
+    /**
+     * Called before a task is enqueued.
+     *
+     * @param queueIndex    the index of the queue the task is enqueued to
+     * @param queueWasEmpty true if the queue had no pending tasks before
+     */
+    protected void taskAdded(final int queueIndex, final boolean queueWasEmpty) {
+    }
+
+    /**
+     * Called after a task was completed.
+     *
+     * @param queueIndex the index of the queue of the task
+     * @param queueEmpty true if the queue has no pending tasks anymore
+     */
+    protected void taskCompleted(final int queueIndex, final boolean queueEmpty) {
+    }
+
+    /**
+     * Registers the metrics of these producer queues: the current amount of tasks of all queues and of each queue, and
+     * the sampled time tasks wait in a queue and take to execute in microseconds.
+     *
+     * @param metricRegistry the registry to register the metrics with
+     * @param prefix         the prefix of the metric names, ending with a dot
+     */
+    void registerMetrics(final @NotNull MetricRegistry metricRegistry, final @NotNull String prefix) {
+        metricRegistry.register(prefix + "tasks.current", (Gauge<Long>) taskCount::get);
+        metricRegistry.register(prefix + "wait-time-micros", waitTimeHistogram);
+        metricRegistry.register(prefix + "execution-time-micros", executionTimeHistogram);
+        for (int i = 0; i < amountOfQueues; i++) {
+            metricRegistry.register(prefix + "queue-" + i + ".tasks.current", (Gauge<Long>) queueTaskCounter.get(i)::get);
+        }
+    }
+
+    @Override
+    public <R> @NotNull ListenableFuture<R> submit(final @NotNull String key, final @NotNull Task<R> task) {
+        //noinspection ConstantConditions (future is never null if the callbacks are null)
+        return submitInternal(getBucket(key), task, null, null, false);
+    }
+
+    @Override
+    public <R> @NotNull ListenableFuture<R> submit(final int bucketIndex, final @NotNull Task<R> task) {
+        //noinspection ConstantConditions (future is never null if the callbacks are null)
+        return submitInternal(bucketIndex, task, null, null, false);
+    }
+
+    @Override
+    public <R> @Nullable ListenableFuture<R> submit(
+            final int bucketIndex,
+            final @NotNull Task<R> task,
+            final @Nullable SingleWriterService.SuccessCallback<R> successCallback,
+            final @Nullable SingleWriterService.FailedCallback failedCallback) {
+        return submitInternal(bucketIndex, task, successCallback, failedCallback, false);
+    }
+
+    private <R> @Nullable ListenableFuture<R> submitInternal(
+            final int bucketIndex,
+            final @NotNull Task<R> task,
+            final @Nullable SingleWriterService.SuccessCallback<R> successCallback,
+            final @Nullable SingleWriterService.FailedCallback failedCallback,
+            final boolean ignoreShutdown) {
+        if (!ignoreShutdown && shutdown.get() &&
+                System.currentTimeMillis() - shutdownStartTime > shutdownGracePeriod) {
+            return SettableFuture.create(); // Future will never return since we are shutting down.
+        }
+        final int queueIndex = bucketIndex / bucketsPerQueue;
+        final SettableFuture<R> resultFuture;
+        if (successCallback == null) {
+            resultFuture = SettableFuture.create();
+        } else {
+            resultFuture = null;
+        }
+
+        final long enqueueNanos = metricsSampleRate > 0 && ThreadLocalRandom.current().nextInt(metricsSampleRate) == 0 ?
+                System.nanoTime() : TaskWithFuture.NOT_SAMPLED;
+        // count the task before it is enqueued, so the counters never go negative if it is completed right away
+        taskCount.incrementAndGet();
+        taskAdded(queueIndex, queueTaskCounter.get(queueIndex).getAndIncrement() == 0);
+        enqueue(queueIndex,
+                new TaskWithFuture<>(resultFuture, task, bucketIndex, successCallback, failedCallback, enqueueNanos));
+        return resultFuture;
+    }
+
+    /**
+     * submits the task for all buckets either parallel or sequential
+     *
+     * @param task     the task to submit
+     * @param <R>      the returned object
+     * @param parallel true for parallel, false for sequential
+     * @return a list of listenableFutures of type R
+     */
+    public @NotNull <R> List<ListenableFuture<R>> submitToAllBuckets(
+            final @NotNull Task<R> task,
+            final boolean parallel) {
+        if (parallel) {
+            return submitToAllBucketsParallel(task, false);
+        } else {
+            return submitToAllBucketsSequential(task);
+        }
+    }
+
+    /**
+     * submits the task for all buckets at once
+     *
+     * @param task the task to submit
+     * @param <R>  the returned object
+     * @return a list of listenableFutures of type R
+     */
+    @Override
+    public @NotNull <R> List<ListenableFuture<R>> submitToAllBucketsParallel(final @NotNull Task<R> task) {
+        return submitToAllBucketsParallel(task, false);
+    }
+
+    private @NotNull <R> List<ListenableFuture<R>> submitToAllBucketsParallel(
+            final @NotNull Task<R> task,
+            final boolean ignoreShutdown) {
+        final ImmutableList.Builder<ListenableFuture<R>> builder = ImmutableList.builder();
+        for (int bucket = 0; bucket < persistenceBucketCount; bucket++) {
+            //noinspection ConstantConditions (future is never null if the callbacks are null)
+            builder.add(submitInternal(bucket, task, null, null, ignoreShutdown));
+        }
+        return builder.build();
+    }
+
+    @Override
+    public @NotNull <R> List<ListenableFuture<R>> submitToAllBucketsSequential(final @NotNull Task<R> task) {
+
+        final ImmutableList.Builder<ListenableFuture<R>> builder = ImmutableList.builder();
+
+        ListenableFuture<R> previousFuture = Futures.immediateFuture(null);
+        for (int bucket = 0; bucket < persistenceBucketCount; bucket++) {
+            final int finalBucket = bucket;
+            final SettableFuture<R> future = SettableFuture.create();
+            previousFuture.addListener(() -> future.setFuture(submit(finalBucket, task)),
+                    MoreExecutors.directExecutor());
+            previousFuture = future;
+            builder.add(future);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public int getBucket(final @NotNull String key) {
+        return BucketUtils.getBucket(key, persistenceBucketCount);
+    }
+
+    /**
+     * Executes the task and records its wait and execution time if it was sampled. Must be called by the writer thread
+     * of the queue of the task.
+     */
+    @Nullable Object doTask(final @NotNull TaskWithFuture<?> taskWithFuture) {
+        final long enqueueNanos = taskWithFuture.getEnqueueNanos();
+        if (enqueueNanos == TaskWithFuture.NOT_SAMPLED) {
+            return taskWithFuture.getTask().doTask(taskWithFuture.getBucketIndex());
+        }
+        final long startNanos = System.nanoTime();
+        waitTimeHistogram.update(TimeUnit.NANOSECONDS.toMicros(startNanos - enqueueNanos));
+        try {
+            return taskWithFuture.getTask().doTask(taskWithFuture.getBucketIndex());
+        } finally {
+            executionTimeHistogram.update(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+        }
+    }
+
+    /**
+     * Passes the result or exception of the task to its future or callback. Must be called exactly once for each
+     * enqueued task. The task is no longer counted once its future is done.
+     */
+    void complete(
+            final int queueIndex,
+            final @NotNull TaskWithFuture taskWithFuture,
+            final @Nullable Object result,
+            final @Nullable Exception exception) {
+
+        taskCount.decrementAndGet();
+        taskCompleted(queueIndex, queueTaskCounter.get(queueIndex).decrementAndGet() == 0);
+        if (exception == null) {
+            if (taskWithFuture.getFuture() != null) {
+                taskWithFuture.getFuture().set(result);
+            } else {
+                if (taskWithFuture.getSuccessCallback() != null) {
+                    callbackExecutor(queueIndex).submit(() -> taskWithFuture.getSuccessCallback().afterTask(result));
+                }
+            }
+        } else {
+            if (taskWithFuture.getFuture() != null) {
+                taskWithFuture.getFuture().setException(exception);
+            } else {
+                if (taskWithFuture.getFailedCallback() != null) {
+                    callbackExecutor(queueIndex).submit(() -> taskWithFuture.getFailedCallback().afterTask(exception));
+                }
+            }
+        }
+    }
+
+    @Override
+    public @NotNull ListenableFuture<Void> shutdown(final @Nullable Task<Void> finalTask) {
+        if (shutdown.getAndSet(true)) {
+            //guard from being called twice
+            //needed for integration tests because shutdown hooks for every Embedded HiveMQ are added to the JVM
+            //if the persistence is stopped manually this would result in errors, because the shutdown hook might be called twice.
+            if (closeFuture != null) {
+                return closeFuture;
+            }
+            return Futures.immediateFuture(null);
+        }
+
+        shutdownStartTime = System.currentTimeMillis();
+        // We create a temporary single thread executor when we shut down, so we don't waste a thread at runtime.
+        final ThreadFactory threadFactory = ThreadFactoryUtil.create("persistence-shutdown-%d");
+        final ListeningScheduledExecutorService executorService =
+                MoreExecutors.listeningDecorator(Executors.newSingleThreadScheduledExecutor(threadFactory));
+
+        closeFuture = executorService.schedule(
+                () -> {
+                    // Even if no task has to be executed on shutdown, we still have to delay the success of the close future by the shutdown grace period.
+                    if (finalTask != null) {
+                        Futures.allAsList(submitToAllBucketsParallel(finalTask, true)).get();
+                    } else {
+                        Futures.allAsList(submitToAllBucketsParallel((Task<Void>) (bucketIndex) -> null, true)).get();
+                    }
+                    return null;
+                },
+                shutdownGracePeriod + 50,
+                TimeUnit.MILLISECONDS); // We may have to delay the task for some milliseconds, because a task could just get enqueued.
+
+        Futures.addCallback(closeFuture, new FutureCallback<>() {
+            @Override
+            public void onSuccess(@Nullable final Void aVoid) {
+                executorService.shutdown();
+            }
+
+            @Override
+            public void onFailure(final @NotNull Throwable throwable) {
+                executorService.shutdown();
+            }
+        }, executorService);
+        return closeFuture;
+    }
+
+    public @NotNull AtomicLong getTaskCount() {
+        return taskCount;
+    }
+
+    @VisibleForTesting
+    static class TaskWithFuture<T> {
+
+        static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+        private final @Nullable SettableFuture<T> future;
+        private final @NotNull Task task;
+        private final int bucketIndex;
+        private final @Nullable SingleWriterService.SuccessCallback<T> successCallback;
+        private final @Nullable SingleWriterService.FailedCallback failedCallback;
+        private final long enqueueNanos;
+
+        private TaskWithFuture(
+                final @Nullable SettableFuture<T> future,
+                final @NotNull Task task,
+                final int bucketIndex,
+                final @Nullable SingleWriterService.SuccessCallback<T> successCallback,
+                final @Nullable SingleWriterService.FailedCallback failedCallback,
+                final long enqueueNanos) {
+            this.future = future;
+            this.task = task;
+            this.bucketIndex = bucketIndex;
+            this.successCallback = successCallback;
+            this.failedCallback = failedCallback;
+            this.enqueueNanos = enqueueNanos;
+        }
+
+        long getEnqueueNanos() {
+            return enqueueNanos;
+        }
+
+        @Nullable
+        public SettableFuture getFuture() {
+            return future;
+        }
+
+        @NotNull
+        public Task getTask() {
+            return task;
+        }
+
+        public int getBucketIndex() {
+            return bucketIndex;
+        }
+
+        @Nullable SingleWriterService.SuccessCallback<T> getSuccessCallback() {
+            return successCallback;
+        }
+
+        @Nullable SingleWriterService.FailedCallback getFailedCallback() {
+            return failedCallback;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence;
+
+/**
+ * Allows the single writer to execute consecutive write tasks for the same bucket of a local persistence in a single
+ * transaction, see {@link SingleWriterService.WriteTask}.
+ * <p>
+ * All methods are called by the single writer thread that executes the tasks of the bucket.
+ */
+public interface GroupCommitter {
+
+    /**
+     * Begins a transaction for the bucket, which all tasks for the bucket that are executed by the current thread join
+     * until it is committed or aborted.
+     *
+     * @param bucketIndex the index of the bucket
+     * @return false if no transaction was begun, because the bucket is not available
+     */
+    boolean begin(int bucketIndex);
+
+    /**
+     * Commits the transaction of the bucket.
+     *
+     * @param bucketIndex the index of the bucket
+     */
+    void commit(int bucketIndex);
+
+    /**
+     * Aborts the transaction of the bucket, discarding the changes of all tasks that joined it.
+     *
+     * @param bucketIndex the index of the bucket
+     */
+    void abort(int bucketIndex);
+}
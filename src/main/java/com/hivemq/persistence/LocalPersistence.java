@@ -15,6 +15,9 @@
  */
 package com.hivemq.persistence;
 
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+
 /**
  * @author Lukas Brandl
  */
@@ -27,4 +30,22 @@ public interface LocalPersistence {
      */
     void closeDB(int bucketIndex);
 
+    /**
+     * @return the group committer of the persistence or null if it does not support group commits.
+     */
+    default @Nullable GroupCommitter getGroupCommitter() {
+        return null;
+    }
+
+    /**
+     * Runs the action once the changes that the current single writer task made to the bucket are committed. Must be
+     * used by tasks for side effects that must not happen if the changes are discarded, because the group commit of
+     * the bucket was aborted. Persistences without group commits run the action immediately.
+     *
+     * @param bucketIndex the index of the bucket the task is executed for
+     * @param action      the side effect
+     */
+    default void afterCommit(final int bucketIndex, final @NotNull Runnable action) {
+        action.run();
+    }
 }
@@ -45,4 +45,13 @@ public interface ProducerQueues {
 
     @NotNull ListenableFuture<Void> shutdown(final @Nullable SingleWriterServiceImpl.Task<Void> finalTask);
 
+    /**
+     * Sets the group committer of the local persistence the tasks of these queues are executed on. Implementations that
+     * do not support group commits ignore it.
+     *
+     * @param groupCommitter the group committer
+     */
+    default void setGroupCommitter(final @NotNull GroupCommitter groupCommitter) {
+    }
+
 }
@@ -15,25 +15,26 @@
  */
 package com.hivemq.persistence;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
-import com.google.common.util.concurrent.*;
+import com.hivemq.configuration.service.InternalConfigurations;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.extension.sdk.api.annotations.Nullable;
-import com.hivemq.persistence.local.xodus.bucket.BucketUtils;
-import com.hivemq.util.ThreadFactoryUtil;
+import com.hivemq.metrics.MetricsHolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
 import java.util.SplittableRandom;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicLong;
-
-import static com.hivemq.persistence.SingleWriterServiceImpl.Task;
 
 /**
  * @author Lukas Brandl
@@ -42,12 +43,9 @@ import static com.hivemq.persistence.SingleWriterServiceImpl.Task;
  * each persistence that utilizes the single writer service.
  */
 @SuppressWarnings("unchecked")
-public class ProducerQueuesImpl implements ProducerQueues {
+public class ProducerQueuesImpl extends AbstractProducerQueues {
 
-    private final AtomicLong taskCount = new AtomicLong(0);
-    private final int amountOfQueues;
-    @VisibleForTesting
-    final int bucketsPerQueue;
+    private static final @NotNull Logger log = LoggerFactory.getLogger(ProducerQueuesImpl.class);
 
     @VisibleForTesting
     final @NotNull ImmutableList<Queue<TaskWithFuture<?>>> queues;
@@ -55,148 +53,73 @@ public class ProducerQueuesImpl implements ProducerQueues {
     // Atomic booleans are more efficient than locks here, since we never actually wait for the lock.
     // Lock.tryLock() seams to park and unpark the thread each time :(
     private final @NotNull ImmutableList<AtomicBoolean> locks;
-    private final @NotNull ImmutableList<AtomicLong> queueTaskCounter;
     private final @NotNull SingleWriterServiceImpl singleWriterServiceImpl;
 
-    private final AtomicBoolean shutdown = new AtomicBoolean(false);
-
-    private @Nullable ListenableFuture<Void> closeFuture;
-    private long shutdownStartTime = Long.MAX_VALUE; // Initialized as long max value, to ensure the the grace period condition is not met, when shutdown is true but the start time is net yet set.
-
+    private final int groupCommitMaxTasks;
+    private final long groupCommitMaxDelayNanos;
+    private volatile @Nullable GroupCommitter groupCommitter;
+    private @Nullable Counter groupCommitCounter;
+    private @Nullable Histogram groupCommitTasksPerCommitHistogram;
+    private @Nullable Timer groupCommitTimer;
 
     public ProducerQueuesImpl(final SingleWriterServiceImpl singleWriterServiceImpl, final int amountOfQueues) {
+        super(singleWriterServiceImpl.getPersistenceBucketCount(), amountOfQueues,
+                singleWriterServiceImpl.getShutdownGracePeriod());
         this.singleWriterServiceImpl = singleWriterServiceImpl;
 
-        final int bucketCount = singleWriterServiceImpl.getPersistenceBucketCount();
-        this.amountOfQueues = amountOfQueues;
-        bucketsPerQueue = bucketCount / amountOfQueues;
-
         final ImmutableList.Builder<Queue<TaskWithFuture<?>>> queuesBuilder = ImmutableList.builder();
         for (int i = 0; i < amountOfQueues; i++) {
             queuesBuilder.add(new ConcurrentLinkedQueue<>());
         }
         queues = queuesBuilder.build();
         final ImmutableList.Builder<AtomicBoolean> locksBuilder = ImmutableList.builder();
-        final ImmutableList.Builder<AtomicLong> counterBuilder = ImmutableList.builder();
 
         for (int i = 0; i < amountOfQueues; i++) {
             locksBuilder.add(new AtomicBoolean());
-            counterBuilder.add(new AtomicLong(0));
         }
         locks = locksBuilder.build();
-        queueTaskCounter = counterBuilder.build();
-    }
 
-    @NotNull
-    public <R> ListenableFuture<R> submit(@NotNull final String key, @NotNull final Task<R> task) {
-        //noinspection ConstantConditions (futuer is never null if the callbacks are null)
-        return submitInternal(getBucket(key), task, null, null, false);
+        groupCommitMaxTasks = InternalConfigurations.SINGLE_WRITER_GROUP_COMMIT_MAX_TASKS.get();
+        groupCommitMaxDelayNanos =
+                TimeUnit.MICROSECONDS.toNanos(InternalConfigurations.SINGLE_WRITER_GROUP_COMMIT_MAX_DELAY_MICROS.get());
     }
 
-    @NotNull
-    public <R> ListenableFuture<R> submit(final int bucketIndex, @NotNull final Task<R> task) {
-        //noinspection ConstantConditions (futuer is never null if the callbacks are null)
-        return submitInternal(bucketIndex, task, null, null, false);
+    @Override
+    protected void enqueue(final int queueIndex, final @NotNull TaskWithFuture<?> taskWithFuture) {
+        queues.get(queueIndex).add(taskWithFuture);
     }
 
-    @Nullable
-    public <R> ListenableFuture<R> submit(
-            final int bucketIndex,
-            @NotNull final Task<R> task,
-            @Nullable final SingleWriterServiceImpl.SuccessCallback<R> successCallback,
-            @Nullable final SingleWriterServiceImpl.FailedCallback failedCallback) {
-        return submitInternal(bucketIndex, task, successCallback, failedCallback, false);
+    @Override
+    protected @NotNull ExecutorService callbackExecutor(final int queueIndex) {
+        return singleWriterServiceImpl.getCallbackExecutors()[queueIndex];
     }
 
-    @Nullable
-    public <R> ListenableFuture<R> submitInternal(
-            final int bucketIndex,
-            @NotNull final Task<R> task,
-            @Nullable final SingleWriterServiceImpl.SuccessCallback<R> successCallback,
-            @Nullable final SingleWriterServiceImpl.FailedCallback failedCallback,
-            final boolean ignoreShutdown) {
-        if (!ignoreShutdown && shutdown.get() &&
-                System.currentTimeMillis() - shutdownStartTime > singleWriterServiceImpl.getShutdownGracePeriod()) {
-            return SettableFuture.create(); // Future will never return since we are shutting down.
-        }
-        final int queueIndex = bucketIndex / bucketsPerQueue;
-        final Queue<TaskWithFuture<?>> queue = queues.get(queueIndex);
-        final SettableFuture<R> resultFuture;
-        if (successCallback == null) {
-            resultFuture = SettableFuture.create();
-        } else {
-            resultFuture = null;
-        }
-
-        queue.add(new TaskWithFuture<>(resultFuture, task, bucketIndex, successCallback, failedCallback));
-        taskCount.incrementAndGet();
+    @Override
+    protected void taskAdded(final int queueIndex, final boolean queueWasEmpty) {
         singleWriterServiceImpl.getGlobalTaskCount().incrementAndGet();
-        if (queueTaskCounter.get(queueIndex).getAndIncrement() == 0) {
+        if (queueWasEmpty) {
             singleWriterServiceImpl.incrementNonemptyQueueCounter();
         }
-        return resultFuture;
-    }
-
-    /**
-     * submits the task for all buckets either parallel or sequential
-     *
-     * @param task     the task to submit
-     * @param <R>      the returned object
-     * @param parallel true for parallel, false for sequential
-     * @return a list of listenableFutures of type R
-     */
-    public @NotNull <R> List<ListenableFuture<R>> submitToAllBuckets(
-            final @NotNull Task<R> task,
-            final boolean parallel) {
-        if (parallel) {
-            return submitToAllBucketsParallel(task, false);
-        } else {
-            return submitToAllBucketsSequential(task);
-        }
     }
 
-    /**
-     * submits the task for all buckets at once
-     *
-     * @param task the task to submit
-     * @param <R>  the returned object
-     * @return a list of listenableFutures of type R
-     */
-    public @NotNull <R> List<ListenableFuture<R>> submitToAllBucketsParallel(final @NotNull Task<R> task) {
-        return submitToAllBucketsParallel(task, false);
-    }
-
-    private @NotNull <R> List<ListenableFuture<R>> submitToAllBucketsParallel(
-            final @NotNull Task<R> task,
-            final boolean ignoreShutdown) {
-        final ImmutableList.Builder<ListenableFuture<R>> builder = ImmutableList.builder();
-        final int bucketCount = singleWriterServiceImpl.getPersistenceBucketCount();
-        for (int bucket = 0; bucket < bucketCount; bucket++) {
-            //noinspection ConstantConditions (futuer is never null if the callbacks are null)
-            builder.add(submitInternal(bucket, task, null, null, ignoreShutdown));
+    @Override
+    protected void taskCompleted(final int queueIndex, final boolean queueEmpty) {
+        singleWriterServiceImpl.getGlobalTaskCount().decrementAndGet();
+        if (queueEmpty) {
+            singleWriterServiceImpl.decrementNonemptyQueueCounter();
         }
-        return builder.build();
     }
 
-    public @NotNull <R> List<ListenableFuture<R>> submitToAllBucketsSequential(final @NotNull Task<R> task) {
-
-        final ImmutableList.Builder<ListenableFuture<R>> builder = ImmutableList.builder();
-        final int bucketCount = singleWriterServiceImpl.getPersistenceBucketCount();
-
-        ListenableFuture<R> previousFuture = Futures.immediateFuture(null);
-        for (int bucket = 0; bucket < bucketCount; bucket++) {
-            final int finalBucket = bucket;
-            final SettableFuture<R> future = SettableFuture.create();
-            previousFuture.addListener(() -> future.setFuture(submit(finalBucket, task)),
-                    MoreExecutors.directExecutor());
-            previousFuture = future;
-            builder.add(future);
+    @Override
+    public void setGroupCommitter(final @NotNull GroupCommitter groupCommitter) {
+        if (!InternalConfigurations.SINGLE_WRITER_GROUP_COMMIT_ENABLED.get()) {
+            return;
         }
-        return builder.build();
-    }
-
-    public int getBucket(@NotNull final String key) {
-        return BucketUtils.getBucket(key, singleWriterServiceImpl.getPersistenceBucketCount());
+        final MetricsHolder metricsHolder = singleWriterServiceImpl.getMetricsHolder();
+        groupCommitCounter = metricsHolder.getSingleWriterGroupCommitCounter();
+        groupCommitTasksPerCommitHistogram = metricsHolder.getSingleWriterGroupCommitTasksPerCommitHistogram();
+        groupCommitTimer = metricsHolder.getSingleWriterGroupCommitTimer();
+        this.groupCommitter = groupCommitter;
     }
 
     public void execute(final @NotNull SplittableRandom random) {
@@ -208,37 +131,25 @@ public class ProducerQueuesImpl implements ProducerQueues {
         if (!lock.getAndSet(true)) {
             try {
                 final Queue<TaskWithFuture<?>> queue = queues.get(queueIndex);
+                final GroupCommitter groupCommitter = this.groupCommitter;
                 int creditCount = 0;
                 while (creditCount < singleWriterServiceImpl.getCreditsPerExecution()) {
                     final TaskWithFuture taskWithFuture = queue.poll();
                     if (taskWithFuture == null) {
                         return;
                     }
+                    if (groupCommitter != null && isWriteTask(taskWithFuture) &&
+                            groupCommitter.begin(taskWithFuture.getBucketIndex())) {
+                        creditCount += executeGroup(queueIndex, queue, taskWithFuture, groupCommitter,
+                                singleWriterServiceImpl.getCreditsPerExecution() - creditCount);
+                        continue;
+                    }
                     creditCount++;
                     try {
-                        final Object result = taskWithFuture.getTask().doTask(taskWithFuture.getBucketIndex());
-                        if (taskWithFuture.getFuture() != null) {
-                            taskWithFuture.getFuture().set(result);
-                        } else {
-                            if (taskWithFuture.getSuccessCallback() != null) {
-                                singleWriterServiceImpl.getCallbackExecutors()[queueIndex].submit(() -> taskWithFuture.getSuccessCallback()
-                                        .afterTask(result));
-                            }
-                        }
+                        final Object result = doTask(taskWithFuture);
+                        complete(queueIndex, taskWithFuture, result, null);
                     } catch (final Exception e) {
-                        if (taskWithFuture.getFuture() != null) {
-                            taskWithFuture.getFuture().setException(e);
-                        } else {
-                            if (taskWithFuture.getFailedCallback() != null) {
-                                singleWriterServiceImpl.getCallbackExecutors()[queueIndex].submit(() -> taskWithFuture.getFailedCallback()
-                                        .afterTask(e));
-                            }
-                        }
-                    }
-                    taskCount.decrementAndGet();
-                    singleWriterServiceImpl.getGlobalTaskCount().decrementAndGet();
-                    if (queueTaskCounter.get(queueIndex).decrementAndGet() == 0) {
-                        singleWriterServiceImpl.decrementNonemptyQueueCounter();
+                        complete(queueIndex, taskWithFuture, null, e);
                     }
                 }
             } finally {
@@ -247,98 +158,72 @@ public class ProducerQueuesImpl implements ProducerQueues {
         }
     }
 
-    @NotNull
-    public ListenableFuture<Void> shutdown(final @Nullable Task<Void> finalTask) {
-        if (shutdown.getAndSet(true)) {
-            //guard from being called twice
-            //needed for integration tests because shutdown hooks for every Embedded HiveMQ are added to the JVM
-            //if the persistence is stopped manually this would result in errors, because the shutdown hook might be called twice.
-            if (closeFuture != null) {
-                return closeFuture;
+    /**
+     * Executes the given task and the following write tasks of the queue for the same bucket in the group transaction
+     * that was begun for the bucket. The group ends at the first task that is no write task, so for example closing
+     * the bucket never happens while its group transaction is open. The tasks are completed after the group transaction is committed. If a task or the
+     * commit fails, the group transaction is aborted, which discards the changes of all tasks of the group, and every
+     * task is executed again in its own transaction, so only the tasks that fail on their own fail.
+     *
+     * @return the amount of executed tasks
+     */
+    private int executeGroup(
+            final int queueIndex,
+            final @NotNull Queue<TaskWithFuture<?>> queue,
+            final @NotNull TaskWithFuture<?> firstTask,
+            final @NotNull GroupCommitter groupCommitter,
+            final int credits) {
+
+        final int bucketIndex = firstTask.getBucketIndex();
+        final int maxTasks = Math.min(groupCommitMaxTasks, credits);
+        final long start = System.nanoTime();
+        final List<TaskWithFuture<?>> tasks = new ArrayList<>();
+        final List<Object> results = new ArrayList<>();
+
+        try {
+            TaskWithFuture<?> taskWithFuture = firstTask;
+            while (true) {
+                tasks.add(taskWithFuture);
+                results.add(doTask(taskWithFuture));
+                if (tasks.size() >= maxTasks || System.nanoTime() - start >= groupCommitMaxDelayNanos) {
+                    break;
+                }
+                // we hold the lock of the queue, so the peeked task is the next one we poll
+                final TaskWithFuture<?> next = queue.peek();
+                if (next == null || next.getBucketIndex() != bucketIndex || !isWriteTask(next)) {
+                    break;
+                }
+                taskWithFuture = queue.poll();
             }
-            return Futures.immediateFuture(null);
-        }
-
-        shutdownStartTime = System.currentTimeMillis();
-        // We create a temporary single thread executor when we shut down, so we don't waste a thread at runtime.
-        final ThreadFactory threadFactory = ThreadFactoryUtil.create("persistence-shutdown-%d");
-        final ListeningScheduledExecutorService executorService =
-                MoreExecutors.listeningDecorator(Executors.newSingleThreadScheduledExecutor(threadFactory));
-
-        closeFuture = executorService.schedule(
-                () -> {
-                    // Even if no task has to be executed on shutdown, we still have to delay the success of the close future by the shutdown grace period.
-                    if (finalTask != null) {
-                        Futures.allAsList(submitToAllBucketsParallel(finalTask, true)).get();
-                    } else {
-                        Futures.allAsList(submitToAllBucketsParallel((Task<Void>) (bucketIndex) -> null, true)).get();
-                    }
-                    return null;
-                },
-                singleWriterServiceImpl.getShutdownGracePeriod() + 50,
-                TimeUnit.MILLISECONDS); // We may have to delay the task for some milliseconds, because a task could just get enqueued.
-
-        Futures.addCallback(closeFuture, new FutureCallback<>() {
-            @Override
-            public void onSuccess(@Nullable final Void aVoid) {
-                executorService.shutdown();
+            final Timer.Context timerContext = groupCommitTimer.time();
+            groupCommitter.commit(bucketIndex);
+            timerContext.stop();
+            groupCommitCounter.inc();
+            groupCommitTasksPerCommitHistogram.update(tasks.size());
+        } catch (final Exception e) {
+            try {
+                groupCommitter.abort(bucketIndex);
+            } catch (final Exception abortException) {
+                log.error("Failed to abort group transaction of bucket {}.", bucketIndex, abortException);
             }
-
-            @Override
-            public void onFailure(final @NotNull Throwable throwable) {
-                executorService.shutdown();
+            for (final TaskWithFuture<?> taskWithFuture : tasks) {
+                try {
+                    final Object result = doTask(taskWithFuture);
+                    complete(queueIndex, taskWithFuture, result, null);
+                } catch (final Exception taskException) {
+                    complete(queueIndex, taskWithFuture, null, taskException);
+                }
             }
-        }, executorService);
-        return closeFuture;
-    }
-
-    @NotNull
-    public AtomicLong getTaskCount() {
-        return taskCount;
-    }
-
-    @VisibleForTesting
-    static class TaskWithFuture<T> {
-
-        private final @Nullable SettableFuture<T> future;
-        private final @NotNull Task task;
-        private final int bucketIndex;
-        private final @Nullable SingleWriterServiceImpl.SuccessCallback<T> successCallback;
-        private final @Nullable SingleWriterServiceImpl.FailedCallback failedCallback;
-
-        private TaskWithFuture(
-                final @Nullable SettableFuture<T> future,
-                final @NotNull Task task,
-                final int bucketIndex,
-                final @Nullable SingleWriterServiceImpl.SuccessCallback<T> successCallback,
-                final @Nullable SingleWriterServiceImpl.FailedCallback failedCallback) {
-            this.future = future;
-            this.task = task;
-            this.bucketIndex = bucketIndex;
-            this.successCallback = successCallback;
-            this.failedCallback = failedCallback;
-        }
-
-        @Nullable
-        public SettableFuture getFuture() {
-            return future;
+            return tasks.size();
         }
 
-        @NotNull
-        public Task getTask() {
-            return task;
-        }
-
-        public int getBucketIndex() {
-            return bucketIndex;
-        }
-
-        @Nullable SingleWriterServiceImpl.SuccessCallback<T> getSuccessCallback() {
-            return successCallback;
+        for (int i = 0; i < tasks.size(); i++) {
+            complete(queueIndex, tasks.get(i), results.get(i), null);
         }
+        return tasks.size();
+    }
 
-        @Nullable SingleWriterServiceImpl.FailedCallback getFailedCallback() {
-            return failedCallback;
-        }
+    private static boolean isWriteTask(final @NotNull TaskWithFuture<?> taskWithFuture) {
+        return taskWithFuture.getTask() instanceof SingleWriterService.WriteTask;
     }
 }
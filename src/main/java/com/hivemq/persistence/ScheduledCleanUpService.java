@@ -42,6 +42,10 @@ import static com.hivemq.configuration.service.InternalConfigurations.*;
  * This service is used to remove full remove tombstones that are older than a certain amount of time
  * It is also used to check if the time to live of publishes, retained messages or client session is expired and mark
  * those that are expired as tombstones
+ * <p>
+ * Besides the clean up jobs that rotate through all buckets of all persistences, client sessions are checked for
+ * expiry every {@link com.hivemq.configuration.service.InternalConfigurations#SESSION_EXPIRY_CHECK_INTERVAL_MSEC}, so
+ * they expire close to their deadline instead of when their bucket is next in the rotation.
  *
  * @author Lukas Brandl
  */
@@ -84,6 +88,7 @@ public class ScheduledCleanUpService {
     private final int persistenceBucketCount;
     private final int cleanUpJobSchedule;
     private final int cleanUpTaskTimeoutSec;
+    private final int sessionExpiryCheckIntervalMsec;
 
     @Inject
     public ScheduledCleanUpService(final @NotNull @Persistence ListeningScheduledExecutorService scheduledExecutorService,
@@ -100,6 +105,7 @@ public class ScheduledCleanUpService {
         this.persistenceBucketCount = PERSISTENCE_BUCKET_COUNT.get();
         this.cleanUpJobSchedule = INTERVAL_BETWEEN_CLEANUP_JOBS_SEC.get();
         this.cleanUpTaskTimeoutSec = CLEANUP_JOB_TASK_TIMEOUT_SEC;
+        this.sessionExpiryCheckIntervalMsec = SESSION_EXPIRY_CHECK_INTERVAL_MSEC.get();
     }
 
     @PostConstruct
@@ -107,6 +113,7 @@ public class ScheduledCleanUpService {
         for (int i = 0; i < CLEANUP_JOB_PARALLELISM; i++) {
             scheduleCleanUpTask();
         }
+        scheduleSessionExpiryTask();
     }
 
     @VisibleForTesting
@@ -131,6 +138,22 @@ public class ScheduledCleanUpService {
 
     }
 
+    @VisibleForTesting
+    synchronized void scheduleSessionExpiryTask() {
+        if (scheduledExecutorService.isShutdown()) {
+            return;
+        }
+        final ListenableScheduledFuture<Void> schedule = scheduledExecutorService.schedule(
+                new SessionExpiryTask(this, scheduledExecutorService, cleanUpTaskTimeoutSec),
+                sessionExpiryCheckIntervalMsec,
+                TimeUnit.MILLISECONDS);
+        FutureUtils.addExceptionLogger(schedule);
+    }
+
+    public ListenableFuture<Void> expireSessions() {
+        return clientSessionPersistence.expireSessions();
+    }
+
     public ListenableFuture<Void> cleanUp(final int bucketIndex, final int persistenceIndex) {
         switch (persistenceIndex) {
             case CLIENT_SESSION_PERSISTENCE_INDEX:
@@ -217,4 +240,52 @@ public class ScheduledCleanUpService {
             return persistenceIndex;
         }
     }
+
+    @VisibleForTesting
+    static final class SessionExpiryTask implements Callable<Void> {
+
+        private final @NotNull ScheduledCleanUpService scheduledCleanUpService;
+        private final @NotNull ListeningScheduledExecutorService scheduledExecutorService;
+        private final int cleanUpTaskTimeoutSec;
+
+        @VisibleForTesting
+        SessionExpiryTask(final @NotNull ScheduledCleanUpService scheduledCleanUpService,
+                          final @NotNull ListeningScheduledExecutorService scheduledExecutorService,
+                          final int cleanUpTaskTimeoutSec) {
+            checkNotNull(scheduledCleanUpService, "Clean up service must not be null");
+            checkNotNull(scheduledExecutorService, "Executor service must not be null");
+            this.scheduledCleanUpService = scheduledCleanUpService;
+            this.scheduledExecutorService = scheduledExecutorService;
+            this.cleanUpTaskTimeoutSec = cleanUpTaskTimeoutSec;
+        }
+
+        @Override
+        public Void call() {
+            try {
+                final ListenableFuture<Void> future = scheduledCleanUpService.expireSessions();
+                Futures.addCallback(future, new FutureCallback<>() {
+
+                    @Override
+                    public void onSuccess(final @Nullable Void aVoid) {
+                        scheduledCleanUpService.scheduleSessionExpiryTask();
+                    }
+
+                    @Override
+                    public void onFailure(final Throwable throwable) {
+                        if (throwable instanceof CancellationException) {
+                            log.debug("Session expiry was cancelled (timeout).", throwable);
+                        } else {
+                            log.error("Exception during session expiry.", throwable);
+                        }
+                        scheduledCleanUpService.scheduleSessionExpiryTask();
+                    }
+                }, MoreExecutors.directExecutor());
+                Futures.withTimeout(future, cleanUpTaskTimeoutSec, TimeUnit.SECONDS, scheduledExecutorService);
+            } catch (final Throwable throwable) {
+                log.error("Exception in session expiry job ", throwable);
+                scheduledCleanUpService.scheduleSessionExpiryTask();
+            }
+            return null;
+        }
+    }
 }
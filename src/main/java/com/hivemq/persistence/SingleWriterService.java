@@ -42,6 +42,13 @@ public interface SingleWriterService {
         @NotNull R doTask(int bucketIndex);
     }
 
+    /**
+     * A task that modifies the bucket of a local persistence. Only write tasks are executed in a group transaction,
+     * see {@link GroupCommitter}. All other tasks, like reads or closing the persistence, run in their own transaction.
+     */
+    interface WriteTask<R> extends Task<R> {
+    }
+
     interface SuccessCallback<R> {
         void afterTask(@NotNull R result);
     }
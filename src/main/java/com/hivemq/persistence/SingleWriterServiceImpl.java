@@ -15,11 +15,15 @@
  */
 package com.hivemq.persistence;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.hivemq.bootstrap.ioc.lazysingleton.LazySingleton;
 import com.hivemq.configuration.service.InternalConfigurations;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.metrics.HiveMQMetrics;
+import com.hivemq.metrics.MetricsHolder;
 import com.hivemq.persistence.local.xodus.bucket.BucketUtils;
 import com.hivemq.util.Exceptions;
 import com.hivemq.util.ThreadFactoryUtil;
@@ -49,6 +53,12 @@ public class SingleWriterServiceImpl implements SingleWriterService {
     private static final int SUBSCRIPTION_QUEUE_INDEX = 2;
     private static final int QUEUED_MESSAGES_QUEUE_INDEX = 3;
     private static final int ATTRIBUTE_STORE_QUEUE_INDEX = 4;
+    static final @NotNull String @NotNull [] PRODUCER_METRIC_PREFIXES = {
+            HiveMQMetrics.SINGLE_WRITER_RETAINED_MESSAGES_PREFIX,
+            HiveMQMetrics.SINGLE_WRITER_CLIENT_SESSIONS_PREFIX,
+            HiveMQMetrics.SINGLE_WRITER_SUBSCRIPTIONS_PREFIX,
+            HiveMQMetrics.SINGLE_WRITER_QUEUED_MESSAGES_PREFIX,
+            HiveMQMetrics.SINGLE_WRITER_ATTRIBUTE_STORE_PREFIX};
 
     private final int persistenceBucketCount;
     private final int threadPoolSize;
@@ -72,9 +82,17 @@ public class SingleWriterServiceImpl implements SingleWriterService {
 
     private final int amountOfQueues;
 
-    @Inject
+    private final @NotNull MetricsHolder metricsHolder;
+
+    @VisibleForTesting
     public SingleWriterServiceImpl() {
+        this(new MetricsHolder(new MetricRegistry()));
+    }
 
+    @Inject
+    public SingleWriterServiceImpl(final @NotNull MetricsHolder metricsHolder) {
+
+        this.metricsHolder = metricsHolder;
         persistenceBucketCount = InternalConfigurations.PERSISTENCE_BUCKET_COUNT.get();
         threadPoolSize = InternalConfigurations.SINGLE_WRITER_THREAD_POOL_SIZE.get();
         creditsPerExecution = InternalConfigurations.SINGLE_WRITER_CREDITS_PER_EXECUTION.get();
@@ -85,9 +103,17 @@ public class SingleWriterServiceImpl implements SingleWriterService {
 
         amountOfQueues = validAmountOfQueues(threadPoolSize, persistenceBucketCount);
 
+        final MetricRegistry metricRegistry = metricsHolder.getMetricRegistry();
         for (int i = 0; i < producers.length; i++) {
             producers[i] = new ProducerQueuesImpl(this, amountOfQueues);
+            producers[i].registerMetrics(metricRegistry, PRODUCER_METRIC_PREFIXES[i]);
         }
+        metricRegistry.register(HiveMQMetrics.SINGLE_WRITER_TASKS_CURRENT.name(),
+                (Gauge<Long>) globalTaskCount::get);
+        metricRegistry.register(HiveMQMetrics.SINGLE_WRITER_NONEMPTY_QUEUES_CURRENT.name(),
+                (Gauge<Long>) nonemptyQueueCounter::get);
+        metricRegistry.register(HiveMQMetrics.SINGLE_WRITER_RUNNING_THREADS_CURRENT.name(),
+                (Gauge<Integer>) runningThreadsCount::get);
 
         callbackExecutors = new ExecutorService[amountOfQueues];
         for (int i = 0; i < amountOfQueues; i++) {
@@ -187,6 +213,10 @@ public class SingleWriterServiceImpl implements SingleWriterService {
         return shutdownGracePeriod;
     }
 
+    public @NotNull MetricsHolder getMetricsHolder() {
+        return metricsHolder;
+    }
+
     public int getThreadPoolSize() {
         return threadPoolSize;
     }
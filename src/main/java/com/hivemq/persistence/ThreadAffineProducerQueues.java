@@ -0,0 +1,71 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence;
+
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * The producer queues of a persistence for the {@link ThreadAffineSingleWriter}.
+ * <p>
+ * A task is handed to the writer thread that owns the queue index of its bucket. The writer thread executes the tasks
+ * in the order they were submitted, success and failed callbacks are executed by the callback executor of the queue.
+ */
+public class ThreadAffineProducerQueues extends AbstractProducerQueues {
+
+    private final @NotNull ThreadAffineSingleWriter singleWriter;
+
+    public ThreadAffineProducerQueues(final @NotNull ThreadAffineSingleWriter singleWriter, final int amountOfQueues) {
+        super(singleWriter.getPersistenceBucketCount(), amountOfQueues, singleWriter.getShutdownGracePeriod());
+        this.singleWriter = singleWriter;
+    }
+
+    @Override
+    protected void enqueue(final int queueIndex, final @NotNull TaskWithFuture<?> taskWithFuture) {
+        singleWriter.execute(queueIndex, () -> {
+            Object result = null;
+            Exception exception = null;
+            try {
+                result = doTask(taskWithFuture);
+            } catch (final Exception e) {
+                exception = e;
+            }
+            complete(queueIndex, taskWithFuture, result, exception);
+        });
+    }
+
+    @Override
+    protected void taskAdded(final int queueIndex, final boolean queueWasEmpty) {
+        singleWriter.getGlobalTaskCount().incrementAndGet();
+        if (queueWasEmpty) {
+            singleWriter.getNonemptyQueueCounter().incrementAndGet();
+        }
+    }
+
+    @Override
+    protected void taskCompleted(final int queueIndex, final boolean queueEmpty) {
+        singleWriter.getGlobalTaskCount().decrementAndGet();
+        if (queueEmpty) {
+            singleWriter.getNonemptyQueueCounter().decrementAndGet();
+        }
+    }
+
+    @Override
+    protected @NotNull ExecutorService callbackExecutor(final int queueIndex) {
+        return singleWriter.callbackExecutorForQueue(queueIndex);
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.annotations.VisibleForTesting;
+import com.hivemq.bootstrap.ioc.lazysingleton.LazySingleton;
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.metrics.HiveMQMetrics;
+import com.hivemq.metrics.MetricsHolder;
+import com.hivemq.persistence.local.xodus.bucket.BucketUtils;
+import com.hivemq.util.Exceptions;
+import com.hivemq.util.ThreadFactoryUtil;
+import org.jctools.queues.MpscUnboundedArrayQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This SingleWriterService implementation assigns every queue index to exactly one writer thread.
+ * <p>
+ * Each writer thread consumes the tasks of all its queue indexes from a single MPSC queue, so no locking is necessary
+ * to guarantee single-threaded access to a bucket. An idle writer thread parks and is unparked by the next producer
+ * that adds a task, instead of writer threads polling randomly chosen queues and a scheduled check restarting them.
+ */
+@LazySingleton
+public class ThreadAffineSingleWriter implements SingleWriterService {
+
+    private static final @NotNull Logger log = LoggerFactory.getLogger(ThreadAffineSingleWriter.class);
+
+    private static final int AMOUNT_OF_PRODUCERS = 5;
+    private static final int RETAINED_MESSAGE_QUEUE_INDEX = 0;
+    private static final int CLIENT_SESSION_QUEUE_INDEX = 1;
+    private static final int SUBSCRIPTION_QUEUE_INDEX = 2;
+    private static final int QUEUED_MESSAGES_QUEUE_INDEX = 3;
+    private static final int ATTRIBUTE_STORE_QUEUE_INDEX = 4;
+
+    private final int persistenceBucketCount;
+    private final int amountOfQueues;
+    private final long shutdownGracePeriod;
+
+    private final @NotNull ThreadAffineProducerQueues @NotNull [] producers =
+            new ThreadAffineProducerQueues[AMOUNT_OF_PRODUCERS];
+
+    @VisibleForTesting
+    final @NotNull Worker @NotNull [] workers;
+
+    @VisibleForTesting
+    final @NotNull ExecutorService @NotNull [] callbackExecutors;
+
+    private final @NotNull AtomicLong nonemptyQueueCounter = new AtomicLong(0);
+    private final @NotNull AtomicLong globalTaskCount = new AtomicLong(0);
+
+    @VisibleForTesting
+    public ThreadAffineSingleWriter() {
+        this(new MetricsHolder(new MetricRegistry()));
+    }
+
+    @Inject
+    public ThreadAffineSingleWriter(final @NotNull MetricsHolder metricsHolder) {
+
+        persistenceBucketCount = InternalConfigurations.PERSISTENCE_BUCKET_COUNT.get();
+        final int threadPoolSize = InternalConfigurations.SINGLE_WRITER_THREAD_POOL_SIZE.get();
+        shutdownGracePeriod = InternalConfigurations.PERSISTENCE_SHUTDOWN_GRACE_PERIOD_MSEC.get();
+        amountOfQueues = validAmountOfQueues(threadPoolSize, persistenceBucketCount);
+
+        final ThreadFactory threadFactory = ThreadFactoryUtil.create("single-writer-%d");
+        workers = new Worker[Math.min(threadPoolSize, amountOfQueues)];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker(threadFactory);
+        }
+
+        // same metrics as the SingleWriterServiceImpl, a running thread is a writer thread that is not parked
+        final MetricRegistry metricRegistry = metricsHolder.getMetricRegistry();
+        for (int i = 0; i < producers.length; i++) {
+            producers[i] = new ThreadAffineProducerQueues(this, amountOfQueues);
+            producers[i].registerMetrics(metricRegistry, SingleWriterServiceImpl.PRODUCER_METRIC_PREFIXES[i]);
+        }
+        metricRegistry.register(HiveMQMetrics.SINGLE_WRITER_TASKS_CURRENT.name(),
+                (Gauge<Long>) globalTaskCount::get);
+        metricRegistry.register(HiveMQMetrics.SINGLE_WRITER_NONEMPTY_QUEUES_CURRENT.name(),
+                (Gauge<Long>) nonemptyQueueCounter::get);
+        metricRegistry.register(HiveMQMetrics.SINGLE_WRITER_RUNNING_THREADS_CURRENT.name(),
+                (Gauge<Integer>) this::runningThreads);
+
+        callbackExecutors = new ExecutorService[amountOfQueues];
+        for (int i = 0; i < amountOfQueues; i++) {
+            final ThreadFactory callbackThreadFactory = ThreadFactoryUtil.create("single-writer-callback-" + i);
+            callbackExecutors[i] = Executors.newSingleThreadExecutor(callbackThreadFactory);
+        }
+
+        for (final Worker worker : workers) {
+            worker.thread.start();
+        }
+    }
+
+    @VisibleForTesting
+    int validAmountOfQueues(final int processorCount, final int bucketCount) {
+        for (int i = processorCount; i < bucketCount; i++) {
+            if (bucketCount % i == 0) {
+                return i;
+            }
+        }
+        return persistenceBucketCount;
+    }
+
+    /**
+     * Executes the task on the writer thread that owns the queue index.
+     */
+    void execute(final int queueIndex, final @NotNull Runnable task) {
+        workers[queueIndex % workers.length].execute(task);
+    }
+
+    private int runningThreads() {
+        int runningThreads = 0;
+        for (final Worker worker : workers) {
+            if (!worker.isParked()) {
+                runningThreads++;
+            }
+        }
+        return runningThreads;
+    }
+
+    @NotNull AtomicLong getGlobalTaskCount() {
+        return globalTaskCount;
+    }
+
+    @NotNull AtomicLong getNonemptyQueueCounter() {
+        return nonemptyQueueCounter;
+    }
+
+    @NotNull ExecutorService callbackExecutorForQueue(final int queueIndex) {
+        return callbackExecutors[queueIndex];
+    }
+
+    @Override
+    public @NotNull ExecutorService callbackExecutor(final @NotNull String key) {
+        final int bucketsPerQueue = persistenceBucketCount / amountOfQueues;
+        final int bucketIndex = BucketUtils.getBucket(key, persistenceBucketCount);
+        return callbackExecutors[bucketIndex / bucketsPerQueue];
+    }
+
+    @Override
+    public @NotNull ProducerQueues getRetainedMessageQueue() {
+        return producers[RETAINED_MESSAGE_QUEUE_INDEX];
+    }
+
+    @Override
+    public @NotNull ProducerQueues getClientSessionQueue() {
+        return producers[CLIENT_SESSION_QUEUE_INDEX];
+    }
+
+    @Override
+    public @NotNull ProducerQueues getSubscriptionQueue() {
+        return producers[SUBSCRIPTION_QUEUE_INDEX];
+    }
+
+    @Override
+    public @NotNull ProducerQueues getQueuedMessagesQueue() {
+        return producers[QUEUED_MESSAGES_QUEUE_INDEX];
+    }
+
+    @Override
+    public @NotNull ProducerQueues getAttributeStoreQueue() {
+        return producers[ATTRIBUTE_STORE_QUEUE_INDEX];
+    }
+
+    @Override
+    public int getPersistenceBucketCount() {
+        return persistenceBucketCount;
+    }
+
+    public long getShutdownGracePeriod() {
+        return shutdownGracePeriod;
+    }
+
+    @Override
+    public void stop() {
+        final long start = System.currentTimeMillis();
+        if (log.isTraceEnabled()) {
+            log.trace("Shutting down single writer");
+        }
+
+        for (final Worker worker : workers) {
+            worker.stop();
+        }
+        try {
+            final long deadline = start + shutdownGracePeriod;
+            for (final Worker worker : workers) {
+                worker.thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+            }
+            if (log.isTraceEnabled()) {
+                log.trace("Finished single writer shutdown in {} ms", (System.currentTimeMillis() - start));
+            }
+        } catch (final InterruptedException e) {
+            //ignore
+        }
+        for (final Worker worker : workers) {
+            worker.thread.interrupt();
+        }
+        for (final ExecutorService callbackExecutor : callbackExecutors) {
+            callbackExecutor.shutdownNow();
+        }
+    }
+
+    @VisibleForTesting
+    static class Worker implements Runnable {
+
+        private final @NotNull MpscUnboundedArrayQueue<Runnable> queue = new MpscUnboundedArrayQueue<>(1024);
+        private final @NotNull AtomicBoolean parked = new AtomicBoolean();
+        final @NotNull Thread thread;
+        private volatile boolean running = true;
+
+        Worker(final @NotNull ThreadFactory threadFactory) {
+            thread = threadFactory.newThread(this);
+        }
+
+        void execute(final @NotNull Runnable task) {
+            queue.offer(task);
+            // the parked flag is set before the queue is checked a last time, so either the writer thread sees the
+            // task or we see the flag
+            if (parked.get() && parked.compareAndSet(true, false)) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        void stop() {
+            running = false;
+            LockSupport.unpark(thread);
+        }
+
+        boolean isParked() {
+            return parked.get();
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                final Runnable task = queue.poll();
+                if (task != null) {
+                    try {
+                        task.run();
+                    } catch (final Throwable t) {
+                        // Exceptions in the executed tasks are passed to their result future or failed callback.
+                        Exceptions.rethrowError("Exception in single writer executor. ", t);
+                    }
+                    continue;
+                }
+                if (!running) {
+                    return;
+                }
+                parked.set(true);
+                if (!queue.isEmpty() || !running) {
+                    parked.set(false);
+                    continue;
+                }
+                LockSupport.park(this);
+                parked.set(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.clientqueue;
+
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.mqtt.message.pubrel.PUBREL;
+import com.hivemq.persistence.clientqueue.ClientQueuePersistenceImpl.Key;
+import com.hivemq.persistence.util.ExpiryIndex;
+
+/**
+ * Orders the client queues of a bucket by the earliest message expiry deadline of their messages, so the clean up only
+ * has to visit the queues that contain expired messages instead of all queues of the bucket.
+ * <p>
+ * For every queue only the earliest deadline is tracked via {@link #schedule(Object, long)}. A queue that is returned
+ * by {@link #pollExpired(long)} is not tracked anymore and has to be rescheduled with the earliest deadline of its
+ * remaining messages after it was cleaned.
+ * <p>
+ * This class is not thread safe, it must only be accessed by the single writer thread of its bucket.
+ */
+public class ClientQueueExpiryIndex extends ExpiryIndex<Key> {
+
+    /**
+     * @return the point in time in milliseconds when the publish expires or {@link #NO_DEADLINE} if it does not expire.
+     */
+    public static long deadline(final @NotNull PUBLISH publish) {
+        if (publish.isExpiryDisabled()) {
+            return NO_DEADLINE;
+        }
+        return publish.getTimestamp() + (publish.getMessageExpiryInterval() * 1000);
+    }
+
+    /**
+     * @return the point in time in milliseconds when the pubrel expires or {@link #NO_DEADLINE} if it does not expire.
+     */
+    public static long deadline(final @NotNull PUBREL pubrel) {
+        final Long messageExpiryInterval = pubrel.getMessageExpiryInterval();
+        final Long publishTimestamp = pubrel.getPublishTimestamp();
+        if (messageExpiryInterval == null || publishTimestamp == null || pubrel.isExpiryDisabled()) {
+            return NO_DEADLINE;
+        }
+        return publishTimestamp + (messageExpiryInterval * 1000);
+    }
+}
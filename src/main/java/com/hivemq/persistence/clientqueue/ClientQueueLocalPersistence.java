@@ -70,6 +70,22 @@ public interface ClientQueueLocalPersistence extends LocalPersistence {
             @NotNull String queueId, boolean shared, @NotNull List<PUBLISH> publishes, long max,
             @NotNull QueuedMessagesStrategy strategy, boolean retained, int bucketIndex);
 
+    /**
+     * Adds a PUBLISH to each of the given client or shared subscription queues of the same bucket. If the size of a
+     * queue exceeds its queue limit, the given PUBLISH or the oldest PUBLISH in the queue will be dropped dependent on
+     * the queued messages strategy.
+     *
+     * @param publishes   to be queued, together with their queue ID and queue limit
+     * @param shared      is true if the queueIds are actually shared subscriptions false if they are client IDs
+     * @param strategy    how to discard messages in case a queue is full
+     * @param retained    true if this messages are sent in response to a subscribe. Retained messages are not dropped
+     *                    when the queue reached the maximum queue size.
+     * @param bucketIndex provided by the single writer
+     */
+    void addToMany(
+            @NotNull List<ClientQueuePublish> publishes, boolean shared, @NotNull QueuedMessagesStrategy strategy,
+            boolean retained, int bucketIndex);
+
     /**
      * Returns a batch of PUBLISHes and marks them by setting packet identifiers. The size of the batch is limited by 2
      * factors:
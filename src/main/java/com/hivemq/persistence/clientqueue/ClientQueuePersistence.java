@@ -59,6 +59,19 @@ public interface ClientQueuePersistence {
     ListenableFuture<Void> add(@NotNull String queueId, boolean shared, @NotNull List<PUBLISH> publishes, boolean retained,
                                final long queueLimit);
 
+    /**
+     * Add a publish to each of the given queues.
+     * The queues are grouped by bucket and all publishes of a bucket are added by a single task.
+     * The publishes will be queued without packet IDs
+     *
+     * @param publishes to add, together with their queue ID and queue limit
+     * @param shared    is true if the queues are actually shared subscriptions
+     * @param retained  true if the messages were sent in response to a subscribe.
+     *                  It is not necessarily the same as the retain flag of the publishes.
+     */
+    @NotNull
+    ListenableFuture<Void> addToMany(@NotNull List<ClientQueuePublish> publishes, boolean shared, boolean retained);
+
     /**
      * Read publishes that are not yet in-flight.
      * Sets the given packet ID's for the returned publishes if qos > 0.
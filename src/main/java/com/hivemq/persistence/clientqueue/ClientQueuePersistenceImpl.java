@@ -32,13 +32,16 @@ import com.hivemq.mqtt.services.PublishPollService;
 import com.hivemq.mqtt.topic.SubscriberWithQoS;
 import com.hivemq.mqtt.topic.tree.LocalTopicTree;
 import com.hivemq.persistence.AbstractPersistence;
+import com.hivemq.persistence.GroupCommitter;
 import com.hivemq.persistence.ProducerQueues;
 import com.hivemq.persistence.SingleWriterService;
 import com.hivemq.persistence.clientsession.ClientSession;
 import com.hivemq.persistence.clientsession.SharedSubscriptionService;
 import com.hivemq.persistence.connection.ConnectionPersistence;
 import com.hivemq.persistence.local.ClientSessionLocalPersistence;
+import com.hivemq.persistence.local.xodus.bucket.BucketUtils;
 import com.hivemq.persistence.payload.PayloadPersistenceException;
+import com.hivemq.persistence.util.FutureUtils;
 
 import javax.inject.Inject;
 import java.util.ArrayList;
@@ -69,6 +72,8 @@ public class ClientQueuePersistenceImpl extends AbstractPersistence implements C
     @NotNull
     private final PublishPollService publishPollService;
 
+    private final int bucketCount;
+
     @Inject
     public ClientQueuePersistenceImpl(
             @NotNull final ClientQueueLocalPersistence localPersistence,
@@ -87,6 +92,11 @@ public class ClientQueuePersistenceImpl extends AbstractPersistence implements C
         this.connectionPersistence = connectionPersistence;
         this.publishPollService = publishPollService;
         singleWriter = singleWriterService.getQueuedMessagesQueue();
+        final GroupCommitter groupCommitter = localPersistence.getGroupCommitter();
+        if (groupCommitter != null) {
+            singleWriter.setGroupCommitter(groupCommitter);
+        }
+        bucketCount = singleWriterService.getPersistenceBucketCount();
     }
 
     @Override
@@ -101,16 +111,12 @@ public class ClientQueuePersistenceImpl extends AbstractPersistence implements C
             return Futures.immediateFailedFuture(exception);
         }
 
-        return singleWriter.submit(queueId, (bucketIndex) -> {
+        return singleWriter.submit(queueId, (SingleWriterService.WriteTask<Void>) (bucketIndex) -> {
             localPersistence.add(queueId, shared, publish, queueLimit, mqttConfigurationService.getQueuedMessagesStrategy(),
                     retained, bucketIndex);
             final int queueSize = localPersistence.size(queueId, shared, bucketIndex);
             if (queueSize == 1) {
-                if (shared) {
-                    sharedPublishAvailable(queueId);
-                } else {
-                    publishAvailable(queueId);
-                }
+                publishAvailableAfterCommit(queueId, shared, bucketIndex);
             }
             return null;
         });
@@ -128,21 +134,75 @@ public class ClientQueuePersistenceImpl extends AbstractPersistence implements C
             return Futures.immediateFailedFuture(exception);
         }
 
-        return singleWriter.submit(queueId, (bucketIndex) -> {
+        return singleWriter.submit(queueId, (SingleWriterService.WriteTask<Void>) (bucketIndex) -> {
             final boolean queueWasEmpty = localPersistence.size(queueId, shared, bucketIndex) == 0;
             localPersistence.add(queueId, shared, publishes, queueLimit, mqttConfigurationService.getQueuedMessagesStrategy(),
                     retained, bucketIndex);
             if (queueWasEmpty) {
-                if (shared) {
-                    sharedPublishAvailable(queueId);
-                } else {
-                    publishAvailable(queueId);
-                }
+                publishAvailableAfterCommit(queueId, shared, bucketIndex);
             }
             return null;
         });
     }
 
+    @Override
+    @NotNull
+    public ListenableFuture<Void> addToMany(
+            @NotNull final List<ClientQueuePublish> publishes, final boolean shared, final boolean retained) {
+        try {
+            checkNotNull(publishes, "Publishes must not be null");
+        } catch (final Exception exception) {
+            return Futures.immediateFailedFuture(exception);
+        }
+
+        @SuppressWarnings("unchecked")
+        final List<ClientQueuePublish>[] publishesPerBucket = new List[bucketCount];
+        for (final ClientQueuePublish publish : publishes) {
+            final int bucketIndex = BucketUtils.getBucket(publish.getQueueId(), bucketCount);
+            List<ClientQueuePublish> bucketPublishes = publishesPerBucket[bucketIndex];
+            if (bucketPublishes == null) {
+                bucketPublishes = new ArrayList<>();
+                publishesPerBucket[bucketIndex] = bucketPublishes;
+            }
+            bucketPublishes.add(publish);
+        }
+
+        final ImmutableList.Builder<ListenableFuture<Void>> futures = ImmutableList.builder();
+        for (int i = 0; i < bucketCount; i++) {
+            final List<ClientQueuePublish> bucketPublishes = publishesPerBucket[i];
+            if (bucketPublishes == null) {
+                continue;
+            }
+            futures.add(singleWriter.submit(i, (SingleWriterService.WriteTask<Void>) (bucketIndex) -> {
+                localPersistence.addToMany(bucketPublishes, shared, mqttConfigurationService.getQueuedMessagesStrategy(),
+                        retained, bucketIndex);
+                for (final ClientQueuePublish publish : bucketPublishes) {
+                    final String queueId = publish.getQueueId();
+                    if (localPersistence.size(queueId, shared, bucketIndex) == 1) {
+                        publishAvailableAfterCommit(queueId, shared, bucketIndex);
+                    }
+                }
+                return null;
+            }));
+        }
+        return FutureUtils.voidFutureFromList(futures.build());
+    }
+
+    /**
+     * Notifies the subscribers of the queue about new messages once the transaction of the task, which may be a group
+     * transaction, is committed, so they never poll messages that are not visible yet.
+     */
+    private void publishAvailableAfterCommit(
+            @NotNull final String queueId, final boolean shared, final int bucketIndex) {
+        localPersistence.afterCommit(bucketIndex, () -> {
+            if (shared) {
+                sharedPublishAvailable(queueId);
+            } else {
+                publishAvailable(queueId);
+            }
+        });
+    }
+
     @Override
     public void publishAvailable(@NotNull final String client) {
         final ClientSession session = clientSessionLocalPersistence.getSession(client);
@@ -178,15 +238,17 @@ public class ClientQueuePersistenceImpl extends AbstractPersistence implements C
             return Futures.immediateFailedFuture(exception);
         }
         return singleWriter.submit(
-                queueId, (bucketIndex) -> checkPayloadReference(
-                        localPersistence.readNew(queueId, shared, packetIds, byteLimit, bucketIndex), queueId, shared));
+                queueId, (SingleWriterService.WriteTask<ImmutableList<PUBLISH>>) (bucketIndex) -> checkPayloadReference(
+                        localPersistence.readNew(queueId, shared, packetIds, byteLimit, bucketIndex), queueId, shared,
+                        bucketIndex));
     }
 
     @NotNull
     private <T extends MessageWithID> ImmutableList<T> checkPayloadReference(
             @NotNull final ImmutableList<T> publishes,
             @NotNull final String queueId,
-            final boolean shared) {
+            final boolean shared,
+            final int bucketIndex) {
         List<T> reducedList = null;
         for (final T message : publishes) {
             if (message instanceof PUBLISH) {
@@ -194,12 +256,14 @@ public class ClientQueuePersistenceImpl extends AbstractPersistence implements C
                 try {
                     publish.dereferencePayload();
                 } catch (final PayloadPersistenceException e) {
-                    messageDroppedService.failed(queueId, publish.getTopic(), publish.getQoS().getQosNumber());
-                    if (shared) {
-                        removeShared(queueId, publish.getUniqueId());
-                    } else {
-                        remove(queueId, publish.getPacketIdentifier());
-                    }
+                    localPersistence.afterCommit(bucketIndex, () -> {
+                        messageDroppedService.failed(queueId, publish.getTopic(), publish.getQoS().getQosNumber());
+                        if (shared) {
+                            removeShared(queueId, publish.getUniqueId());
+                        } else {
+                            remove(queueId, publish.getPacketIdentifier());
+                        }
+                    });
                     if (reducedList == null) {
                         reducedList = new ArrayList<>(publishes);
                     }
@@ -235,7 +299,7 @@ public class ClientQueuePersistenceImpl extends AbstractPersistence implements C
         return singleWriter.submit(client, (bucketIndex) -> {
             final ImmutableList<MessageWithID> messages =
                     localPersistence.readInflight(client, false, messageLimit, byteLimit, bucketIndex);
-            return checkPayloadReference(messages, client, false);
+            return checkPayloadReference(messages, client, false, bucketIndex);
         });
     }
 
@@ -243,7 +307,7 @@ public class ClientQueuePersistenceImpl extends AbstractPersistence implements C
     @NotNull
     public ListenableFuture<Void> remove(@NotNull final String client, final int packetId) {
         checkNotNull(client, "Client ID must not be null");
-        return singleWriter.submit(client, (bucketIndex) -> {
+        return singleWriter.submit(client, (SingleWriterService.WriteTask<Void>) (bucketIndex) -> {
             localPersistence.remove(client, packetId, bucketIndex);
             return null;
         });
@@ -253,7 +317,7 @@ public class ClientQueuePersistenceImpl extends AbstractPersistence implements C
     @NotNull
     public ListenableFuture<Void> putPubrel(@NotNull final String client, final int packetId) {
         checkNotNull(client, "Client must not be null");
-        return singleWriter.submit(client, (bucketIndex) -> {
+        return singleWriter.submit(client, (SingleWriterService.WriteTask<Void>) (bucketIndex) -> {
             localPersistence.replace(client, new PUBREL(packetId), bucketIndex);
             return null;
         });
@@ -263,7 +327,7 @@ public class ClientQueuePersistenceImpl extends AbstractPersistence implements C
     @NotNull
     public ListenableFuture<Void> clear(@NotNull final String queueId, final boolean shared) {
         checkNotNull(queueId, "Queue ID must not be");
-        return singleWriter.submit(queueId, (bucketIndex) -> {
+        return singleWriter.submit(queueId, (SingleWriterService.WriteTask<Void>) (bucketIndex) -> {
             localPersistence.clear(queueId, shared, bucketIndex);
             return null;
         });
@@ -278,7 +342,7 @@ public class ClientQueuePersistenceImpl extends AbstractPersistence implements C
     @Override
     @NotNull
     public ListenableFuture<Void> cleanUp(final int bucketIndex) {
-        return singleWriter.submit(bucketIndex, (bucketIndex1) -> {
+        return singleWriter.submit(bucketIndex, (SingleWriterService.WriteTask<Void>) (bucketIndex1) -> {
             final ImmutableSet<String> sharedQueues = localPersistence.cleanUp(bucketIndex1);
             for (final String sharedQueue : sharedQueues) {
                 final SharedSubscriptionService.SharedSubscription sharedSubscription =
@@ -307,7 +371,7 @@ public class ClientQueuePersistenceImpl extends AbstractPersistence implements C
     @Override
     public ListenableFuture<Void> removeShared(
             @NotNull final String sharedSubscription, @NotNull final String uniqueId) {
-        return singleWriter.submit(sharedSubscription, (bucketIndex) -> {
+        return singleWriter.submit(sharedSubscription, (SingleWriterService.WriteTask<Void>) (bucketIndex) -> {
             localPersistence.removeShared(sharedSubscription, uniqueId, bucketIndex);
             return null;
         });
@@ -317,10 +381,10 @@ public class ClientQueuePersistenceImpl extends AbstractPersistence implements C
     @Override
     public ListenableFuture<Void> removeInFlightMarker(
             @NotNull final String sharedSubscription, @NotNull final String uniqueId) {
-        return singleWriter.submit(sharedSubscription, (bucketIndex) -> {
+        return singleWriter.submit(sharedSubscription, (SingleWriterService.WriteTask<Void>) (bucketIndex) -> {
             localPersistence.removeInFlightMarker(sharedSubscription, uniqueId, bucketIndex);
             // We notify the clients that there are new messages to poll.
-            sharedPublishAvailable(sharedSubscription);
+            localPersistence.afterCommit(bucketIndex, () -> sharedPublishAvailable(sharedSubscription));
             return null;
 
         });
@@ -329,7 +393,7 @@ public class ClientQueuePersistenceImpl extends AbstractPersistence implements C
     @NotNull
     @Override
     public ListenableFuture<Void> removeAllQos0Messages(@NotNull final String queueId, final boolean shared) {
-        return singleWriter.submit(queueId, (bucketIndex) -> {
+        return singleWriter.submit(queueId, (SingleWriterService.WriteTask<Void>) (bucketIndex) -> {
             localPersistence.removeAllQos0Messages(queueId, shared, bucketIndex);
             return null;
         });
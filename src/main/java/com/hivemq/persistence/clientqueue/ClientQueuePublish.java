@@ -0,0 +1,57 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.clientqueue;
+
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+
+/**
+ * A PUBLISH that is added to a queue as part of a batch of queues.
+ */
+public class ClientQueuePublish {
+
+    private final @NotNull String queueId;
+    private final @NotNull PUBLISH publish;
+    private final long queueLimit;
+
+    /**
+     * @param queueId    of the queue
+     * @param publish    to add
+     * @param queueLimit of the client session or the default configuration.
+     */
+    public ClientQueuePublish(final @NotNull String queueId, final @NotNull PUBLISH publish, final long queueLimit) {
+        this.queueId = queueId;
+        this.publish = publish;
+        this.queueLimit = queueLimit;
+    }
+
+    public @NotNull String getQueueId() {
+        return queueId;
+    }
+
+    public @NotNull PUBLISH getPublish() {
+        return publish;
+    }
+
+    public long getQueueLimit() {
+        return queueLimit;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return queueId + ":" + publish.getUniqueId();
+    }
+}
@@ -15,6 +15,8 @@
  */
 package com.hivemq.persistence.clientqueue;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.cache.Cache;
@@ -28,6 +30,7 @@ import com.hivemq.configuration.service.MqttConfigurationService;
 import com.hivemq.configuration.service.MqttConfigurationService.QueuedMessagesStrategy;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.metrics.HiveMQMetrics;
 import com.hivemq.mqtt.message.MessageWithID;
 import com.hivemq.mqtt.message.QoS;
 import com.hivemq.mqtt.message.dropping.MessageDroppedService;
@@ -51,6 +54,7 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -104,12 +108,18 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
     @NotNull
     private final ConcurrentHashMap<String, AtomicInteger> clientQos0MemoryMap;
 
+    private final @NotNull ClientQueueExpiryIndex @NotNull [] expiryIndexes;
+    private final @NotNull Counter expiredMessagesCounter;
+
     // this caches the lower bound for a publish without packet-id,
     // the cached index is guaranteed to be lower or equal to the index
     //so it is safe to seek to this index without missing a publish without packet-id
     @VisibleForTesting
     final @NotNull Cache<String, Long> sharedSubLastPacketWithoutIdCache;
 
+    // the in-memory state of the queues before the current group transaction of the bucket changed them,
+    // only accessed by the single writer thread of the bucket
+    private final @NotNull Map<Key, QueueState> @NotNull [] groupSnapshots;
 
     @Inject
     ClientQueueXodusLocalPersistence(
@@ -117,7 +127,8 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
             final @NotNull EnvironmentUtil environmentUtil,
             final @NotNull LocalPersistenceFileUtil localPersistenceFileUtil,
             final @NotNull PersistenceStartup persistenceStartup,
-            final @NotNull MessageDroppedService messageDroppedService) {
+            final @NotNull MessageDroppedService messageDroppedService,
+            final @NotNull MetricRegistry metricRegistry) {
 
         super(environmentUtil, localPersistenceFileUtil, persistenceStartup,
                 InternalConfigurations.PERSISTENCE_BUCKET_COUNT.get(), true);
@@ -136,6 +147,16 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
                 .maximumSize(InternalConfigurations.SHARED_SUBSCRIPTION_WITHOUT_PACKET_ID_CACHE_MAX_SIZE_ENTRIES.get())
                 .expireAfterAccess(60, TimeUnit.SECONDS)
                 .build();
+        this.expiryIndexes = new ClientQueueExpiryIndex[InternalConfigurations.PERSISTENCE_BUCKET_COUNT.get()];
+        for (int i = 0; i < expiryIndexes.length; i++) {
+            expiryIndexes[i] = new ClientQueueExpiryIndex();
+        }
+        //noinspection unchecked
+        this.groupSnapshots = new Map[InternalConfigurations.PERSISTENCE_BUCKET_COUNT.get()];
+        for (int i = 0; i < groupSnapshots.length; i++) {
+            groupSnapshots[i] = new HashMap<>();
+        }
+        this.expiredMessagesCounter = metricRegistry.counter(HiveMQMetrics.QUEUED_MESSAGES_EXPIRED_COUNT.name());
     }
 
     private long getQos0MemoryLimit() {
@@ -193,13 +214,14 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
             qos0MessageBuckets.put(i, new ConcurrentHashMap<>());
             queueSizeBuckets.put(i, new ConcurrentSkipListMap<>());
             retainedQueueSizeBuckets.put(i, new ConcurrentHashMap<>());
+            expiryIndexes[i].clear();
         }
 
         final AtomicLong nextMessageIndex = new AtomicLong(Long.MAX_VALUE / 2);
 
         for (final Bucket bucket : buckets) {
 
-            bucket.getEnvironment().executeInReadonlyTransaction(txn -> {
+            bucket.executeInReadonlyTransaction(txn -> {
                 try (final Cursor cursor = bucket.getStore().openCursor(txn)) {
                     Key currentKey = null;
                     int queueSize = 0;
@@ -233,6 +255,12 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
                             }
                             final PUBLISH publish = (PUBLISH) messageWithID;
                             payloadPersistence.incrementReferenceCounterOnBootstrap(publish.getPublishId());
+                            scheduleExpiry(key, ClientQueueExpiryIndex.deadline(publish),
+                                    BucketUtils.getBucket(key.getQueueId(), getBucketCount()));
+                        } else if (messageWithID instanceof PUBREL &&
+                                InternalConfigurations.EXPIRE_INFLIGHT_PUBRELS_ENABLED) {
+                            scheduleExpiry(key, ClientQueueExpiryIndex.deadline((PUBREL) messageWithID),
+                                    BucketUtils.getBucket(key.getQueueId(), getBucketCount()));
                         }
                         queueSize++;
                         if (serializer.deserializeRetained(cursor.getValue())) {
@@ -294,6 +322,7 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
         ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
 
         final Key key = new Key(queueId, shared);
+        rememberQueueState(key, bucketIndex);
         if (publish.getQoS() == QoS.AT_MOST_ONCE) {
             addQos0Publish(key, new PublishWithRetained(publish, retained), bucketIndex);
             return;
@@ -323,7 +352,7 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
         final ByteIterable keyBytes = serializer.serializeNewPublishKey(key);
         final ByteIterable valueBytes = serializer.serializePublishWithoutPacketId(publish, retained);
 
-        bucket.getEnvironment().executeInTransaction(txn -> bucket.getStore().put(txn, keyBytes, valueBytes));
+        bucket.executeInTransaction(txn -> bucket.getStore().put(txn, keyBytes, valueBytes));
     }
 
     /**
@@ -338,12 +367,12 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
             final @NotNull Key key,
             final @NotNull Bucket bucket) {
         if (strategy == QueuedMessagesStrategy.DISCARD) {
-            logAndDecrementPayloadReference(publish, shared, queueId);
+            logAndDecrementPayloadReference(bucket, publish, shared, queueId);
             return true;
         } else {
             final boolean discarded = discardOldest(bucket, key, retained);
             if (!discarded) {
-                logAndDecrementPayloadReference(publish, shared, queueId);
+                logAndDecrementPayloadReference(bucket, publish, shared, queueId);
                 return true;
             }
         }
@@ -363,6 +392,7 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
         ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
 
         final Key key = new Key(queueId, shared);
+        rememberQueueState(key, bucketIndex);
         final ImmutableList.Builder<PUBLISH> qos1and2Publishes = ImmutableList.builder();
 
         for (final PUBLISH publish : publishes) {
@@ -379,69 +409,138 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
         final AtomicInteger retainedQueueSize = getOrPutRetainedQueueSize(key, bucketIndex);
         final int qos0Size = qos0Size(key, bucketIndex);
 
-        bucket.getEnvironment().executeInExclusiveTransaction(txn -> {
+        bucket.executeInExclusiveTransaction(txn -> {
             for (final PUBLISH publish : qos1and2Publishes.build()) {
+                addQos1Or2Publish(txn, bucket, bucketIndex, key, shared, publish, max, strategy, retained, queueSize,
+                        retainedQueueSize, qos0Size);
+            }
+        });
+    }
 
-                final int qos1And2QueueSize = queueSize.get() - qos0Size - retainedQueueSize.get();
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addToMany(
+            @NotNull final List<ClientQueuePublish> publishes, final boolean shared,
+            @NotNull final QueuedMessagesStrategy strategy, final boolean retained, final int bucketIndex) {
+        checkNotNull(publishes, "Publishes must not be null");
+        checkNotNull(strategy, "Strategy must not be null");
+        ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
 
-                if (qos1And2QueueSize >= max && !retained) {
-                    if (strategy == QueuedMessagesStrategy.DISCARD) {
-                        logAndDecrementPayloadReference(publish, shared, queueId);
-                        continue;
-                    } else {
-                        final boolean discarded = discardOldest(bucket, key, retained, txn);
-                        if (!discarded) {
-                            logAndDecrementPayloadReference(publish, shared, queueId);
-                            continue;
-                        }
-                    }
-                } else if (retainedQueueSize.get() >= retainedMessageMax && retained) {
-                    if (strategy == QueuedMessagesStrategy.DISCARD) {
-                        logAndDecrementPayloadReference(publish, shared, queueId);
-                        continue;
-                    } else {
-                        final boolean discarded = discardOldest(bucket, key, retained, txn);
-                        if (!discarded) {
-                            //If there is no other message that could be dropped than this message will not be added
-                            logAndDecrementPayloadReference(publish, shared, queueId);
-                            continue;
-                        }
-                    }
-                } else {
-                    queueSize.incrementAndGet();
-                    if (retained) {
-                        retainedQueueSize.incrementAndGet();
-                    }
-                }
-                final ByteIterable keyBytes = serializer.serializeNewPublishKey(key);
-                final ByteIterable valueBytes = serializer.serializePublishWithoutPacketId(publish, retained);
+        final ImmutableList.Builder<ClientQueuePublish> qos1and2Publishes = ImmutableList.builder();
+
+        for (final ClientQueuePublish publish : publishes) {
+            final Key key = new Key(publish.getQueueId(), shared);
+            rememberQueueState(key, bucketIndex);
+            if (publish.getPublish().getQoS() == QoS.AT_MOST_ONCE) {
+                addQos0Publish(key, new PublishWithRetained(publish.getPublish(), retained), bucketIndex);
+            } else {
+                qos1and2Publishes.add(publish);
+            }
+        }
+
+        final ImmutableList<ClientQueuePublish> qos1and2PublishList = qos1and2Publishes.build();
+        if (qos1and2PublishList.isEmpty()) {
+            return;
+        }
+
+        final Bucket bucket = buckets[bucketIndex];
 
-                bucket.getStore().put(txn, keyBytes, valueBytes);
+        // All queues of the bucket are written in a single transaction
+        bucket.executeInExclusiveTransaction(txn -> {
+            for (final ClientQueuePublish publish : qos1and2PublishList) {
+                final Key key = new Key(publish.getQueueId(), shared);
+                final AtomicInteger queueSize = getOrPutQueueSize(key, bucketIndex);
+                final AtomicInteger retainedQueueSize = getOrPutRetainedQueueSize(key, bucketIndex);
+
+                addQos1Or2Publish(txn, bucket, bucketIndex, key, shared, publish.getPublish(), publish.getQueueLimit(),
+                        strategy,
+                        retained, queueSize, retainedQueueSize, qos0Size(key, bucketIndex));
             }
         });
     }
 
+    private void addQos1Or2Publish(
+            final @NotNull Transaction txn,
+            final @NotNull Bucket bucket,
+            final int bucketIndex,
+            final @NotNull Key key,
+            final boolean shared,
+            final @NotNull PUBLISH publish,
+            final long max,
+            final @NotNull QueuedMessagesStrategy strategy,
+            final boolean retained,
+            final @NotNull AtomicInteger queueSize,
+            final @NotNull AtomicInteger retainedQueueSize,
+            final int qos0Size) {
+
+        final String queueId = key.getQueueId();
+        final int qos1And2QueueSize = queueSize.get() - qos0Size - retainedQueueSize.get();
+
+        if (qos1And2QueueSize >= max && !retained) {
+            if (strategy == QueuedMessagesStrategy.DISCARD) {
+                logAndDecrementPayloadReference(bucket, publish, shared, queueId);
+                return;
+            } else {
+                final boolean discarded = discardOldest(bucket, key, retained, txn);
+                if (!discarded) {
+                    logAndDecrementPayloadReference(bucket, publish, shared, queueId);
+                    return;
+                }
+            }
+        } else if (retainedQueueSize.get() >= retainedMessageMax && retained) {
+            if (strategy == QueuedMessagesStrategy.DISCARD) {
+                logAndDecrementPayloadReference(bucket, publish, shared, queueId);
+                return;
+            } else {
+                final boolean discarded = discardOldest(bucket, key, retained, txn);
+                if (!discarded) {
+                    //If there is no other message that could be dropped than this message will not be added
+                    logAndDecrementPayloadReference(bucket, publish, shared, queueId);
+                    return;
+                }
+            }
+        } else {
+            queueSize.incrementAndGet();
+            if (retained) {
+                retainedQueueSize.incrementAndGet();
+            }
+        }
+        final ByteIterable keyBytes = serializer.serializeNewPublishKey(key);
+        final ByteIterable valueBytes = serializer.serializePublishWithoutPacketId(publish, retained);
+
+        bucket.getStore().put(txn, keyBytes, valueBytes);
+        scheduleExpiry(key, ClientQueueExpiryIndex.deadline(publish), bucketIndex);
+    }
+
     private void addQos0Publish(
             @NotNull final Key key, @NotNull final PublishWithRetained publishWithRetained, final int bucketIndex) {
         final long currentQos0MessagesMemory = qos0MessagesMemory.get();
         final PUBLISH publish = publishWithRetained.publish;
+        final Bucket bucket = buckets[bucketIndex];
         if (currentQos0MessagesMemory >= qos0MemoryLimit) {
-            if (key.isShared()) {
-                messageDroppedService.qos0MemoryExceededShared(
-                        key.getQueueId(), publish.getTopic(), 0, currentQos0MessagesMemory, qos0MemoryLimit);
-            } else {
-                messageDroppedService.qos0MemoryExceeded(
-                        key.getQueueId(), publish.getTopic(), 0, currentQos0MessagesMemory, qos0MemoryLimit);
-            }
-            payloadPersistence.decrementReferenceCounter(publish.getPublishId());
+            bucket.afterCommit(() -> {
+                if (key.isShared()) {
+                    messageDroppedService.qos0MemoryExceededShared(
+                            key.getQueueId(), publish.getTopic(), 0, currentQos0MessagesMemory, qos0MemoryLimit);
+                } else {
+                    messageDroppedService.qos0MemoryExceeded(
+                            key.getQueueId(), publish.getTopic(), 0, currentQos0MessagesMemory, qos0MemoryLimit);
+                }
+                payloadPersistence.decrementReferenceCounter(publish.getPublishId());
+            });
             return;
         }
 
         if (!key.isShared()) {
             final AtomicInteger clientQos0Memory = clientQos0MemoryMap.get(key.getQueueId());
             if (clientQos0Memory != null && clientQos0Memory.get() >= qos0ClientMemoryLimit) {
-                messageDroppedService.qos0MemoryExceeded(key.getQueueId(), publish.getTopic(), 0, clientQos0Memory.get(), qos0ClientMemoryLimit);
-                payloadPersistence.decrementReferenceCounter(publish.getPublishId());
+                final int currentClientQos0Memory = clientQos0Memory.get();
+                bucket.afterCommit(() -> {
+                    messageDroppedService.qos0MemoryExceeded(key.getQueueId(), publish.getTopic(), 0, currentClientQos0Memory, qos0ClientMemoryLimit);
+                    payloadPersistence.decrementReferenceCounter(publish.getPublishId());
+                });
                 return;
             }
         }
@@ -453,6 +552,7 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
         }
         increaseQos0MessagesMemory(publish.getEstimatedSizeInMemory());
         increaseClientQos0MessagesMemory(key, publish.getEstimatedSizeInMemory());
+        scheduleExpiry(key, ClientQueueExpiryIndex.deadline(publish), bucketIndex);
     }
 
     private void logMessageDropped(
@@ -511,7 +611,7 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
      */
     private boolean discardOldest(@NotNull final Bucket bucket, @NotNull final Key key, final boolean retainedOnly) {
 
-        return bucket.getEnvironment().computeInExclusiveTransaction(txn ->
+        return bucket.computeInExclusiveTransaction(txn ->
                 discardOldest(bucket, key, retainedOnly, txn));
     }
 
@@ -535,7 +635,7 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
                     return true;
                 }
                 final PUBLISH publish = (PUBLISH) serializer.deserializeValue(value);
-                logAndDecrementPayloadReference(publish, key.isShared(), key.getQueueId());
+                logAndDecrementPayloadReference(bucket, publish, key.isShared(), key.getQueueId());
                 cursor.deleteCurrent();
 
                 discarded.set(true);
@@ -547,9 +647,22 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
     }
 
     private void logAndDecrementPayloadReference(
-            final @NotNull PUBLISH publish, final boolean shared, final @NotNull String queueId) {
-        logMessageDropped(publish, shared, queueId);
-        payloadPersistence.decrementReferenceCounter(publish.getPublishId());
+            final @NotNull Bucket bucket,
+            final @NotNull PUBLISH publish,
+            final boolean shared,
+            final @NotNull String queueId) {
+        bucket.afterCommit(() -> {
+            logMessageDropped(publish, shared, queueId);
+            payloadPersistence.decrementReferenceCounter(publish.getPublishId());
+        });
+    }
+
+    /**
+     * Decrements the reference count of the payload once the removal of the message is committed, as a group
+     * transaction may still be aborted and the message be read again.
+     */
+    private void decrementReferenceCounter(final @NotNull Bucket bucket, final long publishId) {
+        bucket.afterCommit(() -> payloadPersistence.decrementReferenceCounter(publishId));
     }
 
     /**
@@ -565,6 +678,7 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
         ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
 
         final Key key = new Key(queueId, shared);
+        rememberQueueState(key, bucketIndex);
 
         final AtomicInteger queueSize = getOrPutQueueSize(key, bucketIndex);
         if (queueSize.get() == 0) {
@@ -593,7 +707,7 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
         }
 
         final Bucket bucket = buckets[bucketIndex];
-        return bucket.getEnvironment().computeInExclusiveTransaction(txn -> {
+        return bucket.computeInExclusiveTransaction(txn -> {
             try (final Cursor cursor = bucket.getStore().openCursor(txn)) {
 
                 final int countLimit = packetIds.length();
@@ -607,7 +721,7 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
                     final PUBLISH publish = (PUBLISH) serializer.deserializeValue(serializedValue);
                     if (publish.hasExpired()) {
                         cursor.deleteCurrent();
-                        payloadPersistence.decrementReferenceCounter(publish.getPublishId());
+                        decrementReferenceCounter(bucket, publish.getPublishId());
                         getOrPutQueueSize(key, bucketIndex).decrementAndGet();
                         if (serializer.deserializeRetained(serializedValue)) {
                             getOrPutRetainedQueueSize(key, bucketIndex).decrementAndGet();
@@ -658,7 +772,7 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
         }
         increaseQos0MessagesMemory(qos0Publish.getEstimatedSizeInMemory() * -1);
         increaseClientQos0MessagesMemory(key, qos0Publish.getEstimatedSizeInMemory() * -1);
-        payloadPersistence.decrementReferenceCounter(qos0Publish.getPublishId());
+        decrementReferenceCounter(buckets[bucketIndex], qos0Publish.getPublishId());
         return qos0Publish;
     }
 
@@ -674,7 +788,7 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
 
         final Bucket bucket = buckets[bucketIndex];
 
-        return bucket.getEnvironment().computeInReadonlyTransaction(txn -> {
+        return bucket.computeInReadonlyTransaction(txn -> {
             try (final Cursor cursor = bucket.getStore().openCursor(txn)) {
 
                 final int[] count = {0};
@@ -717,10 +831,11 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
         ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
 
         final Key key = new Key(client, false);
+        rememberQueueState(key, bucketIndex);
 
         final Bucket bucket = buckets[bucketIndex];
 
-        return bucket.getEnvironment().computeInExclusiveTransaction(txn -> {
+        return bucket.computeInExclusiveTransaction(txn -> {
             try (final Cursor cursor = bucket.getStore().openCursor(txn)) {
 
                 final boolean[] packetIdFound = new boolean[1];
@@ -734,7 +849,7 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
                         final boolean retained = serializer.deserializeRetained(cursor.getValue());
                         if (message instanceof PUBLISH) {
                             final PUBLISH publish = (PUBLISH) message;
-                            payloadPersistence.decrementReferenceCounter(publish.getPublishId());
+                            decrementReferenceCounter(bucket, publish.getPublishId());
                             pubrel.setMessageExpiryInterval(publish.getMessageExpiryInterval());
                             pubrel.setPublishTimestamp(publish.getTimestamp());
                             replacedId[0] = publish.getUniqueId();
@@ -753,6 +868,9 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
                     final ByteIterable serializedPubRel = serializer.serializePubRel(pubrel, false);
                     bucket.getStore().put(txn, serializer.serializeUnknownPubRelKey(key), serializedPubRel);
                 }
+                if (InternalConfigurations.EXPIRE_INFLIGHT_PUBRELS_ENABLED) {
+                    scheduleExpiry(key, ClientQueueExpiryIndex.deadline(pubrel), bucketIndex);
+                }
                 return replacedId[0];
             }
         });
@@ -777,9 +895,10 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
         ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
 
         final Key key = new Key(client, false);
+        rememberQueueState(key, bucketIndex);
 
         final Bucket bucket = buckets[bucketIndex];
-        return bucket.getEnvironment().computeInExclusiveTransaction(txn -> {
+        return bucket.computeInExclusiveTransaction(txn -> {
             try (final Cursor cursor = bucket.getStore().openCursor(txn)) {
 
                 final String[] result = {null};
@@ -793,7 +912,7 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
                             if (uniqueId != null && !uniqueId.equals(publish.getUniqueId())) {
                                 return false;
                             }
-                            payloadPersistence.decrementReferenceCounter(publish.getPublishId());
+                            decrementReferenceCounter(bucket, publish.getPublishId());
                             removedId = publish.getUniqueId();
                         }
                         getOrPutQueueSize(key, bucketIndex).decrementAndGet();
@@ -843,15 +962,16 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
         ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
 
         final Key key = new Key(queueId, shared);
+        rememberQueueState(key, bucketIndex);
 
         final Bucket bucket = buckets[bucketIndex];
-        bucket.getEnvironment().executeInExclusiveTransaction(txn -> {
+        bucket.executeInExclusiveTransaction(txn -> {
             try (final Cursor cursor = bucket.getStore().openCursor(txn)) {
 
                 iterateQueue(cursor, key, false, () -> {
                     final MessageWithID message = serializer.deserializeValue(cursor.getValue());
                     if (message instanceof PUBLISH) {
-                        payloadPersistence.decrementReferenceCounter(((PUBLISH) message).getPublishId());
+                        decrementReferenceCounter(bucket, ((PUBLISH) message).getPublishId());
                     }
                     cursor.deleteCurrent();
                     return true;
@@ -863,11 +983,12 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
         for (final PublishWithRetained qos0Message : qos0Messages) {
             increaseQos0MessagesMemory(qos0Message.publish.getEstimatedSizeInMemory() * -1);
             increaseClientQos0MessagesMemory(key, qos0Message.publish.getEstimatedSizeInMemory() * -1);
-            payloadPersistence.decrementReferenceCounter(qos0Message.publish.getPublishId());
+            decrementReferenceCounter(bucket, qos0Message.publish.getPublishId());
         }
         qos0MessageBuckets.get(bucketIndex).remove(key);
         queueSizeBuckets.get(bucketIndex).remove(key);
         retainedQueueSizeBuckets.get(bucketIndex).remove(key);
+        expiryIndexes[bucketIndex].remove(key);
     }
 
     /**
@@ -879,13 +1000,14 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
         ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
 
         final Key key = new Key(queueId, shared);
+        rememberQueueState(key, bucketIndex);
         final LinkedList<PublishWithRetained> publishesWithRetained = getOrPutQos0Messages(key, bucketIndex);
         final Iterator<PublishWithRetained> iterator = publishesWithRetained.iterator();
         while (iterator.hasNext()) {
             final PublishWithRetained publishWithRetained = iterator.next();
             final PUBLISH publish = publishWithRetained.publish;
             iterator.remove();
-            payloadPersistence.decrementReferenceCounter(publish.getPublishId());
+            decrementReferenceCounter(buckets[bucketIndex], publish.getPublishId());
             getOrPutQueueSize(key, bucketIndex).decrementAndGet();
             if (publishWithRetained.retained) {
                 getOrPutRetainedQueueSize(key, bucketIndex).decrementAndGet();
@@ -915,7 +1037,13 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
             if (bucketKey.isShared()) {
                 sharedQueues.add(bucketKey.getQueueId());
             }
-            cleanExpiredMessages(bucketKey, bucketIndex);
+        }
+
+        final ClientQueueExpiryIndex expiryIndex = expiryIndexes[bucketIndex];
+        for (final Key expiredKey : expiryIndex.pollExpired(System.currentTimeMillis())) {
+            if (bucketClients.containsKey(expiredKey)) {
+                expiryIndex.schedule(expiredKey, cleanExpiredMessages(expiredKey, bucketIndex));
+            }
         }
 
         return sharedQueues.build();
@@ -932,9 +1060,10 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
         ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
 
         final Key key = new Key(sharedSubscription, true);
+        rememberQueueState(key, bucketIndex);
 
         final Bucket bucket = buckets[bucketIndex];
-        bucket.getEnvironment().executeInExclusiveTransaction(txn -> {
+        bucket.executeInExclusiveTransaction(txn -> {
             try (final Cursor cursor = bucket.getStore().openCursor(txn)) {
 
                 iterateQueue(cursor, key, false, () -> {
@@ -945,7 +1074,7 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
                         if (!uniqueId.equals(publish.getUniqueId())) {
                             return true;
                         }
-                        payloadPersistence.decrementReferenceCounter(publish.getPublishId());
+                        decrementReferenceCounter(bucket, publish.getPublishId());
                         getOrPutQueueSize(key, bucketIndex).decrementAndGet();
                         if (serializer.deserializeRetained(cursor.getValue())) {
                             getOrPutRetainedQueueSize(key, bucketIndex).decrementAndGet();
@@ -971,7 +1100,7 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
         final Key key = new Key(sharedSubscription, true);
 
         final Bucket bucket = buckets[bucketIndex];
-        bucket.getEnvironment().executeInExclusiveTransaction(txn -> {
+        bucket.executeInExclusiveTransaction(txn -> {
             try (final Cursor cursor = bucket.getStore().openCursor(txn)) {
 
                 iterateQueue(cursor, key, false, () -> {
@@ -986,6 +1115,7 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
                         decrementSharedSubscriptionIndexFirstMessageWithoutPacketId(sharedSubscription, index);
                         bucket.getStore()
                                 .put(txn, cursor.getKey(), serializer.serializePublishWithoutPacketId(publish, false));
+                        scheduleExpiry(key, ClientQueueExpiryIndex.deadline(publish), bucketIndex);
                     }
                     return false;
                 });
@@ -1001,7 +1131,20 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
         return clientQos0MemoryMap;
     }
 
-    private void cleanExpiredMessages(@NotNull final Key key, final int bucketIndex) {
+    private void scheduleExpiry(final @NotNull Key key, final long deadline, final int bucketIndex) {
+        if (deadline != ClientQueueExpiryIndex.NO_DEADLINE) {
+            expiryIndexes[bucketIndex].schedule(key, deadline);
+        }
+    }
+
+    /**
+     * @return the earliest expiry deadline of the remaining messages.
+     */
+    private long cleanExpiredMessages(@NotNull final Key key, final int bucketIndex) {
+        rememberQueueState(key, bucketIndex);
+        final AtomicLong nextDeadline = new AtomicLong(ClientQueueExpiryIndex.NO_DEADLINE);
+        final Bucket bucket = buckets[bucketIndex];
+
         final LinkedList<PublishWithRetained> qos0Messages = getOrPutQos0Messages(key, bucketIndex);
         final Iterator<PublishWithRetained> iterator = qos0Messages.iterator();
         while (iterator.hasNext()) {
@@ -1011,17 +1154,18 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
                 getOrPutQueueSize(key, bucketIndex).decrementAndGet();
                 increaseQos0MessagesMemory(qos0Message.getEstimatedSizeInMemory() * -1);
                 increaseClientQos0MessagesMemory(key, qos0Message.getEstimatedSizeInMemory() * -1);
-                payloadPersistence.decrementReferenceCounter(qos0Message.getPublishId());
+                decrementReferenceCounter(bucket, qos0Message.getPublishId());
                 if (publishWithRetained.retained) {
                     getOrPutRetainedQueueSize(key, bucketIndex).decrementAndGet();
                 }
                 iterator.remove();
+                bucket.afterCommit(expiredMessagesCounter::inc);
+            } else {
+                nextDeadline.set(Math.min(nextDeadline.get(), ClientQueueExpiryIndex.deadline(qos0Message)));
             }
         }
 
-        final Bucket bucket = buckets[bucketIndex];
-
-        bucket.getEnvironment().executeInExclusiveTransaction(txn -> {
+        bucket.executeInExclusiveTransaction(txn -> {
             try (final Cursor cursor = bucket.getStore().openCursor(txn)) {
 
                 iterateQueue(cursor, key, false, () -> {
@@ -1036,6 +1180,7 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
                             return true;
                         }
                         if (!pubrel.hasExpired()) {
+                            nextDeadline.set(Math.min(nextDeadline.get(), ClientQueueExpiryIndex.deadline(pubrel)));
                             return true;
                         }
                         getOrPutQueueSize(key, bucketIndex).decrementAndGet();
@@ -1043,25 +1188,33 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
                             getOrPutRetainedQueueSize(key, bucketIndex).decrementAndGet();
                         }
                         cursor.deleteCurrent();
+                        bucket.afterCommit(expiredMessagesCounter::inc);
 
                     } else if (message instanceof PUBLISH) {
                         final PUBLISH publish = (PUBLISH) message;
                         final boolean expireInflight = InternalConfigurations.EXPIRE_INFLIGHT_MESSAGES_ENABLED;
                         final boolean isInflight = publish.getQoS() == QoS.EXACTLY_ONCE && publish.getPacketIdentifier() > 0;
-                        final boolean drop = publish.hasExpired() && (!isInflight || expireInflight);
+                        final boolean expired = publish.hasExpired();
+                        final boolean drop = expired && (!isInflight || expireInflight);
                         if (drop) {
-                            payloadPersistence.decrementReferenceCounter(publish.getPublishId());
+                            decrementReferenceCounter(bucket, publish.getPublishId());
                             getOrPutQueueSize(key, bucketIndex).decrementAndGet();
                             if (serializer.deserializeRetained(serializedValue)) {
                                 getOrPutRetainedQueueSize(key, bucketIndex).decrementAndGet();
                             }
                             cursor.deleteCurrent();
+                            bucket.afterCommit(expiredMessagesCounter::inc);
+                        } else if (!expired) {
+                            // expired in-flight messages are kept until they are acknowledged or their in-flight
+                            // marker is removed, which reschedules them
+                            nextDeadline.set(Math.min(nextDeadline.get(), ClientQueueExpiryIndex.deadline(publish)));
                         }
                     }
                     return true;
                 });
             }
         });
+        return nextDeadline.get();
     }
 
     private int skipPrefix(@NotNull final ByteIterable serializedKey, @NotNull final Cursor cursor) {
@@ -1143,7 +1296,7 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
         final Key key = new Key(queueId, shared);
 
         final Bucket bucket = buckets[bucketIndex];
-        final ImmutableList.Builder<ClientQueueEntry> messageBuilder = bucket.getEnvironment().computeInExclusiveTransaction(txn -> {
+        final ImmutableList.Builder<ClientQueueEntry> messageBuilder = bucket.computeInExclusiveTransaction(txn -> {
             try (final Cursor cursor = bucket.getStore().openCursor(txn)) {
 
                 final ImmutableList.Builder<ClientQueueEntry> entries = ImmutableList.builder();
@@ -1176,7 +1329,7 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
         return getOrPutQueueSizeFromBucket(key, queueSizeBucket);
     }
 
-    private @NotNull AtomicInteger getOrPutQueueSizeFromBucket(
+    private static @NotNull AtomicInteger getOrPutQueueSizeFromBucket(
             final @NotNull Key key, final @NotNull Map<Key, AtomicInteger> queueSizeBucket) {
         final AtomicInteger queueSize = queueSizeBucket.get(key);
         if (queueSize != null) {
@@ -1208,6 +1361,108 @@ public class ClientQueueXodusLocalPersistence extends XodusLocalPersistence impl
         return 0;
     }
 
+    /**
+     * Remembers the in-memory state of the queue the first time it is changed by a task of the current group
+     * transaction of the bucket, so it can be restored if the group is aborted and its tasks are executed again. Does
+     * nothing if the bucket has no group transaction.
+     */
+    private void rememberQueueState(final @NotNull Key key, final int bucketIndex) {
+        final Bucket bucket = buckets[bucketIndex];
+        if (!bucket.inGroupTransaction()) {
+            return;
+        }
+        final Map<Key, QueueState> snapshots = groupSnapshots[bucketIndex];
+        if (snapshots.containsKey(key)) {
+            return;
+        }
+        if (snapshots.isEmpty()) {
+            bucket.afterCommit(snapshots::clear);
+            bucket.afterAbort(() -> restoreQueueStates(bucketIndex));
+        }
+        final AtomicInteger queueSize = queueSizeBuckets.get(bucketIndex).get(key);
+        final AtomicInteger retainedQueueSize = retainedQueueSizeBuckets.get(bucketIndex).get(key);
+        final LinkedList<PublishWithRetained> qos0Messages = qos0MessageBuckets.get(bucketIndex).get(key);
+        snapshots.put(key, new QueueState(
+                queueSize == null ? null : queueSize.get(),
+                retainedQueueSize == null ? null : retainedQueueSize.get(),
+                qos0Messages == null ? null : new LinkedList<>(qos0Messages)));
+    }
+
+    private void restoreQueueStates(final int bucketIndex) {
+        final Map<Key, QueueState> snapshots = groupSnapshots[bucketIndex];
+        final long now = System.currentTimeMillis();
+        for (final Map.Entry<Key, QueueState> entry : snapshots.entrySet()) {
+            final Key key = entry.getKey();
+            final QueueState state = entry.getValue();
+            restoreQueueSize(key, state.queueSize, queueSizeBuckets.get(bucketIndex));
+            restoreQueueSize(key, state.retainedQueueSize, retainedQueueSizeBuckets.get(bucketIndex));
+
+            final Map<Key, LinkedList<PublishWithRetained>> bucketMessages = qos0MessageBuckets.get(bucketIndex);
+            final int memoryDelta = qos0Memory(state.qos0Messages) - qos0Memory(bucketMessages.get(key));
+            if (state.qos0Messages == null) {
+                bucketMessages.remove(key);
+            } else {
+                bucketMessages.put(key, state.qos0Messages);
+            }
+            qos0MessagesMemory.addAndGet(memoryDelta);
+            if (!key.isShared() && memoryDelta != 0) {
+                final AtomicInteger clientQos0Memory =
+                        clientQos0MemoryMap.computeIfAbsent(key.getQueueId(), clientId -> new AtomicInteger());
+                if (clientQos0Memory.addAndGet(memoryDelta) <= 0) {
+                    clientQos0MemoryMap.remove(key.getQueueId());
+                }
+            }
+
+            // the expiry index may have lost the key, rescheduling it is safe as the clean up recomputes the deadline
+            if (state.queueSize != null && state.queueSize > 0) {
+                expiryIndexes[bucketIndex].schedule(key, now);
+            }
+            // the cached index may point behind messages whose packet id was reverted
+            if (key.isShared()) {
+                sharedSubLastPacketWithoutIdCache.invalidate(key.getQueueId());
+            }
+        }
+        snapshots.clear();
+    }
+
+    private static void restoreQueueSize(
+            final @NotNull Key key,
+            final @Nullable Integer size,
+            final @NotNull Map<Key, AtomicInteger> queueSizeBucket) {
+        if (size == null) {
+            queueSizeBucket.remove(key);
+        } else {
+            getOrPutQueueSizeFromBucket(key, queueSizeBucket).set(size);
+        }
+    }
+
+    private static int qos0Memory(final @Nullable LinkedList<PublishWithRetained> qos0Messages) {
+        if (qos0Messages == null) {
+            return 0;
+        }
+        int memory = 0;
+        for (final PublishWithRetained qos0Message : qos0Messages) {
+            memory += qos0Message.publish.getEstimatedSizeInMemory() + LINKED_LIST_NODE_OVERHEAD;
+        }
+        return memory;
+    }
+
+    private static class QueueState {
+
+        private final @Nullable Integer queueSize;
+        private final @Nullable Integer retainedQueueSize;
+        private final @Nullable LinkedList<PublishWithRetained> qos0Messages;
+
+        private QueueState(
+                final @Nullable Integer queueSize,
+                final @Nullable Integer retainedQueueSize,
+                final @Nullable LinkedList<PublishWithRetained> qos0Messages) {
+            this.queueSize = queueSize;
+            this.retainedQueueSize = retainedQueueSize;
+            this.qos0Messages = qos0Messages;
+        }
+    }
+
     private static class PublishWithRetained {
 
         private final @NotNull PUBLISH publish;
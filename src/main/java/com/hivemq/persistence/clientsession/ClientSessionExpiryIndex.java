@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.clientsession;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.math.LongMath;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.persistence.util.ExpiryIndex;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Orders the client sessions of every bucket by the point in time when their session expiry interval passes, so
+ * expired sessions are found without iterating the whole bucket.
+ * <p>
+ * The index must be updated by the local client session persistence on every change of a session. It is only written
+ * and polled by the single writer thread of the bucket, but the earliest deadline of a bucket can be read from any
+ * thread via {@link #getNextDeadline(int)}, so a scheduler can decide whether a clean up of the bucket is due.
+ */
+public class ClientSessionExpiryIndex {
+
+    public static final long NO_DEADLINE = ExpiryIndex.NO_DEADLINE;
+
+    private final @NotNull ExpiryIndex<String> @NotNull [] buckets;
+    private final @NotNull AtomicLongArray nextDeadlines;
+
+    @SuppressWarnings("unchecked")
+    public ClientSessionExpiryIndex(final int bucketCount) {
+        buckets = new ExpiryIndex[bucketCount];
+        nextDeadlines = new AtomicLongArray(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new ExpiryIndex<>();
+            nextDeadlines.set(i, NO_DEADLINE);
+        }
+    }
+
+    /**
+     * @return the point in time in milliseconds when the session expires or {@link #NO_DEADLINE} if the client is
+     *         connected.
+     */
+    public static long deadline(final @NotNull ClientSession clientSession, final long timestamp) {
+        if (clientSession.isConnected()) {
+            return NO_DEADLINE;
+        }
+        return LongMath.saturatedAdd(
+                timestamp, LongMath.saturatedMultiply(clientSession.getSessionExpiryIntervalSec(), 1000));
+    }
+
+    /**
+     * Sets the deadline of the session, replacing its previous deadline.
+     *
+     * @param bucketIndex   the bucket of the session.
+     * @param clientId      the client id of the session.
+     * @param clientSession the current state of the session.
+     * @param timestamp     the timestamp of the last change of the session.
+     */
+    public void put(
+            final int bucketIndex,
+            final @NotNull String clientId,
+            final @NotNull ClientSession clientSession,
+            final long timestamp) {
+
+        putDeadline(bucketIndex, clientId, deadline(clientSession, timestamp));
+    }
+
+    /**
+     * Sets the point in time when the session expires, replacing its previous deadline.
+     *
+     * @param bucketIndex the bucket of the session.
+     * @param clientId    the client id of the session.
+     * @param deadline    the point in time in milliseconds when the session expires.
+     */
+    public void putDeadline(final int bucketIndex, final @NotNull String clientId, final long deadline) {
+        buckets[bucketIndex].update(clientId, deadline);
+        nextDeadlines.set(bucketIndex, buckets[bucketIndex].nextDeadline());
+    }
+
+    public void remove(final int bucketIndex, final @NotNull String clientId) {
+        buckets[bucketIndex].remove(clientId);
+    }
+
+    public void clear(final int bucketIndex) {
+        buckets[bucketIndex].clear();
+        nextDeadlines.set(bucketIndex, NO_DEADLINE);
+    }
+
+    /**
+     * Removes at most the given amount of sessions whose deadline passed from the index.
+     *
+     * @return the client ids of the expired sessions.
+     */
+    public @NotNull ImmutableList<String> pollExpired(final int bucketIndex, final long now, final int max) {
+        final ImmutableList<String> expired = buckets[bucketIndex].pollExpired(now, max);
+        nextDeadlines.set(bucketIndex, buckets[bucketIndex].nextDeadline());
+        return expired;
+    }
+
+    /**
+     * Can be called from any thread.
+     *
+     * @return the earliest deadline of a session in the bucket or {@link #NO_DEADLINE}. May be earlier than the actual
+     *         earliest deadline if the deadline of a session was changed or the session was removed.
+     */
+    public long getNextDeadline(final int bucketIndex) {
+        return nextDeadlines.get(bucketIndex);
+    }
+
+    public int size(final int bucketIndex) {
+        return buckets[bucketIndex].size();
+    }
+}
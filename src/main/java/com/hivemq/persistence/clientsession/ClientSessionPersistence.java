@@ -79,6 +79,13 @@ public interface ClientSessionPersistence {
      */
     @NotNull ListenableFuture<Void> cleanUp(int bucketIndex);
 
+    /**
+     * Trigger a cleanup for every bucket that contains a client session whose session expiry interval passed.
+     *
+     * @return a future which completes as soon as the clean ups are done.
+     */
+    @NotNull ListenableFuture<Void> expireSessions();
+
     /**
      * @return a future of all client ids in the persistence.
      */
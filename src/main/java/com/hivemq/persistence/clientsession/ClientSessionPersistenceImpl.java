@@ -31,6 +31,7 @@ import com.hivemq.mqtt.handler.disconnect.MqttServerDisconnector;
 import com.hivemq.mqtt.message.connect.MqttWillPublish;
 import com.hivemq.mqtt.message.reason.Mqtt5DisconnectReasonCode;
 import com.hivemq.persistence.AbstractPersistence;
+import com.hivemq.persistence.GroupCommitter;
 import com.hivemq.persistence.ProducerQueues;
 import com.hivemq.persistence.SingleWriterService;
 import com.hivemq.persistence.clientqueue.ClientQueuePersistence;
@@ -68,6 +69,7 @@ public class ClientSessionPersistenceImpl extends AbstractPersistence implements
     private final @NotNull PendingWillMessages pendingWillMessages;
     private final @NotNull MqttServerDisconnector mqttServerDisconnector;
     private final @NotNull Chunker chunker;
+    private final int bucketCount;
 
     @Inject
     public ClientSessionPersistenceImpl(
@@ -90,6 +92,11 @@ public class ClientSessionPersistenceImpl extends AbstractPersistence implements
         this.chunker = chunker;
         subscriptionPersistence = sessionSubscriptionPersistence;
         singleWriter = singleWriterService.getClientSessionQueue();
+        final GroupCommitter groupCommitter = localPersistence.getGroupCommitter();
+        if (groupCommitter != null) {
+            singleWriter.setGroupCommitter(groupCommitter);
+        }
+        bucketCount = singleWriterService.getPersistenceBucketCount();
     }
 
     @Override
@@ -118,20 +125,23 @@ public class ClientSessionPersistenceImpl extends AbstractPersistence implements
 
         final long timestamp = System.currentTimeMillis();
         final SettableFuture<Void> resultFuture = SettableFuture.create();
-        singleWriter.submit(client, (SingleWriterService.Task<Void>) (bucketIndex) -> {
+        singleWriter.submit(client, (SingleWriterService.WriteTask<Void>) (bucketIndex) -> {
             final ClientSession disconnectSession = localPersistence.disconnect(client, timestamp, sendWill, bucketIndex, sessionExpiry);
-            if (sendWill) {
-                pendingWillMessages.sendOrEnqueueWillIfAvailable(client, disconnectSession);
-            }
+            // the disconnect may be part of a group commit that is aborted and executed again
+            localPersistence.afterCommit(bucketIndex, () -> {
+                if (sendWill) {
+                    pendingWillMessages.sendOrEnqueueWillIfAvailable(client, disconnectSession);
+                }
 
-            final ListenableFuture<Void> removeQos0Future = clientQueuePersistence.removeAllQos0Messages(client, false);
-            if (disconnectSession.getSessionExpiryIntervalSec() == SESSION_EXPIRE_ON_DISCONNECT) {
-                final ListenableFuture<Void> removeSubFuture = subscriptionPersistence.removeAll(client);
-                resultFuture.setFuture(Futures.transform(Futures.allAsList(removeQos0Future, removeSubFuture),
-                        voids -> null, MoreExecutors.directExecutor()));
-                return null;
-            }
-            resultFuture.setFuture(removeQos0Future);
+                final ListenableFuture<Void> removeQos0Future = clientQueuePersistence.removeAllQos0Messages(client, false);
+                if (disconnectSession.getSessionExpiryIntervalSec() == SESSION_EXPIRE_ON_DISCONNECT) {
+                    final ListenableFuture<Void> removeSubFuture = subscriptionPersistence.removeAll(client);
+                    resultFuture.setFuture(Futures.transform(Futures.allAsList(removeQos0Future, removeSubFuture),
+                            voids -> null, MoreExecutors.directExecutor()));
+                    return;
+                }
+                resultFuture.setFuture(removeQos0Future);
+            });
             return null;
         });
         return resultFuture;
@@ -157,7 +167,7 @@ public class ClientSessionPersistenceImpl extends AbstractPersistence implements
         final ClientSession clientSession = new ClientSession(true, clientSessionExpiryInterval, sessionWill, queueLimit);
 
         final ListenableFuture<ConnectResult> submitFuture =
-                singleWriter.submit(client, (bucketIndex) -> {
+                singleWriter.submit(client, (SingleWriterService.WriteTask<ConnectResult>) (bucketIndex) -> {
                     final Long previousTimestamp = localPersistence.getTimestamp(client, bucketIndex);
                     final ClientSession previousClientSession = localPersistence.getSession(client, bucketIndex, false);
                     localPersistence.put(client, clientSession, timestamp, bucketIndex);
@@ -299,7 +309,7 @@ public class ClientSessionPersistenceImpl extends AbstractPersistence implements
         checkNotNull(clientId, "Client id must not be null");
 
         final ListenableFuture<Boolean> setTTlFuture =
-                singleWriter.submit(clientId, (bucketIndex) -> {
+                singleWriter.submit(clientId, (SingleWriterService.WriteTask<Boolean>) (bucketIndex) -> {
 
                     final boolean clientSessionExists = localPersistence.getSession(clientId) != null;
 
@@ -362,6 +372,18 @@ public class ClientSessionPersistenceImpl extends AbstractPersistence implements
                 new ClientSessionCleanUpTask(localPersistence, this, pendingWillMessages));
     }
 
+    @Override
+    public @NotNull ListenableFuture<Void> expireSessions() {
+        final long now = System.currentTimeMillis();
+        final ImmutableList.Builder<ListenableFuture<Void>> futures = ImmutableList.builder();
+        for (int bucketIndex = 0; bucketIndex < bucketCount; bucketIndex++) {
+            if (localPersistence.getNextExpiry(bucketIndex) <= now) {
+                futures.add(cleanUp(bucketIndex));
+            }
+        }
+        return FutureUtils.voidFutureFromList(futures.build());
+    }
+
     @Override
     public @NotNull ListenableFuture<Void> closeDB() {
         return closeDB(localPersistence, singleWriter);
@@ -432,7 +454,7 @@ public class ClientSessionPersistenceImpl extends AbstractPersistence implements
     @Override
     public @NotNull ListenableFuture<Void> deleteWill(final @NotNull String clientId) {
         checkNotNull(clientId, "Client id must not be null");
-        return singleWriter.submit(clientId, (bucketIndex) -> {
+        return singleWriter.submit(clientId, (SingleWriterService.WriteTask<Void>) (bucketIndex) -> {
             localPersistence.deleteWill(clientId, bucketIndex);
             return null;
         });
@@ -36,6 +36,7 @@ import com.hivemq.mqtt.topic.SubscriptionFlag;
 import com.hivemq.mqtt.topic.TopicFilter;
 import com.hivemq.mqtt.topic.tree.LocalTopicTree;
 import com.hivemq.persistence.AbstractPersistence;
+import com.hivemq.persistence.GroupCommitter;
 import com.hivemq.persistence.ProducerQueues;
 import com.hivemq.persistence.SingleWriterService;
 import com.hivemq.persistence.clientsession.callback.SubscriptionResult;
@@ -89,6 +90,10 @@ public class ClientSessionSubscriptionPersistenceImpl extends AbstractPersistenc
         this.chunker = chunker;
         this.mqttServerDisconnector = mqttServerDisconnector;
         singleWriter = singleWriterService.getSubscriptionQueue();
+        final GroupCommitter groupCommitter = localPersistence.getGroupCommitter();
+        if (groupCommitter != null) {
+            singleWriter.setGroupCommitter(groupCommitter);
+        }
     }
 
     @NotNull
@@ -121,7 +126,7 @@ public class ClientSessionSubscriptionPersistenceImpl extends AbstractPersistenc
             if (sharedSubscription == null) {
                 //not a shared subscription
                 subscriberExisted = topicTree.addTopic(client, topic, SubscriptionFlag.getDefaultFlags(false, topic.isRetainAsPublished(), topic.isNoLocal()), null);
-                persistFuture = singleWriter.submit(client, (bucketIndex) -> {
+                persistFuture = singleWriter.submit(client, (SingleWriterService.WriteTask<Void>) (bucketIndex) -> {
                     localPersistence.addSubscription(client, topic, timestamp, bucketIndex);
                     return null;
                 });
@@ -143,9 +148,10 @@ public class ClientSessionSubscriptionPersistenceImpl extends AbstractPersistenc
 
                 final Subscription subscription = new Subscription(sharedTopic, SubscriptionFlag.getDefaultFlags(true, topic.isRetainAsPublished(), topic.isNoLocal()), sharedSubscription.getShareName());
 
-                persistFuture = singleWriter.submit(client, (bucketIndex) -> {
+                persistFuture = singleWriter.submit(client, (SingleWriterService.WriteTask<Void>) (bucketIndex) -> {
                     localPersistence.addSubscription(client, topic, timestamp, bucketIndex);
-                    invalidateSharedSubscriptionCacheAndPoll(client, ImmutableSet.of(subscription));
+                    localPersistence.afterCommit(bucketIndex,
+                            () -> invalidateSharedSubscriptionCacheAndPoll(client, ImmutableSet.of(subscription)));
                     return null;
                 });
             }
@@ -211,7 +217,7 @@ public class ClientSessionSubscriptionPersistenceImpl extends AbstractPersistenc
                 topicTree.removeSubscriber(client, sharedSubscription.getTopicFilter(), sharedSubscription.getShareName());
             }
 
-            final ListenableFuture<Void> persistFuture = singleWriter.submit(client, (bucketIndex) -> {
+            final ListenableFuture<Void> persistFuture = singleWriter.submit(client, (SingleWriterService.WriteTask<Void>) (bucketIndex) -> {
                 localPersistence.remove(client, topic, timestamp, bucketIndex);
                 return null;
             });
@@ -255,7 +261,7 @@ public class ClientSessionSubscriptionPersistenceImpl extends AbstractPersistenc
     @NotNull
     @Override
     public ListenableFuture<Void> removeAllLocally(@NotNull final String clientId) {
-        return singleWriter.submit(clientId, (bucketIndex) -> {
+        return singleWriter.submit(clientId, (SingleWriterService.WriteTask<Void>) (bucketIndex) -> {
             localPersistence.removeAll(clientId, System.currentTimeMillis(), bucketIndex);
             return null;
         });
@@ -310,7 +316,7 @@ public class ClientSessionSubscriptionPersistenceImpl extends AbstractPersistenc
             subscriptionResultBuilder.add(new SubscriptionResult(subscription.getTopic(), subscriberExisted, subscription.getSharedGroup()));
         }
 
-        final ListenableFuture<Void> persistFuture = singleWriter.submit(clientId, (bucketIndex) -> {
+        final ListenableFuture<Void> persistFuture = singleWriter.submit(clientId, (SingleWriterService.WriteTask<Void>) (bucketIndex) -> {
             localPersistence.addSubscriptions(clientId, topics, timestamp, bucketIndex);
             return null;
         });
@@ -387,7 +393,7 @@ public class ClientSessionSubscriptionPersistenceImpl extends AbstractPersistenc
             topicTree.removeSubscriber(clientId, topicFilter.getTopic(), topicFilter.getSharedName());
         }
 
-        final ListenableFuture<Void> persistFuture = singleWriter.submit(clientId, (bucketIndex) -> {
+        final ListenableFuture<Void> persistFuture = singleWriter.submit(clientId, (SingleWriterService.WriteTask<Void>) (bucketIndex) -> {
             localPersistence.removeSubscriptions(clientId, topics, timestamp, bucketIndex);
             return null;
         });
@@ -430,7 +436,7 @@ public class ClientSessionSubscriptionPersistenceImpl extends AbstractPersistenc
     @NotNull
     @Override
     public ListenableFuture<Void> cleanUp(final int bucketIndex) {
-        return singleWriter.submit(bucketIndex, (bucketIndex1) -> {
+        return singleWriter.submit(bucketIndex, (SingleWriterService.WriteTask<Void>) (bucketIndex1) -> {
             localPersistence.cleanUp(bucketIndex1);
             return null;
         });
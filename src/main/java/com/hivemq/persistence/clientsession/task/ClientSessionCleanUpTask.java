@@ -26,7 +26,7 @@ import com.hivemq.util.Checkpoints;
 
 import java.util.Set;
 
-public class ClientSessionCleanUpTask implements SingleWriterService.Task<Void> {
+public class ClientSessionCleanUpTask implements SingleWriterService.WriteTask<Void> {
 
     private final @NotNull ClientSessionLocalPersistence localPersistence;
     private final @NotNull ClientSessionPersistence clientSessionPersistence;
@@ -45,11 +45,13 @@ public class ClientSessionCleanUpTask implements SingleWriterService.Task<Void>
     @Override
     public @Nullable Void doTask(final int bucketIndex) {
         final Set<String> expiredSessions = localPersistence.cleanUp(bucketIndex);
-        for (final String expiredSession : expiredSessions) {
-            pendingWillMessages.sendWillIfPending(expiredSession);
-            clientSessionPersistence.cleanClientData(expiredSession);
-        }
-        Checkpoints.checkpoint("ClientSessionCleanUpFinished");
+        localPersistence.afterCommit(bucketIndex, () -> {
+            for (final String expiredSession : expiredSessions) {
+                pendingWillMessages.sendWillIfPending(expiredSession);
+                clientSessionPersistence.cleanClientData(expiredSession);
+            }
+            Checkpoints.checkpoint("ClientSessionCleanUpFinished");
+        });
         return null;
     }
 }
@@ -60,6 +60,8 @@ public class PersistenceModule extends SingletonModule<Class<PersistenceModule>>
 
         if ((persistenceConfigurationService.getMode() == PersistenceConfigurationService.PersistenceMode.IN_MEMORY) && InternalConfigurations.IN_MEMORY_SINGLE_WRITER.get()) {
             bind(SingleWriterService.class).to(InMemorySingleWriter.class);
+        } else if (InternalConfigurations.SINGLE_WRITER_THREAD_AFFINE.get()) {
+            bind(SingleWriterService.class).to(ThreadAffineSingleWriter.class);
         } else {
             bind(SingleWriterService.class).to(SingleWriterServiceImpl.class);
         }
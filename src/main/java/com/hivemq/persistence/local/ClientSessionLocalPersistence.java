@@ -143,6 +143,9 @@ public interface ClientSessionLocalPersistence extends LocalPersistence {
 
     /**
      * Trigger a cleanup for a specific persistence bucket.
+     * <p>
+     * Removes the expired client sessions of the bucket, at most {@link
+     * com.hivemq.configuration.service.InternalConfigurations#SESSION_EXPIRY_MAX_SESSIONS_PER_CLEANUP} per call.
      *
      * @param bucketIndex The index of the bucket in which the client sessions are stored.
      * @return A set of strings containing all client identifiers which were cleaned up.
@@ -150,6 +153,15 @@ public interface ClientSessionLocalPersistence extends LocalPersistence {
     @ExecuteInSingleWriter
     @NotNull Set<@NotNull String> cleanUp(int bucketIndex);
 
+    /**
+     * Can be called from any thread.
+     *
+     * @param bucketIndex The index of the bucket in which the client sessions are stored.
+     * @return The earliest point in time in milliseconds at which a client session of the bucket expires, or
+     *         {@link Long#MAX_VALUE} if no client session of the bucket can expire.
+     */
+    long getNextExpiry(int bucketIndex);
+
     /**
      * get all client identifiers of all stored disconnected clients form a specific persistence bucket.
      *
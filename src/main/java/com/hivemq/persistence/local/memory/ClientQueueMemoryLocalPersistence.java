@@ -15,6 +15,7 @@
  */
 package com.hivemq.persistence.local.memory;
 
+import com.codahale.metrics.Counter;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.MetricRegistry;
 import com.google.common.annotations.VisibleForTesting;
@@ -33,7 +34,10 @@ import com.hivemq.mqtt.message.QoS;
 import com.hivemq.mqtt.message.dropping.MessageDroppedService;
 import com.hivemq.mqtt.message.publish.PUBLISH;
 import com.hivemq.mqtt.message.pubrel.PUBREL;
+import com.hivemq.persistence.clientqueue.ClientQueueExpiryIndex;
 import com.hivemq.persistence.clientqueue.ClientQueueLocalPersistence;
+import com.hivemq.persistence.clientqueue.ClientQueuePersistenceImpl.Key;
+import com.hivemq.persistence.clientqueue.ClientQueuePublish;
 import com.hivemq.persistence.payload.PublishPayloadPersistence;
 import com.hivemq.util.ObjectMemoryEstimation;
 import com.hivemq.util.Strings;
@@ -62,12 +66,21 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
 
     private final @NotNull Map<String, Messages> @NotNull [] buckets;
     private final @NotNull Map<String, Messages> @NotNull [] sharedBuckets;
+    private final @NotNull ClientQueueExpiryIndex @NotNull [] expiryIndexes;
 
     private static class Messages {
-        final @NotNull LinkedList<MessageWithID> qos1Or2Messages = new LinkedList<>();
-        final @NotNull LinkedList<PublishWithRetained> qos0Messages = new LinkedList<>();
+        final @NotNull MessageRingBuffer<MessageWithID> qos1Or2Messages;
+        final @NotNull MessageRingBuffer<PublishWithRetained> qos0Messages = new MessageRingBuffer<>(false);
         int retainedQos1Or2Messages = 0;
         long qos0Memory = 0;
+        // the memory of the ring buffers without their messages, as last accounted by updateBufferMemory
+        int qos1Or2BufferMemory = 0;
+        int qos0BufferMemory = 0;
+
+        Messages(final boolean shared) {
+            // packet ids of shared queues are not unique, the messages are looked up by their unique id instead
+            qos1Or2Messages = new MessageRingBuffer<>(!shared);
+        }
     }
 
     private final @NotNull PublishPayloadPersistence payloadPersistence;
@@ -79,6 +92,7 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
 
     private final @NotNull AtomicLong qos0MessagesMemory;
     private final @NotNull AtomicLong totalMemorySize;
+    private final @NotNull Counter expiredMessagesCounter;
 
     @Inject
     ClientQueueMemoryLocalPersistence(
@@ -91,9 +105,11 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
         buckets = new HashMap[bucketCount];
         //noinspection unchecked
         sharedBuckets = new HashMap[bucketCount];
+        expiryIndexes = new ClientQueueExpiryIndex[bucketCount];
         for (int i = 0; i < bucketCount; i++) {
             buckets[i] = new HashMap<>();
             sharedBuckets[i] = new HashMap<>();
+            expiryIndexes[i] = new ClientQueueExpiryIndex();
         }
 
         this.payloadPersistence = payloadPersistence;
@@ -109,7 +125,7 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
         metricRegistry.register(
                 HiveMQMetrics.QUEUED_MESSAGES_MEMORY_PERSISTENCE_TOTAL_SIZE.name(),
                 (Gauge<Long>) totalMemorySize::get);
-
+        expiredMessagesCounter = metricRegistry.counter(HiveMQMetrics.QUEUED_MESSAGES_EXPIRED_COUNT.name());
     }
 
     private long getQos0MemoryLimit() {
@@ -150,6 +166,28 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
         add(queueId, shared, List.of(publish), max, strategy, retained, bucketIndex);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @ExecuteInSingleWriter
+    public void addToMany(
+            final @NotNull List<ClientQueuePublish> publishes,
+            final boolean shared,
+            final @NotNull QueuedMessagesStrategy strategy,
+            final boolean retained,
+            final int bucketIndex) {
+
+        checkNotNull(publishes, "Publishes must not be null");
+        checkNotNull(strategy, "Strategy must not be null");
+        ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
+
+        for (final ClientQueuePublish publish : publishes) {
+            add(publish.getQueueId(), shared, List.of(publish.getPublish()), publish.getQueueLimit(), strategy, retained,
+                    bucketIndex);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -170,12 +208,12 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
         ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
 
         final Map<String, Messages> bucket = shared ? sharedBuckets[bucketIndex] : buckets[bucketIndex];
-        final Messages messages = bucket.computeIfAbsent(queueId, s -> new Messages());
+        final Messages messages = bucket.computeIfAbsent(queueId, s -> new Messages(shared));
 
         for (final PUBLISH publish : publishes) {
             final PublishWithRetained publishWithRetained = new PublishWithRetained(publish, retained);
             if (publish.getQoS() == QoS.AT_MOST_ONCE) {
-                addQos0Publish(queueId, shared, messages, publishWithRetained);
+                addQos0Publish(queueId, shared, messages, publishWithRetained, bucketIndex);
             } else {
                 final int qos1And2QueueSize = messages.qos1Or2Messages.size() - messages.retainedQos1Or2Messages;
                 if ((qos1And2QueueSize >= max) && !retained) {
@@ -209,17 +247,20 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
                 }
 
                 publishWithRetained.setPacketIdentifier(NO_PACKET_ID);
-                messages.qos1Or2Messages.add(publishWithRetained);
+                messages.qos1Or2Messages.addLast(publishWithRetained);
                 increaseMessagesMemory(publishWithRetained.getEstimatedSize());
+                scheduleExpiry(queueId, shared, ClientQueueExpiryIndex.deadline(publishWithRetained), bucketIndex);
             }
         }
+        updateBufferMemory(messages);
     }
 
     private void addQos0Publish(
             final @NotNull String queueId,
             final boolean shared,
             final @NotNull Messages messages,
-            final @NotNull PublishWithRetained publishWithRetained) {
+            final @NotNull PublishWithRetained publishWithRetained,
+            final int bucketIndex) {
 
         final long currentQos0MessagesMemory = qos0MessagesMemory.get();
         if (currentQos0MessagesMemory >= qos0MemoryLimit) {
@@ -235,17 +276,21 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
         }
 
         if (!shared) {
-            if (messages.qos0Memory >= qos0ClientMemoryLimit) {
-                messageDroppedService.qos0MemoryExceeded(queueId, publishWithRetained.getTopic(), 0, messages.qos0Memory, qos0ClientMemoryLimit);
+            final long clientQos0Memory = messages.qos0Memory + messages.qos0BufferMemory;
+            if (clientQos0Memory >= qos0ClientMemoryLimit) {
+                messageDroppedService.qos0MemoryExceeded(queueId, publishWithRetained.getTopic(), 0, clientQos0Memory, qos0ClientMemoryLimit);
                 payloadPersistence.decrementReferenceCounter(publishWithRetained.getPublishId());
                 return;
             }
         }
 
-        messages.qos0Messages.add(publishWithRetained);
+        messages.qos0Messages.addLast(publishWithRetained);
         increaseQos0MessagesMemory(publishWithRetained.getEstimatedSize());
         increaseClientQos0MessagesMemory(messages, publishWithRetained.getEstimatedSize());
         increaseMessagesMemory(publishWithRetained.getEstimatedSize());
+        // the qos 0 limits of the next message of the batch include the grown buffer
+        updateBufferMemory(messages);
+        scheduleExpiry(queueId, shared, ClientQueueExpiryIndex.deadline(publishWithRetained), bucketIndex);
     }
 
     /**
@@ -271,8 +316,10 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
         }
 
         // In case there are only qos 0 messages
-        if (messages.qos1Or2Messages.size() == 0) {
-            return getQos0Publishes(messages, packetIds, bytesLimit);
+        if (messages.qos1Or2Messages.isEmpty()) {
+            final ImmutableList<PUBLISH> qos0Publishes = getQos0Publishes(messages, packetIds, bytesLimit);
+            updateBufferMemory(messages);
+            return qos0Publishes;
         }
 
         final int countLimit = packetIds.length();
@@ -281,9 +328,9 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
         int bytes = 0;
         final ImmutableList.Builder<PUBLISH> publishes = ImmutableList.builder();
 
-        final Iterator<MessageWithID> iterator = messages.qos1Or2Messages.iterator();
-        while (iterator.hasNext()) {
-            final MessageWithID messageWithID = iterator.next();
+        final MessageRingBuffer<MessageWithID> qos1Or2Messages = messages.qos1Or2Messages;
+        for (long sequence = qos1Or2Messages.firstSequence(); sequence < qos1Or2Messages.endSequence(); sequence++) {
+            final MessageWithID messageWithID = qos1Or2Messages.get(sequence);
             if (!(messageWithID instanceof PublishWithRetained)) {
                 continue;
             }
@@ -294,7 +341,7 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
             }
 
             if (publishWithRetained.hasExpired()) {
-                iterator.remove();
+                qos1Or2Messages.remove(sequence);
                 payloadPersistence.decrementReferenceCounter(publishWithRetained.getPublishId());
                 if (publishWithRetained.retained) {
                     messages.retainedQos1Or2Messages--;
@@ -305,6 +352,7 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
 
                 final int packetId = packetIds.get(packetIdIndex);
                 publishWithRetained.setPacketIdentifier(packetId);
+                qos1Or2Messages.packetIdChanged(sequence, NO_PACKET_ID);
                 publishes.add(publishWithRetained);
                 packetIdIndex++;
                 messageCount++;
@@ -325,6 +373,7 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
                 break;
             }
         }
+        updateBufferMemory(messages);
         return publishes.build();
     }
 
@@ -350,7 +399,7 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
     }
 
     private @Nullable PUBLISH pollQos0Message(final @NotNull Messages messages) {
-        final PublishWithRetained publishWithRetained = messages.qos0Messages.poll();
+        final PublishWithRetained publishWithRetained = messages.qos0Messages.pollFirst();
         if (publishWithRetained == null) {
             return null;
         }
@@ -384,7 +433,12 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
         int bytes = 0;
         final ImmutableList.Builder<MessageWithID> publishes = ImmutableList.builder();
 
-        for (final MessageWithID messageWithID : messages.qos1Or2Messages) {
+        final MessageRingBuffer<MessageWithID> qos1Or2Messages = messages.qos1Or2Messages;
+        for (long sequence = qos1Or2Messages.firstSequence(); sequence < qos1Or2Messages.endSequence(); sequence++) {
+            final MessageWithID messageWithID = qos1Or2Messages.get(sequence);
+            if (messageWithID == null) {
+                continue;
+            }
             // Stop at first non inflight message
             // This works because in-flight messages are always first in the queue
             if (messageWithID.getPacketIdentifier() == NO_PACKET_ID) {
@@ -424,45 +478,40 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
             return null;
         }
 
-        boolean packetIdFound = false;
         String replacedId = null;
         boolean retained = false;
 
-        int messageIndexInQueue = -1;
-
-        for (final MessageWithID messageWithID : messages.qos1Or2Messages) {
-            messageIndexInQueue++;
-            final int packetId = messageWithID.getPacketIdentifier();
-            if (packetId == NO_PACKET_ID) {
-                break;
-            }
-            if (packetId == pubrel.getPacketIdentifier()) {
-                packetIdFound = true;
-                if (messageWithID instanceof PublishWithRetained) {
-                    final PublishWithRetained publish = (PublishWithRetained) messageWithID;
-                    retained = publish.retained;
-                    payloadPersistence.decrementReferenceCounter(publish.getPublishId());
-                    increaseMessagesMemory(-publish.getEstimatedSize());
-                    pubrel.setMessageExpiryInterval(publish.getMessageExpiryInterval());
-                    pubrel.setPublishTimestamp(publish.getTimestamp());
-                    replacedId = publish.getUniqueId();
-                } else if (messageWithID instanceof PubrelWithRetained) {
-                    final PubrelWithRetained pubrelWithRetained = (PubrelWithRetained) messageWithID;
-                    pubrel.setMessageExpiryInterval(pubrelWithRetained.getMessageExpiryInterval());
-                    pubrel.setPublishTimestamp(pubrelWithRetained.getPublishTimestamp());
-                    retained = pubrelWithRetained.retained;
-                }
-                break;
+        final long sequence = messages.qos1Or2Messages.sequenceOf(pubrel.getPacketIdentifier());
+        final boolean packetIdFound = sequence != MessageRingBuffer.NOT_FOUND;
+        if (packetIdFound) {
+            final MessageWithID messageWithID = messages.qos1Or2Messages.get(sequence);
+            if (messageWithID instanceof PublishWithRetained) {
+                final PublishWithRetained publish = (PublishWithRetained) messageWithID;
+                retained = publish.retained;
+                payloadPersistence.decrementReferenceCounter(publish.getPublishId());
+                increaseMessagesMemory(-publish.getEstimatedSize());
+                pubrel.setMessageExpiryInterval(publish.getMessageExpiryInterval());
+                pubrel.setPublishTimestamp(publish.getTimestamp());
+                replacedId = publish.getUniqueId();
+            } else if (messageWithID instanceof PubrelWithRetained) {
+                final PubrelWithRetained pubrelWithRetained = (PubrelWithRetained) messageWithID;
+                pubrel.setMessageExpiryInterval(pubrelWithRetained.getMessageExpiryInterval());
+                pubrel.setPublishTimestamp(pubrelWithRetained.getPublishTimestamp());
+                retained = pubrelWithRetained.retained;
             }
         }
         final PubrelWithRetained pubrelWithRetained = new PubrelWithRetained(pubrel, retained);
         if (packetIdFound) {
-            messages.qos1Or2Messages.set(messageIndexInQueue, pubrelWithRetained);
+            messages.qos1Or2Messages.set(sequence, pubrelWithRetained);
         } else {
             // Ensure unknown PUBRELs are always first in queue
             messages.qos1Or2Messages.addFirst(pubrelWithRetained);
         }
         increaseMessagesMemory(pubrelWithRetained.getEstimatedSize());
+        if (InternalConfigurations.EXPIRE_INFLIGHT_PUBRELS_ENABLED) {
+            scheduleExpiry(queueId, false, ClientQueueExpiryIndex.deadline(pubrelWithRetained), bucketIndex);
+        }
+        updateBufferMemory(messages);
         return replacedId;
     }
 
@@ -492,28 +541,27 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
             return null;
         }
 
-        final Iterator<MessageWithID> iterator = messages.qos1Or2Messages.iterator();
-        while (iterator.hasNext()) {
-            final MessageWithID messageWithID = iterator.next();
-            if (messageWithID.getPacketIdentifier() == packetId) {
-                String removedId = null;
-                if (messageWithID instanceof PublishWithRetained) {
-                    final PublishWithRetained publish = (PublishWithRetained) messageWithID;
-                    if (uniqueId != null && !uniqueId.equals(publish.getUniqueId())) {
-                        break;
-                    }
-                    payloadPersistence.decrementReferenceCounter(publish.getPublishId());
-                    removedId = publish.getUniqueId();
-                }
-                if (isRetained(messageWithID)) {
-                    messages.retainedQos1Or2Messages--;
-                }
-                increaseMessagesMemory(-getMessageSize(messageWithID));
-                iterator.remove();
-                return removedId;
+        final long sequence = messages.qos1Or2Messages.sequenceOf(packetId);
+        final MessageWithID messageWithID = messages.qos1Or2Messages.get(sequence);
+        if (messageWithID == null) {
+            return null;
+        }
+        String removedId = null;
+        if (messageWithID instanceof PublishWithRetained) {
+            final PublishWithRetained publish = (PublishWithRetained) messageWithID;
+            if (uniqueId != null && !uniqueId.equals(publish.getUniqueId())) {
+                return null;
             }
+            payloadPersistence.decrementReferenceCounter(publish.getPublishId());
+            removedId = publish.getUniqueId();
+        }
+        if (isRetained(messageWithID)) {
+            messages.retainedQos1Or2Messages--;
         }
-        return null;
+        increaseMessagesMemory(-getMessageSize(messageWithID));
+        messages.qos1Or2Messages.remove(sequence);
+        updateBufferMemory(messages);
+        return removedId;
     }
 
 
@@ -559,15 +607,28 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
         if (messages == null) {
             return;
         }
+        expiryIndexes[bucketIndex].remove(new Key(queueId, shared));
+        totalMemorySize.addAndGet(-(messages.qos1Or2BufferMemory + messages.qos0BufferMemory));
+        qos0MessagesMemory.addAndGet(-messages.qos0BufferMemory);
 
-        for (final MessageWithID messageWithID : messages.qos1Or2Messages) {
+        final MessageRingBuffer<MessageWithID> qos1Or2Messages = messages.qos1Or2Messages;
+        for (long sequence = qos1Or2Messages.firstSequence(); sequence < qos1Or2Messages.endSequence(); sequence++) {
+            final MessageWithID messageWithID = qos1Or2Messages.get(sequence);
+            if (messageWithID == null) {
+                continue;
+            }
             if (messageWithID instanceof PublishWithRetained) {
                 payloadPersistence.decrementReferenceCounter(((PublishWithRetained) messageWithID).getPublishId());
             }
             increaseMessagesMemory(-getMessageSize(messageWithID));
         }
 
-        for (final PublishWithRetained qos0Message : messages.qos0Messages) {
+        final MessageRingBuffer<PublishWithRetained> qos0Messages = messages.qos0Messages;
+        for (long sequence = qos0Messages.firstSequence(); sequence < qos0Messages.endSequence(); sequence++) {
+            final PublishWithRetained qos0Message = qos0Messages.get(sequence);
+            if (qos0Message == null) {
+                continue;
+            }
             payloadPersistence.decrementReferenceCounter(qos0Message.getPublishId());
             final int estimatedSize = qos0Message.getEstimatedSize();
             increaseQos0MessagesMemory(-estimatedSize);
@@ -591,7 +652,12 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
             return;
         }
 
-        for (final PublishWithRetained publishWithRetained : messages.qos0Messages) {
+        final MessageRingBuffer<PublishWithRetained> qos0Messages = messages.qos0Messages;
+        for (long sequence = qos0Messages.firstSequence(); sequence < qos0Messages.endSequence(); sequence++) {
+            final PublishWithRetained publishWithRetained = qos0Messages.get(sequence);
+            if (publishWithRetained == null) {
+                continue;
+            }
             payloadPersistence.decrementReferenceCounter(publishWithRetained.getPublishId());
             increaseQos0MessagesMemory(-publishWithRetained.getEstimatedSize());
             // increaseClientQos0MessagesMemory not necessary as messages.qos0Memory = 0 below
@@ -599,6 +665,7 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
         }
         messages.qos0Messages.clear();
         messages.qos0Memory = 0;
+        updateBufferMemory(messages);
     }
 
     /**
@@ -612,8 +679,14 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
         final Map<String, Messages> bucket = buckets[bucketIndex];
         final Map<String, Messages> sharedBucket = sharedBuckets[bucketIndex];
 
-        bucket.forEach((queueId, messages) -> cleanExpiredMessages(messages));
-        sharedBucket.forEach((queueId, messages) -> cleanExpiredMessages(messages));
+        final ClientQueueExpiryIndex expiryIndex = expiryIndexes[bucketIndex];
+        for (final Key key : expiryIndex.pollExpired(System.currentTimeMillis())) {
+            final Messages messages = key.isShared() ? sharedBucket.get(key.getQueueId()) : bucket.get(key.getQueueId());
+            if (messages != null) {
+                expiryIndex.schedule(key, cleanExpiredMessages(messages));
+                updateBufferMemory(messages);
+            }
+        }
 
         return ImmutableSet.copyOf(sharedBucket.keySet());
     }
@@ -636,9 +709,9 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
             return;
         }
 
-        final Iterator<MessageWithID> iterator = messages.qos1Or2Messages.iterator();
-        while (iterator.hasNext()) {
-            final MessageWithID messageWithID = iterator.next();
+        final MessageRingBuffer<MessageWithID> qos1Or2Messages = messages.qos1Or2Messages;
+        for (long sequence = qos1Or2Messages.firstSequence(); sequence < qos1Or2Messages.endSequence(); sequence++) {
+            final MessageWithID messageWithID = qos1Or2Messages.get(sequence);
             if (messageWithID instanceof PublishWithRetained) {
                 final PublishWithRetained publish = (PublishWithRetained) messageWithID;
                 if (!uniqueId.equals(publish.getUniqueId())) {
@@ -649,9 +722,10 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
                     messages.retainedQos1Or2Messages--;
                 }
                 increaseMessagesMemory(-publish.getEstimatedSize());
-                iterator.remove();
+                qos1Or2Messages.remove(sequence);
             }
         }
+        updateBufferMemory(messages);
     }
 
     /**
@@ -672,13 +746,18 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
             return;
         }
 
-        for (final MessageWithID messageWithID : messages.qos1Or2Messages) {
+        final MessageRingBuffer<MessageWithID> qos1Or2Messages = messages.qos1Or2Messages;
+        for (long sequence = qos1Or2Messages.firstSequence(); sequence < qos1Or2Messages.endSequence(); sequence++) {
+            final MessageWithID messageWithID = qos1Or2Messages.get(sequence);
             if (messageWithID instanceof PublishWithRetained) {
                 final PublishWithRetained publish = (PublishWithRetained) messageWithID;
                 if (!uniqueId.equals(publish.getUniqueId())) {
                     continue;
                 }
+                final int packetId = publish.getPacketIdentifier();
                 publish.setPacketIdentifier(NO_PACKET_ID);
+                qos1Or2Messages.packetIdChanged(sequence, packetId);
+                scheduleExpiry(sharedSubscription, true, ClientQueueExpiryIndex.deadline(publish), bucketIndex);
                 break;
             }
         }
@@ -690,10 +769,19 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
         ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
         buckets[bucketIndex].clear();
         sharedBuckets[bucketIndex].clear();
+        expiryIndexes[bucketIndex].clear();
         totalMemorySize.set(0L);
         qos0MessagesMemory.set(0L);
     }
 
+    private void scheduleExpiry(
+            final @NotNull String queueId, final boolean shared, final long deadline, final int bucketIndex) {
+
+        if (deadline != ClientQueueExpiryIndex.NO_DEADLINE) {
+            expiryIndexes[bucketIndex].schedule(new Key(queueId, shared), deadline);
+        }
+    }
+
     private int getMessageSize(final @NotNull MessageWithID messageWithID) {
         if (messageWithID instanceof PublishWithRetained) {
             return ((PublishWithRetained) messageWithID).getEstimatedSize();
@@ -725,41 +813,48 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
     }
 
     /**
+     * The reference to a message is part of the memory of the ring buffer, see {@link #updateBufferMemory(Messages)}.
+     *
      * @param size the amount of bytes the currently used qos 0 memory will be increased by. May be negative.
      */
     private void increaseQos0MessagesMemory(final int size) {
-        if (size < 0) {
-            qos0MessagesMemory.addAndGet(size - ObjectMemoryEstimation.linkedListNodeOverhead());
-        } else {
-            qos0MessagesMemory.addAndGet(size + ObjectMemoryEstimation.linkedListNodeOverhead());
-        }
+        qos0MessagesMemory.addAndGet(size);
     }
 
     /**
+     * The reference to a message is part of the memory of the ring buffer, see {@link #updateBufferMemory(Messages)}.
+     *
      * @param size the amount of bytes the currently used memory will be increased by. May be negative.
      */
     private void increaseMessagesMemory(final int size) {
-        if (size < 0) {
-            totalMemorySize.addAndGet(size - ObjectMemoryEstimation.linkedListNodeOverhead());
-        } else {
-            totalMemorySize.addAndGet(size + ObjectMemoryEstimation.linkedListNodeOverhead());
-        }
+        totalMemorySize.addAndGet(size);
     }
 
     /**
      * @param size the amount of bytes the currently used qos 0 memory will be increased by. May be negative.
      */
     private void increaseClientQos0MessagesMemory(final @NotNull Messages messages, final int size) {
-        if (size < 0) {
-            messages.qos0Memory += size - ObjectMemoryEstimation.linkedListNodeOverhead();
-        } else {
-            messages.qos0Memory += size + ObjectMemoryEstimation.linkedListNodeOverhead();
-        }
+        messages.qos0Memory += size;
         if (messages.qos0Memory < 0) {
             messages.qos0Memory = 0;
         }
     }
 
+    /**
+     * Accounts the memory that the ring buffers of the queue use besides their messages, the slots of their arrays
+     * including the empty ones and the packet identifier index, as it changes whenever the buffers grow, shrink or
+     * index a message. Must be called after every change of the buffers.
+     */
+    private void updateBufferMemory(final @NotNull Messages messages) {
+        final int qos1Or2BufferMemory = messages.qos1Or2Messages.getEstimatedSizeWithoutElements();
+        final int qos0BufferMemory = messages.qos0Messages.getEstimatedSizeWithoutElements();
+        totalMemorySize.addAndGet(qos1Or2BufferMemory - messages.qos1Or2BufferMemory +
+                qos0BufferMemory - messages.qos0BufferMemory);
+        qos0MessagesMemory.addAndGet(qos0BufferMemory - messages.qos0BufferMemory);
+        messages.qos1Or2BufferMemory = qos1Or2BufferMemory;
+        messages.qos0BufferMemory = qos0BufferMemory;
+    }
+
     /**
      * @return true if a message was discarded, else false
      */
@@ -769,9 +864,9 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
             final @NotNull Messages messages,
             final boolean retainedOnly) {
 
-        final Iterator<MessageWithID> iterator = messages.qos1Or2Messages.iterator();
-        while (iterator.hasNext()) {
-            final MessageWithID messageWithID = iterator.next();
+        final MessageRingBuffer<MessageWithID> qos1Or2Messages = messages.qos1Or2Messages;
+        for (long sequence = qos1Or2Messages.firstSequence(); sequence < qos1Or2Messages.endSequence(); sequence++) {
+            final MessageWithID messageWithID = qos1Or2Messages.get(sequence);
             if (!(messageWithID instanceof PublishWithRetained)) {
                 continue;
             }
@@ -786,7 +881,7 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
                 continue;
             }
             logAndDecrementPayloadReference(publish, shared, queueId);
-            iterator.remove();
+            qos1Or2Messages.remove(sequence);
             return true;
         }
         return false;
@@ -800,23 +895,33 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
         payloadPersistence.decrementReferenceCounter(publish.getPublishId());
     }
 
-    private void cleanExpiredMessages(final @NotNull Messages messages) {
+    /**
+     * @return the earliest expiry deadline of the remaining messages.
+     */
+    private long cleanExpiredMessages(final @NotNull Messages messages) {
+        long nextDeadline = ClientQueueExpiryIndex.NO_DEADLINE;
 
-        final Iterator<PublishWithRetained> iterator = messages.qos0Messages.iterator();
-        while (iterator.hasNext()) {
-            final PublishWithRetained publishWithRetained = iterator.next();
+        final MessageRingBuffer<PublishWithRetained> qos0Messages = messages.qos0Messages;
+        for (long sequence = qos0Messages.firstSequence(); sequence < qos0Messages.endSequence(); sequence++) {
+            final PublishWithRetained publishWithRetained = qos0Messages.get(sequence);
+            if (publishWithRetained == null) {
+                continue;
+            }
             if (publishWithRetained.hasExpired()) {
                 increaseQos0MessagesMemory(-publishWithRetained.getEstimatedSize());
                 increaseClientQos0MessagesMemory(messages, -publishWithRetained.getEstimatedSize());
                 increaseMessagesMemory(-publishWithRetained.getEstimatedSize());
                 payloadPersistence.decrementReferenceCounter(publishWithRetained.getPublishId());
-                iterator.remove();
+                qos0Messages.remove(sequence);
+                expiredMessagesCounter.inc();
+            } else {
+                nextDeadline = Math.min(nextDeadline, ClientQueueExpiryIndex.deadline(publishWithRetained));
             }
         }
 
-        final Iterator<MessageWithID> qos12iterator = messages.qos1Or2Messages.iterator();
-        while (qos12iterator.hasNext()) {
-            final MessageWithID messageWithID = qos12iterator.next();
+        final MessageRingBuffer<MessageWithID> qos1Or2Messages = messages.qos1Or2Messages;
+        for (long sequence = qos1Or2Messages.firstSequence(); sequence < qos1Or2Messages.endSequence(); sequence++) {
+            final MessageWithID messageWithID = qos1Or2Messages.get(sequence);
             if (messageWithID instanceof PubrelWithRetained) {
                 final PubrelWithRetained pubrel = (PubrelWithRetained) messageWithID;
                 if (!InternalConfigurations.EXPIRE_INFLIGHT_PUBRELS_ENABLED) {
@@ -826,29 +931,38 @@ public class ClientQueueMemoryLocalPersistence implements ClientQueueLocalPersis
                     continue;
                 }
                 if (!pubrel.hasExpired()) {
+                    nextDeadline = Math.min(nextDeadline, ClientQueueExpiryIndex.deadline(pubrel));
                     continue;
                 }
                 if (pubrel.retained) {
                     messages.retainedQos1Or2Messages--;
                 }
                 increaseMessagesMemory(-pubrel.getEstimatedSize());
-                qos12iterator.remove();
+                qos1Or2Messages.remove(sequence);
+                expiredMessagesCounter.inc();
 
             } else if (messageWithID instanceof PublishWithRetained) {
                 final PublishWithRetained publish = (PublishWithRetained) messageWithID;
                 final boolean expireInflight = InternalConfigurations.EXPIRE_INFLIGHT_MESSAGES_ENABLED;
                 final boolean isInflight = publish.getQoS() == QoS.EXACTLY_ONCE && publish.getPacketIdentifier() > 0;
-                final boolean drop = publish.hasExpired() && (!isInflight || expireInflight);
+                final boolean expired = publish.hasExpired();
+                final boolean drop = expired && (!isInflight || expireInflight);
                 if (drop) {
                     payloadPersistence.decrementReferenceCounter(publish.getPublishId());
                     if (publish.retained) {
                         messages.retainedQos1Or2Messages--;
                     }
                     increaseMessagesMemory(-publish.getEstimatedSize());
-                    qos12iterator.remove();
+                    qos1Or2Messages.remove(sequence);
+                    expiredMessagesCounter.inc();
+                } else if (!expired) {
+                    // expired in-flight messages are kept until they are acknowledged or their in-flight marker is
+                    // removed, which reschedules them
+                    nextDeadline = Math.min(nextDeadline, ClientQueueExpiryIndex.deadline(publish));
                 }
             }
         }
+        return nextDeadline;
     }
 
     @VisibleForTesting
@@ -17,6 +17,7 @@ package com.hivemq.persistence.local.memory;
 
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.hivemq.annotations.ExecuteInSingleWriter;
 import com.hivemq.bootstrap.ioc.lazysingleton.LazySingleton;
@@ -30,6 +31,7 @@ import com.hivemq.metrics.MetricsHolder;
 import com.hivemq.persistence.NoSessionException;
 import com.hivemq.persistence.PersistenceEntry;
 import com.hivemq.persistence.clientsession.ClientSession;
+import com.hivemq.persistence.clientsession.ClientSessionExpiryIndex;
 import com.hivemq.persistence.clientsession.ClientSessionWill;
 import com.hivemq.persistence.clientsession.PendingWillMessages;
 import com.hivemq.persistence.exception.InvalidSessionExpiryIntervalException;
@@ -43,7 +45,6 @@ import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -68,6 +69,7 @@ public class ClientSessionMemoryLocalPersistence implements ClientSessionLocalPe
     private final @NotNull MetricsHolder metricsHolder;
     private final @NotNull EventLog eventLog;
     private final @NotNull Map<String, PersistenceEntry<ClientSession>> @NotNull [] buckets;
+    private final @NotNull ClientSessionExpiryIndex expiryIndex;
     private final @NotNull AtomicInteger sessionsCount = new AtomicInteger(0);
     private final @NotNull AtomicLong currentMemorySize = new AtomicLong();
     private final int bucketCount;
@@ -90,6 +92,7 @@ public class ClientSessionMemoryLocalPersistence implements ClientSessionLocalPe
         for (int i = 0; i < bucketCount; i++) {
             buckets[i] = new HashMap<>();
         }
+        expiryIndex = new ClientSessionExpiryIndex(bucketCount);
 
         metricRegistry.register(HiveMQMetrics.CLIENT_SESSIONS_MEMORY_PERSISTENCE_TOTAL_SIZE.name(),
                 (Gauge<Long>) currentMemorySize::get);
@@ -220,6 +223,7 @@ public class ClientSessionMemoryLocalPersistence implements ClientSessionLocalPe
 
             return newEntry;
         });
+        expiryIndex.put(bucketIndex, clientId, usedSession, timestamp);
     }
 
     @Override
@@ -269,7 +273,7 @@ public class ClientSessionMemoryLocalPersistence implements ClientSessionLocalPe
             currentMemorySize.addAndGet(newEntry.getEstimatedSize());
             return newEntry;
         }).getObject().deepCopy();
-
+        expiryIndex.put(bucketIndex, clientId, storedSession, timestamp);
 
         loadWillPayload(storedSession);
         return storedSession;
@@ -297,6 +301,7 @@ public class ClientSessionMemoryLocalPersistence implements ClientSessionLocalPe
             removeWillReference(clientSession);
             currentMemorySize.addAndGet(-(remove.getEstimatedSize() + ObjectMemoryEstimation.stringSize(clientId)));
         }
+        expiryIndex.remove(bucketIndex, clientId);
     }
 
     @Override
@@ -307,13 +312,16 @@ public class ClientSessionMemoryLocalPersistence implements ClientSessionLocalPe
         final Map<String, PersistenceEntry<ClientSession>> bucket = getBucket(bucketIndex);
 
         final long currentTimeMillis = System.currentTimeMillis();
-        final Iterator<Map.Entry<String, PersistenceEntry<ClientSession>>> iterator = bucket.entrySet().iterator();
+        final ImmutableList<String> dueClients = expiryIndex.pollExpired(bucketIndex, currentTimeMillis,
+                InternalConfigurations.SESSION_EXPIRY_MAX_SESSIONS_PER_CLEANUP.get());
 
         final ImmutableSet.Builder<String> expiredClientIds = ImmutableSet.builder();
 
-        while (iterator.hasNext()) {
-            final Map.Entry<String, PersistenceEntry<ClientSession>> entry = iterator.next();
-            final PersistenceEntry<ClientSession> storedEntry = entry.getValue();
+        for (final String clientId : dueClients) {
+            final PersistenceEntry<ClientSession> storedEntry = bucket.get(clientId);
+            if (storedEntry == null) {
+                continue;
+            }
 
             final long timestamp = storedEntry.getTimestamp();
             final ClientSession clientSession = storedEntry.getObject();
@@ -325,15 +333,23 @@ public class ClientSessionMemoryLocalPersistence implements ClientSessionLocalPe
                 if (sessionExpiryInterval > SESSION_EXPIRE_ON_DISCONNECT) {
                     sessionsCount.decrementAndGet();
                 }
-                eventLog.clientSessionExpired(timestamp + sessionExpiryInterval * 1000, entry.getKey());
-                expiredClientIds.add(entry.getKey());
-                currentMemorySize.addAndGet(-(storedEntry.getEstimatedSize() + ObjectMemoryEstimation.stringSize(entry.getKey())));
-                iterator.remove();
+                eventLog.clientSessionExpired(timestamp + sessionExpiryInterval * 1000, clientId);
+                expiredClientIds.add(clientId);
+                currentMemorySize.addAndGet(-(storedEntry.getEstimatedSize() + ObjectMemoryEstimation.stringSize(clientId)));
+                bucket.remove(clientId);
+            } else {
+                // the index is outdated, which must not happen if it is updated on every change of a session
+                expiryIndex.put(bucketIndex, clientId, clientSession, timestamp);
             }
         }
         return expiredClientIds.build();
     }
 
+    @Override
+    public long getNextExpiry(final int bucketIndex) {
+        return expiryIndex.getNextDeadline(bucketIndex);
+    }
+
     @Override
     public @NotNull Set<String> getDisconnectedClients(final int bucketIndex) {
 
@@ -368,7 +384,7 @@ public class ClientSessionMemoryLocalPersistence implements ClientSessionLocalPe
 
         final Map<String, PersistenceEntry<ClientSession>> bucket = getBucket(bucketIndex);
 
-        bucket.compute(clientId, (ignored, storedSession) -> {
+        final PersistenceEntry<ClientSession> updatedEntry = bucket.compute(clientId, (ignored, storedSession) -> {
 
 
             if (storedSession == null) {
@@ -386,6 +402,7 @@ public class ClientSessionMemoryLocalPersistence implements ClientSessionLocalPe
 
             return new PersistenceEntry<>(clientSession, storedSession.getTimestamp());
         });
+        expiryIndex.put(bucketIndex, clientId, updatedEntry.getObject(), updatedEntry.getTimestamp());
     }
 
     @Override
@@ -470,6 +487,7 @@ public class ClientSessionMemoryLocalPersistence implements ClientSessionLocalPe
     @ExecuteInSingleWriter
     public void closeDB(final int bucketIndex) {
         getBucket(bucketIndex).clear();
+        expiryIndex.clear(bucketIndex);
         //happens for every bucket, but its faster than calculating all sizes
         //and decrementing the memory and count every time,
         sessionsCount.set(0);
@@ -0,0 +1,327 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.local.memory;
+
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.mqtt.message.MessageWithID;
+import com.hivemq.util.ObjectMemoryEstimation;
+import org.eclipse.collections.impl.map.mutable.primitive.IntLongHashMap;
+
+/**
+ * A growable array ring buffer for the messages of a client queue.
+ * <p>
+ * Every element is addressed by a sequence number, which stays valid until the element is removed. Sequence numbers
+ * increase from the first to the last element, so the queue is iterated by iterating the sequence numbers from
+ * {@link #firstSequence()} (inclusive) to {@link #endSequence()} (exclusive) and skipping removed elements, for which
+ * {@link #get(long)} returns null. Elements may be removed while iterating.
+ * <p>
+ * Removing an element in the middle of the queue leaves an empty slot, empty slots at the start and the end of the
+ * queue are trimmed immediately. The remaining empty slots are compacted when the buffer is full, which renumbers the
+ * elements. Elements must therefore not be added while iterating.
+ * <p>
+ * The array is only allocated for the first element, it is halved when at most a quarter of it is in use and released
+ * when the buffer is drained or cleared, so idle queues do not keep the capacity of their largest backlog.
+ * <p>
+ * Optionally the buffer keeps an index of packet identifier to sequence number for all elements that have a packet
+ * identifier. The index is created for the first element with a packet identifier and released together with the
+ * array. Changes of the packet identifier of an element must be announced via {@link #packetIdChanged(long, int)}.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @param <E> the type of the elements
+ */
+class MessageRingBuffer<E extends MessageWithID> {
+
+    static final long NOT_FOUND = Long.MIN_VALUE;
+
+    private static final int INITIAL_CAPACITY = 8;
+    private static final int NO_PACKET_ID = 0;
+
+    private static final @Nullable Object @NotNull [] EMPTY = new Object[0];
+
+    private final boolean indexPacketIds;
+    private @Nullable Object @NotNull [] elements = EMPTY;
+    private @Nullable IntLongHashMap packetIdIndex;
+    private long firstSequence = 0;
+    private long endSequence = 0;
+    private int size = 0;
+
+    MessageRingBuffer(final boolean indexPacketIds) {
+        this.indexPacketIds = indexPacketIds;
+    }
+
+    long addLast(final @NotNull E element) {
+        ensureCapacity();
+        final long sequence = endSequence++;
+        elements[slot(sequence)] = element;
+        size++;
+        index(element, sequence);
+        return sequence;
+    }
+
+    long addFirst(final @NotNull E element) {
+        ensureCapacity();
+        final long sequence = --firstSequence;
+        elements[slot(sequence)] = element;
+        size++;
+        index(element, sequence);
+        return sequence;
+    }
+
+    /**
+     * @return the element with the sequence number or null if it was removed.
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable E get(final long sequence) {
+        if (sequence < firstSequence || sequence >= endSequence) {
+            return null;
+        }
+        return (E) elements[slot(sequence)];
+    }
+
+    /**
+     * Replaces the element with the sequence number, which must not have been removed.
+     */
+    void set(final long sequence, final @NotNull E element) {
+        final E previous = get(sequence);
+        if (previous == null) {
+            throw new IllegalArgumentException("No element present for sequence " + sequence);
+        }
+        unindex(previous.getPacketIdentifier(), sequence);
+        elements[slot(sequence)] = element;
+        index(element, sequence);
+    }
+
+    /**
+     * @return the removed element or null if it was already removed.
+     */
+    @Nullable E remove(final long sequence) {
+        final E element = get(sequence);
+        if (element == null) {
+            return null;
+        }
+        elements[slot(sequence)] = null;
+        size--;
+        unindex(element.getPacketIdentifier(), sequence);
+
+        while (firstSequence < endSequence && elements[slot(firstSequence)] == null) {
+            firstSequence++;
+        }
+        while (endSequence > firstSequence && elements[slot(endSequence - 1)] == null) {
+            endSequence--;
+        }
+        if (size == 0) {
+            release();
+        } else if (elements.length > INITIAL_CAPACITY && endSequence - firstSequence <= elements.length / 4) {
+            shrink();
+        }
+        return element;
+    }
+
+    @Nullable E pollFirst() {
+        if (size == 0) {
+            return null;
+        }
+        return remove(firstSequence);
+    }
+
+    /**
+     * Updates the packet identifier index after the packet identifier of an element was changed.
+     *
+     * @param sequence         the sequence number of the element.
+     * @param previousPacketId the packet identifier of the element before the change.
+     */
+    void packetIdChanged(final long sequence, final int previousPacketId) {
+        final E element = get(sequence);
+        if (element == null) {
+            return;
+        }
+        unindex(previousPacketId, sequence);
+        index(element, sequence);
+    }
+
+    /**
+     * Finds an element by its packet identifier.
+     * <p>
+     * If the index is enabled, a lookup of a packet identifier other than 0 is answered from the index, so the buffer
+     * relies on packet identifiers being unique among its elements, as they are for the in-flight messages of a client.
+     * Otherwise the elements are scanned in order.
+     *
+     * @return the sequence number of the first element with the packet identifier or {@link #NOT_FOUND}.
+     */
+    long sequenceOf(final int packetId) {
+        if (indexPacketIds && packetId != NO_PACKET_ID) {
+            if (packetIdIndex == null) {
+                // no element with a packet identifier was added since the index was released
+                return NOT_FOUND;
+            }
+            final long sequence = packetIdIndex.getIfAbsent(packetId, NOT_FOUND);
+            if (sequence == NOT_FOUND) {
+                return NOT_FOUND;
+            }
+            final E element = get(sequence);
+            if (element != null && element.getPacketIdentifier() == packetId) {
+                return sequence;
+            }
+            // the index is outdated, which must not happen if all packet identifier changes are announced
+            packetIdIndex.remove(packetId);
+        }
+        for (long sequence = firstSequence; sequence < endSequence; sequence++) {
+            final E element = get(sequence);
+            if (element != null && element.getPacketIdentifier() == packetId) {
+                return sequence;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    long firstSequence() {
+        return firstSequence;
+    }
+
+    long endSequence() {
+        return endSequence;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        firstSequence = 0;
+        endSequence = 0;
+        size = 0;
+        release();
+    }
+
+    int capacity() {
+        return elements.length;
+    }
+
+    /**
+     * @return the estimated size of the buffer in bytes without the size of its elements: the array including its empty
+     *         slots and the packet identifier index. 0 if the buffer holds no array.
+     */
+    int getEstimatedSizeWithoutElements() {
+        if (elements.length == 0) {
+            return 0;
+        }
+        int size = ObjectMemoryEstimation.ARRAY_OVERHEAD + elements.length * ObjectMemoryEstimation.objectRefSize();
+        if (packetIdIndex != null) {
+            // an int and a long array, which are kept at most half full
+            size += ObjectMemoryEstimation.objectShellSize() + 2 * ObjectMemoryEstimation.ARRAY_OVERHEAD;
+            size += packetIdIndex.size() * 2 * (ObjectMemoryEstimation.intSize() + ObjectMemoryEstimation.longSize());
+        }
+        return size;
+    }
+
+    private int slot(final long sequence) {
+        return (int) (sequence & (elements.length - 1));
+    }
+
+    private void index(final @NotNull E element, final long sequence) {
+        final int packetId = element.getPacketIdentifier();
+        if (indexPacketIds && packetId != NO_PACKET_ID) {
+            if (packetIdIndex == null) {
+                packetIdIndex = new IntLongHashMap();
+            }
+            packetIdIndex.put(packetId, sequence);
+        }
+    }
+
+    private void unindex(final int packetId, final long sequence) {
+        if (packetIdIndex != null && packetId != NO_PACKET_ID) {
+            packetIdIndex.remove(packetId, sequence);
+        }
+    }
+
+    private void ensureCapacity() {
+        if (elements.length == 0) {
+            elements = new Object[INITIAL_CAPACITY];
+            return;
+        }
+        final int used = (int) (endSequence - firstSequence);
+        if (used < elements.length) {
+            return;
+        }
+        // more than half of the slots are empty: compact instead of growing
+        if (size <= used / 2) {
+            compact();
+        } else {
+            grow();
+        }
+    }
+
+    private void grow() {
+        resize(elements.length * 2);
+    }
+
+    /**
+     * Halves the array, the sequence numbers of the elements stay valid. The index is rebuilt as well, as its backing
+     * arrays do not shrink when entries are removed.
+     */
+    private void shrink() {
+        resize(elements.length / 2);
+        if (packetIdIndex != null) {
+            packetIdIndex = null;
+            for (long sequence = firstSequence; sequence < endSequence; sequence++) {
+                final E element = get(sequence);
+                if (element != null) {
+                    index(element, sequence);
+                }
+            }
+        }
+    }
+
+    private void resize(final int capacity) {
+        final Object[] newElements = new Object[capacity];
+        final int newMask = newElements.length - 1;
+        for (long sequence = firstSequence; sequence < endSequence; sequence++) {
+            newElements[(int) (sequence & newMask)] = elements[slot(sequence)];
+        }
+        elements = newElements;
+    }
+
+    private void release() {
+        elements = EMPTY;
+        packetIdIndex = null;
+    }
+
+    private void compact() {
+        final Object[] newElements = new Object[elements.length];
+        final int mask = newElements.length - 1;
+        long newSequence = firstSequence;
+        if (packetIdIndex != null) {
+            packetIdIndex.clear();
+        }
+        for (long sequence = firstSequence; sequence < endSequence; sequence++) {
+            @SuppressWarnings("unchecked") final E element = (E) elements[slot(sequence)];
+            if (element == null) {
+                continue;
+            }
+            newElements[(int) (newSequence & mask)] = element;
+            index(element, newSequence);
+            newSequence++;
+        }
+        elements = newElements;
+        endSequence = newSequence;
+    }
+}
@@ -17,7 +17,9 @@ package com.hivemq.persistence.local.xodus;
 
 import com.hivemq.exceptions.UnrecoverableException;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
 import com.hivemq.persistence.FilePersistence;
+import com.hivemq.persistence.GroupCommitter;
 import com.hivemq.persistence.LocalPersistence;
 import com.hivemq.persistence.PersistenceStartup;
 import com.hivemq.persistence.local.xodus.bucket.Bucket;
@@ -52,6 +54,8 @@ public abstract class XodusLocalPersistence implements LocalPersistence, FilePer
     private final int closeRetries;
     private final int closeRetryInterval;
 
+    private final @NotNull GroupCommitter groupCommitter = new XodusGroupCommitter();
+
     protected XodusLocalPersistence(
             final @NotNull EnvironmentUtil environmentUtil,
             final @NotNull LocalPersistenceFileUtil localPersistenceFileUtil,
@@ -216,10 +220,39 @@ public abstract class XodusLocalPersistence implements LocalPersistence, FilePer
         return buckets[BucketUtils.getBucket(key, bucketCount)];
     }
 
+    @Override
+    public @Nullable GroupCommitter getGroupCommitter() {
+        return groupCommitter;
+    }
+
+    @Override
+    public void afterCommit(final int bucketIndex, final @NotNull Runnable action) {
+        buckets[bucketIndex].afterCommit(action);
+    }
+
     protected void checkBucketIndex(final int bucketIndex) {
         checkArgument(bucketIndex >= 0 && bucketIndex < buckets.length, "Invalid bucket index: " + bucketIndex);
     }
 
+    private final class XodusGroupCommitter implements GroupCommitter {
+
+        @Override
+        public boolean begin(final int bucketIndex) {
+            final Bucket bucket = buckets[bucketIndex];
+            return bucket != null && !stopped.get() && bucket.beginGroupTransaction();
+        }
+
+        @Override
+        public void commit(final int bucketIndex) {
+            buckets[bucketIndex].commitGroupTransaction();
+        }
+
+        @Override
+        public void abort(final int bucketIndex) {
+            buckets[bucketIndex].abortGroupTransaction();
+        }
+    }
+
     private static final class XodusNoLockDataWriter extends FileDataWriter {
 
         private XodusNoLockDataWriter(final @NotNull File persistenceFile, final @NotNull LogConfig logConfig) {
@@ -15,16 +15,35 @@
  */
 package com.hivemq.persistence.local.xodus.bucket;
 
-import com.hivemq.extension.sdk.api.annotations.Immutable;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import jetbrains.exodus.ExodusException;
 import jetbrains.exodus.env.Environment;
 import jetbrains.exodus.env.Store;
+import jetbrains.exodus.env.Transaction;
+import jetbrains.exodus.env.TransactionalComputable;
+import jetbrains.exodus.env.TransactionalExecutable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
-@Immutable
+/**
+ * A Xodus environment and store of a persistence bucket.
+ * <p>
+ * The single writer can begin a group transaction for the bucket. Until it is committed or aborted, all transactions
+ * that are executed via the bucket by the thread that began it join the group transaction. Transactions of other
+ * threads are not affected.
+ * <p>
+ * Changes of a group transaction are only visible after the group is committed, so state that is derived from the
+ * store must be updated via {@link #afterCommit(Runnable)} instead of right after a transaction of the bucket returns.
+ */
 public class Bucket {
 
+    private static final @NotNull Logger log = LoggerFactory.getLogger(Bucket.class);
+
     @NotNull
     private final Environment environment;
     @NotNull
@@ -32,6 +51,12 @@ public class Bucket {
 
     private final AtomicBoolean closing = new AtomicBoolean(false);
 
+    private @Nullable Transaction groupTransaction;
+    private volatile @Nullable Thread groupTransactionOwner;
+    // only accessed by the owner of the group transaction
+    private final @NotNull List<Runnable> afterCommitActions = new ArrayList<>();
+    private final @NotNull List<Runnable> afterAbortActions = new ArrayList<>();
+
     public Bucket(@NotNull final Environment environment, @NotNull final Store store) {
         this.environment = environment;
         this.store = store;
@@ -51,5 +76,180 @@ public class Bucket {
         return store;
     }
 
+    public void executeInTransaction(final @NotNull TransactionalExecutable executable) {
+        final Transaction groupTransaction = getGroupTransaction();
+        if (groupTransaction != null) {
+            executable.execute(groupTransaction);
+        } else {
+            environment.executeInTransaction(executable);
+        }
+    }
 
-}
\ No newline at end of file
+    public void executeInExclusiveTransaction(final @NotNull TransactionalExecutable executable) {
+        final Transaction groupTransaction = getGroupTransaction();
+        if (groupTransaction != null) {
+            executable.execute(groupTransaction);
+        } else {
+            environment.executeInExclusiveTransaction(executable);
+        }
+    }
+
+    public void executeInReadonlyTransaction(final @NotNull TransactionalExecutable executable) {
+        final Transaction groupTransaction = getGroupTransaction();
+        if (groupTransaction != null) {
+            executable.execute(groupTransaction);
+        } else {
+            environment.executeInReadonlyTransaction(executable);
+        }
+    }
+
+    public <T> T computeInTransaction(final @NotNull TransactionalComputable<T> computable) {
+        final Transaction groupTransaction = getGroupTransaction();
+        if (groupTransaction != null) {
+            return computable.compute(groupTransaction);
+        }
+        return environment.computeInTransaction(computable);
+    }
+
+    public <T> T computeInExclusiveTransaction(final @NotNull TransactionalComputable<T> computable) {
+        final Transaction groupTransaction = getGroupTransaction();
+        if (groupTransaction != null) {
+            return computable.compute(groupTransaction);
+        }
+        return environment.computeInExclusiveTransaction(computable);
+    }
+
+    public <T> T computeInReadonlyTransaction(final @NotNull TransactionalComputable<T> computable) {
+        final Transaction groupTransaction = getGroupTransaction();
+        if (groupTransaction != null) {
+            return computable.compute(groupTransaction);
+        }
+        return environment.computeInReadonlyTransaction(computable);
+    }
+
+    /**
+     * Runs the action once the changes of the current transaction of the bucket are committed. If the current thread
+     * has a group transaction, the action runs after the group is committed and is discarded if the group is aborted.
+     * Otherwise the action runs immediately.
+     *
+     * @param action the action that updates state which is derived from the store
+     */
+    public void afterCommit(final @NotNull Runnable action) {
+        if (getGroupTransaction() != null) {
+            afterCommitActions.add(action);
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Runs the action if the group transaction of the current thread is aborted, so changes of in-memory state that
+     * were made before the transaction can be reverted. Does nothing if the current thread has no group transaction.
+     *
+     * @param action the action that reverts in-memory state
+     */
+    public void afterAbort(final @NotNull Runnable action) {
+        if (getGroupTransaction() != null) {
+            afterAbortActions.add(action);
+        }
+    }
+
+    /**
+     * Sets the commit hook of the transaction. All tasks of a group share its transaction and a transaction only has
+     * one commit hook, so for a group transaction the hook is run via {@link #afterCommit(Runnable)} instead.
+     *
+     * @param txn  a transaction of the bucket
+     * @param hook the commit hook
+     */
+    public void setCommitHook(final @NotNull Transaction txn, final @NotNull Runnable hook) {
+        if (txn == getGroupTransaction()) {
+            afterCommitActions.add(hook);
+        } else {
+            txn.setCommitHook(hook);
+        }
+    }
+
+    /**
+     * @return true if the current thread has a group transaction for the bucket
+     */
+    public boolean inGroupTransaction() {
+        return getGroupTransaction() != null;
+    }
+
+    /**
+     * Begins a group transaction for the current thread.
+     *
+     * @return false if the bucket is closing and no group transaction was begun
+     */
+    public boolean beginGroupTransaction() {
+        if (closing.get() || !environment.isOpen()) {
+            return false;
+        }
+        groupTransaction = environment.beginExclusiveTransaction();
+        groupTransactionOwner = Thread.currentThread();
+        return true;
+    }
+
+    /**
+     * Commits the group transaction of the current thread and runs the actions that were registered via {@link
+     * #afterCommit(Runnable)} while it was open.
+     *
+     * @throws ExodusException if the commit failed, the group transaction is aborted then
+     */
+    public void commitGroupTransaction() {
+        final Transaction transaction = endGroupTransaction();
+        if (transaction == null) {
+            return;
+        }
+        if (!transaction.isFinished() && !transaction.commit()) {
+            transaction.abort();
+            afterCommitActions.clear();
+            runActions(afterAbortActions);
+            throw new ExodusException("Failed to commit group transaction");
+        }
+        afterAbortActions.clear();
+        runActions(afterCommitActions);
+    }
+
+    public void abortGroupTransaction() {
+        final Transaction transaction = endGroupTransaction();
+        if (transaction == null) {
+            return;
+        }
+        if (!transaction.isFinished()) {
+            transaction.abort();
+        }
+        afterCommitActions.clear();
+        runActions(afterAbortActions);
+    }
+
+    private static void runActions(final @NotNull List<Runnable> actions) {
+        try {
+            for (final Runnable action : actions) {
+                try {
+                    action.run();
+                } catch (final Exception e) {
+                    // the group transaction already ended, so the remaining actions must run anyway
+                    log.error("Failed to run action after group transaction ended.", e);
+                }
+            }
+        } finally {
+            actions.clear();
+        }
+    }
+
+    private @Nullable Transaction endGroupTransaction() {
+        if (groupTransactionOwner != Thread.currentThread()) {
+            return null;
+        }
+        final Transaction transaction = groupTransaction;
+        groupTransaction = null;
+        groupTransactionOwner = null;
+        return transaction;
+    }
+
+    private @Nullable Transaction getGroupTransaction() {
+        // only the owner thread writes the group transaction, so it always sees its own write
+        return groupTransactionOwner == Thread.currentThread() ? groupTransaction : null;
+    }
+}
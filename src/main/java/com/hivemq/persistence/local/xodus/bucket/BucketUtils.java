@@ -29,4 +29,8 @@ public class BucketUtils {
         return Math.abs((int) (XX.hashChars(id) % bucketSize));
     }
 
+    public static int getBucket(final long id, final int bucketSize) {
+        return Math.abs((int) (XX.hashLong(id) % bucketSize));
+    }
+
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.local.xodus.clientsession;
+
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.persistence.clientsession.ClientSession;
+import com.hivemq.persistence.clientsession.ClientSessionWill;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An in-memory index per bucket of the session state that is needed to deliver a PUBLISH to a subscriber: the
+ * connected flag, the session expiry interval, the queue limit and the timestamp of the last change.
+ * <p>
+ * The index is only written by the single writer tasks of the {@link ClientSessionXodusLocalPersistence}, after the
+ * corresponding Xodus transaction committed. It can be read from any thread without opening a Xodus transaction.
+ * The will of a session is not part of the index.
+ * <p>
+ * Every entry is an immutable client session, which is returned by lookups without a copy. The entry keeps the client
+ * id it is keyed by, so other indexes of the bucket can use the same instance and a client id is only kept once.
+ */
+class ClientSessionStateIndex {
+
+    private final @NotNull ConcurrentHashMap<String, IndexedClientSession> @NotNull [] buckets;
+
+    @SuppressWarnings("unchecked")
+    ClientSessionStateIndex(final int bucketCount) {
+        buckets = new ConcurrentHashMap[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * @return the client id instance the index is keyed by, which should be used by the other indexes of the bucket.
+     */
+    @NotNull String put(
+            final int bucketIndex,
+            final @NotNull String clientId,
+            final @NotNull ClientSession clientSession,
+            final long timestamp) {
+
+        final ConcurrentHashMap<String, IndexedClientSession> bucket = buckets[bucketIndex];
+        // only the single writer of the bucket puts, so the key can not change between the get and the put
+        final IndexedClientSession previous = bucket.get(clientId);
+        final String key = previous == null ? clientId : previous.clientId;
+        bucket.put(key, new IndexedClientSession(key, clientSession, timestamp));
+        return key;
+    }
+
+    void remove(final int bucketIndex, final @NotNull String clientId) {
+        buckets[bucketIndex].remove(clientId);
+    }
+
+    void clear(final int bucketIndex) {
+        buckets[bucketIndex].clear();
+    }
+
+    /**
+     * @return the shared, immutable client session without will for the client or null if no session, or only an
+     *         expired session when expiry is checked, is present.
+     */
+    @Nullable ClientSession getSession(final int bucketIndex, final @NotNull String clientId, final boolean checkExpired) {
+        final IndexedClientSession clientSession = buckets[bucketIndex].get(clientId);
+        if (clientSession == null) {
+            return null;
+        }
+        if (checkExpired && clientSession.isExpired(System.currentTimeMillis() - clientSession.timestamp)) {
+            return null;
+        }
+        return clientSession;
+    }
+
+    int size(final int bucketIndex) {
+        return buckets[bucketIndex].size();
+    }
+
+    private static class IndexedClientSession extends ClientSession {
+
+        private final @NotNull String clientId;
+        private final long timestamp;
+
+        IndexedClientSession(
+                final @NotNull String clientId, final @NotNull ClientSession clientSession, final long timestamp) {
+            super(clientSession.isConnected(), clientSession.getSessionExpiryIntervalSec(), null,
+                    clientSession.getQueueLimit());
+            this.clientId = clientId;
+            this.timestamp = timestamp;
+        }
+
+        @Override
+        public void setConnected(final boolean connected) {
+            throw new UnsupportedOperationException("The client session of the state index is immutable");
+        }
+
+        @Override
+        public void setSessionExpiryIntervalSec(final long sessionExpiryIntervalSec) {
+            throw new UnsupportedOperationException("The client session of the state index is immutable");
+        }
+
+        @Override
+        public void setWillPublish(final @Nullable ClientSessionWill willPublish) {
+            throw new UnsupportedOperationException("The client session of the state index is immutable");
+        }
+    }
+}
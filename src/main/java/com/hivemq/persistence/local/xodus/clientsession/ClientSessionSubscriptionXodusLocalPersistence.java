@@ -111,7 +111,7 @@ public class ClientSessionSubscriptionXodusLocalPersistence extends XodusLocalPe
             for (int i = 0; i < bucketCount; i++) {
                 final Bucket bucket = buckets[i];
 
-                bucket.getEnvironment().executeInReadonlyTransaction(txn -> {
+                bucket.executeInReadonlyTransaction(txn -> {
                     try (final Cursor cursor = bucket.getStore().openCursor(txn)) {
                         while (cursor.getNext()) {
                             final long id = serializer.deserializeId(byteIterableToBytes(cursor.getValue()));
@@ -140,7 +140,7 @@ public class ClientSessionSubscriptionXodusLocalPersistence extends XodusLocalPe
         checkState(timestamp > 0, "Timestamp must not be 0");
 
         final Bucket bucket = buckets[bucketIndex];
-        bucket.getEnvironment().executeInTransaction(txn -> {
+        bucket.executeInTransaction(txn -> {
             final ByteIterable key = bytesToByteIterable(serializer.serializeKey(client));
             bucket.getStore()
                     .put(txn, key,
@@ -155,7 +155,7 @@ public class ClientSessionSubscriptionXodusLocalPersistence extends XodusLocalPe
         checkState(timestamp > 0, "Timestamp must not be 0");
 
         final Bucket bucket = buckets[bucketIndex];
-        bucket.getEnvironment().executeInTransaction(txn -> {
+        bucket.executeInTransaction(txn -> {
             for (final Topic topic : topics) {
                 final long rowId = nextId.getAndIncrement();
                 final ByteIterable key = bytesToByteIterable(serializer.serializeKey(client));
@@ -172,7 +172,7 @@ public class ClientSessionSubscriptionXodusLocalPersistence extends XodusLocalPe
         checkState(timestamp > 0, "Timestamp must not be 0");
 
         final Bucket bucket = buckets[bucketIndex];
-        bucket.getEnvironment().executeInTransaction(txn -> {
+        bucket.executeInTransaction(txn -> {
             try (final Cursor cursor = bucket.getStore().openCursor(txn)) {
 
                 final ByteIterable clientByteIterable = bytesToByteIterable(serializer.serializeKey(client));
@@ -197,7 +197,7 @@ public class ClientSessionSubscriptionXodusLocalPersistence extends XodusLocalPe
         checkNotNull(client, "Clientid must not be null");
 
         final Bucket bucket = buckets[BucketUtils.getBucket(client, bucketCount)];
-        return bucket.getEnvironment().computeInReadonlyTransaction(txn -> {
+        return bucket.computeInReadonlyTransaction(txn -> {
 
             final Map<Topic, Long> results = new HashMap<>();
             try (final Cursor cursor = bucket.getStore().openCursor(txn)) {
@@ -235,7 +235,7 @@ public class ClientSessionSubscriptionXodusLocalPersistence extends XodusLocalPe
         checkState(timestamp > 0, "Timestamp must not be 0");
 
         final Bucket bucket = buckets[bucketIndex];
-        bucket.getEnvironment().executeInTransaction(txn -> {
+        bucket.executeInTransaction(txn -> {
             try (final Cursor cursor = bucket.getStore().openCursor(txn)) {
                 removeClientFromCursor(client, cursor);
             }
@@ -260,7 +260,7 @@ public class ClientSessionSubscriptionXodusLocalPersistence extends XodusLocalPe
         final ImmutableMap.Builder<String, ImmutableSet<Topic>> resultBuilder = ImmutableMap.builder();
 
         final Bucket bucket = buckets[bucketIndex];
-        return bucket.getEnvironment().computeInReadonlyTransaction(txn -> {
+        return bucket.computeInReadonlyTransaction(txn -> {
 
             String lastKey = null;
 
@@ -343,7 +343,7 @@ public class ClientSessionSubscriptionXodusLocalPersistence extends XodusLocalPe
 
         final Bucket bucket = buckets[bucketIndex];
 
-        bucket.getEnvironment().executeInTransaction(txn -> {
+        bucket.executeInTransaction(txn -> {
             try (final Cursor cursor = bucket.getStore().openCursor(txn)) {
                 // Get first entry
                 cursor.getNext();
@@ -15,6 +15,7 @@
  */
 package com.hivemq.persistence.local.xodus.clientsession;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
@@ -30,6 +31,7 @@ import com.hivemq.persistence.NoSessionException;
 import com.hivemq.persistence.PersistenceEntry;
 import com.hivemq.persistence.PersistenceStartup;
 import com.hivemq.persistence.clientsession.ClientSession;
+import com.hivemq.persistence.clientsession.ClientSessionExpiryIndex;
 import com.hivemq.persistence.clientsession.ClientSessionWill;
 import com.hivemq.persistence.clientsession.PendingWillMessages;
 import com.hivemq.persistence.exception.InvalidSessionExpiryIntervalException;
@@ -86,6 +88,9 @@ public class ClientSessionXodusLocalPersistence extends XodusLocalPersistence im
     private final @NotNull EventLog eventLog;
     private final @NotNull MetricsHolder metricsHolder;
     private final @NotNull AtomicInteger sessionsCount = new AtomicInteger(0);
+    @VisibleForTesting
+    final @NotNull ClientSessionStateIndex stateIndex;
+    private final @NotNull ClientSessionExpiryIndex expiryIndex;
 
     @Inject
     ClientSessionXodusLocalPersistence(
@@ -103,6 +108,8 @@ public class ClientSessionXodusLocalPersistence extends XodusLocalPersistence im
         this.eventLog = eventLog;
         this.metricsHolder = metricsHolder;
         serializer = new ClientSessionPersistenceSerializer();
+        stateIndex = new ClientSessionStateIndex(bucketCount);
+        expiryIndex = new ClientSessionExpiryIndex(bucketCount);
     }
 
     @Override
@@ -132,8 +139,11 @@ public class ClientSessionXodusLocalPersistence extends XodusLocalPersistence im
 
     protected void init() {
         for (int i = 0; i < bucketCount; i++) {
+            final int bucketIndex = i;
             final Bucket bucket = buckets[i];
-            bucket.getEnvironment().executeInReadonlyTransaction(txn -> {
+            stateIndex.clear(bucketIndex);
+            expiryIndex.clear(bucketIndex);
+            bucket.executeInReadonlyTransaction(txn -> {
                 final Store store = bucket.getStore();
 
                 final ImmutableList.Builder<Long> willsToRemoveBuilder = ImmutableList.builder();
@@ -142,16 +152,19 @@ public class ClientSessionXodusLocalPersistence extends XodusLocalPersistence im
                     while (cursor.getNext()) {
                         final byte[] bytes = byteIterableToBytes(cursor.getValue());
                         final ClientSession clientSession = serializer.deserializeValue(bytes);
+                        final long timestamp = serializer.deserializeTimestamp(bytes);
                         if (persistent(clientSession)) {
                             sessionsCount.incrementAndGet();
                         }
                         if (clientSession.getWillPublish() != null) {
                             willsToRemoveBuilder.add(clientSession.getWillPublish().getPublishId());
                             clientSession.setWillPublish(null);
-                            final long timestamp = serializer.deserializeTimestamp(bytes);
                             final byte[] sessionsWithoutWill = serializer.serializeValue(clientSession, timestamp);
                             store.put(txn, cursor.getKey(), bytesToByteIterable(sessionsWithoutWill));
                         }
+                        final String clientId = serializer.deserializeKey(byteIterableToBytes(cursor.getKey()));
+                        final String indexKey = stateIndex.put(bucketIndex, clientId, clientSession, timestamp);
+                        expiryIndex.put(bucketIndex, indexKey, clientSession, timestamp);
                     }
                     final ImmutableList<Long> willsToRemove = willsToRemoveBuilder.build();
                     if (!willsToRemove.isEmpty()) {
@@ -176,7 +189,7 @@ public class ClientSessionXodusLocalPersistence extends XodusLocalPersistence im
     public @Nullable ClientSession getSession(final @NotNull String clientId) {
         checkNotNull(clientId, "Client id must not be null");
 
-        return getSession(clientId, getBucket(clientId), true, true);
+        return getSession(clientId, BucketUtils.getBucket(clientId, bucketCount), true, true);
     }
 
     @Override
@@ -184,14 +197,14 @@ public class ClientSessionXodusLocalPersistence extends XodusLocalPersistence im
         checkNotNull(clientId, "Client id must not be null");
         checkBucketIndex(bucketIndex);
 
-        return getSession(clientId, buckets[bucketIndex], true, true);
+        return getSession(clientId, bucketIndex, true, true);
     }
 
     @Override
     public @Nullable ClientSession getSession(final @NotNull String clientId, final boolean checkExpired) {
         checkNotNull(clientId, "Client id must not be null");
 
-        return getSession(clientId, getBucket(clientId), checkExpired, true);
+        return getSession(clientId, BucketUtils.getBucket(clientId, bucketCount), checkExpired, true);
     }
 
     @Override
@@ -201,7 +214,7 @@ public class ClientSessionXodusLocalPersistence extends XodusLocalPersistence im
         checkNotNull(clientId, "Client id must not be null");
         checkBucketIndex(bucketIndex);
 
-        return getSession(clientId, buckets[bucketIndex], checkExpired, true);
+        return getSession(clientId, bucketIndex, checkExpired, true);
     }
 
     @Override
@@ -210,16 +223,23 @@ public class ClientSessionXodusLocalPersistence extends XodusLocalPersistence im
 
         checkNotNull(clientId, "Client id must not be null");
 
-        return getSession(clientId, getBucket(clientId), checkExpired, includeWill);
+        return getSession(clientId, BucketUtils.getBucket(clientId, bucketCount), checkExpired, includeWill);
     }
 
     private @Nullable ClientSession getSession(
             final @NotNull String clientId,
-            final Bucket bucket,
+            final int bucketIndex,
             final boolean checkExpired,
             final boolean includeWill) {
 
-        return bucket.getEnvironment().computeInReadonlyTransaction(txn -> {
+        final Bucket bucket = buckets[bucketIndex];
+        // The will is the only part of the session that is not present in the index. The index is only updated after
+        // a group transaction is committed, so the writer of the group reads its own changes from the store.
+        if (!includeWill && !bucket.inGroupTransaction()) {
+            return stateIndex.getSession(bucketIndex, clientId, checkExpired);
+        }
+
+        return bucket.computeInReadonlyTransaction(txn -> {
 
             final ByteIterable byteIterable = bucket.getStore().get(txn, bytesToByteIterable(serializer.serializeKey(clientId)));
             if (byteIterable == null) {
@@ -253,7 +273,7 @@ public class ClientSessionXodusLocalPersistence extends XodusLocalPersistence im
     @Override
     public @Nullable Long getTimestamp(final @NotNull String clientId, final int bucketIndex) {
         final Bucket bucket = buckets[bucketIndex];
-        return bucket.getEnvironment().computeInReadonlyTransaction(txn -> {
+        return bucket.computeInReadonlyTransaction(txn -> {
             final ByteIterable byteIterable = bucket.getStore().get(txn, bytesToByteIterable(serializer.serializeKey(clientId)));
             if (byteIterable == null) {
                 return null;
@@ -276,7 +296,7 @@ public class ClientSessionXodusLocalPersistence extends XodusLocalPersistence im
         ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
 
         final Bucket bucket = buckets[bucketIndex];
-        bucket.getEnvironment().executeInTransaction(txn -> {
+        bucket.executeInTransaction(txn -> {
 
             final ByteIterable key = bytesToByteIterable(serializer.serializeKey(clientId));
 
@@ -285,29 +305,30 @@ public class ClientSessionXodusLocalPersistence extends XodusLocalPersistence im
             final ByteIterable value = bucket.getStore().get(txn, key);
             if (value == null) {
                 if (isPersistent || newClientSession.isConnected()) {
-                    sessionsCount.incrementAndGet();
+                    bucket.afterCommit(sessionsCount::incrementAndGet);
                 }
 
                 final ClientSessionWill newWill = newClientSession.getWillPublish();
                 if (newWill != null) {
-                    txn.setCommitHook(new AddWillReference(newWill));
+                    bucket.setCommitHook(txn, new AddWillReference(newWill));
                 }
             } else {
                 final ClientSession prevClientSession = serializer.deserializeValue(byteIterableToBytes(value));
 
-                handleWillPayloads(txn, prevClientSession.getWillPublish(), newClientSession.getWillPublish());
+                handleWillPayloads(bucket, txn, prevClientSession.getWillPublish(), newClientSession.getWillPublish());
 
                 final boolean prevIsPersistent = persistent(prevClientSession);
 
                 if ((isPersistent || newClientSession.isConnected()) && (!prevIsPersistent && !prevClientSession.isConnected())) {
-                    sessionsCount.incrementAndGet();
+                    bucket.afterCommit(sessionsCount::incrementAndGet);
                 } else if ((prevIsPersistent || prevClientSession.isConnected()) && (!isPersistent && !newClientSession.isConnected())) {
-                    sessionsCount.decrementAndGet();
+                    bucket.afterCommit(sessionsCount::decrementAndGet);
                 }
             }
 
             bucket.getStore().put(txn, key, bytesToByteIterable(serializer.serializeValue(newClientSession, timestamp)));
         });
+        bucket.afterCommit(() -> updateIndexes(bucketIndex, clientId, newClientSession, timestamp));
     }
 
     @Override
@@ -322,7 +343,7 @@ public class ClientSessionXodusLocalPersistence extends XodusLocalPersistence im
         ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
 
         final Bucket bucket = buckets[bucketIndex];
-        return bucket.getEnvironment().computeInTransaction(txn -> {
+        final ClientSession disconnectedSession = bucket.computeInTransaction(txn -> {
 
             final ByteIterable key = bytesToByteIterable(serializer.serializeKey(clientId));
             final ByteIterable byteIterable = bucket.getStore().get(txn, key);
@@ -341,17 +362,19 @@ public class ClientSessionXodusLocalPersistence extends XodusLocalPersistence im
             }
 
             if (clientSession.isConnected() && !persistent(clientSession)) {
-                sessionsCount.decrementAndGet();
+                bucket.afterCommit(sessionsCount::decrementAndGet);
             }
             clientSession.setConnected(false);
             if (!sendWill && clientSession.getWillPublish() != null) {
-                txn.setCommitHook(new RemoveWillReference(clientSession.getWillPublish()));
+                bucket.setCommitHook(txn, new RemoveWillReference(clientSession.getWillPublish()));
                 clientSession.setWillPublish(null);
             }
             bucket.getStore().put(txn, key, bytesToByteIterable(serializer.serializeValue(clientSession, timestamp)));
             loadWillPayload(clientSession);
             return clientSession;
         });
+        bucket.afterCommit(() -> updateIndexes(bucketIndex, clientId, disconnectedSession, timestamp));
+        return disconnectedSession;
     }
 
     @Override
@@ -360,7 +383,7 @@ public class ClientSessionXodusLocalPersistence extends XodusLocalPersistence im
         ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
 
         final Bucket bucket = buckets[bucketIndex];
-        return bucket.getEnvironment().computeInTransaction(txn -> {
+        return bucket.computeInTransaction(txn -> {
             final ByteIterable key = bytesToByteIterable(serializer.serializeKey(clientId));
             final ByteIterable byteIterable = bucket.getStore().get(txn, key);
 
@@ -375,7 +398,7 @@ public class ClientSessionXodusLocalPersistence extends XodusLocalPersistence im
             }
             final long timestamp = serializer.deserializeTimestamp(byteIterableToBytes(byteIterable));
             if (clientSession.getWillPublish() != null) {
-                txn.setCommitHook(new RemoveWillReference(clientSession.getWillPublish()));
+                bucket.setCommitHook(txn, new RemoveWillReference(clientSession.getWillPublish()));
                 clientSession.setWillPublish(null);
                 bucket.getStore().put(txn, key, bytesToByteIterable(serializer.serializeValue(clientSession, timestamp)));
             }
@@ -390,7 +413,7 @@ public class ClientSessionXodusLocalPersistence extends XodusLocalPersistence im
         checkBucketIndex(bucketIndex);
 
         final Bucket bucket = buckets[bucketIndex];
-        return bucket.getEnvironment().computeInTransaction(txn -> {
+        return bucket.computeInTransaction(txn -> {
             final Map<String, ClientSession> resultMap = Maps.newHashMap();
 
             try (final Cursor cursor = bucket.getStore().openCursor(txn)) {
@@ -450,7 +473,7 @@ public class ClientSessionXodusLocalPersistence extends XodusLocalPersistence im
     public @NotNull Set<String> getAllClients(final int bucketIndex) {
         final ImmutableSet.Builder<String> clientSessions = ImmutableSet.builder();
         final Bucket bucket = buckets[bucketIndex];
-        bucket.getEnvironment().executeInReadonlyTransaction(txn -> {
+        bucket.executeInReadonlyTransaction(txn -> {
             try (final Cursor cursor = bucket.getStore().openCursor(txn)) {
                 while (cursor.getNext()) {
                     final String clientId = serializer.deserializeKey(byteIterableToBytes(cursor.getKey()));
@@ -466,19 +489,23 @@ public class ClientSessionXodusLocalPersistence extends XodusLocalPersistence im
         ThreadPreConditions.startsWith(SINGLE_WRITER_THREAD_PREFIX);
 
         final Bucket bucket = buckets[bucketIndex];
-        bucket.getEnvironment().executeInTransaction(txn -> {
+        bucket.executeInTransaction(txn -> {
             final ByteIterable value = bucket.getStore().get(txn, bytesToByteIterable(serializer.serializeKey(client)));
             if (value != null) {
                 final ClientSession clientSession = serializer.deserializeValue(byteIterableToBytes(value));
                 if (persistent(clientSession) || clientSession.isConnected()) {
-                    sessionsCount.decrementAndGet();
+                    bucket.afterCommit(sessionsCount::decrementAndGet);
                 }
                 if (clientSession.getWillPublish() != null) {
-                    txn.setCommitHook(new RemoveWillReference(clientSession.getWillPublish()));
+                    bucket.setCommitHook(txn, new RemoveWillReference(clientSession.getWillPublish()));
                 }
                 bucket.getStore().delete(txn, bytesToByteIterable(serializer.serializeKey(client)));
             }
         });
+        bucket.afterCommit(() -> {
+            stateIndex.remove(bucketIndex, client);
+            expiryIndex.remove(bucketIndex, client);
+        });
     }
 
     @Override
@@ -491,8 +518,9 @@ public class ClientSessionXodusLocalPersistence extends XodusLocalPersistence im
             throw new InvalidSessionExpiryIntervalException("Invalid session expiry interval " + sessionExpiryInterval);
         }
 
+        final long timestamp = System.currentTimeMillis();
         final Bucket bucket = buckets[bucketIndex];
-        bucket.getEnvironment().executeInTransaction(txn -> {
+        final ClientSession updatedSession = bucket.computeInTransaction(txn -> {
 
             final ByteIterable key = bytesToByteIterable(serializer.serializeKey(clientId));
 
@@ -511,45 +539,84 @@ public class ClientSessionXodusLocalPersistence extends XodusLocalPersistence im
             clientSession.setSessionExpiryIntervalSec(sessionExpiryInterval);
 
             bucket.getStore().put(txn, key,
-                    bytesToByteIterable(serializer.serializeValue(clientSession, System.currentTimeMillis())));
+                    bytesToByteIterable(serializer.serializeValue(clientSession, timestamp)));
+            return clientSession;
         });
+        bucket.afterCommit(() -> updateIndexes(bucketIndex, clientId, updatedSession, timestamp));
     }
 
     @Override
     public @NotNull Set<String> cleanUp(final int bucketIndex) {
-
-        final ImmutableSet.Builder<String> expiredSessionsBuilder = ImmutableSet.builder();
-
         if (stopped.get()) {
-            return expiredSessionsBuilder.build();
+            return ImmutableSet.of();
+        }
+        final long now = System.currentTimeMillis();
+        final ImmutableList<String> dueClients = expiryIndex.pollExpired(bucketIndex, now,
+                InternalConfigurations.SESSION_EXPIRY_MAX_SESSIONS_PER_CLEANUP.get());
+        if (dueClients.isEmpty()) {
+            return ImmutableSet.of();
         }
-        final Bucket bucket = buckets[bucketIndex];
-        bucket.getEnvironment().executeInTransaction(txn -> {
-            try (final Cursor cursor = bucket.getStore().openCursor(txn)) {
-                while (cursor.getNext()) {
-                    final String clientId = serializer.deserializeKey(byteIterableToBytes(cursor.getKey()));
-
-                    final byte[] valueBytes = byteIterableToBytes(cursor.getValue());
-                    final ClientSession clientSession = serializer.deserializeValue(valueBytes);
-                    final long timestamp = serializer.deserializeTimestamp(valueBytes);
 
-                    final long sessionExpiryInterval = clientSession.getSessionExpiryIntervalSec();
-                    final long timeSinceDisconnect = System.currentTimeMillis() - timestamp;
+        final ImmutableSet.Builder<String> expiredSessionsBuilder = ImmutableSet.builder();
+        final Bucket bucket = buckets[bucketIndex];
+        // if the group is aborted, the due clients must be found again when the clean up is executed again
+        bucket.afterAbort(() -> {
+            for (final String clientId : dueClients) {
+                expiryIndex.putDeadline(bucketIndex, clientId, now);
+            }
+        });
+        bucket.executeInTransaction(txn -> {
+            for (final String clientId : dueClients) {
+                final ByteIterable key = bytesToByteIterable(serializer.serializeKey(clientId));
+                final ByteIterable value = bucket.getStore().get(txn, key);
+                if (value == null) {
+                    continue;
+                }
+                final byte[] valueBytes = byteIterableToBytes(value);
+                final ClientSession clientSession = serializer.deserializeValue(valueBytes);
+                final long timestamp = serializer.deserializeTimestamp(valueBytes);
 
-                    // Expired is true if the persistent data for the client has to be removed
-                    if (clientSession.isExpired(timeSinceDisconnect)) {
-                        if (sessionExpiryInterval > SESSION_EXPIRE_ON_DISCONNECT) {
-                            sessionsCount.decrementAndGet();
-                        }
+                final long sessionExpiryInterval = clientSession.getSessionExpiryIntervalSec();
+                final long timeSinceDisconnect = System.currentTimeMillis() - timestamp;
 
-                        eventLog.clientSessionExpired(timestamp + sessionExpiryInterval * 1000, clientId);
-                        cursor.deleteCurrent();
-                        expiredSessionsBuilder.add(clientId);
+                // Expired is true if the persistent data for the client has to be removed
+                if (clientSession.isExpired(timeSinceDisconnect)) {
+                    if (sessionExpiryInterval > SESSION_EXPIRE_ON_DISCONNECT) {
+                        bucket.afterCommit(sessionsCount::decrementAndGet);
                     }
+
+                    bucket.afterCommit(() -> eventLog.clientSessionExpired(timestamp + sessionExpiryInterval * 1000, clientId));
+                    bucket.getStore().delete(txn, key);
+                    expiredSessionsBuilder.add(clientId);
+                } else {
+                    // the index is outdated, which must not happen if it is updated on every change of a session
+                    bucket.afterCommit(() -> expiryIndex.put(bucketIndex, clientId, clientSession, timestamp));
                 }
             }
         });
-        return expiredSessionsBuilder.build();
+        final ImmutableSet<String> expiredSessions = expiredSessionsBuilder.build();
+        bucket.afterCommit(() -> {
+            for (final String clientId : expiredSessions) {
+                stateIndex.remove(bucketIndex, clientId);
+            }
+        });
+        return expiredSessions;
+    }
+
+    private void updateIndexes(
+            final int bucketIndex,
+            final @NotNull String clientId,
+            final @NotNull ClientSession clientSession,
+            final long timestamp) {
+
+        // the expiry index shares the client id instance of the state index
+        final String indexKey = stateIndex.put(bucketIndex, clientId, clientSession, timestamp);
+        expiryIndex.put(bucketIndex, indexKey, clientSession, timestamp);
+    }
+
+    @Override
+    public long getNextExpiry(final int bucketIndex) {
+        return expiryIndex.getNextDeadline(bucketIndex);
     }
 
     @Override
@@ -559,7 +626,7 @@ public class ClientSessionXodusLocalPersistence extends XodusLocalPersistence im
 
         final Bucket bucket = buckets[bucketIndex];
 
-        return bucket.getEnvironment().computeInReadonlyTransaction(txn -> {
+        return bucket.computeInReadonlyTransaction(txn -> {
 
             final Set<String> collectSet = new HashSet<>();
             try (final Cursor cursor = bucket.getStore().openCursor(txn)) {
@@ -593,7 +660,7 @@ public class ClientSessionXodusLocalPersistence extends XodusLocalPersistence im
     public @NotNull Map<String, PendingWillMessages.PendingWill> getPendingWills(final int bucketIndex) {
         final Bucket bucket = buckets[bucketIndex];
 
-        return bucket.getEnvironment().computeInReadonlyTransaction(txn -> {
+        return bucket.computeInReadonlyTransaction(txn -> {
             final Map<String, PendingWillMessages.PendingWill> resultMap = new HashMap<>();
             try (final Cursor cursor = bucket.getStore().openCursor(txn)) {
                 while (cursor.getNext()) {
@@ -667,6 +734,7 @@ public class ClientSessionXodusLocalPersistence extends XodusLocalPersistence im
     }
 
     private void handleWillPayloads(
+            final @NotNull Bucket bucket,
             final @NotNull Transaction txn,
             final @Nullable ClientSessionWill previousWill,
             final @Nullable ClientSessionWill currentWill) {
@@ -674,17 +742,17 @@ public class ClientSessionXodusLocalPersistence extends XodusLocalPersistence im
         if (previousWill != null && currentWill != null) {
             // When equal we have the payload already.
             if (previousWill.getPublishId() != currentWill.getPublishId()) {
-                txn.setCommitHook(() -> {
+                bucket.setCommitHook(txn, () -> {
                     payloadPersistence.decrementReferenceCounter(previousWill.getPublishId());
                     payloadPersistence.add(currentWill.getPayload(), 1, currentWill.getPublishId());
                 });
             }
         } else {
             if (previousWill != null) {
-                txn.setCommitHook(new RemoveWillReference(previousWill));
+                bucket.setCommitHook(txn, new RemoveWillReference(previousWill));
             }
             if (currentWill != null) {
-                txn.setCommitHook(new AddWillReference(currentWill));
+                bucket.setCommitHook(txn, new AddWillReference(currentWill));
             }
         }
     }
@@ -18,22 +18,25 @@ package com.hivemq.persistence.payload;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.persistence.local.xodus.bucket.BucketUtils;
 
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
-
-import static com.google.common.base.Preconditions.checkNotNull;
+import java.util.concurrent.locks.StampedLock;
 
 /**
+ * Guards the reference counters and the stored payloads of a bucket of payload ids.
+ * <p>
+ * The locks are not reentrant: a callback must not access its own bucket again.
+ * Hot paths should use {@link #lock(int)} and {@link #unlock(int, long)} directly, so they neither allocate a
+ * capturing callback nor box the payload id.
+ *
  * @author Lukas Brandl
  */
 public class BucketLock {
 
-    private final Lock @NotNull [] locks;
+    private final @NotNull StampedLock @NotNull [] locks;
 
     public BucketLock(final int bucketCount) {
-        locks = new Lock[bucketCount];
+        locks = new StampedLock[bucketCount];
         for (int i = 0; i < bucketCount; i++) {
-            locks[i] = new ReentrantLock();
+            locks[i] = new StampedLock();
         }
     }
 
@@ -43,22 +46,43 @@ public class BucketLock {
     }
 
 
-    public void accessBucketByPaloadId(final @NotNull long payloadId, final @NotNull BucketAccessCallback callback) {
-        checkNotNull(payloadId);
-        final int index = BucketUtils.getBucket(Long.toString(payloadId), locks.length);
-        accessBucket(index, callback);
+    public void accessBucketByPaloadId(final long payloadId, final @NotNull BucketAccessCallback callback) {
+        accessBucket(getBucketIndex(payloadId), callback);
+    }
+
+    public int getBucketIndex(final long payloadId) {
+        return BucketUtils.getBucket(payloadId, locks.length);
     }
 
     public void accessBucket(final int index, final @NotNull BucketAccessCallback callback) {
-        final Lock lock = locks[index];
-        lock.lock();
+        final long stamp = lock(index);
         try {
             callback.call();
         } finally {
-            lock.unlock();
+            unlock(index, stamp);
         }
     }
 
+    /**
+     * Acquires the exclusive lock of a bucket.
+     *
+     * @param index the index of the bucket
+     * @return the stamp that must be passed to {@link #unlock(int, long)}
+     */
+    public long lock(final int index) {
+        return locks[index].writeLock();
+    }
+
+    /**
+     * Releases the exclusive lock of a bucket.
+     *
+     * @param index the index of the bucket
+     * @param stamp the stamp returned by {@link #lock(int)}
+     */
+    public void unlock(final int index, final long stamp) {
+        locks[index].unlockWrite(stamp);
+    }
+
     @FunctionalInterface
     interface BucketAccessCallback {
         void call();
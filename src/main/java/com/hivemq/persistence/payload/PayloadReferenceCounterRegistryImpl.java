@@ -17,12 +17,10 @@ package com.hivemq.persistence.payload;
 
 import com.google.common.collect.ImmutableMap;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
-import com.hivemq.persistence.local.xodus.bucket.BucketUtils;
 import org.eclipse.collections.api.tuple.primitive.LongIntPair;
 import org.eclipse.collections.impl.map.mutable.primitive.LongIntHashMap;
 
 import javax.annotation.concurrent.NotThreadSafe;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author Daniel Krüger
@@ -103,17 +101,20 @@ public class PayloadReferenceCounterRegistryImpl implements PayloadReferenceCoun
 
     @Override
     public int size() {
-        final AtomicInteger sum = new AtomicInteger();
+        int sum = 0;
         for (int i = 0; i < buckets.length; i++) {
-            final int bucketIndex = i;
-            bucketLock.accessBucket(bucketIndex, () ->
-                    sum.addAndGet(buckets[bucketIndex].size())
-            );
+            final long stamp = bucketLock.lock(i);
+            try {
+                sum += buckets[i].size();
+            } finally {
+                bucketLock.unlock(i, stamp);
+            }
         }
-        return sum.get();
+        return sum;
     }
 
     private int bucketIndexForPayloadId(final long payloadId) {
-        return BucketUtils.getBucket(Long.toString(payloadId), buckets.length);
+        // Must match the bucket of the lock that the caller holds.
+        return bucketLock.getBucketIndex(payloadId);
     }
 }
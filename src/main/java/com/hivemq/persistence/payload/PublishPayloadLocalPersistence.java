@@ -20,6 +20,8 @@ import com.google.common.collect.ImmutableList;
 import com.hivemq.annotations.ReadOnly;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.extension.sdk.api.annotations.Nullable;
+import org.eclipse.collections.api.list.primitive.LongList;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
 
 /**
  * @author Lukas Brandl
@@ -56,6 +58,27 @@ public interface PublishPayloadLocalPersistence {
      */
     void remove(long id);
 
+    /**
+     * Remove the payloads for multiple ids.
+     * <p>
+     * Implementations should remove all ids that belong to the same bucket in a single write. If the write of a bucket
+     * fails, none of its ids are removed and they are returned, so the caller can retry them.
+     *
+     * @param ids The payload ids.
+     * @return the ids that could not be removed, empty if all payloads were removed.
+     */
+    default @NotNull LongList removeAll(final @NotNull LongList ids) {
+        final LongArrayList notRemoved = new LongArrayList();
+        for (int i = 0; i < ids.size(); i++) {
+            try {
+                remove(ids.get(i));
+            } catch (final Exception e) {
+                notRemoved.add(ids.get(i));
+            }
+        }
+        return notRemoved;
+    }
+
     /**
      * @return all payload ids as a readonly list.
      */
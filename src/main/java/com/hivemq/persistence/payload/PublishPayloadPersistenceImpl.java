@@ -15,6 +15,9 @@
  */
 package com.hivemq.persistence.payload;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.ListenableScheduledFuture;
@@ -24,6 +27,7 @@ import com.hivemq.bootstrap.ioc.lazysingleton.LazySingleton;
 import com.hivemq.configuration.service.InternalConfigurations;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.extension.sdk.api.annotations.Nullable;
+import com.hivemq.metrics.HiveMQMetrics;
 import com.hivemq.mqtt.message.publish.PUBLISH;
 import com.hivemq.persistence.ioc.annotation.PayloadPersistence;
 import org.slf4j.Logger;
@@ -32,6 +36,7 @@ import org.slf4j.LoggerFactory;
 import java.util.Queue;
 import java.util.concurrent.LinkedTransferQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.hivemq.persistence.payload.PayloadReferenceCounterRegistry.REF_COUNT_ALREADY_ZERO;
@@ -55,12 +60,15 @@ public class PublishPayloadPersistenceImpl implements PublishPayloadPersistence
 
     private final @NotNull Queue<RemovablePayload> removablePayloads = new LinkedTransferQueue<>();
     private final @NotNull PayloadReferenceCounterRegistry payloadReferenceCounterRegistry;
+    private final @NotNull AtomicLong removablePayloadsBacklog = new AtomicLong();
+    private final @NotNull Histogram cleanupLag;
 
     private @Nullable ListenableScheduledFuture<?> removeTaskFuture;
 
     @Inject
     PublishPayloadPersistenceImpl(final @NotNull PublishPayloadLocalPersistence localPersistence,
-                                  final @NotNull @PayloadPersistence ListeningScheduledExecutorService scheduledExecutorService) {
+                                  final @NotNull @PayloadPersistence ListeningScheduledExecutorService scheduledExecutorService,
+                                  final @NotNull MetricRegistry metricRegistry) {
         this.localPersistence = localPersistence;
         this.scheduledExecutorService = scheduledExecutorService;
 
@@ -68,6 +76,10 @@ public class PublishPayloadPersistenceImpl implements PublishPayloadPersistence
         int bucketLockCount = InternalConfigurations.PAYLOAD_PERSISTENCE_BUCKET_COUNT.get();
         bucketLock = new BucketLock(bucketLockCount);
         payloadReferenceCounterRegistry = new PayloadReferenceCounterRegistryImpl(bucketLock);
+
+        metricRegistry.register(HiveMQMetrics.PAYLOAD_PERSISTENCE_CLEANUP_BACKLOG.name(),
+                (Gauge<Long>) removablePayloadsBacklog::get);
+        cleanupLag = metricRegistry.histogram(HiveMQMetrics.PAYLOAD_PERSISTENCE_CLEANUP_LAG.name());
     }
 
     // The payload persistence has to be initialized after the other persistence bootstraps are finished.
@@ -84,18 +96,23 @@ public class PublishPayloadPersistenceImpl implements PublishPayloadPersistence
             if (!scheduledExecutorService.isShutdown()) {
                 removeTaskFuture = scheduledExecutorService.scheduleAtFixedRate(
                         new RemoveEntryTask(localPersistence, bucketLock, removablePayloads, removeDelay,
-                                payloadReferenceCounterRegistry, taskSchedule), initialSchedule, taskSchedule, TimeUnit.MILLISECONDS);
+                                payloadReferenceCounterRegistry, taskSchedule, removablePayloadsBacklog, cleanupLag),
+                        initialSchedule, taskSchedule, TimeUnit.MILLISECONDS);
             }
         }
     }
 
     public boolean add(final byte @NotNull [] payload, final long referenceCount, final long payloadId) {
         checkNotNull(payload, "Payload must not be null");
-        bucketLock.accessBucketByPaloadId(payloadId, () -> {
+        final int bucketIndex = bucketLock.getBucketIndex(payloadId);
+        final long stamp = bucketLock.lock(bucketIndex);
+        try {
             if (payloadReferenceCounterRegistry.getAndIncrementBy(payloadId, (int) referenceCount) == UNKNOWN_PAYLOAD) {
                 localPersistence.put(payloadId, payload);
             }
-        });
+        } finally {
+            bucketLock.unlock(bucketIndex, stamp);
+        }
         return true;
     }
 
@@ -136,7 +153,10 @@ public class PublishPayloadPersistenceImpl implements PublishPayloadPersistence
      */
     @Override
     public void decrementReferenceCounter(final long id) {
-        bucketLock.accessBucketByPaloadId(id, () -> {
+        // This is called for every delivered message, so the bucket is locked directly instead of via a callback.
+        final int bucketIndex = bucketLock.getBucketIndex(id);
+        final long stamp = bucketLock.lock(bucketIndex);
+        try {
             final int result = payloadReferenceCounterRegistry.decrementAndGet(id);
             if (result == UNKNOWN_PAYLOAD || result == REF_COUNT_ALREADY_ZERO) {
                 log.warn("Tried to decrement a payload reference counter ({}) that was already zero.", id);
@@ -155,9 +175,12 @@ public class PublishPayloadPersistenceImpl implements PublishPayloadPersistence
                 }
             } else if (result == 0) {
                 //Note: We'll remove the reference counter entry  in the cleanup
+                removablePayloadsBacklog.incrementAndGet();
                 removablePayloads.add(new RemovablePayload(id, System.currentTimeMillis()));
             }
-        });
+        } finally {
+            bucketLock.unlock(bucketIndex, stamp);
+        }
     }
 
     @Override
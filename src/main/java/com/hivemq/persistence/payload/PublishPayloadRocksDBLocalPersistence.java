@@ -29,6 +29,8 @@ import com.hivemq.mqtt.message.publish.PUBLISH;
 import com.hivemq.persistence.PersistenceStartup;
 import com.hivemq.persistence.local.rocksdb.RocksDBLocalPersistence;
 import com.hivemq.util.LocalPersistenceFileUtil;
+import org.eclipse.collections.api.list.primitive.LongList;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
 import org.rocksdb.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,6 +51,7 @@ public class PublishPayloadRocksDBLocalPersistence extends RocksDBLocalPersisten
     @VisibleForTesting
     static final Logger log = LoggerFactory.getLogger(PublishPayloadRocksDBLocalPersistence.class);
     private final FlushOptions FLUSH_OPTIONS = new FlushOptions().setAllowWriteStall(true); // must not be gc´d
+    private final WriteOptions WRITE_OPTIONS = new WriteOptions(); // must not be gc´d
 
     public static final String PERSISTENCE_VERSION = "040500_R";
     private final long memtableSize;
@@ -206,6 +209,39 @@ public class PublishPayloadRocksDBLocalPersistence extends RocksDBLocalPersisten
         }
     }
 
+    @Override
+    public @NotNull LongList removeAll(final @NotNull LongList ids) {
+        if (stopped.get() || ids.isEmpty()) {
+            return ids;
+        }
+        final LongArrayList[] idsPerBucket = new LongArrayList[buckets.length];
+        for (int i = 0; i < ids.size(); i++) {
+            final long id = ids.get(i);
+            final int bucketIndex = getBucketIndex(Long.toString(id));
+            if (idsPerBucket[bucketIndex] == null) {
+                idsPerBucket[bucketIndex] = new LongArrayList();
+            }
+            idsPerBucket[bucketIndex].add(id);
+        }
+        final LongArrayList notRemoved = new LongArrayList();
+        for (int i = 0; i < idsPerBucket.length; i++) {
+            final LongArrayList bucketIds = idsPerBucket[i];
+            if (bucketIds == null) {
+                continue;
+            }
+            try (final WriteBatch batch = new WriteBatch()) {
+                for (int j = 0; j < bucketIds.size(); j++) {
+                    batch.delete(serializeKey(bucketIds.get(j)));
+                }
+                buckets[i].write(WRITE_OPTIONS, batch);
+            } catch (final RocksDBException e) {
+                log.error("Could not delete payloads because of an exception: ", e);
+                notRemoved.addAll(bucketIds);
+            }
+        }
+        return notRemoved;
+    }
+
     @Override
     public void iterate(final @NotNull Callback callback) {
         for (final RocksDB bucket : buckets) {
@@ -29,12 +29,16 @@ import com.hivemq.persistence.PersistenceStartup;
 import com.hivemq.persistence.local.xodus.EnvironmentUtil;
 import com.hivemq.persistence.local.xodus.XodusLocalPersistence;
 import com.hivemq.persistence.local.xodus.bucket.Bucket;
+import com.hivemq.persistence.local.xodus.bucket.BucketUtils;
 import com.hivemq.util.LocalPersistenceFileUtil;
 import jetbrains.exodus.ByteIterable;
 import jetbrains.exodus.ExodusException;
 import jetbrains.exodus.env.Cursor;
 import jetbrains.exodus.env.StoreConfig;
+import jetbrains.exodus.env.Transaction;
 import jetbrains.exodus.env.TransactionalComputable;
+import org.eclipse.collections.api.list.primitive.LongList;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -234,14 +238,50 @@ public class PublishPayloadXodusLocalPersistence extends XodusLocalPersistence
             return;
         }
         final Bucket bucket = getBucket(Long.toString(id));
-        bucket.getEnvironment().executeInTransaction(txn -> {
+        bucket.getEnvironment().executeInTransaction(txn -> removeChunks(bucket, txn, id));
+    }
 
-            int chunkIndex = 0;
-            boolean deleted = true;
-            while (deleted) {
-                deleted = bucket.getStore().delete(txn, bytesToByteIterable(serializer.serializeKey(id, chunkIndex++)));
+    @Override
+    public @NotNull LongList removeAll(final @NotNull LongList ids) {
+        if (stopped.get() || ids.isEmpty()) {
+            return ids;
+        }
+        final LongArrayList[] idsPerBucket = new LongArrayList[bucketCount];
+        final LongArrayList notRemoved = new LongArrayList();
+        for (int i = 0; i < ids.size(); i++) {
+            final long id = ids.get(i);
+            final int bucketIndex = BucketUtils.getBucket(Long.toString(id), bucketCount);
+            if (idsPerBucket[bucketIndex] == null) {
+                idsPerBucket[bucketIndex] = new LongArrayList();
             }
-        });
+            idsPerBucket[bucketIndex].add(id);
+        }
+        for (int i = 0; i < idsPerBucket.length; i++) {
+            final LongArrayList bucketIds = idsPerBucket[i];
+            if (bucketIds == null) {
+                continue;
+            }
+            final Bucket bucket = buckets[i];
+            try {
+                bucket.getEnvironment().executeInTransaction(txn -> {
+                    for (int j = 0; j < bucketIds.size(); j++) {
+                        removeChunks(bucket, txn, bucketIds.get(j));
+                    }
+                });
+            } catch (final ExodusException e) {
+                log.error("Could not delete payloads because of an exception: ", e);
+                notRemoved.addAll(bucketIds);
+            }
+        }
+        return notRemoved;
+    }
+
+    private void removeChunks(final @NotNull Bucket bucket, final @NotNull Transaction txn, final long id) {
+        int chunkIndex = 0;
+        boolean deleted = true;
+        while (deleted) {
+            deleted = bucket.getStore().delete(txn, bytesToByteIterable(serializer.serializeKey(id, chunkIndex++)));
+        }
     }
 
     @Override
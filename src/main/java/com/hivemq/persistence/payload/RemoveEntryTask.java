@@ -15,14 +15,25 @@
  */
 package com.hivemq.persistence.payload;
 
+import com.codahale.metrics.Histogram;
+import com.hivemq.configuration.service.InternalConfigurations;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.util.Exceptions;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * Removes payloads that are not referenced anymore from the payload persistence.
+ * <p>
+ * Expired payloads are collected per bucket and removed in batches of up to
+ * {@link InternalConfigurations#PAYLOAD_PERSISTENCE_CLEANUP_BATCH_SIZE}, so the local persistence can remove all
+ * payloads of a batch in a single write.
+ *
  * @author Lukas Brandl
  */
 class RemoveEntryTask implements Runnable {
@@ -33,6 +44,9 @@ class RemoveEntryTask implements Runnable {
     private final long removeDelay;
     private final @NotNull PayloadReferenceCounterRegistry payloadReferenceCounterRegistry;
     private final long taskMaxDuration;
+    private final @NotNull AtomicLong backlog;
+    private final @NotNull Histogram cleanupLag;
+    private final int batchSize;
 
     RemoveEntryTask(
             final @NotNull PublishPayloadLocalPersistence localPersistence,
@@ -40,35 +54,41 @@ class RemoveEntryTask implements Runnable {
             final @NotNull Queue<RemovablePayload> removablePayloads,
             final long removeDelay,
             final @NotNull PayloadReferenceCounterRegistry payloadReferenceCounterRegistry,
-            final long taskMaxDuration) {
+            final long taskMaxDuration,
+            final @NotNull AtomicLong backlog,
+            final @NotNull Histogram cleanupLag) {
         this.localPersistence = localPersistence;
         this.bucketLock = bucketLock;
         this.removablePayloads = removablePayloads;
         this.removeDelay = removeDelay;
         this.payloadReferenceCounterRegistry = payloadReferenceCounterRegistry;
         this.taskMaxDuration = taskMaxDuration;
+        this.backlog = backlog;
+        this.cleanupLag = cleanupLag;
+        this.batchSize = Math.max(1, InternalConfigurations.PAYLOAD_PERSISTENCE_CLEANUP_BATCH_SIZE.get());
     }
 
     @Override
     public void run() {
+        final List<RemovablePayload> notRemovedPayloads = new ArrayList<>();
+        //noinspection unchecked
+        final List<RemovablePayload>[] batches = new List[bucketLock.getBucketCount()];
         try {
-            final List<RemovablePayload> notRemovedPayloads = new ArrayList<>();
             RemovablePayload removablePayload = removablePayloads.poll();
             final long startTime = System.currentTimeMillis();
             while (removablePayload != null) {
                 if (System.currentTimeMillis() - removablePayload.getTimestamp() > removeDelay
                 && removablePayload.inProgress.compareAndSet(false, true)) {
-                    final long payloadId = removablePayload.getId();
-                    bucketLock.accessBucketByPaloadId(removablePayload.getId(), () -> {
-                        final int referenceCount = payloadReferenceCounterRegistry.get(payloadId);
-                        // The reference count can be UNKNOWN_PAYLOAD, if it was marked as removable twice.
-                        // This is possible if a payload is marked as removable, and we receive the same payload again
-                        // and mark it as removable again before the cleanup is able to remove the payload.
-                        if (referenceCount == 0) {
-                            localPersistence.remove(payloadId);
-                            payloadReferenceCounterRegistry.remove(payloadId);
-                        }
-                    });
+                    final int bucketIndex = bucketLock.getBucketIndex(removablePayload.getId());
+                    List<RemovablePayload> batch = batches[bucketIndex];
+                    if (batch == null) {
+                        batch = new ArrayList<>();
+                        batches[bucketIndex] = batch;
+                    }
+                    batch.add(removablePayload);
+                    if (batch.size() >= batchSize) {
+                        removeBatch(bucketIndex, batch, notRemovedPayloads);
+                    }
                 } else {
                     notRemovedPayloads.add(removablePayload);
                 }
@@ -77,9 +97,68 @@ class RemoveEntryTask implements Runnable {
                 }
                 removablePayload = removablePayloads.poll();
             }
-            removablePayloads.addAll(notRemovedPayloads);
+            for (int i = 0; i < batches.length; i++) {
+                if (batches[i] != null && !batches[i].isEmpty()) {
+                    removeBatch(i, batches[i], notRemovedPayloads);
+                }
+            }
         } catch (final Throwable t) {
             Exceptions.rethrowError("Exception during payload cleanup. ", t);
+        } finally {
+            // Payloads of batches that could not be removed are retried by the next run.
+            for (final List<RemovablePayload> batch : batches) {
+                if (batch != null) {
+                    for (final RemovablePayload payload : batch) {
+                        payload.inProgress.set(false);
+                        notRemovedPayloads.add(payload);
+                    }
+                }
+            }
+            removablePayloads.addAll(notRemovedPayloads);
+        }
+    }
+
+    private void removeBatch(
+            final int bucketIndex,
+            final @NotNull List<RemovablePayload> batch,
+            final @NotNull List<RemovablePayload> notRemovedPayloads) {
+        final LongHashSet failedPayloadIds = new LongHashSet();
+        bucketLock.accessBucket(bucketIndex, () -> {
+            final LongArrayList payloadIds = new LongArrayList(batch.size());
+            final LongHashSet uniquePayloadIds = new LongHashSet(batch.size());
+            for (final RemovablePayload payload : batch) {
+                final long payloadId = payload.getId();
+                // The reference count can be UNKNOWN_PAYLOAD, if it was marked as removable twice.
+                // This is possible if a payload is marked as removable, and we receive the same payload again
+                // and mark it as removable again before the cleanup is able to remove the payload.
+                if (payloadReferenceCounterRegistry.get(payloadId) == 0 && uniquePayloadIds.add(payloadId)) {
+                    payloadIds.add(payloadId);
+                }
+            }
+            if (!payloadIds.isEmpty()) {
+                failedPayloadIds.addAll(localPersistence.removeAll(payloadIds));
+                for (int i = 0; i < payloadIds.size(); i++) {
+                    final long payloadId = payloadIds.get(i);
+                    // The reference counter of a payload that is still stored must be kept for the retry.
+                    if (!failedPayloadIds.contains(payloadId)) {
+                        payloadReferenceCounterRegistry.remove(payloadId);
+                    }
+                }
+            }
+        });
+        final long now = System.currentTimeMillis();
+        int removed = 0;
+        for (final RemovablePayload payload : batch) {
+            if (failedPayloadIds.contains(payload.getId())) {
+                // Payloads that could not be removed stay in the backlog and are retried by the next run.
+                payload.inProgress.set(false);
+                notRemovedPayloads.add(payload);
+            } else {
+                cleanupLag.update(Math.max(0, now - payload.getTimestamp() - removeDelay));
+                removed++;
+            }
         }
+        backlog.addAndGet(-removed);
+        batch.clear();
     }
 }
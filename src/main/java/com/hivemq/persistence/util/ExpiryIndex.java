@@ -0,0 +1,160 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.util;
+
+import com.google.common.collect.ImmutableList;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * A min-heap of keys ordered by a deadline, used to find the entries of a persistence bucket that expired without
+ * iterating the whole bucket.
+ * <p>
+ * Every key has at most one deadline. Changing the deadline of a key does not remove its previous heap entry, outdated
+ * entries are skipped when they are polled and dropped by a compaction once they outnumber the current ones.
+ * <p>
+ * This class is not thread safe, it must only be accessed by the single writer thread of its bucket.
+ *
+ * @param <K> the type of the keys
+ */
+public class ExpiryIndex<K> {
+
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private static final int MIN_COMPACTION_SIZE = 64;
+
+    private final @NotNull PriorityQueue<Deadline<K>> deadlines =
+            new PriorityQueue<>(Comparator.comparingLong(deadline -> deadline.deadline));
+    private final @NotNull Map<K, Long> scheduled = new HashMap<>();
+
+    /**
+     * Sets the deadline of the key, if no earlier deadline is set for the key already.
+     *
+     * @param key      the key.
+     * @param deadline the point in time in milliseconds when the key expires or {@link #NO_DEADLINE}.
+     */
+    public void schedule(final @NotNull K key, final long deadline) {
+        if (deadline == NO_DEADLINE) {
+            return;
+        }
+        final Long current = scheduled.get(key);
+        if (current != null && current <= deadline) {
+            return;
+        }
+        add(key, deadline);
+    }
+
+    /**
+     * Sets the deadline of the key, replacing any deadline that was set for the key before.
+     *
+     * @param key      the key.
+     * @param deadline the point in time in milliseconds when the key expires or {@link #NO_DEADLINE} to remove the
+     *                 key.
+     */
+    public void update(final @NotNull K key, final long deadline) {
+        if (deadline == NO_DEADLINE) {
+            remove(key);
+            return;
+        }
+        final Long current = scheduled.get(key);
+        if (current != null && current == deadline) {
+            return;
+        }
+        add(key, deadline);
+    }
+
+    public void remove(final @NotNull K key) {
+        scheduled.remove(key);
+    }
+
+    /**
+     * Removes all keys with a deadline that is not after the given point in time.
+     *
+     * @param now the current time in milliseconds.
+     * @return the expired keys in the order of their deadlines.
+     */
+    public @NotNull ImmutableList<K> pollExpired(final long now) {
+        return pollExpired(now, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Removes at most the given amount of keys with a deadline that is not after the given point in time.
+     *
+     * @param now the current time in milliseconds.
+     * @param max the maximum amount of keys to remove.
+     * @return the expired keys in the order of their deadlines.
+     */
+    public @NotNull ImmutableList<K> pollExpired(final long now, final int max) {
+        final ImmutableList.Builder<K> expired = ImmutableList.builder();
+        int count = 0;
+        Deadline<K> next = deadlines.peek();
+        while (next != null && next.deadline <= now && count < max) {
+            deadlines.poll();
+            final Long current = scheduled.get(next.key);
+            // outdated entries of keys that were removed or got a different deadline are skipped
+            if (current != null && current == next.deadline) {
+                scheduled.remove(next.key);
+                expired.add(next.key);
+                count++;
+            }
+            next = deadlines.peek();
+        }
+        return expired.build();
+    }
+
+    /**
+     * @return the earliest deadline or {@link #NO_DEADLINE} if no key has a deadline. May be earlier than the earliest
+     *         current deadline if the deadline of a key was changed.
+     */
+    public long nextDeadline() {
+        final Deadline<K> next = deadlines.peek();
+        return next == null ? NO_DEADLINE : next.deadline;
+    }
+
+    public int size() {
+        return scheduled.size();
+    }
+
+    public void clear() {
+        deadlines.clear();
+        scheduled.clear();
+    }
+
+    private void add(final @NotNull K key, final long deadline) {
+        scheduled.put(key, deadline);
+        deadlines.add(new Deadline<>(key, deadline));
+        if (deadlines.size() > MIN_COMPACTION_SIZE && deadlines.size() > scheduled.size() * 2) {
+            deadlines.clear();
+            scheduled.forEach((scheduledKey, scheduledDeadline) ->
+                    deadlines.add(new Deadline<>(scheduledKey, scheduledDeadline)));
+        }
+    }
+
+    private static class Deadline<K> {
+
+        private final @NotNull K key;
+        private final long deadline;
+
+        Deadline(final @NotNull K key, final long deadline) {
+            this.key = key;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -16,22 +16,33 @@
 
 package com.hivemq.security.ssl;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.hivemq.bootstrap.ioc.lazysingleton.LazySingleton;
 import com.hivemq.configuration.service.entity.Tls;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.security.exception.SslException;
 import io.netty.handler.ssl.ClientAuth;
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.OpenSslServerContext;
+import io.netty.handler.ssl.OpenSslSessionTicketKey;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.handler.ssl.SslProvider;
 import io.netty.handler.ssl.SupportedCipherSuiteFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.net.ssl.SSLException;
+import java.security.SecureRandom;
 import java.util.List;
 
 @LazySingleton
 public class SslContextFactory {
 
+    private static final @NotNull Logger log = LoggerFactory.getLogger(SslContextFactory.class);
+
+    private final @NotNull SecureRandom secureRandom = new SecureRandom();
+
     /**
      * Creates a new {@link SslContext} according to the information stored in the {@link Tls} object
      *
@@ -42,7 +53,7 @@ public class SslContextFactory {
     public @NotNull SslContext createSslContext(final @NotNull Tls tls) {
         try {
             final SslContextBuilder builder = SslContextBuilder.forServer(SslUtil.getKeyManagerFactory(tls))
-                    .sslProvider(SslProvider.JDK)
+                    .sslProvider(toSslProvider(tls.getProvider()))
                     .trustManager(SslUtil.getTrustManagerFactory(tls))
                     .clientAuth(toClientAuth(tls.getClientAuthMode()));
 
@@ -58,12 +69,57 @@ public class SslContextFactory {
                 builder.ciphers(null, SupportedCipherSuiteFilter.INSTANCE);
             }
 
-            return builder.build();
+            if (tls.getSessionCacheSize() > 0) {
+                builder.sessionCacheSize(tls.getSessionCacheSize());
+            }
+            if (tls.getSessionTimeout() > 0) {
+                builder.sessionTimeout(tls.getSessionTimeout());
+            }
+
+            final SslContext sslContext = builder.build();
+            if (tls.isSessionTicketsEnabled() && sslContext instanceof OpenSslServerContext) {
+                // OpenSSL contexts of netty only accept session tickets if ticket keys are set
+                ((OpenSslServerContext) sslContext).sessionContext().setTicketKeys(newTicketKey());
+            }
+            return sslContext;
         } catch (final SSLException e) {
             throw new SslException("Not able to create SSL server context", e);
         }
     }
 
+    /**
+     * @param provider the configured TLS implementation
+     * @return the TLS implementation to use, OpenSSL is only used if netty-tcnative is available
+     */
+    @VisibleForTesting
+    static @NotNull SslProvider toSslProvider(final @NotNull Tls.Provider provider) {
+        switch (provider) {
+            case OPENSSL:
+                if (OpenSsl.isAvailable()) {
+                    return SslProvider.OPENSSL;
+                }
+                log.warn("The OpenSSL TLS provider is not available, falling back to the JDK TLS provider. Reason: {}",
+                        OpenSsl.unavailabilityCause().getMessage());
+                log.debug("Original exception", OpenSsl.unavailabilityCause());
+                return SslProvider.JDK;
+            case AUTO:
+                return OpenSsl.isAvailable() ? SslProvider.OPENSSL : SslProvider.JDK;
+            case JDK:
+            default:
+                return SslProvider.JDK;
+        }
+    }
+
+    private @NotNull OpenSslSessionTicketKey newTicketKey() {
+        final byte[] name = new byte[OpenSslSessionTicketKey.NAME_SIZE];
+        final byte[] hmacKey = new byte[OpenSslSessionTicketKey.HMAC_KEY_SIZE];
+        final byte[] aesKey = new byte[OpenSslSessionTicketKey.AES_KEY_SIZE];
+        secureRandom.nextBytes(name);
+        secureRandom.nextBytes(hmacKey);
+        secureRandom.nextBytes(aesKey);
+        return new OpenSslSessionTicketKey(name, hmacKey, aesKey);
+    }
+
     private static @NotNull ClientAuth toClientAuth(final @NotNull Tls.ClientAuthMode clientAuthMode) {
         switch (clientAuthMode) {
             case NONE:
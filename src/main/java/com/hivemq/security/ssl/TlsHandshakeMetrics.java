@@ -0,0 +1,77 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.security.ssl;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.codahale.metrics.Timer;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.metrics.HiveMQMetrics;
+import io.netty.handler.ssl.SslHandler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the TLS handshakes of a listener: the amount of successful, failed and resumed handshakes, the ratio of
+ * resumed handshakes and the duration of the handshakes.
+ */
+public class TlsHandshakeMetrics {
+
+    private final @NotNull Counter handshakeCounter;
+    private final @NotNull Counter failedHandshakeCounter;
+    private final @NotNull Counter resumedHandshakeCounter;
+    private final @NotNull Timer handshakeTimer;
+
+    public TlsHandshakeMetrics(final @NotNull MetricRegistry metricRegistry, final @NotNull String listenerName) {
+        handshakeCounter = metricRegistry.counter(
+                String.format(HiveMQMetrics.TLS_HANDSHAKE_COUNT_NAME_FORMAT, listenerName));
+        failedHandshakeCounter = metricRegistry.counter(
+                String.format(HiveMQMetrics.TLS_HANDSHAKE_FAILED_COUNT_NAME_FORMAT, listenerName));
+        resumedHandshakeCounter = metricRegistry.counter(
+                String.format(HiveMQMetrics.TLS_HANDSHAKE_RESUMED_COUNT_NAME_FORMAT, listenerName));
+        handshakeTimer = metricRegistry.timer(String.format(HiveMQMetrics.TLS_HANDSHAKE_TIME_NAME_FORMAT, listenerName));
+        final String ratioName = String.format(HiveMQMetrics.TLS_HANDSHAKE_RESUMPTION_RATIO_NAME_FORMAT, listenerName);
+        metricRegistry.gauge(ratioName, () -> new RatioGauge() {
+            @Override
+            protected @NotNull Ratio getRatio() {
+                return Ratio.of(resumedHandshakeCounter.getCount(), handshakeCounter.getCount());
+            }
+        });
+    }
+
+    /**
+     * Measures the handshake of the SSL handler, which must not have started yet.
+     *
+     * @param sslHandler the SSL handler of a channel.
+     */
+    public void track(final @NotNull SslHandler sslHandler) {
+        final long startNanos = System.nanoTime();
+        final long startMillis = System.currentTimeMillis();
+        sslHandler.handshakeFuture().addListener(future -> {
+            if (!future.isSuccess()) {
+                failedHandshakeCounter.inc();
+                return;
+            }
+            handshakeTimer.update(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            handshakeCounter.inc();
+            // a resumed session was created by the handshake of a previous connection
+            if (sslHandler.engine().getSession().getCreationTime() < startMillis) {
+                resumedHandshakeCounter.inc();
+            }
+        });
+    }
+}
@@ -77,20 +77,14 @@ public class Strings {
             return null;
         }
 
-        final byte[] bytes = new byte[utf8StringLength];
-
-        buf.getBytes(buf.readerIndex(), bytes);
-
-        if (Utf8Utils.containsMustNotCharacters(bytes)) {
-            return null;
-        }
-
-        if (validateShouldNotCharacters && Utf8Utils.hasControlOrNonCharacter(bytes)) {
+        final String string =
+                Utf8Utils.decodeValidated(buf, buf.readerIndex(), utf8StringLength, validateShouldNotCharacters);
+        if (string == null) {
             return null;
         }
-        //The ByteBuf.getBytes method, doesn't move the read index, therefor we have to do this manually.
+        //Utf8Utils.decodeValidated doesn't move the read index, therefor we have to do this manually.
         buf.skipBytes(utf8StringLength);
-        return new String(bytes, UTF_8);
+        return string;
     }
 
     /**
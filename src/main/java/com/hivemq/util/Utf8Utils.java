@@ -16,16 +16,63 @@
 package com.hivemq.util;
 
 import com.google.common.base.Preconditions;
-import com.google.common.base.Utf8;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
 import io.netty.buffer.ByteBuf;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * @author Lukas Brandl
  * @author Florian Limpöck
  */
 public class Utf8Utils {
 
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long ONES = 0x0101010101010101L;
+    private static final long SPACES = 0x2020202020202020L;
+    private static final long DELETES = 0x7F7F7F7F7F7F7F7FL;
+
+    /*
+     * UTF-8 validation DFA by Bjoern Hoehrmann (http://bjoern.hoehrmann.de/utf-8/decoder/dfa/).
+     * Every byte is mapped to a character class, the state is the offset of its row in the transition table.
+     */
+    private static final int UTF8_ACCEPT = 0;
+    private static final int UTF8_REJECT = 12;
+    private static final byte @NotNull [] UTF8_CHARACTER_CLASSES = new byte[256];
+    private static final byte @NotNull [] UTF8_TRANSITIONS = {
+            0, 12, 24, 36, 60, 96, 84, 12, 12, 12, 48, 72, //
+            12, 12, 12, 12, 12, 12, 12, 12, 12, 12, 12, 12, //
+            12, 0, 12, 12, 12, 12, 12, 0, 12, 0, 12, 12, //
+            12, 24, 12, 12, 12, 12, 12, 24, 12, 24, 12, 12, //
+            12, 12, 12, 12, 12, 12, 12, 24, 12, 12, 12, 12, //
+            12, 24, 12, 12, 12, 12, 12, 12, 12, 24, 12, 12, //
+            12, 12, 12, 12, 12, 12, 12, 36, 12, 36, 12, 12, //
+            12, 36, 12, 12, 12, 12, 12, 36, 12, 36, 12, 12, //
+            12, 36, 12, 12, 12, 12, 12, 12, 12, 12, 12, 12};
+
+    static {
+        fillCharacterClass(0x80, 0x8F, 1);
+        fillCharacterClass(0x90, 0x9F, 9);
+        fillCharacterClass(0xA0, 0xBF, 7);
+        fillCharacterClass(0xC0, 0xC1, 8);
+        fillCharacterClass(0xC2, 0xDF, 2);
+        fillCharacterClass(0xE0, 0xE0, 10);
+        fillCharacterClass(0xE1, 0xEC, 3);
+        fillCharacterClass(0xED, 0xED, 4);
+        fillCharacterClass(0xEE, 0xEF, 3);
+        fillCharacterClass(0xF0, 0xF0, 11);
+        fillCharacterClass(0xF1, 0xF3, 6);
+        fillCharacterClass(0xF4, 0xF4, 5);
+        fillCharacterClass(0xF5, 0xFF, 8);
+    }
+
+    private static void fillCharacterClass(final int from, final int to, final int characterClass) {
+        for (int i = from; i <= to; i++) {
+            UTF8_CHARACTER_CLASSES[i] = (byte) characterClass;
+        }
+    }
+
     /**
      * This method checks if all the characters in a string can be encode with one byte in UTF-8.
      * It is used check if a string can be written onto a buffer character by character, without actually encoding it.
@@ -318,15 +365,85 @@ public class Utf8Utils {
      * @return whether the binary data contains characters a UTF-8 encoded String must not.
      */
     public static boolean containsMustNotCharacters(@NotNull final byte[] binary) {
-        if (!Utf8.isWellFormed(binary)) {
-            return true;
-        }
+        int state = UTF8_ACCEPT;
         for (final byte b : binary) {
             if (b == 0) {
                 return true;
             }
+            state = UTF8_TRANSITIONS[state + UTF8_CHARACTER_CLASSES[b & 0xFF]];
+            if (state == UTF8_REJECT) {
+                return true;
+            }
         }
-        return false;
+        return state != UTF8_ACCEPT;
+    }
+
+    /**
+     * Decodes a UTF-8 encoded String from the given byte buffer and validates it according to the MQTT specification.
+     * The reader index of the byte buffer is not modified.
+     * <p>
+     * Strings that only consist of ASCII characters are validated 8 bytes at a time directly in the memory of the byte
+     * buffer, without copying them into an intermediate byte array.
+     *
+     * @param byteBuf                     the byte buffer to decode from.
+     * @param index                       the index of the first byte of the String.
+     * @param length                      the length of the UTF-8 encoded String in bytes.
+     * @param validateShouldNotCharacters whether control characters and non characters are invalid.
+     * @return the decoded String or null if it is not valid.
+     */
+    public static @Nullable String decodeValidated(
+            final @NotNull ByteBuf byteBuf, final int index, final int length, final boolean validateShouldNotCharacters) {
+
+        if (isValidAscii(byteBuf, index, length, validateShouldNotCharacters)) {
+            return byteBuf.toString(index, length, StandardCharsets.US_ASCII);
+        }
+        final byte[] bytes = new byte[length];
+        byteBuf.getBytes(index, bytes);
+        if (containsMustNotCharacters(bytes)) {
+            return null;
+        }
+        if (validateShouldNotCharacters && hasControlOrNonCharacter(bytes)) {
+            return null;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return true if the bytes are ASCII characters other than the null character and, if validated, other than
+     *         control characters.
+     */
+    private static boolean isValidAscii(
+            final @NotNull ByteBuf byteBuf, final int index, final int length, final boolean validateShouldNotCharacters) {
+
+        final int end = index + length;
+        int i = index;
+        for (; i + Long.BYTES <= end; i += Long.BYTES) {
+            if (!isValidAscii(byteBuf.getLong(i), validateShouldNotCharacters)) {
+                return false;
+            }
+        }
+        for (; i < end; i++) {
+            final byte b = byteBuf.getByte(i);
+            if (b <= 0 || validateShouldNotCharacters && (b < 0x20 || b == 0x7F)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isValidAscii(final long word, final boolean validateShouldNotCharacters) {
+        if ((word & HIGH_BITS) != 0) {
+            return false;
+        }
+        // as all bytes are ASCII, (word - n * ONES) & ~word has the high bit set for each byte that is less than n
+        if (!validateShouldNotCharacters) {
+            return ((word - ONES) & ~word & HIGH_BITS) == 0;
+        }
+        if (((word - SPACES) & ~word & HIGH_BITS) != 0) {
+            return false;
+        }
+        final long deletes = word ^ DELETES;
+        return ((deletes - ONES) & ~deletes & HIGH_BITS) == 0;
     }
 
     /**
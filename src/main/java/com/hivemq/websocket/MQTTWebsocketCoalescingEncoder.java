@@ -0,0 +1,133 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.websocket;
+
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.extension.sdk.api.annotations.Nullable;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.util.concurrent.PromiseNotifier;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Wraps all MQTT packets that are written to the channel until the next flush into a single binary websocket frame.
+ * <p>
+ * The packets are added to the frame as components of a composite buffer, so they are not copied. A frame is written
+ * early if its payload would exceed the configured maximum frame size.
+ */
+public class MQTTWebsocketCoalescingEncoder extends ChannelOutboundHandlerAdapter {
+
+    private static final int MAX_COMPONENTS = 1024;
+
+    private final int maxFrameSize;
+    private final @NotNull List<ChannelPromise> pendingPromises = new ArrayList<>();
+    private @Nullable CompositeByteBuf pendingContent;
+
+    public MQTTWebsocketCoalescingEncoder(final int maxFrameSize) {
+        this.maxFrameSize = maxFrameSize;
+    }
+
+    @Override
+    public void write(
+            final @NotNull ChannelHandlerContext ctx,
+            final @NotNull Object msg,
+            final @NotNull ChannelPromise promise) {
+
+        if (!(msg instanceof ByteBuf)) {
+            writePending(ctx);
+            ctx.write(msg, promise);
+            return;
+        }
+        final ByteBuf buf = (ByteBuf) msg;
+        if (pendingContent != null && (pendingContent.numComponents() >= MAX_COMPONENTS ||
+                pendingContent.readableBytes() + buf.readableBytes() > maxFrameSize)) {
+            writePending(ctx);
+        }
+        if (pendingContent == null) {
+            pendingContent = ctx.alloc().compositeBuffer(MAX_COMPONENTS);
+        }
+        pendingContent.addComponent(true, buf);
+        if (!promise.isVoid()) {
+            pendingPromises.add(promise);
+        }
+    }
+
+    @Override
+    public void flush(final @NotNull ChannelHandlerContext ctx) {
+        writePending(ctx);
+        ctx.flush();
+    }
+
+    @Override
+    public void disconnect(final @NotNull ChannelHandlerContext ctx, final @NotNull ChannelPromise promise)
+            throws Exception {
+        flush(ctx);
+        ctx.disconnect(promise);
+    }
+
+    @Override
+    public void close(final @NotNull ChannelHandlerContext ctx, final @NotNull ChannelPromise promise)
+            throws Exception {
+        flush(ctx);
+        ctx.close(promise);
+    }
+
+    @Override
+    public void handlerRemoved(final @NotNull ChannelHandlerContext ctx) {
+        if (pendingContent != null) {
+            pendingContent.release();
+            pendingContent = null;
+        }
+        if (!pendingPromises.isEmpty()) {
+            final ClosedChannelException exception = new ClosedChannelException();
+            for (final ChannelPromise promise : pendingPromises) {
+                promise.tryFailure(exception);
+            }
+            pendingPromises.clear();
+        }
+    }
+
+    private void writePending(final @NotNull ChannelHandlerContext ctx) {
+        final CompositeByteBuf content = pendingContent;
+        if (content == null) {
+            return;
+        }
+        pendingContent = null;
+        final BinaryWebSocketFrame frame = new BinaryWebSocketFrame(content);
+
+        switch (pendingPromises.size()) {
+            case 0:
+                ctx.write(frame, ctx.voidPromise());
+                break;
+            case 1:
+                ctx.write(frame, pendingPromises.get(0));
+                break;
+            default:
+                final ChannelPromise[] promises = pendingPromises.toArray(new ChannelPromise[0]);
+                final ChannelFuture future = ctx.write(frame);
+                future.addListener(new PromiseNotifier<Void, ChannelFuture>(promises));
+        }
+        pendingPromises.clear();
+    }
+}
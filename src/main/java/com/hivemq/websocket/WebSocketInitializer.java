@@ -17,12 +17,15 @@ package com.hivemq.websocket;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
+import com.hivemq.configuration.service.InternalConfigurations;
 import com.hivemq.configuration.service.entity.WebsocketListener;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import io.netty.channel.Channel;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketServerExtensionHandler;
+import io.netty.handler.codec.http.websocketx.extensions.compression.PerMessageDeflateServerExtensionHandshaker;
 
 import static com.hivemq.bootstrap.netty.ChannelHandlerNames.*;
 
@@ -43,19 +46,43 @@ public class WebSocketInitializer {
 
     public void addHandlers(final Channel ch, final @NotNull String handlerBefore) {
         ch.pipeline().addAfter(handlerBefore, HTTP_SERVER_CODEC, new HttpServerCodec());
+        // only aggregates the upgrade request, the handshaker removes the aggregator once the handshake is complete,
+        // so the content of binary and continuation frames is passed to the MQTT decoder as it arrives
         ch.pipeline().addAfter(HTTP_SERVER_CODEC, HTTP_OBJECT_AGGREGATOR, new HttpObjectAggregator(WEBSOCKET_MAX_CONTENT_LENGTH));
 
         final String webSocketPath = websocketListener.getPath();
         final String subprotocols = getSubprotocolString();
-        final boolean allowExtensions = websocketListener.getAllowExtensions();
+        final boolean perMessageDeflate = InternalConfigurations.WEBSOCKET_PERMESSAGE_DEFLATE_ENABLED.get();
+        // compressed frames are flagged with the RSV1 bit, which the frame decoder only accepts if extensions are allowed
+        final boolean allowExtensions = websocketListener.getAllowExtensions() || perMessageDeflate;
 
-        ch.pipeline().addAfter(HTTP_OBJECT_AGGREGATOR, WEBSOCKET_SERVER_PROTOCOL_HANDLER, new WebSocketServerProtocolHandler(webSocketPath, subprotocols, allowExtensions, Integer.MAX_VALUE));
+        String protocolHandlerBefore = HTTP_OBJECT_AGGREGATOR;
+        if (perMessageDeflate) {
+            ch.pipeline().addAfter(HTTP_OBJECT_AGGREGATOR, WEBSOCKET_SERVER_COMPRESSION_HANDLER, createCompressionHandler());
+            protocolHandlerBefore = WEBSOCKET_SERVER_COMPRESSION_HANDLER;
+        }
+
+        ch.pipeline().addAfter(protocolHandlerBefore, WEBSOCKET_SERVER_PROTOCOL_HANDLER, new WebSocketServerProtocolHandler(webSocketPath, subprotocols, allowExtensions, Integer.MAX_VALUE));
         ch.pipeline().addAfter(WEBSOCKET_SERVER_PROTOCOL_HANDLER, WEBSOCKET_BINARY_FRAME_HANDLER, new WebSocketBinaryFrameHandler());
         ch.pipeline().addAfter(WEBSOCKET_BINARY_FRAME_HANDLER, WEBSOCKET_CONTINUATION_FRAME_HANDLER, new WebSocketContinuationFrameHandler());
         ch.pipeline().addAfter(WEBSOCKET_BINARY_FRAME_HANDLER, WEBSOCKET_TEXT_FRAME_HANDLER, new WebSocketTextFrameHandler());
 
-        ch.pipeline().addAfter(WEBSOCKET_TEXT_FRAME_HANDLER, MQTT_WEBSOCKET_ENCODER, new MQTTWebsocketEncoder());
+        if (InternalConfigurations.WEBSOCKET_FRAME_COALESCING_ENABLED.get()) {
+            ch.pipeline().addAfter(WEBSOCKET_TEXT_FRAME_HANDLER, MQTT_WEBSOCKET_ENCODER, new MQTTWebsocketCoalescingEncoder(
+                    InternalConfigurations.WEBSOCKET_FRAME_COALESCING_MAX_FRAME_SIZE_BYTES.get()));
+        } else {
+            ch.pipeline().addAfter(WEBSOCKET_TEXT_FRAME_HANDLER, MQTT_WEBSOCKET_ENCODER, new MQTTWebsocketEncoder());
+        }
+
+    }
 
+    private static @NotNull WebSocketServerExtensionHandler createCompressionHandler() {
+        return new WebSocketServerExtensionHandler(new PerMessageDeflateServerExtensionHandshaker(
+                InternalConfigurations.WEBSOCKET_PERMESSAGE_DEFLATE_COMPRESSION_LEVEL.get(),
+                true,
+                InternalConfigurations.WEBSOCKET_PERMESSAGE_DEFLATE_WINDOW_BITS.get(),
+                false,
+                false));
     }
 
     /**
@@ -15,18 +15,27 @@
  */
 package com.hivemq.bootstrap;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.hivemq.bootstrap.netty.ChannelInitializerFactoryImpl;
 import com.hivemq.bootstrap.netty.NettyConfiguration;
+import com.hivemq.bootstrap.netty.NettyTransport;
 import com.hivemq.bootstrap.netty.initializer.AbstractChannelInitializer;
 import com.hivemq.common.shutdown.ShutdownHooks;
 import com.hivemq.configuration.service.entity.*;
 import com.hivemq.configuration.service.impl.listener.ListenerConfigurationService;
+import com.hivemq.metrics.MetricsHolder;
+import com.hivemq.metrics.handler.AcceptorMetricHandler;
 import com.hivemq.persistence.connection.ConnectionPersistence;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
@@ -36,6 +45,7 @@ import util.RandomPortGenerator;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -64,11 +74,14 @@ public class HiveMQNettyBootstrapTest {
 
     private final int randomPort = RandomPortGenerator.get();
 
+    private final MetricsHolder metricsHolder = new MetricsHolder(new MetricRegistry());
+
     @Before
     public void before() {
         MockitoAnnotations.initMocks(this);
         hiveMQNettyBootstrap = new HiveMQNettyBootstrap(shutdownHooks, listenerConfigurationService, channelInitializerFactoryImpl, connectionPersistence,
-                new NettyConfiguration(NioServerSocketChannel.class, NioSocketChannel.class, new NioEventLoopGroup(1), new NioEventLoopGroup(1)));
+                new NettyConfiguration(NioServerSocketChannel.class, NioSocketChannel.class, new NioEventLoopGroup(1), new NioEventLoopGroup(1)),
+                metricsHolder);
 
         when(channelInitializerFactoryImpl.getChannelInitializer(any(Listener.class))).thenReturn(abstractChannelInitializer);
     }
@@ -157,6 +170,38 @@ public class HiveMQNettyBootstrapTest {
         assertTrue(listenableFuture.get().get(3).isSuccessful());
     }
 
+    @Test
+    public void bootstrapServer_whenMultipleAcceptorsWithNio_thenSingleAcceptor() throws Exception {
+
+        setupTcpListener(new TcpListener(randomPort, "127.0.0.1", "tcp-listener",
+                new NativeTransportOptions.Builder().acceptorThreads(4).build()));
+
+        final ListenerStartupInformation startupInformation = hiveMQNettyBootstrap.bootstrapServer().get().get(0);
+
+        assertTrue(startupInformation.isSuccessful());
+        assertEquals(1, startupInformation.getAcceptorThreads());
+        assertNotNull(metricsHolder.getMetricRegistry().getMeters().get(AcceptorMetricHandler.metricName("tcp-listener", 0)));
+    }
+
+    @Test
+    public void bootstrapServer_whenMultipleAcceptorsWithEpoll_thenListenerIsBoundPerAcceptor() throws Exception {
+        Assume.assumeTrue(Epoll.isAvailable());
+
+        hiveMQNettyBootstrap = new HiveMQNettyBootstrap(shutdownHooks, listenerConfigurationService, channelInitializerFactoryImpl, connectionPersistence,
+                new NettyConfiguration(EpollServerSocketChannel.class, EpollSocketChannel.class, new EpollEventLoopGroup(1), new EpollEventLoopGroup(1), NettyTransport.EPOLL),
+                metricsHolder);
+        setupTcpListener(new TcpListener(0, "127.0.0.1", "tcp-listener",
+                new NativeTransportOptions.Builder().acceptorThreads(4).build()));
+
+        final ListenerStartupInformation startupInformation = hiveMQNettyBootstrap.bootstrapServer().get().get(0);
+
+        assertTrue(startupInformation.isSuccessful());
+        assertEquals(4, startupInformation.getAcceptorThreads());
+        for (int acceptor = 0; acceptor < 4; acceptor++) {
+            assertNotNull(metricsHolder.getMetricRegistry().getMeters().get(AcceptorMetricHandler.metricName("tcp-listener", acceptor)));
+        }
+    }
+
     private TlsWebsocketListener createTlsWebsocketListener(final int givenPort) {
         final Tls tls = createDefaultTLS();
         final String bindAddress = "0.0.0.0";
@@ -189,7 +234,11 @@ public class HiveMQNettyBootstrapTest {
     }
 
     private void setupTcpListener(final int givenPort) {
-        final List<TcpListener> tcpListeners = Lists.newArrayList(createTcpListener(givenPort));
+        setupTcpListener(createTcpListener(givenPort));
+    }
+
+    private void setupTcpListener(final TcpListener tcpListener) {
+        final List<TcpListener> tcpListeners = Lists.newArrayList(tcpListener);
         when(listenerConfigurationService.getTcpListeners()).thenReturn(tcpListeners);
     }
 
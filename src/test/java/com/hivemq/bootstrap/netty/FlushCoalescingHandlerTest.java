@@ -0,0 +1,140 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.bootstrap.netty;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.metrics.MetricsHolder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.hivemq.configuration.service.InternalConfigurations.FLUSH_COALESCING_MAX_DELAY_MICROS;
+import static com.hivemq.configuration.service.InternalConfigurations.FLUSH_COALESCING_MAX_PENDING_BYTES;
+import static org.junit.Assert.assertEquals;
+
+public class FlushCoalescingHandlerTest {
+
+    private MetricsHolder metricsHolder;
+    private EmbeddedChannel channel;
+    private int flushCount;
+
+    @Before
+    public void setUp() {
+        metricsHolder = new MetricsHolder(new MetricRegistry());
+        FLUSH_COALESCING_MAX_DELAY_MICROS.set(60_000_000);
+    }
+
+    @After
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+        FLUSH_COALESCING_MAX_PENDING_BYTES.set(64 * 1024);
+        FLUSH_COALESCING_MAX_DELAY_MICROS.set(1000);
+    }
+
+    @Test
+    public void test_flushes_are_coalesced_until_queued_tasks_ran() {
+        createChannel();
+
+        writeAndFlush(10);
+        writeAndFlush(20);
+        writeAndFlush(30);
+
+        assertEquals(0, flushCount);
+
+        channel.runPendingTasks();
+
+        assertEquals(1, flushCount);
+        assertEquals(3, channel.outboundMessages().size());
+        assertEquals(2, metricsHolder.getFlushCoalescingFlushesSavedCounter().getCount());
+        assertEquals(1, metricsHolder.getFlushCoalescingBytesPerFlushHistogram().getCount());
+        assertEquals(60, metricsHolder.getFlushCoalescingBytesPerFlushHistogram().getSnapshot().getMax());
+    }
+
+    @Test
+    public void test_max_pending_bytes_flushes_immediately() {
+        FLUSH_COALESCING_MAX_PENDING_BYTES.set(100);
+        createChannel();
+
+        writeAndFlush(50);
+        assertEquals(0, flushCount);
+
+        writeAndFlush(50);
+        assertEquals(1, flushCount);
+        assertEquals(1, metricsHolder.getFlushCoalescingFlushesSavedCounter().getCount());
+
+        channel.runPendingTasks();
+        assertEquals(1, flushCount);
+    }
+
+    @Test
+    public void test_max_delay_flushes_immediately() {
+        FLUSH_COALESCING_MAX_DELAY_MICROS.set(0);
+        createChannel();
+
+        writeAndFlush(10);
+
+        assertEquals(1, flushCount);
+    }
+
+    @Test
+    public void test_flushes_during_read_are_coalesced_until_read_complete() {
+        createChannel();
+        channel.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+                ctx.writeAndFlush(msg);
+            }
+        });
+
+        channel.writeInbound(Unpooled.buffer().writeZero(10), Unpooled.buffer().writeZero(10));
+
+        assertEquals(1, flushCount);
+        assertEquals(2, channel.outboundMessages().size());
+        assertEquals(1, metricsHolder.getFlushCoalescingFlushesSavedCounter().getCount());
+    }
+
+    @Test
+    public void test_close_flushes_pending() {
+        createChannel();
+
+        writeAndFlush(10);
+        channel.close();
+
+        assertEquals(1, flushCount);
+    }
+
+    private void createChannel() {
+        channel = new EmbeddedChannel(new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void flush(final ChannelHandlerContext ctx) {
+                flushCount++;
+                ctx.flush();
+            }
+        }, new FlushCoalescingHandler(metricsHolder));
+    }
+
+    private void writeAndFlush(final int bytes) {
+        final ByteBuf byteBuf = Unpooled.buffer(bytes).writeZero(bytes);
+        channel.write(byteBuf);
+        channel.flush();
+    }
+}
@@ -15,6 +15,7 @@
  */
 package com.hivemq.bootstrap.netty.initializer;
 
+import com.codahale.metrics.MetricRegistry;
 import com.hivemq.bootstrap.netty.ChannelDependencies;
 import com.hivemq.bootstrap.netty.ChannelInitializerFactoryImpl;
 import com.hivemq.configuration.service.FullConfigurationService;
@@ -22,6 +23,7 @@ import com.hivemq.configuration.service.RestrictionsConfigurationService;
 import com.hivemq.configuration.service.entity.*;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.logging.EventLog;
+import com.hivemq.metrics.MetricsHolder;
 import com.hivemq.security.ssl.NonSslHandler;
 import com.hivemq.security.ssl.SslFactory;
 import io.netty.channel.Channel;
@@ -70,6 +72,7 @@ public class ChannelInitializerFactoryImplTest {
         MockitoAnnotations.initMocks(this);
         when(channelDependencies.getConfigurationService()).thenReturn(fullConfigurationService);
         when(channelDependencies.getRestrictionsConfigurationService()).thenReturn(restrictionsConfigurationService);
+        when(channelDependencies.getMetricsHolder()).thenReturn(new MetricsHolder(new MetricRegistry()));
         when(restrictionsConfigurationService.incomingLimit()).thenReturn(0L);
         channelInitializerFactory = new TestChannelInitializerFactory(channelDependencies,
                 sslFactory,
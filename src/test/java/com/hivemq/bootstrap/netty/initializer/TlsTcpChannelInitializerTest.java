@@ -15,6 +15,7 @@
  */
 package com.hivemq.bootstrap.netty.initializer;
 
+import com.codahale.metrics.MetricRegistry;
 import com.hivemq.bootstrap.netty.ChannelDependencies;
 import com.hivemq.bootstrap.netty.FakeChannelPipeline;
 import com.hivemq.configuration.service.FullConfigurationService;
@@ -23,6 +24,7 @@ import com.hivemq.configuration.service.entity.Listener;
 import com.hivemq.configuration.service.entity.Tls;
 import com.hivemq.configuration.service.entity.TlsTcpListener;
 import com.hivemq.logging.EventLog;
+import com.hivemq.metrics.MetricsHolder;
 import com.hivemq.mqtt.handler.disconnect.MqttServerDisconnector;
 import com.hivemq.mqtt.handler.disconnect.MqttServerDisconnectorImpl;
 import com.hivemq.security.ssl.SslFactory;
@@ -93,6 +95,7 @@ public class TlsTcpChannelInitializerTest {
         pipeline = new FakeChannelPipeline();
 
         when(tlsTcpListener.getTls()).thenReturn(tls);
+        when(tlsTcpListener.getName()).thenReturn("tls-tcp-listener");
         when(sslFactory.getSslContext(any(Tls.class))).thenReturn(sslContext);
         when(sslFactory.getSslHandler(any(SocketChannel.class), any(Tls.class), any(SslContext.class))).thenReturn(sslHandler);
         when(sslHandler.handshakeFuture()).thenReturn(future);
@@ -101,6 +104,7 @@ public class TlsTcpChannelInitializerTest {
         when(socketChannel.isActive()).thenReturn(true);
         when(channelDependencies.getConfigurationService()).thenReturn(fullConfigurationService);
         when(channelDependencies.getRestrictionsConfigurationService()).thenReturn(restrictionsConfigurationService);
+        when(channelDependencies.getMetricsHolder()).thenReturn(new MetricsHolder(new MetricRegistry()));
         when(restrictionsConfigurationService.incomingLimit()).thenReturn(0L);
 
 
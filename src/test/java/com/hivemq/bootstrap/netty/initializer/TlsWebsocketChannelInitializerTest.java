@@ -15,6 +15,7 @@
  */
 package com.hivemq.bootstrap.netty.initializer;
 
+import com.codahale.metrics.MetricRegistry;
 import com.hivemq.bootstrap.netty.ChannelDependencies;
 import com.hivemq.bootstrap.netty.FakeChannelPipeline;
 import com.hivemq.configuration.service.FullConfigurationService;
@@ -23,6 +24,7 @@ import com.hivemq.configuration.service.entity.Listener;
 import com.hivemq.configuration.service.entity.Tls;
 import com.hivemq.configuration.service.entity.TlsWebsocketListener;
 import com.hivemq.logging.EventLog;
+import com.hivemq.metrics.MetricsHolder;
 import com.hivemq.mqtt.handler.disconnect.MqttServerDisconnector;
 import com.hivemq.mqtt.handler.disconnect.MqttServerDisconnectorImpl;
 import com.hivemq.security.ssl.SslFactory;
@@ -112,6 +114,7 @@ public class TlsWebsocketChannelInitializerTest {
         when(mockListener.getTls()).thenReturn(tls);
         when(channelDependencies.getConfigurationService()).thenReturn(fullConfigurationService);
         when(channelDependencies.getRestrictionsConfigurationService()).thenReturn(restrictionsConfigurationService);
+        when(channelDependencies.getMetricsHolder()).thenReturn(new MetricsHolder(new MetricRegistry()));
         when(restrictionsConfigurationService.incomingLimit()).thenReturn(0L);
 
         final MqttServerDisconnector mqttServerDisconnector = new MqttServerDisconnectorImpl(eventLog);
@@ -16,6 +16,10 @@
 package com.hivemq.bootstrap.netty.ioc;
 
 import com.hivemq.bootstrap.netty.NettyConfiguration;
+import com.hivemq.bootstrap.netty.NettyTransport;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
@@ -65,4 +69,41 @@ public class NettyConfigurationProviderTest {
         final String parentThreadName = nettyConfiguration.getParentEventLoopGroup().submit(() -> Thread.currentThread().getName()).get();
         assertTrue(parentThreadName.startsWith("hivemq-eventloop-parent-"));
     }
+
+    @Test
+    public void test_nio_is_default_transport() {
+        assertEquals(NettyTransport.NIO, nettyConfiguration.getTransport());
+    }
+
+    @Test
+    public void test_auto_prefers_epoll() {
+        final NettyTransport expected = Epoll.isAvailable() ? NettyTransport.EPOLL : NettyTransport.NIO;
+
+        assertEquals(expected, NettyConfigurationProvider.resolveTransport(NettyTransport.AUTO));
+    }
+
+    @Test
+    public void test_epoll_falls_back_to_nio_if_unavailable() {
+        final NettyConfiguration epollConfiguration = new NettyConfigurationProvider(NettyTransport.EPOLL).get();
+        try {
+            if (Epoll.isAvailable()) {
+                assertEquals(NettyTransport.EPOLL, epollConfiguration.getTransport());
+                assertThat(epollConfiguration.getChildEventLoopGroup(), instanceOf(EpollEventLoopGroup.class));
+                assertEquals(EpollServerSocketChannel.class, epollConfiguration.getServerSocketChannelClass());
+            } else {
+                assertEquals(NettyTransport.NIO, epollConfiguration.getTransport());
+                assertThat(epollConfiguration.getChildEventLoopGroup(), instanceOf(NioEventLoopGroup.class));
+            }
+        } finally {
+            epollConfiguration.getChildEventLoopGroup().shutdownGracefully();
+            epollConfiguration.getParentEventLoopGroup().shutdownGracefully();
+        }
+    }
+
+    @Test
+    public void test_transport_config_names() {
+        assertEquals(NettyTransport.IO_URING, NettyTransport.fromConfigName(" IO_URING "));
+        assertEquals(NettyTransport.AUTO, NettyTransport.fromConfigName("auto"));
+        assertNull(NettyTransport.fromConfigName("kqueue"));
+    }
 }
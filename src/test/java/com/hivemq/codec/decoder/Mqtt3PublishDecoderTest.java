@@ -31,6 +31,7 @@ import org.mockito.MockitoAnnotations;
 import util.TestConfigurationBootstrap;
 import util.TestMqttDecoder;
 
+import static com.hivemq.configuration.service.InternalConfigurations.TOPIC_INTERN_POOL_SIZE;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.Assert.*;
 
@@ -80,6 +81,34 @@ public class Mqtt3PublishDecoderTest {
         assertTrue(publish.getTimestamp() > 0);
     }
 
+    @Test
+    public void test_interned_topic() {
+        TOPIC_INTERN_POOL_SIZE.set(16);
+        try {
+            channel = new EmbeddedChannel(TestMqttDecoder.create());
+            channel.attr(ClientConnection.CHANNEL_ATTRIBUTE_NAME).set(new ClientConnection(channel, null));
+            channel.attr(ClientConnection.CHANNEL_ATTRIBUTE_NAME).get().setProtocolVersion(ProtocolVersion.MQTTv3_1_1);
+
+            final String topic = "sensors/4711/temperature";
+            final PUBLISH[] publishes = new PUBLISH[2];
+            for (int i = 0; i < publishes.length; i++) {
+                final ByteBuf buf = Unpooled.buffer();
+                buf.writeByte(0b0011_0000);
+                buf.writeByte(topic.getBytes(UTF_8).length + 2);
+                buf.writeShort(topic.getBytes(UTF_8).length);
+                buf.writeBytes(topic.getBytes(UTF_8));
+                channel.writeInbound(buf);
+                publishes[i] = channel.readInbound();
+            }
+
+            assertEquals(topic, publishes[0].getTopic());
+            assertSame(publishes[0].getTopic(), publishes[1].getTopic());
+            assertTrue(channel.isActive());
+        } finally {
+            TOPIC_INTERN_POOL_SIZE.set(0);
+        }
+    }
+
     @Test
     public void test_valid_pub_qos_1() {
 
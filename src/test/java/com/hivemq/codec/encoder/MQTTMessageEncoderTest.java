@@ -16,6 +16,7 @@
 package com.hivemq.codec.encoder;
 
 import com.hivemq.bootstrap.ClientConnection;
+import com.hivemq.configuration.service.InternalConfigurations;
 import com.hivemq.configuration.service.SecurityConfigurationService;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.mqtt.message.PINGRESP;
@@ -27,13 +28,17 @@ import com.hivemq.mqtt.message.dropping.MessageDroppedService;
 import com.hivemq.mqtt.message.puback.PUBACK;
 import com.hivemq.mqtt.message.pubcomp.PUBCOMP;
 import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.mqtt.message.publish.PUBLISHFactory;
 import com.hivemq.mqtt.message.pubrec.PUBREC;
 import com.hivemq.mqtt.message.pubrel.PUBREL;
 import com.hivemq.mqtt.message.reason.Mqtt5SubAckReasonCode;
 import com.hivemq.mqtt.message.suback.SUBACK;
 import com.hivemq.mqtt.message.unsuback.UNSUBACK;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
@@ -42,6 +47,7 @@ import util.encoder.TestMessageEncoder;
 
 import java.nio.charset.StandardCharsets;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertTrue;
 
 public class MQTTMessageEncoderTest {
@@ -61,6 +67,12 @@ public class MQTTMessageEncoderTest {
         channel.attr(ClientConnection.CHANNEL_ATTRIBUTE_NAME).get().setProtocolVersion(ProtocolVersion.MQTTv3_1);
     }
 
+    @After
+    public void tearDown() {
+        InternalConfigurations.PUBLISH_PAYLOAD_SHARED_BUFFER_ENABLED.set(false);
+        InternalConfigurations.PUBLISH_FRAME_CACHE_ENABLED.set(false);
+    }
+
     @Test
     public void test_connack_encoded() {
 
@@ -136,4 +148,77 @@ public class MQTTMessageEncoderTest {
         final ByteBuf buf = channel.readOutbound();
         assertTrue(buf.readableBytes() > 0);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void test_mqtt3_publish_with_shared_payload_equals_copied_payload() {
+
+        final PUBLISH publish = TestMessageUtil.createMqtt3Publish("clusterid", "topic", QoS.EXACTLY_ONCE, new byte[10_000], true);
+
+        assertSharedPayloadEncodingEqualsCopiedEncoding(publish);
+    }
+
+    @Test
+    public void test_mqtt5_publish_with_shared_payload_equals_copied_payload() {
+        channel.attr(ClientConnection.CHANNEL_ATTRIBUTE_NAME).get().setProtocolVersion(ProtocolVersion.MQTTv5);
+
+        final PUBLISH publish = TestMessageUtil.createFullMqtt5Publish();
+
+        assertSharedPayloadEncodingEqualsCopiedEncoding(publish);
+    }
+
+    @Test
+    public void test_mqtt3_publish_with_frame_cache_equals_encoded_publish() {
+
+        final PUBLISH publish = TestMessageUtil.createMqtt3Publish("clusterid", "topic", QoS.EXACTLY_ONCE, "payload".getBytes(StandardCharsets.UTF_8), true);
+        final PUBLISH otherSubscriber = new PUBLISHFactory.Mqtt3Builder().fromPublish(publish).withPacketIdentifier(4711).build();
+
+        assertFrameCacheEncodingEqualsEncoding(publish, otherSubscriber);
+    }
+
+    @Test
+    public void test_mqtt5_publish_with_frame_cache_equals_encoded_publish() {
+        channel.attr(ClientConnection.CHANNEL_ATTRIBUTE_NAME).get().setProtocolVersion(ProtocolVersion.MQTTv5);
+
+        final PUBLISH publish = TestMessageUtil.createFullMqtt5Publish();
+        final PUBLISH otherSubscriber = new PUBLISHFactory.Mqtt5Builder().fromPublish(publish).withPacketIdentifier(4711).build();
+
+        assertFrameCacheEncodingEqualsEncoding(publish, otherSubscriber);
+    }
+
+    private void assertFrameCacheEncodingEqualsEncoding(final @NotNull PUBLISH publish, final @NotNull PUBLISH otherSubscriber) {
+        channel.writeOutbound(otherSubscriber);
+        final ByteBuf encoded = channel.readOutbound();
+
+        InternalConfigurations.PUBLISH_FRAME_CACHE_ENABLED.set(true);
+        channel.writeOutbound(publish);
+        channel.writeOutbound(otherSubscriber);
+        final ByteBuf first = channel.readOutbound();
+        final ByteBuf cached = channel.readOutbound();
+
+        assertTrue(cached instanceof CompositeByteBuf);
+        assertArrayEquals(ByteBufUtil.getBytes(encoded), ByteBufUtil.getBytes(cached));
+        encoded.release();
+        first.release();
+        cached.release();
+    }
+
+    private void assertSharedPayloadEncodingEqualsCopiedEncoding(final @NotNull PUBLISH publish) {
+        channel.writeOutbound(publish);
+        final ByteBuf copied = channel.readOutbound();
+
+        InternalConfigurations.PUBLISH_PAYLOAD_SHARED_BUFFER_ENABLED.set(true);
+        final int threshold = InternalConfigurations.PUBLISH_PAYLOAD_SHARED_BUFFER_THRESHOLD_BYTES.get();
+        InternalConfigurations.PUBLISH_PAYLOAD_SHARED_BUFFER_THRESHOLD_BYTES.set(1);
+        try {
+            channel.writeOutbound(publish);
+        } finally {
+            InternalConfigurations.PUBLISH_PAYLOAD_SHARED_BUFFER_THRESHOLD_BYTES.set(threshold);
+        }
+        final ByteBuf shared = channel.readOutbound();
+
+        assertTrue(shared instanceof CompositeByteBuf);
+        assertArrayEquals(ByteBufUtil.getBytes(copied), ByteBufUtil.getBytes(shared));
+        copied.release();
+        shared.release();
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.codec.encoder;
+
+import com.hivemq.mqtt.message.ProtocolVersion;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.publish.PUBLISH;
+import com.hivemq.mqtt.message.publish.PUBLISHFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.Before;
+import org.junit.Test;
+import util.TestMessageUtil;
+
+import static org.junit.Assert.*;
+
+public class PublishFrameCacheTest {
+
+    private final ByteBufAllocator allocator = new UnpooledByteBufAllocator(true);
+
+    private PublishFrameCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new PublishFrameCache(1024, 60_000);
+    }
+
+    @Test
+    public void test_packet_identifier_is_replaced() {
+        final PUBLISH publish = TestMessageUtil.createMqtt5Publish("topic", QoS.AT_LEAST_ONCE);
+        final ByteBuf frame = frame(publish);
+        cache.put(publish, ProtocolVersion.MQTTv5, frame);
+
+        final PUBLISH otherSubscriber =
+                new PUBLISHFactory.Mqtt5Builder().fromPublish(publish).withPacketIdentifier(0x1234).build();
+        final ByteBuf cached = cache.retainedFrame(otherSubscriber, ProtocolVersion.MQTTv5, allocator);
+
+        assertNotNull(cached);
+        final byte[] expected = ByteBufUtil.getBytes(frame);
+        // fixed header (1), remaining length (1), topic length (2), topic (5)
+        expected[9] = 0x12;
+        expected[10] = 0x34;
+        assertArrayEquals(expected, ByteBufUtil.getBytes(cached));
+        cached.release();
+        frame.release();
+    }
+
+    @Test
+    public void test_qos_0_frame_is_shared() {
+        final PUBLISH publish = TestMessageUtil.createMqtt5Publish("topic", QoS.AT_MOST_ONCE);
+        final ByteBuf frame = frame(publish);
+        cache.put(publish, ProtocolVersion.MQTTv5, frame);
+
+        final ByteBuf cached = cache.retainedFrame(publish, ProtocolVersion.MQTTv5, allocator);
+
+        assertNotNull(cached);
+        assertSame(frame, cached.unwrap());
+        cached.release();
+        frame.release();
+    }
+
+    @Test
+    public void test_concurrent_retain_and_eviction() throws Exception {
+        final PUBLISH publish = TestMessageUtil.createMqtt5Publish("topic", QoS.AT_MOST_ONCE);
+        final ByteBuf frame = frame(publish);
+        final byte[] expected = ByteBufUtil.getBytes(frame);
+        final Thread evictor = new Thread(() -> {
+            for (int i = 0; i < 10_000; i++) {
+                cache.invalidateAll();
+            }
+        });
+        evictor.start();
+        for (int i = 0; i < 10_000; i++) {
+            cache.put(publish, ProtocolVersion.MQTTv5, frame);
+            final ByteBuf cached = cache.retainedFrame(publish, ProtocolVersion.MQTTv5, allocator);
+            if (cached != null) {
+                // the retained frame must never have been released by the eviction
+                assertTrue(cached.refCnt() > 0);
+                assertArrayEquals(expected, ByteBufUtil.getBytes(cached));
+                cached.release();
+            }
+        }
+        evictor.join();
+        cache.invalidateAll();
+        assertEquals(1, frame.refCnt());
+        frame.release();
+    }
+
+    @Test
+    public void test_modified_publish_with_same_publish_id_is_not_matched() {
+        final PUBLISH publish = TestMessageUtil.createMqtt5Publish("topic", QoS.AT_LEAST_ONCE);
+        final ByteBuf frame = frame(publish);
+        cache.put(publish, ProtocolVersion.MQTTv5, frame);
+
+        final PUBLISH modified =
+                new PUBLISHFactory.Mqtt5Builder().fromPublish(publish).withTopic("modified").build();
+
+        assertNull(cache.retainedFrame(modified, ProtocolVersion.MQTTv5, allocator));
+        assertNull(cache.retainedFrame(publish, ProtocolVersion.MQTTv3_1_1, allocator));
+        frame.release();
+    }
+
+    @Test
+    public void test_equal_payload_copy_is_not_matched() {
+        final PUBLISH publish = TestMessageUtil.createMqtt5Publish("topic", QoS.AT_LEAST_ONCE);
+        final ByteBuf frame = frame(publish);
+        cache.put(publish, ProtocolVersion.MQTTv5, frame);
+
+        final PUBLISH copiedPayload = new PUBLISHFactory.Mqtt5Builder().fromPublish(publish)
+                .withPayload(publish.getPayload().clone())
+                .build();
+
+        assertNull(cache.retainedFrame(copiedPayload, ProtocolVersion.MQTTv5, allocator));
+        frame.release();
+    }
+
+    @Test
+    public void test_payload_is_weighed() {
+        cache = new PublishFrameCache(64, 60_000);
+        final PUBLISH publish = new PUBLISHFactory.Mqtt5Builder()
+                .fromPublish(TestMessageUtil.createMqtt5Publish("topic", QoS.AT_LEAST_ONCE))
+                .withPayload(new byte[128])
+                .build();
+        final ByteBuf frame = frame(publish);
+        cache.put(publish, ProtocolVersion.MQTTv5, frame);
+
+        // the frame alone fits into the cache, but not together with the retained payload
+        assertEquals(0, cache.size());
+        assertEquals(1, frame.refCnt());
+        frame.release();
+    }
+
+    @Test
+    public void test_frame_is_released_after_eviction_and_last_write() {
+        final PUBLISH publish = TestMessageUtil.createMqtt5Publish("topic", QoS.AT_LEAST_ONCE);
+        final ByteBuf frame = frame(publish);
+        cache.put(publish, ProtocolVersion.MQTTv5, frame);
+        frame.release();
+
+        final ByteBuf cached = cache.retainedFrame(publish, ProtocolVersion.MQTTv5, allocator);
+        cache.invalidateAll();
+
+        assertNotNull(cached);
+        assertEquals(2, frame.refCnt());
+        cached.release();
+        assertEquals(0, frame.refCnt());
+    }
+
+    private static ByteBuf frame(final PUBLISH publish) {
+        // a minimal frame with the topic "topic", the packet identifier 1 and 3 further bytes
+        final ByteBuf frame = Unpooled.directBuffer();
+        frame.writeByte(0x32);
+        frame.writeByte(publish.getQoS() == QoS.AT_MOST_ONCE ? 10 : 12);
+        frame.writeShort(5);
+        frame.writeBytes(new byte[]{'t', 'o', 'p', 'i', 'c'});
+        if (publish.getQoS() != QoS.AT_MOST_ONCE) {
+            frame.writeShort(1);
+        }
+        frame.writeBytes(new byte[]{1, 2, 3});
+        return frame;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.codec.encoder;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SharedPayloadBufferCacheTest {
+
+    private SharedPayloadBufferCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new SharedPayloadBufferCache(new UnpooledByteBufAllocator(true), 1024, 60_000);
+    }
+
+    @Test
+    public void test_same_payload_shares_buffer() {
+        final byte[] payload = {1, 2, 3};
+
+        final ByteBuf first = cache.retainedPayload(1, payload);
+        final ByteBuf second = cache.retainedPayload(1, payload);
+
+        assertSame(first.unwrap(), second.unwrap());
+        assertArrayEquals(payload, ByteBufUtil.getBytes(second));
+        assertEquals(1, cache.size());
+        first.release();
+        second.release();
+    }
+
+    @Test
+    public void test_modified_payload_with_same_publish_id_is_not_shared() {
+        final ByteBuf first = cache.retainedPayload(1, new byte[]{1, 2, 3});
+        final ByteBuf second = cache.retainedPayload(1, new byte[]{4, 5, 6});
+
+        assertArrayEquals(new byte[]{4, 5, 6}, ByteBufUtil.getBytes(second));
+        assertEquals(1, cache.size());
+        first.release();
+        second.release();
+    }
+
+    @Test
+    public void test_equal_payload_in_different_array_is_not_shared() {
+        final ByteBuf first = cache.retainedPayload(1, new byte[]{1, 2, 3});
+        final ByteBuf second = cache.retainedPayload(1, new byte[]{1, 2, 3});
+
+        assertNotSame(first.unwrap(), second.unwrap());
+        assertArrayEquals(new byte[]{1, 2, 3}, ByteBufUtil.getBytes(second));
+        first.release();
+        second.release();
+        assertEquals(0, second.refCnt());
+    }
+
+    @Test
+    public void test_concurrent_retain_and_eviction() throws Exception {
+        final byte[] payload = new byte[256];
+        final Thread evictor = new Thread(() -> {
+            for (int i = 0; i < 10_000; i++) {
+                cache.invalidateAll();
+            }
+        });
+        evictor.start();
+        for (int i = 0; i < 10_000; i++) {
+            final ByteBuf duplicate = cache.retainedPayload(1, payload);
+            // the retained buffer must never have been released by the eviction
+            assertTrue(duplicate.refCnt() > 0);
+            assertArrayEquals(payload, ByteBufUtil.getBytes(duplicate));
+            duplicate.release();
+        }
+        evictor.join();
+    }
+
+    @Test
+    public void test_buffer_is_released_after_eviction_and_last_write() {
+        final ByteBuf duplicate = cache.retainedPayload(1, new byte[]{1, 2, 3});
+        final ByteBuf buffer = duplicate.unwrap();
+
+        cache.invalidateAll();
+
+        assertEquals(1, buffer.refCnt());
+        duplicate.release();
+        assertEquals(0, buffer.refCnt());
+    }
+
+    @Test
+    public void test_cache_is_bounded_by_payload_size() {
+        for (int i = 0; i < 10; i++) {
+            cache.retainedPayload(i, new byte[512]).release();
+        }
+
+        assertTrue(cache.size() <= 2);
+    }
+}
@@ -15,10 +15,13 @@
  */
 package com.hivemq.codec.encoder.mqtt5;
 
+import com.codahale.metrics.Counter;
 import com.google.common.collect.ImmutableList;
 import com.hivemq.bootstrap.ClientConnection;
 import com.hivemq.configuration.HivemqId;
 import com.hivemq.configuration.entity.mqtt.MqttConfigurationDefaults;
+import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.limitation.TopicAliasLimiterImpl;
 import com.hivemq.mqtt.message.QoS;
 import com.hivemq.mqtt.message.mqtt5.Mqtt5UserProperties;
 import com.hivemq.mqtt.message.mqtt5.MqttUserProperty;
@@ -110,6 +113,76 @@ public class Mqtt5PublishEncoderTest extends AbstractMqtt5EncoderTest {
         encodeTestBufferSize(expected, publish);
     }
 
+    @Test
+    public void test_encode_outbound_topic_alias() {
+        final OutboundTopicAliasMapping topicAliasMapping =
+                new OutboundTopicAliasMapping(1, new TopicAliasLimiterImpl(), new Counter());
+        clientConnection.setOutboundTopicAliasMapping(topicAliasMapping);
+
+        final byte[] expectedWithTopic = {
+                // fixed header
+                0b0011_0000, 18,
+                // topic name
+                0, 5, 't', 'o', 'p', 'i', 'c',
+                // properties
+                5,
+                //     topic alias
+                0x23, 0, 1,
+                //     payload format indicator
+                0x01, 0,
+                // payload
+                1, 2, 3, 4, 5
+        };
+        final byte[] expectedWithAlias = {
+                // fixed header
+                0b0011_0000, 13,
+                // empty topic name
+                0, 0,
+                // properties
+                5,
+                //     topic alias
+                0x23, 0, 1,
+                //     payload format indicator
+                0x01, 0,
+                // payload
+                1, 2, 3, 4, 5
+        };
+
+        encodeTestBufferSize(expectedWithTopic, createSimplePublish("topic"));
+        encodeTestBufferSize(expectedWithAlias, createSimplePublish("topic"));
+
+        // the least recently used alias is replaced
+        final byte[] expectedWithOtherTopic = expectedWithTopic.clone();
+        System.arraycopy(new byte[]{'o', 't', 'h', 'e', 'r'}, 0, expectedWithOtherTopic, 4, 5);
+        encodeTestBufferSize(expectedWithOtherTopic, createSimplePublish("other"));
+        assertEquals(1, topicAliasMapping.getAlias("other"));
+        assertEquals(OutboundTopicAliasMapping.NO_TOPIC_ALIAS, topicAliasMapping.getAlias("topic"));
+    }
+
+    @Test
+    public void test_encode_outbound_topic_alias_not_assigned_for_dropped_publish() {
+        final OutboundTopicAliasMapping topicAliasMapping =
+                new OutboundTopicAliasMapping(1, new TopicAliasLimiterImpl(), new Counter());
+        clientConnection.setOutboundTopicAliasMapping(topicAliasMapping);
+
+        final PUBLISH publish = TestMessageUtil.createMqtt5Publish(hiveMQId.get(), "topic",
+                new byte[MAX_PACKET_SIZE], QoS.AT_MOST_ONCE, QoS.AT_MOST_ONCE, false,
+                MqttConfigurationDefaults.MAX_EXPIRY_INTERVAL_DEFAULT, Mqtt5PayloadFormatIndicator.UNSPECIFIED, null,
+                null, null, NO_USER_PROPERTIES, -1, false, true, null);
+        channel.writeOutbound(publish);
+        final ByteBuf buf = channel.readOutbound();
+
+        assertEquals(0, buf.readableBytes());
+        assertEquals(0, topicAliasMapping.size());
+        buf.release();
+    }
+
+    private @NotNull PUBLISH createSimplePublish(final @NotNull String topic) {
+        return TestMessageUtil.createMqtt5Publish(hiveMQId.get(), topic, new byte[]{1, 2, 3, 4, 5},
+                QoS.AT_MOST_ONCE, QoS.AT_MOST_ONCE, false, MqttConfigurationDefaults.MAX_EXPIRY_INTERVAL_DEFAULT,
+                Mqtt5PayloadFormatIndicator.UNSPECIFIED, null, null, null, NO_USER_PROPERTIES, -1, false, true, null);
+    }
+
     @Test
     public void test_encode_simple() {
         final byte[] expected = {
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.codec.encoder.mqtt5;
+
+import com.codahale.metrics.Counter;
+import com.hivemq.limitation.TopicAliasLimiter;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.hivemq.codec.encoder.mqtt5.OutboundTopicAliasMapping.NO_TOPIC_ALIAS;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class OutboundTopicAliasMappingTest {
+
+    private TopicAliasLimiter topicAliasLimiter;
+    private Counter bytesSavedCounter;
+    private OutboundTopicAliasMapping mapping;
+
+    @Before
+    public void setUp() {
+        topicAliasLimiter = mock(TopicAliasLimiter.class);
+        when(topicAliasLimiter.aliasesAvailable()).thenReturn(true);
+        bytesSavedCounter = new Counter();
+        mapping = new OutboundTopicAliasMapping(2, topicAliasLimiter, bytesSavedCounter);
+    }
+
+    @Test
+    public void test_aliases_are_assigned_in_order() {
+        assertEquals(NO_TOPIC_ALIAS, mapping.getAlias("a"));
+        assertEquals(1, mapping.nextAlias());
+        mapping.use("a", 1, false);
+
+        assertEquals(1, mapping.getAlias("a"));
+        assertEquals(2, mapping.nextAlias());
+        verify(topicAliasLimiter).initUsage(2);
+        verify(topicAliasLimiter).addUsage("a");
+    }
+
+    @Test
+    public void test_least_recently_used_alias_is_replaced() {
+        mapping.use("a", 1, false);
+        mapping.use("b", 2, false);
+        mapping.getAlias("a");
+
+        assertEquals(2, mapping.nextAlias());
+        mapping.use("c", 2, false);
+
+        assertEquals(NO_TOPIC_ALIAS, mapping.getAlias("b"));
+        assertEquals(2, mapping.getAlias("c"));
+        assertEquals(2, mapping.size());
+        verify(topicAliasLimiter).removeUsage("b");
+    }
+
+    @Test
+    public void test_no_new_alias_if_memory_limit_reached() {
+        when(topicAliasLimiter.aliasesAvailable()).thenReturn(false);
+
+        assertEquals(NO_TOPIC_ALIAS, mapping.nextAlias());
+    }
+
+    @Test
+    public void test_bytes_saved() {
+        mapping.use("topic", 1, false);
+        mapping.use("topic", 1, true);
+
+        // the alias property costs 3 bytes, the omitted topic saves 7 - 5 bytes
+        assertEquals(-1, bytesSavedCounter.getCount());
+    }
+
+    @Test
+    public void test_release() {
+        mapping.use("a", 1, false);
+
+        mapping.release();
+
+        verify(topicAliasLimiter).finishUsage(any(String[].class));
+        assertEquals(0, mapping.size());
+    }
+}
@@ -82,6 +82,43 @@ public class ListenerConfiguratorTest extends AbstractConfigurationTest {
         assertEquals("my-tls-tcp-listener", tlsTcpListener.getName());
 
         assertNull(tlsTcpListener.getTls().isPreferServerCipherSuites());
+        assertEquals(Tls.Provider.JDK, tlsTcpListener.getTls().getProvider());
+        assertTrue(tlsTcpListener.getTls().isSessionTicketsEnabled());
+    }
+
+    @Test
+    public void test_read_tls_listener_provider_and_sessions() throws Exception {
+
+        final String contents = "" +
+                "<hivemq>" +
+                "    <listeners>" +
+                "        <tls-tcp-listener>" +
+                "            <port>8883</port>" +
+                "            <tls>" +
+                "                <keystore>" +
+                "                    <path>/absolute/path.jks</path>" +
+                "                    <password>password-keystore</password>" +
+                "                    <private-key-password>password-key</private-key-password>" +
+                "                </keystore>" +
+                "                <tls-provider>OPENSSL</tls-provider>" +
+                "                <session-cache-size>10000</session-cache-size>" +
+                "                <session-timeout>3600</session-timeout>" +
+                "                <session-tickets>false</session-tickets>" +
+                "            </tls>" +
+                "        </tls-tcp-listener>" +
+                "    </listeners>" +
+                "</hivemq>";
+
+        Files.write(contents.getBytes(UTF_8), xmlFile);
+
+        reader.applyConfig();
+
+        final Tls tls = listenerConfigurationService.getTlsTcpListeners().get(0).getTls();
+
+        assertEquals(Tls.Provider.OPENSSL, tls.getProvider());
+        assertEquals(10000, tls.getSessionCacheSize());
+        assertEquals(3600, tls.getSessionTimeout());
+        assertFalse(tls.isSessionTicketsEnabled());
     }
 
     @Test
@@ -295,4 +332,41 @@ public class ListenerConfiguratorTest extends AbstractConfigurationTest {
         assertFalse(websocketListener.getTls().isPreferServerCipherSuites());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void test_read_native_transport_options() throws Exception {
+
+        final String contents = "" +
+                "<hivemq>" +
+                "    <listeners>" +
+                "        <tcp-listener>" +
+                "            <port>1883</port>" +
+                "            <bind-address>0.0.0.0</bind-address>" +
+                "            <native-transport>" +
+                "                <edge-triggered>false</edge-triggered>" +
+                "                <tcp-quickack>true</tcp-quickack>" +
+                "                <reuse-port>true</reuse-port>" +
+                "                <acceptor-threads>4</acceptor-threads>" +
+                "            </native-transport>" +
+                "        </tcp-listener>" +
+                "        <websocket-listener>" +
+                "            <port>8000</port>" +
+                "            <bind-address>0.0.0.0</bind-address>" +
+                "        </websocket-listener>" +
+                "    </listeners>" +
+                "</hivemq>";
+
+        Files.write(contents.getBytes(UTF_8), xmlFile);
+
+        reader.applyConfig();
+
+        final NativeTransportOptions options =
+                listenerConfigurationService.getTcpListeners().get(0).getNativeTransportOptions();
+        assertFalse(options.isEdgeTriggered());
+        assertTrue(options.isTcpQuickAck());
+        assertTrue(options.isReusePort());
+        assertEquals(4, options.getAcceptorThreads());
+
+        assertSame(NativeTransportOptions.DEFAULT,
+                listenerConfigurationService.getWebsocketListeners().get(0).getNativeTransportOptions());
+    }
+}
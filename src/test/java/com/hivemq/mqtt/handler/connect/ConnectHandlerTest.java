@@ -16,6 +16,7 @@
 
 package com.hivemq.mqtt.handler.connect;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.SettableFuture;
@@ -44,6 +45,7 @@ import com.hivemq.extensions.packets.general.ModifiableDefaultPermissionsImpl;
 import com.hivemq.extensions.services.auth.Authorizers;
 import com.hivemq.extensions.services.builder.TopicPermissionBuilderImpl;
 import com.hivemq.limitation.TopicAliasLimiterImpl;
+import com.hivemq.metrics.MetricsHolder;
 import com.hivemq.logging.EventLog;
 import com.hivemq.mqtt.handler.KeepAliveDisconnectHandler;
 import com.hivemq.mqtt.handler.KeepAliveDisconnectService;
@@ -1591,7 +1593,8 @@ public class ConnectHandlerTest {
                 authorizers,
                 pluginAuthorizerService,
                 serverDisconnector,
-                mock(KeepAliveDisconnectService.class));
+                mock(KeepAliveDisconnectService.class),
+                new MetricsHolder(new MetricRegistry()));
 
         handler.postConstruct();
         channel.pipeline()
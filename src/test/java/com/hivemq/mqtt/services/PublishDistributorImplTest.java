@@ -18,6 +18,7 @@ package com.hivemq.mqtt.services;
 import com.google.common.primitives.ImmutableIntArray;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.hivemq.configuration.service.InternalConfigurations;
 import com.hivemq.configuration.service.MqttConfigurationService;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
 import com.hivemq.mqtt.handler.publish.PublishStatus;
@@ -27,6 +28,7 @@ import com.hivemq.mqtt.message.publish.PUBLISHFactory;
 import com.hivemq.mqtt.topic.SubscriberWithIdentifiers;
 import com.hivemq.persistence.SingleWriterService;
 import com.hivemq.persistence.clientqueue.ClientQueuePersistence;
+import com.hivemq.persistence.clientqueue.ClientQueuePublish;
 import com.hivemq.persistence.clientsession.ClientSession;
 import com.hivemq.persistence.clientsession.ClientSessionPersistence;
 import com.hivemq.persistence.payload.PublishPayloadPersistence;
@@ -38,15 +40,25 @@ import org.mockito.MockitoAnnotations;
 import util.TestMessageUtil;
 import util.TestSingleWriterFactory;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -160,6 +172,108 @@ public class PublishDistributorImplTest {
         verify(clientQueuePersistence).add(eq("client2"), eq(false), any(PUBLISH.class), anyBoolean(), anyLong());
     }
 
+    @Test(timeout = 5000)
+    public void test_distribute_to_non_shared_per_bucket() throws Exception {
+        InternalConfigurations.PUBLISH_DISTRIBUTION_PARALLEL_THRESHOLD.set(10);
+        try {
+            publishDistributor = new PublishDistributorImpl(payloadPersistence, clientQueuePersistence, clientSessionPersistence,
+                    singleWriterService, mqttConfigurationService);
+
+            final Map<String, SubscriberWithIdentifiers> subscribers = new HashMap<>();
+            for (int i = 0; i < 100; i++) {
+                final String client = "client" + i;
+                // every second client is offline and does not get the qos 0 message queued
+                when(clientSessionPersistence.getSession(client, false)).thenReturn(new ClientSession(i % 2 == 0, 1000L));
+                subscribers.put(client, new SubscriberWithIdentifiers(client, 0, (byte) 0, null));
+            }
+            final Set<String> queuedClients = ConcurrentHashMap.newKeySet();
+            when(clientQueuePersistence.addToMany(anyList(), eq(false), eq(false))).thenAnswer(invocation -> {
+                final List<ClientQueuePublish> publishes = invocation.getArgument(0);
+                for (final ClientQueuePublish publish : publishes) {
+                    queuedClients.add(publish.getQueueId());
+                }
+                return Futures.immediateFuture(null);
+            });
+
+            publishDistributor.distributeToNonSharedSubscribers(subscribers, TestMessageUtil.createMqtt5Publish(), MoreExecutors.newDirectExecutorService()).get();
+
+            assertEquals(50, queuedClients.size());
+            for (int i = 0; i < 100; i += 2) {
+                assertTrue(queuedClients.contains("client" + i));
+            }
+            verify(clientQueuePersistence, never()).add(anyString(), anyBoolean(), any(PUBLISH.class), anyBoolean(), anyLong());
+        } finally {
+            InternalConfigurations.PUBLISH_DISTRIBUTION_PARALLEL_THRESHOLD.set(1000);
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void test_distribute_to_non_shared_per_bucket_on_caller_executor_and_skips_failing_subscriber() throws Exception {
+        InternalConfigurations.PUBLISH_DISTRIBUTION_PARALLEL_THRESHOLD.set(10);
+        try {
+            publishDistributor = new PublishDistributorImpl(payloadPersistence, clientQueuePersistence, clientSessionPersistence,
+                    singleWriterService, mqttConfigurationService);
+
+            final Map<String, SubscriberWithIdentifiers> subscribers = new HashMap<>();
+            for (int i = 0; i < 100; i++) {
+                final String client = "client" + i;
+                if (i == 0) {
+                    when(clientSessionPersistence.getSession(client, false)).thenThrow(new RuntimeException("test"));
+                } else {
+                    when(clientSessionPersistence.getSession(client, false)).thenReturn(new ClientSession(true, 1000L));
+                }
+                subscribers.put(client, new SubscriberWithIdentifiers(client, 1, (byte) 0, null));
+            }
+            final Set<String> queuedClients = ConcurrentHashMap.newKeySet();
+            when(clientQueuePersistence.addToMany(anyList(), eq(false), eq(false))).thenAnswer(invocation -> {
+                final List<ClientQueuePublish> publishes = invocation.getArgument(0);
+                for (final ClientQueuePublish publish : publishes) {
+                    queuedClients.add(publish.getQueueId());
+                }
+                return Futures.immediateFuture(null);
+            });
+
+            final ThreadPoolExecutor executorService = (ThreadPoolExecutor) Executors.newFixedThreadPool(2);
+            try {
+                publishDistributor.distributeToNonSharedSubscribers(subscribers, TestMessageUtil.createMqtt5Publish(),
+                        executorService).get();
+            } finally {
+                executorService.shutdown();
+            }
+
+            assertEquals(99, queuedClients.size());
+            // the buckets were distributed on the given executor
+            assertTrue(executorService.getTaskCount() > 0);
+        } finally {
+            InternalConfigurations.PUBLISH_DISTRIBUTION_PARALLEL_THRESHOLD.set(1000);
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void test_distribute_to_non_shared_per_bucket_executor_rejects_tasks_future_completes() throws Exception {
+        InternalConfigurations.PUBLISH_DISTRIBUTION_PARALLEL_THRESHOLD.set(10);
+        try {
+            publishDistributor = new PublishDistributorImpl(payloadPersistence, clientQueuePersistence, clientSessionPersistence,
+                    singleWriterService, mqttConfigurationService);
+
+            final Map<String, SubscriberWithIdentifiers> subscribers = new HashMap<>();
+            for (int i = 0; i < 100; i++) {
+                final String client = "client" + i;
+                when(clientSessionPersistence.getSession(client, false)).thenReturn(new ClientSession(true, 1000L));
+                subscribers.put(client, new SubscriberWithIdentifiers(client, 1, (byte) 0, null));
+            }
+
+            final ExecutorService executorService = Executors.newSingleThreadExecutor();
+            executorService.shutdown();
+            publishDistributor.distributeToNonSharedSubscribers(subscribers, TestMessageUtil.createMqtt5Publish(),
+                    executorService).get();
+
+            verify(clientQueuePersistence, never()).addToMany(anyList(), anyBoolean(), anyBoolean());
+        } finally {
+            InternalConfigurations.PUBLISH_DISTRIBUTION_PARALLEL_THRESHOLD.set(1000);
+        }
+    }
+
     @Test
     public void test_distribute_to_shared_subs() {
         when(clientQueuePersistence.add(eq("name/topic1"), eq(true), any(PUBLISH.class), anyBoolean(), anyLong())).thenReturn(Futures.immediateFuture(null));
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.mqtt.topic;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.metrics.MetricsHolder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.*;
+
+public class TopicInternPoolTest {
+
+    private MetricsHolder metricsHolder;
+    private TopicInternPool topicInternPool;
+
+    @Before
+    public void setUp() {
+        metricsHolder = new MetricsHolder(new MetricRegistry());
+        topicInternPool = new TopicInternPool(16, metricsHolder);
+    }
+
+    @Test
+    public void test_intern_returns_canonical_topic() {
+        final String first = intern("a/b/c");
+        final String second = intern("a/b/c");
+
+        assertEquals("a/b/c", first);
+        assertSame(first, second);
+        assertEquals(1, metricsHolder.getTopicInternPoolHitCounter().getCount());
+        assertEquals(1, metricsHolder.getTopicInternPoolMissCounter().getCount());
+    }
+
+    @Test
+    public void test_intern_multi_byte_topic() {
+        final String first = intern("gebäude/🚀/temperatur");
+        final String second = intern("gebäude/🚀/temperatur");
+
+        assertEquals("gebäude/🚀/temperatur", first);
+        assertSame(first, second);
+    }
+
+    @Test
+    public void test_intern_from_offset_does_not_move_reader_index() {
+        final ByteBuf byteBuf = Unpooled.buffer();
+        byteBuf.writeBytes("xxa/b".getBytes(UTF_8));
+
+        assertEquals("a/b", topicInternPool.intern(byteBuf, 2, 3));
+        assertEquals(0, byteBuf.readerIndex());
+        byteBuf.release();
+    }
+
+    @Test
+    public void test_invalid_topic_is_not_interned() {
+        assertNull(intern("a/\u0001/c"));
+        assertNull(intern("a/\u0000/c"));
+        assertNull(intern(""));
+    }
+
+    @Test
+    public void test_eviction() {
+        topicInternPool = new TopicInternPool(1, metricsHolder);
+
+        final String first = intern("a/b/c");
+        intern("a/b/d");
+
+        assertNotSame(first, intern("a/b/c"));
+        assertEquals(2, metricsHolder.getTopicInternPoolEvictionCounter().getCount());
+    }
+
+    @Test
+    public void test_segments_of_interned_topic_are_cached() {
+        final String topic = intern("a/b//c");
+
+        final String[] segments = topicInternPool.segments(topic);
+
+        assertArrayEquals(new String[]{"a", "b", "", "c"}, segments);
+        assertSame(segments, topicInternPool.segments(topic));
+        assertNotSame(segments, topicInternPool.segments(new String(topic)));
+        assertArrayEquals(segments, topicInternPool.segments(new String(topic)));
+    }
+
+    @Test
+    public void test_disabled() {
+        topicInternPool = new TopicInternPool(0, metricsHolder);
+
+        assertNull(intern("a/b/c"));
+        assertArrayEquals(new String[]{"a", "b", "c"}, topicInternPool.segments("a/b/c"));
+    }
+
+    private String intern(final String topic) {
+        final ByteBuf byteBuf = Unpooled.wrappedBuffer(topic.getBytes(UTF_8));
+        try {
+            return topicInternPool.intern(byteBuf, byteBuf.readerIndex(), byteBuf.readableBytes());
+        } finally {
+            byteBuf.release();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.mqtt.topic.tree;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ChunkedMapTest {
+
+    @Test
+    public void test_put_get_remove() {
+        final ChunkedMap<String, Integer> map = new ChunkedMap<>();
+        for (int i = 0; i < 1_000; i++) {
+            assertNull(map.put("key" + i, i));
+        }
+        assertEquals(Integer.valueOf(1), map.put("key1", 1));
+        assertEquals(1_000, map.size());
+        assertEquals(Integer.valueOf(42), map.get("key42"));
+        assertTrue(map.containsKey("key999"));
+
+        assertEquals(Integer.valueOf(42), map.remove("key42"));
+        assertNull(map.remove("key42"));
+        assertNull(map.get("key42"));
+        assertEquals(999, map.size());
+        assertEquals(999, map.values().size());
+    }
+
+    @Test
+    public void test_copy_does_not_affect_original() {
+        final ChunkedMap<String, Integer> original = new ChunkedMap<>();
+        for (int i = 0; i < 1_000; i++) {
+            original.put("key" + i, i);
+        }
+
+        final ChunkedMap<String, Integer> copy = ChunkedMap.copyOf(original);
+        copy.put("new", -1);
+        copy.put("key1", -1);
+        copy.remove("key2");
+
+        assertEquals(1_000, original.size());
+        assertNull(original.get("new"));
+        assertEquals(Integer.valueOf(1), original.get("key1"));
+        assertEquals(Integer.valueOf(2), original.get("key2"));
+        assertEquals(1_000, copy.size());
+        assertEquals(Integer.valueOf(-1), copy.get("key1"));
+        assertNull(copy.get("key2"));
+    }
+
+    @Test
+    public void test_original_modification_does_not_affect_copy() {
+        final ChunkedMap<String, Integer> original = new ChunkedMap<>();
+        original.put("key", 1);
+
+        final ChunkedMap<String, Integer> copy = ChunkedMap.copyOf(original);
+        original.put("key", 2);
+        original.put("other", 3);
+
+        assertEquals(Integer.valueOf(1), copy.get("key"));
+        assertEquals(1, copy.size());
+    }
+
+    @Test
+    public void test_copy_of_hash_map() {
+        final Map<String, Integer> original = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            original.put("key" + i, i);
+        }
+
+        final ChunkedMap<String, Integer> copy = ChunkedMap.copyOf(original);
+        copy.remove("key0");
+
+        assertEquals(100, original.size());
+        assertEquals(99, copy.size());
+        assertEquals(original.size() - 1, copy.entrySet().size());
+        assertFalse(copy.containsKey("key0"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void test_views_are_read_only() {
+        final ChunkedMap<String, Integer> map = new ChunkedMap<>();
+        map.put("key", 1);
+        map.entrySet().iterator().next().setValue(2);
+    }
+}
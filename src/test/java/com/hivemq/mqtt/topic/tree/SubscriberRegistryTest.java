@@ -0,0 +1,178 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.mqtt.topic.tree;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.hivemq.metrics.MetricsHolder;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.subscribe.Topic;
+import com.hivemq.mqtt.topic.SubscriberWithIdentifiers;
+import com.hivemq.mqtt.topic.SubscriberWithQoS;
+import com.hivemq.util.ObjectMemoryEstimation;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SubscriberRegistryTest {
+
+    @Test
+    public void test_acquire_same_client_returns_canonical_client_id() {
+        final SubscriberRegistry registry = new SubscriberRegistry();
+
+        final String first = registry.acquire("client");
+        final String second = registry.acquire(new String("client"));
+
+        assertSame(first, second);
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    public void test_release_removes_unreferenced_client_id() {
+        final SubscriberRegistry registry = new SubscriberRegistry();
+
+        final String first = registry.acquire("client1");
+        registry.acquire("client1");
+        registry.acquire("client2");
+
+        registry.release("client1");
+        assertSame(first, registry.acquire(new String("client1")));
+        registry.release("client1");
+
+        registry.release("client1");
+        assertEquals(1, registry.size());
+        assertNotSame(first, registry.acquire(new String("client1")));
+    }
+
+    @Test
+    public void test_concurrent_acquire_and_release() throws Exception {
+        final SubscriberRegistry registry = new SubscriberRegistry();
+        final int threads = 8;
+        final ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            futures.add(executorService.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    final String clientId = "client" + (i % 16);
+                    registry.acquire(clientId);
+                    if (thread % 2 == 0) {
+                        registry.release(clientId);
+                    }
+                }
+            }));
+        }
+        for (final Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executorService.shutdown();
+
+        // the threads that did not release keep all 16 clients registered
+        assertEquals(16, registry.size());
+    }
+
+    @Test
+    public void test_distinct_subscribers() {
+        final ImmutableSet<SubscriberWithIdentifiers> subscribers = LocalTopicTree.createDistinctSubscribers(
+                ImmutableList.of(
+                        new SubscriberWithQoS("client1", 0, (byte) 0, null, null, null),
+                        new SubscriberWithQoS("client2", 1, (byte) 0, null, null, null),
+                        new SubscriberWithQoS("client3", 0, (byte) 0, null, null, null),
+                        new SubscriberWithQoS(new String("client3"), 2, (byte) 0, null, null, null)));
+
+        assertEquals(3, subscribers.size());
+        for (final SubscriberWithIdentifiers subscriber : subscribers) {
+            switch (subscriber.getSubscriber()) {
+                case "client1":
+                    assertEquals(0, subscriber.getQos());
+                    break;
+                case "client2":
+                    assertEquals(1, subscriber.getQos());
+                    break;
+                default:
+                    assertEquals("client3", subscriber.getSubscriber());
+                    assertEquals(2, subscriber.getQos());
+            }
+        }
+    }
+
+    @Test
+    public void test_topic_tree_shares_client_ids() {
+        final LocalTopicTree topicTree = new LocalTopicTree(new MetricsHolder(new MetricRegistry()));
+
+        for (int i = 0; i < 100; i++) {
+            topicTree.addTopic(new String("client"), new Topic("topic/" + i, QoS.AT_LEAST_ONCE), (byte) 0, null);
+        }
+        topicTree.addTopic(new String("client"), new Topic("#", QoS.AT_LEAST_ONCE), (byte) 0, null);
+
+        assertEquals(1, topicTree.subscriberRegistry.size());
+
+        final SubscriberWithIdentifiers subscriber =
+                topicTree.findTopicSubscribers("topic/1").getSubscribers().iterator().next();
+        assertSame(topicTree.subscriberRegistry.acquire(new String("client")), subscriber.getSubscriber());
+
+        // 101 subscriptions hold the same client id, the String is only retained once
+        final long duplicatedClientIds = 101 * ObjectMemoryEstimation.stringSize("client");
+        assertTrue(topicTree.subscriberRegistry.estimatedSize() < duplicatedClientIds);
+    }
+
+    @Test
+    public void test_topic_tree_releases_client_ids() {
+        final LocalTopicTree topicTree = new LocalTopicTree(new MetricsHolder(new MetricRegistry()));
+
+        topicTree.addTopic("client1", new Topic("a/b", QoS.AT_LEAST_ONCE), (byte) 0, null);
+        topicTree.addTopic("client1", new Topic("a/b", QoS.EXACTLY_ONCE), (byte) 0, null);
+        topicTree.addTopic("client1", new Topic("a/#", QoS.AT_LEAST_ONCE), (byte) 0, "group");
+        topicTree.addTopic("client1", new Topic("#", QoS.AT_LEAST_ONCE), (byte) 0, null);
+        topicTree.addTopic("client1", new Topic("#", QoS.AT_LEAST_ONCE), (byte) 0, null);
+        topicTree.addTopic("client2", new Topic("a", QoS.AT_LEAST_ONCE), (byte) 0, null);
+        assertEquals(2, topicTree.subscriberRegistry.size());
+
+        topicTree.removeSubscriber("client1", "a/b", null);
+        topicTree.removeSubscriber("client1", "a/#", "group");
+        topicTree.removeSubscriber("client2", "a", null);
+        assertEquals(1, topicTree.subscriberRegistry.size());
+
+        topicTree.removeSubscriber("client1", "#", null);
+        assertEquals(0, topicTree.subscriberRegistry.size());
+    }
+
+    @Test
+    public void test_topic_tree_distinct_subscribers() {
+        final LocalTopicTree topicTree = new LocalTopicTree(new MetricsHolder(new MetricRegistry()));
+
+        topicTree.addTopic("client1", new Topic("a/b", QoS.AT_MOST_ONCE), (byte) 0, null);
+        topicTree.addTopic("client1", new Topic("a/+", QoS.EXACTLY_ONCE), (byte) 0, null);
+        topicTree.addTopic("client2", new Topic("a/#", QoS.AT_LEAST_ONCE), (byte) 0, null);
+
+        final ImmutableSet<SubscriberWithIdentifiers> subscribers =
+                topicTree.findTopicSubscribers("a/b").getSubscribers();
+        assertEquals(2, subscribers.size());
+        for (final SubscriberWithIdentifiers subscriber : subscribers) {
+            if (subscriber.getSubscriber().equals("client1")) {
+                assertEquals(QoS.EXACTLY_ONCE.getQosNumber(), subscriber.getQos());
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.mqtt.topic.tree;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.metrics.MetricsHolder;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.subscribe.Topic;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.hivemq.configuration.service.InternalConfigurations.TOPIC_TREE_COPY_ON_WRITE_ENABLED;
+import static com.hivemq.configuration.service.InternalConfigurations.TOPIC_TREE_MAP_CREATION_THRESHOLD;
+import static com.hivemq.configuration.service.InternalConfigurations.TOPIC_TREE_SUBSCRIBERS_CACHE_MAX_SIZE_ENTRIES;
+import static org.junit.Assert.*;
+
+public class TopicSubscribersCacheTest {
+
+    private MetricsHolder metricsHolder;
+    private LocalTopicTree topicTree;
+
+    @Before
+    public void setUp() {
+        TOPIC_TREE_MAP_CREATION_THRESHOLD.set(1);
+        TOPIC_TREE_SUBSCRIBERS_CACHE_MAX_SIZE_ENTRIES.set(100);
+        metricsHolder = new MetricsHolder(new MetricRegistry());
+        topicTree = new LocalTopicTree(metricsHolder);
+    }
+
+    @After
+    public void tearDown() {
+        TOPIC_TREE_SUBSCRIBERS_CACHE_MAX_SIZE_ENTRIES.set(0);
+        TOPIC_TREE_COPY_ON_WRITE_ENABLED.set(false);
+    }
+
+    @Test
+    public void test_cache_hit() {
+        topicTree.addTopic("sub1", new Topic("a/b/c", QoS.AT_LEAST_ONCE), (byte) 0, null);
+
+        final TopicSubscribers first = topicTree.findTopicSubscribers("a/b/c");
+        final TopicSubscribers second = topicTree.findTopicSubscribers("a/b/c");
+
+        assertSame(first, second);
+        assertEquals(1, second.getSubscribers().size());
+        assertEquals(1, metricsHolder.getTopicTreeCacheHitCounter().getCount());
+        assertEquals(1, metricsHolder.getTopicTreeCacheMissCounter().getCount());
+    }
+
+    @Test
+    public void test_exclude_root_level_wildcard_is_not_cached() {
+        topicTree.addTopic("sub1", new Topic("a/b/c", QoS.AT_LEAST_ONCE), (byte) 0, null);
+
+        topicTree.findTopicSubscribers("a/b/c", true);
+
+        assertEquals(0, topicTree.subscribersCache.size());
+    }
+
+    @Test
+    public void test_matching_subscribe_invalidates() {
+        topicTree.addTopic("sub1", new Topic("a/b/c", QoS.AT_LEAST_ONCE), (byte) 0, null);
+        topicTree.findTopicSubscribers("a/b/c");
+
+        topicTree.addTopic("sub2", new Topic("a/+/c", QoS.AT_LEAST_ONCE), (byte) 0, null);
+
+        assertEquals(2, topicTree.findTopicSubscribers("a/b/c").getSubscribers().size());
+        assertEquals(1, metricsHolder.getTopicTreeCacheInvalidationCounter().getCount());
+    }
+
+    @Test
+    public void test_matching_subscribe_to_new_segment_invalidates() {
+        topicTree.addTopic("sub1", new Topic("a/b/c", QoS.AT_LEAST_ONCE), (byte) 0, null);
+        topicTree.findTopicSubscribers("a/b/c");
+
+        topicTree.addTopic("sub2", new Topic("+/b/c", QoS.AT_LEAST_ONCE), (byte) 0, null);
+
+        assertEquals(2, topicTree.findTopicSubscribers("a/b/c").getSubscribers().size());
+    }
+
+    @Test
+    public void test_root_wildcard_subscribe_invalidates() {
+        topicTree.findTopicSubscribers("a/b/c");
+
+        topicTree.addTopic("sub1", new Topic("#", QoS.AT_LEAST_ONCE), (byte) 0, null);
+
+        assertEquals(1, topicTree.findTopicSubscribers("a/b/c").getSubscribers().size());
+
+        topicTree.removeSubscriber("sub1", "#", null);
+
+        assertEquals(0, topicTree.findTopicSubscribers("a/b/c").getSubscribers().size());
+    }
+
+    @Test
+    public void test_shared_subscribe_invalidates() {
+        topicTree.addTopic("sub1", new Topic("a/b/c", QoS.AT_LEAST_ONCE), (byte) 0, null);
+        topicTree.findTopicSubscribers("a/b/c");
+
+        topicTree.addTopic("sub2", new Topic("a/b/#", QoS.AT_LEAST_ONCE), (byte) 0, "group");
+
+        assertEquals(1, topicTree.findTopicSubscribers("a/b/c").getSharedSubscriptions().size());
+    }
+
+    @Test
+    public void test_unsubscribe_invalidates() {
+        topicTree.addTopic("sub1", new Topic("a/b/c", QoS.AT_LEAST_ONCE), (byte) 0, null);
+        topicTree.addTopic("sub2", new Topic("a/#", QoS.AT_LEAST_ONCE), (byte) 0, null);
+        assertEquals(2, topicTree.findTopicSubscribers("a/b/c").getSubscribers().size());
+
+        topicTree.removeSubscriber("sub1", "a/b/c", null);
+
+        assertEquals(1, topicTree.findTopicSubscribers("a/b/c").getSubscribers().size());
+
+        topicTree.removeSubscriber("sub2", "a/#", null);
+
+        assertEquals(0, topicTree.findTopicSubscribers("a/b/c").getSubscribers().size());
+    }
+
+    @Test
+    public void test_not_matching_subscribe_does_not_invalidate() {
+        topicTree.addTopic("sub1", new Topic("a/b/c", QoS.AT_LEAST_ONCE), (byte) 0, null);
+        topicTree.addTopic("sub2", new Topic("a/b/d", QoS.AT_LEAST_ONCE), (byte) 0, null);
+        final TopicSubscribers first = topicTree.findTopicSubscribers("a/b/c");
+
+        topicTree.addTopic("sub3", new Topic("a/b/d", QoS.AT_LEAST_ONCE), (byte) 0, null);
+        topicTree.addTopic("sub4", new Topic("x/y", QoS.AT_LEAST_ONCE), (byte) 0, null);
+
+        assertSame(first, topicTree.findTopicSubscribers("a/b/c"));
+        assertEquals(0, metricsHolder.getTopicTreeCacheInvalidationCounter().getCount());
+    }
+
+    @Test
+    public void test_copy_on_write_invalidation() {
+        TOPIC_TREE_COPY_ON_WRITE_ENABLED.set(true);
+        topicTree = new LocalTopicTree(metricsHolder);
+
+        topicTree.addTopic("sub1", new Topic("a/b/c", QoS.AT_LEAST_ONCE), (byte) 0, null);
+        topicTree.addTopic("sub2", new Topic("a/b/d", QoS.AT_LEAST_ONCE), (byte) 0, null);
+        final TopicSubscribers first = topicTree.findTopicSubscribers("a/b/c");
+
+        topicTree.addTopic("sub3", new Topic("a/b/d", QoS.AT_LEAST_ONCE), (byte) 0, null);
+
+        assertSame(first, topicTree.findTopicSubscribers("a/b/c"));
+
+        topicTree.addTopic("sub4", new Topic("a/b/+", QoS.AT_LEAST_ONCE), (byte) 0, null);
+
+        assertEquals(2, topicTree.findTopicSubscribers("a/b/c").getSubscribers().size());
+
+        topicTree.removeSubscriber("sub1", "a/b/c", null);
+
+        assertEquals(1, topicTree.findTopicSubscribers("a/b/c").getSubscribers().size());
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.mqtt.topic.tree;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.metrics.MetricsHolder;
+import com.hivemq.mqtt.message.QoS;
+import com.hivemq.mqtt.message.subscribe.Topic;
+import com.hivemq.mqtt.topic.SubscriberWithIdentifiers;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.hivemq.configuration.service.InternalConfigurations.TOPIC_TREE_COPY_ON_WRITE_ENABLED;
+import static com.hivemq.configuration.service.InternalConfigurations.TOPIC_TREE_MAP_CREATION_THRESHOLD;
+import static org.junit.Assert.*;
+
+public class TopicTreeCopyOnWriteTest {
+
+    private LocalTopicTree topicTree;
+
+    @Before
+    public void setUp() {
+        TOPIC_TREE_MAP_CREATION_THRESHOLD.set(1);
+        TOPIC_TREE_COPY_ON_WRITE_ENABLED.set(true);
+        topicTree = new LocalTopicTree(new MetricsHolder(new MetricRegistry()));
+    }
+
+    @After
+    public void tearDown() {
+        TOPIC_TREE_COPY_ON_WRITE_ENABLED.set(false);
+    }
+
+    @Test
+    public void test_add_and_find_subscribers() {
+        topicTree.addTopic("sub1", new Topic("a/b/c", QoS.AT_LEAST_ONCE), (byte) 0, null);
+        topicTree.addTopic("sub2", new Topic("a/+/c", QoS.AT_MOST_ONCE), (byte) 0, null);
+        topicTree.addTopic("sub3", new Topic("a/#", QoS.EXACTLY_ONCE), (byte) 0, null);
+        topicTree.addTopic("sub4", new Topic("+/b/c", QoS.AT_MOST_ONCE), (byte) 0, null);
+        topicTree.addTopic("sub5", new Topic("a/b/d", QoS.AT_MOST_ONCE), (byte) 0, null);
+
+        final TopicSubscribers subscribers = topicTree.findTopicSubscribers("a/b/c");
+
+        assertEquals(4, subscribers.getSubscribers().size());
+        assertEquals(5, topicTree.counters.getSubscriptionCounter().getCount());
+    }
+
+    @Test
+    public void test_published_node_is_not_modified_by_add() {
+        topicTree.addTopic("sub1", new Topic("a/b", QoS.AT_MOST_ONCE), (byte) 0, null);
+        final TopicTreeNode published = topicTree.segments.get("a");
+
+        topicTree.addTopic("sub2", new Topic("a/b", QoS.AT_MOST_ONCE), (byte) 0, null);
+        topicTree.addTopic("sub3", new Topic("a/c", QoS.AT_MOST_ONCE), (byte) 0, null);
+
+        assertNotSame(published, topicTree.segments.get("a"));
+        assertEquals(1, LocalTopicTree.getChildrenCount(published));
+        assertEquals(1, published.getChild("b").exactSubscriptions.getSubscriberCount());
+        assertEquals(2, topicTree.segments.get("a").getChild("b").exactSubscriptions.getSubscriberCount());
+    }
+
+    @Test
+    public void test_untouched_subtrees_are_shared() {
+        topicTree.addTopic("sub1", new Topic("a/b/c", QoS.AT_MOST_ONCE), (byte) 0, null);
+        final TopicTreeNode publishedB = topicTree.segments.get("a").getChild("b");
+
+        topicTree.addTopic("sub2", new Topic("a/d", QoS.AT_MOST_ONCE), (byte) 0, null);
+
+        assertSame(publishedB, topicTree.segments.get("a").getChild("b"));
+    }
+
+    @Test
+    public void test_published_node_is_not_modified_by_remove() {
+        topicTree.addTopic("sub1", new Topic("a/b", QoS.AT_MOST_ONCE), (byte) 0, null);
+        topicTree.addTopic("sub2", new Topic("a/b", QoS.AT_MOST_ONCE), (byte) 0, null);
+        final TopicTreeNode published = topicTree.segments.get("a");
+
+        topicTree.removeSubscriber("sub1", "a/b", null);
+
+        assertEquals(2, published.getChild("b").exactSubscriptions.getSubscriberCount());
+        assertEquals(1, topicTree.segments.get("a").getChild("b").exactSubscriptions.getSubscriberCount());
+        assertEquals(1, topicTree.counters.getSubscriptionCounter().getCount());
+    }
+
+    @Test
+    public void test_remove_deletes_empty_nodes() {
+        topicTree.addTopic("sub1", new Topic("a/b/c", QoS.AT_MOST_ONCE), (byte) 0, null);
+        topicTree.addTopic("sub1", new Topic("a/#", QoS.AT_MOST_ONCE), (byte) 0, null);
+
+        topicTree.removeSubscriber("sub1", "a/b/c", null);
+
+        assertEquals(0, LocalTopicTree.getChildrenCount(topicTree.segments.get("a")));
+
+        topicTree.removeSubscriber("sub1", "a/#", null);
+
+        assertTrue(topicTree.segments.isEmpty());
+        assertEquals(0, topicTree.counters.getSubscriptionCounter().getCount());
+    }
+
+    @Test
+    public void test_remove_not_existing_subscription_keeps_published_version() {
+        topicTree.addTopic("sub1", new Topic("a/b", QoS.AT_MOST_ONCE), (byte) 0, null);
+        final TopicTreeNode published = topicTree.segments.get("a");
+
+        topicTree.removeSubscriber("sub1", "a/c", null);
+
+        assertSame(published, topicTree.segments.get("a"));
+    }
+
+    @Test
+    public void test_shared_subscriptions() {
+        topicTree.addTopic("sub1", new Topic("a/b", QoS.AT_MOST_ONCE), (byte) 0, "group");
+        topicTree.addTopic("sub2", new Topic("a/b", QoS.AT_MOST_ONCE), (byte) 0, "group");
+
+        assertEquals(2, topicTree.getSharedSubscriber("group", "a/b").size());
+
+        topicTree.removeSubscriber("sub1", "a/b", "group");
+
+        assertEquals(1, topicTree.getSharedSubscriber("group", "a/b").size());
+        assertEquals(1, topicTree.findTopicSubscribers("a/b").getSharedSubscriptions().size());
+    }
+
+    @Test
+    public void test_published_wide_node_is_not_modified() {
+        for (int i = 0; i < 1_000; i++) {
+            topicTree.addTopic("sub" + i, new Topic("a/b", QoS.AT_MOST_ONCE), (byte) 0, null);
+            topicTree.addTopic("sub" + i, new Topic("a/c" + i, QoS.AT_MOST_ONCE), (byte) 0, null);
+            topicTree.addTopic("sub" + i, new Topic("a/d", QoS.AT_MOST_ONCE), (byte) 0, "group");
+        }
+        final TopicTreeNode published = topicTree.segments.get("a");
+        final TopicTreeNode publishedB = published.getChild("b");
+        final TopicTreeNode publishedD = published.getChild("d");
+
+        topicTree.addTopic("new", new Topic("a/b", QoS.AT_MOST_ONCE), (byte) 0, null);
+        topicTree.addTopic("new", new Topic("a/new", QoS.AT_MOST_ONCE), (byte) 0, null);
+        topicTree.addTopic("new", new Topic("a/d", QoS.AT_MOST_ONCE), (byte) 0, "group");
+        topicTree.removeSubscriber("sub0", "a/b", null);
+        topicTree.removeSubscriber("sub0", "a/c0", null);
+        topicTree.removeSubscriber("sub1", "a/d", "group");
+
+        assertEquals(1_002, LocalTopicTree.getChildrenCount(published));
+        assertEquals(1_000, publishedB.exactSubscriptions.getSubscriberCount());
+        assertEquals(1_000, publishedD.exactSubscriptions.getSharedSubscriptionsStream().count());
+        assertEquals(1_002, LocalTopicTree.getChildrenCount(topicTree.segments.get("a")));
+        assertEquals(1_000, topicTree.segments.get("a").getChild("b").exactSubscriptions.getSubscriberCount());
+        assertEquals(1_000, topicTree.getSharedSubscriber("group", "a/d").size());
+        assertNull(topicTree.segments.get("a").getChild("c0"));
+        assertEquals(3_000, topicTree.counters.getSubscriptionCounter().getCount());
+    }
+
+    @Test(timeout = 30_000)
+    public void test_concurrent_matching_and_mutation() throws Exception {
+        topicTree.addTopic("stable", new Topic("a/b/c", QoS.AT_MOST_ONCE), (byte) 0, null);
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final CountDownLatch latch = new CountDownLatch(4);
+        final List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int writer = 0; writer < 2; writer++) {
+                final int writerId = writer;
+                futures.add(executorService.submit(() -> {
+                    latch.countDown();
+                    for (int i = 0; i < 2_000; i++) {
+                        final String client = "client-" + writerId + "-" + i;
+                        topicTree.addTopic(client, new Topic("a/+/c", QoS.AT_MOST_ONCE), (byte) 0, null);
+                        topicTree.addTopic(client, new Topic("a/b/" + i, QoS.AT_MOST_ONCE), (byte) 0, null);
+                        topicTree.removeSubscriber(client, "a/+/c", null);
+                        topicTree.removeSubscriber(client, "a/b/" + i, null);
+                    }
+                }));
+            }
+            for (int reader = 0; reader < 2; reader++) {
+                futures.add(executorService.submit(() -> {
+                    latch.countDown();
+                    while (running.get()) {
+                        boolean stableFound = false;
+                        for (final SubscriberWithIdentifiers subscriber : topicTree.findTopicSubscribers("a/b/c").getSubscribers()) {
+                            if (subscriber.getSubscriber().equals("stable")) {
+                                stableFound = true;
+                            }
+                        }
+                        assertTrue(stableFound);
+                    }
+                }));
+            }
+            futures.get(0).get();
+            futures.get(1).get();
+            running.set(false);
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdownNow();
+            executorService.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        assertEquals(1, topicTree.findTopicSubscribers("a/b/c").getSubscribers().size());
+        assertEquals(1, topicTree.counters.getSubscriptionCounter().getCount());
+        assertEquals(1, LocalTopicTree.getChildrenCount(topicTree.segments.get("a")));
+    }
+}
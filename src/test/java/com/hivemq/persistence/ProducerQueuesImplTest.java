@@ -15,13 +15,24 @@
  */
 package com.hivemq.persistence;
 
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.hivemq.configuration.service.InternalConfigurations;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.metrics.MetricsHolder;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.Assert.*;
@@ -48,11 +59,17 @@ public class ProducerQueuesImplTest {
         producerQueues = new ProducerQueuesImpl(singleWriterServiceImpl, 4);
     }
 
+    @After
+    public void tearDown() throws Exception {
+        InternalConfigurations.SINGLE_WRITER_GROUP_COMMIT_ENABLED.set(false);
+        InternalConfigurations.SINGLE_WRITER_METRICS_SAMPLE_RATE.set(128);
+    }
+
     @Test
     public void submit_task() throws Exception {
         producerQueues.submit("key", bucketIndex -> null);
         final int queueIndex = producerQueues.getBucket("key") / producerQueues.bucketsPerQueue;
-        final Queue<ProducerQueuesImpl.TaskWithFuture<?>> queue = producerQueues.queues.get(queueIndex);
+        final Queue<AbstractProducerQueues.TaskWithFuture<?>> queue = producerQueues.queues.get(queueIndex);
         assertEquals(1, queue.size());
     }
 
@@ -60,7 +77,7 @@ public class ProducerQueuesImplTest {
     public void submitToAllBucketsParallel_allTasksSubmitted() throws Exception {
         producerQueues.submitToAllBucketsParallel(bucketIndex -> null);
         assertFalse(producerQueues.queues.isEmpty());
-        for (final Queue<ProducerQueuesImpl.TaskWithFuture<?>> queue : producerQueues.queues) {
+        for (final Queue<AbstractProducerQueues.TaskWithFuture<?>> queue : producerQueues.queues) {
             assertEquals(64 / 4, queue.size());
         }
     }
@@ -70,7 +87,7 @@ public class ProducerQueuesImplTest {
         producerQueues.submitToAllBucketsSequential(bucketIndex -> null);
         assertFalse(producerQueues.queues.isEmpty());
         boolean found = false;
-        for (final Queue<ProducerQueuesImpl.TaskWithFuture<?>> queue : producerQueues.queues) {
+        for (final Queue<AbstractProducerQueues.TaskWithFuture<?>> queue : producerQueues.queues) {
             if(!found){
                 if(queue.size() == 1){
                     found = true;
@@ -82,4 +99,228 @@ public class ProducerQueuesImplTest {
             }
         }
     }
+
+    @Test
+    public void execute_groupCommit_consecutiveTasksOfBucketInOneTransaction() throws Exception {
+        final MetricsHolder metricsHolder = setUpGroupCommit();
+        final RecordingGroupCommitter groupCommitter = new RecordingGroupCommitter();
+        producerQueues.setGroupCommitter(groupCommitter);
+
+        final List<ListenableFuture<Integer>> futures = new ArrayList<>();
+        futures.add(producerQueues.submit(0, write(bucketIndex -> 1)));
+        futures.add(producerQueues.submit(0, write(bucketIndex -> 2)));
+        futures.add(producerQueues.submit(0, write(bucketIndex -> 3)));
+        futures.add(producerQueues.submit(1, write(bucketIndex -> 4)));
+        groupCommitter.futures = futures;
+
+        executeUntilDone(futures);
+
+        assertEquals(List.of("begin 0", "commit 0", "begin 1", "commit 1"), groupCommitter.events);
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(i + 1, (int) futures.get(i).get());
+        }
+        assertFalse(groupCommitter.completedBeforeCommit);
+        assertEquals(2, metricsHolder.getSingleWriterGroupCommitCounter().getCount());
+        assertEquals(3, metricsHolder.getSingleWriterGroupCommitTasksPerCommitHistogram().getSnapshot().getMax());
+    }
+
+    @Test
+    public void execute_groupCommit_failedTaskAbortsGroup_tasksExecutedAgainIndividually() throws Exception {
+        setUpGroupCommit();
+        final RecordingGroupCommitter groupCommitter = new RecordingGroupCommitter();
+        producerQueues.setGroupCommitter(groupCommitter);
+
+        final AtomicInteger executions = new AtomicInteger();
+        final List<ListenableFuture<Integer>> futures = new ArrayList<>();
+        futures.add(producerQueues.submit(0, write(bucketIndex -> executions.incrementAndGet())));
+        futures.add(producerQueues.submit(0, write(bucketIndex -> {
+            throw new IllegalStateException();
+        })));
+
+        executeUntilDone(futures);
+
+        assertEquals(List.of("begin 0", "abort 0"), groupCommitter.events);
+        assertEquals(2, executions.get());
+        assertEquals(2, (int) futures.get(0).get());
+        try {
+            futures.get(1).get();
+            fail();
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void execute_groupCommit_failedCommit_tasksExecutedAgainIndividually() throws Exception {
+        setUpGroupCommit();
+        final RecordingGroupCommitter groupCommitter = new RecordingGroupCommitter() {
+            @Override
+            public void commit(final int bucketIndex) {
+                super.commit(bucketIndex);
+                throw new IllegalStateException();
+            }
+        };
+        producerQueues.setGroupCommitter(groupCommitter);
+
+        final List<ListenableFuture<Integer>> futures = new ArrayList<>();
+        futures.add(producerQueues.submit(0, write(bucketIndex -> 1)));
+        futures.add(producerQueues.submit(0, write(bucketIndex -> 2)));
+
+        executeUntilDone(futures);
+
+        assertEquals(List.of("begin 0", "commit 0", "abort 0"), groupCommitter.events);
+        assertEquals(1, (int) futures.get(0).get());
+        assertEquals(2, (int) futures.get(1).get());
+    }
+
+    @Test
+    public void setGroupCommitter_disabled_ignored() throws Exception {
+        when(singleWriterServiceImpl.getCreditsPerExecution()).thenReturn(100);
+        final RecordingGroupCommitter groupCommitter = new RecordingGroupCommitter();
+        producerQueues.setGroupCommitter(groupCommitter);
+
+        final List<ListenableFuture<Integer>> futures = new ArrayList<>();
+        futures.add(producerQueues.submit(0, write(bucketIndex -> 1)));
+        executeUntilDone(futures);
+
+        assertTrue(groupCommitter.events.isEmpty());
+    }
+
+    @Test
+    public void execute_groupCommit_otherTasksNotInGroup() throws Exception {
+        setUpGroupCommit();
+        final RecordingGroupCommitter groupCommitter = new RecordingGroupCommitter();
+        producerQueues.setGroupCommitter(groupCommitter);
+
+        final List<ListenableFuture<Integer>> futures = new ArrayList<>();
+        futures.add(producerQueues.submit(0, bucketIndex -> {
+            groupCommitter.events.add("read 0");
+            return 1;
+        }));
+        futures.add(producerQueues.submit(0, write(bucketIndex -> 2)));
+        futures.add(producerQueues.submit(0, bucketIndex -> {
+            groupCommitter.events.add("read 0");
+            return 3;
+        }));
+        futures.add(producerQueues.submit(0, write(bucketIndex -> 4)));
+
+        executeUntilDone(futures);
+
+        assertEquals(List.of("read 0", "begin 0", "commit 0", "read 0", "begin 0", "commit 0"), groupCommitter.events);
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(i + 1, (int) futures.get(i).get());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shutdown_groupCommit_finalTaskExecutedAfterGroupCommit() throws Exception {
+        setUpGroupCommit();
+        final RecordingGroupCommitter groupCommitter = new RecordingGroupCommitter();
+        producerQueues.setGroupCommitter(groupCommitter);
+
+        producerQueues.submit(0, write(bucketIndex -> 1));
+        producerQueues.submit(0, write(bucketIndex -> 2));
+        final ListenableFuture<Void> closeFuture = producerQueues.shutdown(bucketIndex -> {
+            if (bucketIndex == 0) {
+                groupCommitter.events.add("close 0");
+            }
+            return null;
+        });
+        // the final tasks are submitted after the shutdown grace period
+        while (producerQueues.getTaskCount().get() < 2 + 64) {
+            Thread.sleep(10);
+        }
+
+        final SplittableRandom random = new SplittableRandom(0);
+        while (!closeFuture.isDone()) {
+            producerQueues.execute(random);
+        }
+        closeFuture.get();
+
+        assertEquals(List.of("begin 0", "commit 0", "close 0"), groupCommitter.events);
+    }
+
+    @Test
+    public void execute_sampledTasks_recordedInHistograms() throws Exception {
+        InternalConfigurations.SINGLE_WRITER_METRICS_SAMPLE_RATE.set(1);
+        when(singleWriterServiceImpl.getCreditsPerExecution()).thenReturn(100);
+        producerQueues = new ProducerQueuesImpl(singleWriterServiceImpl, 4);
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        producerQueues.registerMetrics(metricRegistry, "test.");
+
+        final List<ListenableFuture<Integer>> futures = new ArrayList<>();
+        futures.add(producerQueues.submit(0, bucketIndex -> 1));
+        futures.add(producerQueues.submit(20, bucketIndex -> 2));
+        assertEquals(2L, metricRegistry.getGauges().get("test.tasks.current").getValue());
+        assertEquals(1L, metricRegistry.getGauges().get("test.queue-1.tasks.current").getValue());
+
+        executeUntilDone(futures);
+
+        assertEquals(2, metricRegistry.histogram("test.wait-time-micros").getCount());
+        assertEquals(2, metricRegistry.histogram("test.execution-time-micros").getCount());
+        assertEquals(0L, metricRegistry.getGauges().get("test.tasks.current").getValue());
+    }
+
+    @Test
+    public void execute_samplingDisabled_nothingRecorded() throws Exception {
+        InternalConfigurations.SINGLE_WRITER_METRICS_SAMPLE_RATE.set(0);
+        when(singleWriterServiceImpl.getCreditsPerExecution()).thenReturn(100);
+        producerQueues = new ProducerQueuesImpl(singleWriterServiceImpl, 4);
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        producerQueues.registerMetrics(metricRegistry, "test.");
+
+        final List<ListenableFuture<Integer>> futures = new ArrayList<>();
+        futures.add(producerQueues.submit(0, bucketIndex -> 1));
+        executeUntilDone(futures);
+
+        assertEquals(0, metricRegistry.histogram("test.wait-time-micros").getCount());
+        assertEquals(0, metricRegistry.histogram("test.execution-time-micros").getCount());
+    }
+
+    private @NotNull MetricsHolder setUpGroupCommit() {
+        InternalConfigurations.SINGLE_WRITER_GROUP_COMMIT_ENABLED.set(true);
+        final MetricsHolder metricsHolder = new MetricsHolder(new MetricRegistry());
+        when(singleWriterServiceImpl.getMetricsHolder()).thenReturn(metricsHolder);
+        when(singleWriterServiceImpl.getCreditsPerExecution()).thenReturn(100);
+        when(singleWriterServiceImpl.getCallbackExecutors()).thenReturn(new ExecutorService[4]);
+        return metricsHolder;
+    }
+
+    private static <R> @NotNull SingleWriterService.WriteTask<R> write(
+            final @NotNull SingleWriterService.WriteTask<R> task) {
+        return task;
+    }
+
+    private void executeUntilDone(final @NotNull List<? extends ListenableFuture<?>> futures) {
+        final SplittableRandom random = new SplittableRandom(0);
+        for (int i = 0; i < 1000 && !futures.stream().allMatch(ListenableFuture::isDone); i++) {
+            producerQueues.execute(random);
+        }
+    }
+
+    private static class RecordingGroupCommitter implements GroupCommitter {
+
+        final @NotNull List<String> events = new ArrayList<>();
+        @NotNull List<ListenableFuture<Integer>> futures = List.of();
+        boolean completedBeforeCommit;
+
+        @Override
+        public boolean begin(final int bucketIndex) {
+            events.add("begin " + bucketIndex);
+            return true;
+        }
+
+        @Override
+        public void commit(final int bucketIndex) {
+            events.add("commit " + bucketIndex);
+            if (bucketIndex == 0 && futures.stream().anyMatch(ListenableFuture::isDone)) {
+                completedBeforeCommit = true;
+            }
+        }
+
+        @Override
+        public void abort(final int bucketIndex) {
+            events.add("abort " + bucketIndex);
+        }
+    }
 }
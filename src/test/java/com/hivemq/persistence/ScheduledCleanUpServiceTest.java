@@ -151,4 +151,38 @@ public class ScheduledCleanUpServiceTest {
         task.call();
         Awaitility.waitAtMost(timeout).until(scheduledNextTask::get);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void sessionExpiryTask_invokesSessionExpiryAndSchedulesTheNextTask() {
+        final ScheduledCleanUpService scheduledCleanUpService = mock(ScheduledCleanUpService.class);
+        when(scheduledCleanUpService.expireSessions()).thenReturn(Futures.immediateFuture(null));
+        final ScheduledCleanUpService.SessionExpiryTask task = new ScheduledCleanUpService.SessionExpiryTask(
+                scheduledCleanUpService,
+                scheduledExecutorService,
+                Integer.MAX_VALUE);
+        task.call();
+        verify(scheduledCleanUpService).expireSessions();
+        verify(scheduledCleanUpService).scheduleSessionExpiryTask();
+        verify(scheduledCleanUpService, never()).scheduleCleanUpTask();
+    }
+
+    @Test
+    public void sessionExpiryTask_whenAThrowableIsThrown_thenTheNextSessionExpiryTaskIsScheduled() {
+        final ScheduledCleanUpService scheduledCleanUpService = mock(ScheduledCleanUpService.class);
+        when(scheduledCleanUpService.expireSessions()).thenAnswer(invocation -> {
+            throw new Throwable();
+        });
+        final ScheduledCleanUpService.SessionExpiryTask task = new ScheduledCleanUpService.SessionExpiryTask(
+                scheduledCleanUpService,
+                scheduledExecutorService,
+                Integer.MAX_VALUE);
+        task.call();
+        verify(scheduledCleanUpService).scheduleSessionExpiryTask();
+    }
+
+    @Test
+    public void expireSessions_invokesClientSessionPersistence() {
+        scheduledCleanUpService.expireSessions();
+        verify(clientSessionPersistence).expireSessions();
+    }
+}
@@ -15,9 +15,13 @@
  */
 package com.hivemq.persistence;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.util.concurrent.SettableFuture;
 import com.hivemq.configuration.service.InternalConfigurations;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.metrics.HiveMQMetrics;
+import com.hivemq.metrics.MetricsHolder;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -91,6 +95,37 @@ public class SingleWriterServiceImplTest {
         assertEquals(64, singleWriterServiceImpl.validAmountOfQueues(64, 64));
     }
 
+    @Test
+    public void metrics_registered() throws Exception {
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final SingleWriterServiceImpl singleWriterService = new SingleWriterServiceImpl(new MetricsHolder(metricRegistry));
+        try {
+            assertTrue(metricRegistry.getGauges().containsKey(HiveMQMetrics.SINGLE_WRITER_TASKS_CURRENT.name()));
+            assertTrue(metricRegistry.getGauges()
+                    .containsKey(HiveMQMetrics.SINGLE_WRITER_NONEMPTY_QUEUES_CURRENT.name()));
+            assertTrue(metricRegistry.getGauges()
+                    .containsKey(HiveMQMetrics.SINGLE_WRITER_RUNNING_THREADS_CURRENT.name()));
+            for (final String prefix : new String[]{
+                    HiveMQMetrics.SINGLE_WRITER_RETAINED_MESSAGES_PREFIX,
+                    HiveMQMetrics.SINGLE_WRITER_CLIENT_SESSIONS_PREFIX,
+                    HiveMQMetrics.SINGLE_WRITER_SUBSCRIPTIONS_PREFIX,
+                    HiveMQMetrics.SINGLE_WRITER_QUEUED_MESSAGES_PREFIX,
+                    HiveMQMetrics.SINGLE_WRITER_ATTRIBUTE_STORE_PREFIX}) {
+                assertTrue(metricRegistry.getGauges().containsKey(prefix + "tasks.current"));
+                assertTrue(metricRegistry.getGauges().containsKey(prefix + "queue-0.tasks.current"));
+                assertTrue(metricRegistry.getHistograms().containsKey(prefix + "wait-time-micros"));
+                assertTrue(metricRegistry.getHistograms().containsKey(prefix + "execution-time-micros"));
+            }
+
+            singleWriterService.getQueuedMessagesQueue().submit("key", bucketIndex -> null);
+            final Gauge<?> gauge =
+                    metricRegistry.getGauges().get(HiveMQMetrics.SINGLE_WRITER_QUEUED_MESSAGES_PREFIX + "tasks.current");
+            assertTrue(((Number) gauge.getValue()).longValue() <= 1);
+        } finally {
+            singleWriterService.stop();
+        }
+    }
+
     @Test
     public void stop_shutdownAllThreads() {
         singleWriterServiceImpl.stop();
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.hivemq.configuration.service.InternalConfigurations;
+import com.hivemq.metrics.HiveMQMetrics;
+import com.hivemq.metrics.MetricsHolder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class ThreadAffineSingleWriterTest {
+
+    private ThreadAffineSingleWriter singleWriter;
+
+    @Before
+    public void setUp() throws Exception {
+        InternalConfigurations.SINGLE_WRITER_THREAD_POOL_SIZE.set(4);
+        InternalConfigurations.PERSISTENCE_SHUTDOWN_GRACE_PERIOD_MSEC.set(200);
+        InternalConfigurations.PERSISTENCE_BUCKET_COUNT.set(64);
+
+        singleWriter = new ThreadAffineSingleWriter();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        singleWriter.stop();
+    }
+
+    @Test
+    public void test_one_thread_per_queue() throws Exception {
+        final ProducerQueues queues = singleWriter.getClientSessionQueue();
+        final List<ListenableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            futures.add(queues.submit(5, bucketIndex -> Thread.currentThread().getName()));
+        }
+        final List<String> threadNames = Futures.allAsList(futures).get(10, TimeUnit.SECONDS);
+        for (final String threadName : threadNames) {
+            assertEquals(threadNames.get(0), threadName);
+        }
+
+        // all persistences use the same thread for the same bucket
+        assertEquals(threadNames.get(0), singleWriter.getRetainedMessageQueue()
+                .submit(5, bucketIndex -> Thread.currentThread().getName())
+                .get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void test_tasks_of_bucket_are_executed_in_order() throws Exception {
+        final ProducerQueues queues = singleWriter.getQueuedMessagesQueue();
+        final List<Integer> executed = new ArrayList<>();
+        final List<ListenableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            final int value = i;
+            futures.add(queues.submit(17, bucketIndex -> {
+                executed.add(value);
+                return null;
+            }));
+        }
+        Futures.allAsList(futures).get(10, TimeUnit.SECONDS);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, (int) executed.get(i));
+        }
+    }
+
+    @Test
+    public void test_idle_worker_is_unparked() throws Exception {
+        final ProducerQueues queues = singleWriter.getSubscriptionQueue();
+        assertEquals(1, (int) queues.submit(1, bucketIndex -> bucketIndex).get(10, TimeUnit.SECONDS));
+
+        final ThreadAffineSingleWriter.Worker worker = singleWriter.workers[0];
+        final long deadline = System.currentTimeMillis() + 10_000;
+        while (!worker.isParked() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertTrue(worker.isParked());
+
+        assertEquals(2, (int) queues.submit(2, bucketIndex -> bucketIndex).get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void test_callbacks() throws Exception {
+        final ProducerQueues queues = singleWriter.getAttributeStoreQueue();
+        final CountDownLatch latch = new CountDownLatch(2);
+        final AtomicReference<Object> result = new AtomicReference<>();
+        final AtomicReference<Exception> exception = new AtomicReference<>();
+
+        assertNull(queues.submit(3, bucketIndex -> "result", r -> {
+            result.set(r);
+            latch.countDown();
+        }, e -> fail()));
+        queues.submit(3, bucketIndex -> {
+            throw new IllegalStateException();
+        }, r -> fail(), e -> {
+            exception.set(e);
+            latch.countDown();
+        });
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals("result", result.get());
+        assertTrue(exception.get() instanceof IllegalStateException);
+    }
+
+    @Test(expected = ExecutionException.class)
+    public void test_failed_task_fails_future() throws Exception {
+        singleWriter.getClientSessionQueue().submit(0, bucketIndex -> {
+            throw new IllegalStateException();
+        }).get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void metrics_registered() throws Exception {
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final ThreadAffineSingleWriter singleWriter = new ThreadAffineSingleWriter(new MetricsHolder(metricRegistry));
+        try {
+            assertTrue(metricRegistry.getGauges().containsKey(HiveMQMetrics.SINGLE_WRITER_TASKS_CURRENT.name()));
+            assertTrue(metricRegistry.getGauges()
+                    .containsKey(HiveMQMetrics.SINGLE_WRITER_NONEMPTY_QUEUES_CURRENT.name()));
+            assertTrue(metricRegistry.getGauges()
+                    .containsKey(HiveMQMetrics.SINGLE_WRITER_RUNNING_THREADS_CURRENT.name()));
+            for (final String prefix : new String[]{
+                    HiveMQMetrics.SINGLE_WRITER_RETAINED_MESSAGES_PREFIX,
+                    HiveMQMetrics.SINGLE_WRITER_CLIENT_SESSIONS_PREFIX,
+                    HiveMQMetrics.SINGLE_WRITER_SUBSCRIPTIONS_PREFIX,
+                    HiveMQMetrics.SINGLE_WRITER_QUEUED_MESSAGES_PREFIX,
+                    HiveMQMetrics.SINGLE_WRITER_ATTRIBUTE_STORE_PREFIX}) {
+                assertTrue(metricRegistry.getGauges().containsKey(prefix + "tasks.current"));
+                assertTrue(metricRegistry.getGauges().containsKey(prefix + "queue-0.tasks.current"));
+                assertTrue(metricRegistry.getHistograms().containsKey(prefix + "wait-time-micros"));
+                assertTrue(metricRegistry.getHistograms().containsKey(prefix + "execution-time-micros"));
+            }
+
+            final CountDownLatch started = new CountDownLatch(1);
+            final CountDownLatch release = new CountDownLatch(1);
+            final ListenableFuture<Object> future = singleWriter.getQueuedMessagesQueue().submit(0, bucketIndex -> {
+                started.countDown();
+                Uninterruptibles.awaitUninterruptibly(release);
+                return "done";
+            });
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            final Gauge<?> tasks =
+                    metricRegistry.getGauges().get(HiveMQMetrics.SINGLE_WRITER_QUEUED_MESSAGES_PREFIX + "tasks.current");
+            final Gauge<?> globalTasks = metricRegistry.getGauges().get(HiveMQMetrics.SINGLE_WRITER_TASKS_CURRENT.name());
+            final Gauge<?> nonemptyQueues =
+                    metricRegistry.getGauges().get(HiveMQMetrics.SINGLE_WRITER_NONEMPTY_QUEUES_CURRENT.name());
+            assertEquals(1L, tasks.getValue());
+            assertEquals(1L, nonemptyQueues.getValue());
+
+            release.countDown();
+            future.get(10, TimeUnit.SECONDS);
+            assertEquals(0L, tasks.getValue());
+            assertEquals(0L, globalTasks.getValue());
+            assertEquals(0L, nonemptyQueues.getValue());
+        } finally {
+            singleWriter.stop();
+        }
+    }
+
+    @Test
+    public void stop_shutdownAllThreads() throws Exception {
+        singleWriter.stop();
+
+        for (final ThreadAffineSingleWriter.Worker worker : singleWriter.workers) {
+            worker.thread.join(1000);
+            assertFalse(worker.thread.isAlive());
+        }
+        for (final ExecutorService callbackExecutor : singleWriter.callbackExecutors) {
+            assertTrue(callbackExecutor.isShutdown());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.clientqueue;
+
+import com.google.common.collect.ImmutableList;
+import com.hivemq.persistence.clientqueue.ClientQueuePersistenceImpl.Key;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ClientQueueExpiryIndexTest {
+
+    private final ClientQueueExpiryIndex index = new ClientQueueExpiryIndex();
+
+    @Test
+    public void test_poll_expired_in_deadline_order() {
+        index.schedule(new Key("client2", false), 200);
+        index.schedule(new Key("client1", false), 100);
+        index.schedule(new Key("client3", true), 300);
+
+        assertEquals(ImmutableList.of(new Key("client1", false), new Key("client2", false)), index.pollExpired(200));
+        assertEquals(1, index.size());
+        assertEquals(ImmutableList.of(new Key("client3", true)), index.pollExpired(1000));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void test_earliest_deadline_wins() {
+        final Key key = new Key("client", false);
+        index.schedule(key, 200);
+        index.schedule(key, 100);
+        index.schedule(key, 300);
+
+        assertEquals(ImmutableList.of(key), index.pollExpired(100));
+        assertTrue(index.pollExpired(1000).isEmpty());
+    }
+
+    @Test
+    public void test_no_deadline_is_not_scheduled() {
+        index.schedule(new Key("client", false), ClientQueueExpiryIndex.NO_DEADLINE);
+
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void test_removed_queue_is_not_polled() {
+        final Key key = new Key("client", false);
+        index.schedule(key, 100);
+        index.remove(key);
+
+        assertTrue(index.pollExpired(1000).isEmpty());
+    }
+
+    @Test
+    public void test_reschedule_after_poll() {
+        final Key key = new Key("client", false);
+        index.schedule(key, 100);
+        assertEquals(ImmutableList.of(key), index.pollExpired(100));
+
+        index.schedule(key, 500);
+
+        assertTrue(index.pollExpired(499).isEmpty());
+        assertEquals(ImmutableList.of(key), index.pollExpired(500));
+    }
+
+    @Test
+    public void test_compaction_keeps_deadlines() {
+        for (int i = 1000; i > 0; i--) {
+            index.schedule(new Key("client" + (i % 10), false), i);
+        }
+
+        assertEquals(10, index.size());
+        assertEquals(10, index.pollExpired(10).size());
+        assertEquals(0, index.size());
+    }
+}
@@ -41,8 +41,10 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import util.TestBucketUtil;
 import util.TestSingleWriterFactory;
 
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -88,6 +90,11 @@ public class ClientQueuePersistenceImplTest {
     @Before
     public void setUp() throws Exception {
         closeableMock = MockitoAnnotations.openMocks(this);
+        // no group transaction, the actions run right away
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(localPersistence).afterCommit(anyInt(), any());
         singleWriterService = TestSingleWriterFactory.defaultSingleWriter();
         when(mqttConfigurationService.maxQueuedMessages()).thenReturn(1000L);
         when(mqttConfigurationService.getQueuedMessagesStrategy()).thenReturn(QueuedMessagesStrategy.DISCARD);
@@ -121,6 +128,26 @@ public class ClientQueuePersistenceImplTest {
                 anyBoolean(), anyInt());
     }
 
+    @Test(timeout = 5000)
+    public void test_add_to_many_one_task_per_bucket() throws ExecutionException, InterruptedException {
+        final String client1 = TestBucketUtil.getId(1, bucketSize);
+        final String client2 = TestBucketUtil.getId(1, bucketSize);
+        final String client3 = TestBucketUtil.getId(2, bucketSize);
+
+        clientQueuePersistence.addToMany(List.of(
+                new ClientQueuePublish(client1, createPublish(1, QoS.AT_LEAST_ONCE, "topic"), 1000L),
+                new ClientQueuePublish(client2, createPublish(1, QoS.AT_LEAST_ONCE, "topic"), 1000L),
+                new ClientQueuePublish(client3, createPublish(1, QoS.AT_LEAST_ONCE, "topic"), 500L)), false, false).get();
+
+        verify(localPersistence).addToMany(argThat(publishes -> publishes.size() == 2), eq(false),
+                eq(QueuedMessagesStrategy.DISCARD), eq(false), eq(1));
+        verify(localPersistence).addToMany(argThat(publishes -> publishes.size() == 1), eq(false),
+                eq(QueuedMessagesStrategy.DISCARD), eq(false), eq(2));
+        verify(localPersistence, never()).add(
+                anyString(), anyBoolean(), any(PUBLISH.class), anyLong(), any(QueuedMessagesStrategy.class),
+                anyBoolean(), anyInt());
+    }
+
     @Test(timeout = 5000)
     public void test_publish_avaliable() {
 
@@ -15,6 +15,7 @@
  */
 package com.hivemq.persistence.clientqueue;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.primitives.ImmutableIntArray;
@@ -25,6 +26,7 @@ import com.hivemq.mqtt.message.dropping.MessageDroppedService;
 import com.hivemq.mqtt.message.publish.PUBLISH;
 import com.hivemq.mqtt.message.publish.PUBLISHFactory;
 import com.hivemq.mqtt.message.pubrel.PUBREL;
+import com.hivemq.persistence.GroupCommitter;
 import com.hivemq.persistence.PersistenceStartup;
 import com.hivemq.persistence.local.xodus.EnvironmentUtil;
 import com.hivemq.persistence.local.xodus.bucket.BucketUtils;
@@ -39,6 +41,7 @@ import org.junit.rules.TemporaryFolder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -102,7 +105,8 @@ public class ClientQueueXodusLocalPersistenceTest {
                 new EnvironmentUtil(),
                 localPersistenceFileUtil,
                 persistenceStartup,
-                messageDroppedService);
+                messageDroppedService,
+                new MetricRegistry());
 
         persistence.start();
     }
@@ -356,6 +360,27 @@ public class ClientQueueXodusLocalPersistenceTest {
         verify(messageDroppedService, times(3)).queueFull(eq("client"), anyString(), anyInt());
     }
 
+    @Test
+    public void test_add_to_many() {
+        persistence.add("client2", false, createPublish(1, QoS.AT_LEAST_ONCE, "topic1"), 1L, DISCARD, false, 0);
+
+        persistence.addToMany(List.of(
+                new ClientQueuePublish("client1", createPublish(2, QoS.AT_LEAST_ONCE, "topic2"), 10L),
+                new ClientQueuePublish("client2", createPublish(3, QoS.AT_LEAST_ONCE, "topic3"), 1L),
+                new ClientQueuePublish("client3", createPublish(0, QoS.AT_MOST_ONCE, "topic4"), 10L)), false, DISCARD,
+                false, 0);
+
+        assertEquals(1, persistence.size("client1", false, 0));
+        assertEquals(1, persistence.size("client2", false, 0));
+        assertEquals(1, persistence.size("client3", false, 0));
+
+        final ImmutableList<PUBLISH> client2Publishes =
+                persistence.readNew("client2", false, ImmutableIntArray.of(1, 2), byteLimit, 0);
+        assertEquals(1, client2Publishes.size());
+        assertEquals("topic1", client2Publishes.get(0).getTopic());
+        verify(messageDroppedService).queueFull(eq("client2"), eq("topic3"), anyInt());
+    }
+
     @Test
     public void test_add_discard_oldest() {
         for (int i = 1; i <= 6; i++) {
@@ -1024,7 +1049,8 @@ public class ClientQueueXodusLocalPersistenceTest {
                 new EnvironmentUtil(),
                 localPersistenceFileUtil,
                 persistenceStartup,
-                messageDroppedService);
+                messageDroppedService,
+                new MetricRegistry());
 
         persistence.start();
 
@@ -1057,7 +1083,8 @@ public class ClientQueueXodusLocalPersistenceTest {
                 new EnvironmentUtil(),
                 localPersistenceFileUtil,
                 persistenceStartup,
-                messageDroppedService);
+                messageDroppedService,
+                new MetricRegistry());
 
         persistence.start();
 
@@ -1101,7 +1128,8 @@ public class ClientQueueXodusLocalPersistenceTest {
                 new EnvironmentUtil(),
                 localPersistenceFileUtil,
                 persistenceStartup,
-                messageDroppedService);
+                messageDroppedService,
+                new MetricRegistry());
 
         persistence.start();
 
@@ -1184,6 +1212,47 @@ public class ClientQueueXodusLocalPersistenceTest {
         return builder.build();
     }
 
+    @Test
+    public void test_group_abort_restores_queue_state() {
+        persistence.add("client", false, createPublish(1, QoS.AT_LEAST_ONCE, "topic1"), 100L, DISCARD, false, 0);
+        persistence.add("client", false, createPublish(0, QoS.AT_MOST_ONCE, "topic2"), 100L, DISCARD, false, 0);
+        final int clientQos0Memory = persistence.getClientQos0MemoryMap().get("client").get();
+
+        final GroupCommitter groupCommitter = persistence.getGroupCommitter();
+        assertTrue(groupCommitter.begin(0));
+        persistence.add("client", false, createPublish(0, QoS.AT_MOST_ONCE, "topic3"), 100L, DISCARD, false, 0);
+        persistence.add("client", false, createPublish(2, QoS.AT_LEAST_ONCE, "topic4"), 100L, DISCARD, false, 0);
+        assertEquals(4, persistence.readNew("client", false, ImmutableIntArray.of(1, 2, 3, 4), 256000, 0).size());
+        persistence.clear("client", false, 0);
+        groupCommitter.abort(0);
+
+        verify(payloadPersistence, never()).decrementReferenceCounter(anyLong());
+        assertEquals(2, persistence.size("client", false, 0));
+        assertEquals(1, persistence.qos0Size("client", false, 0));
+        assertEquals(clientQos0Memory, persistence.getClientQos0MemoryMap().get("client").get());
+
+        final ImmutableList<PUBLISH> publishes =
+                persistence.readNew("client", false, ImmutableIntArray.of(1, 2), 256000, 0);
+        assertEquals(2, publishes.size());
+        assertEquals("topic1", publishes.get(0).getTopic());
+        assertEquals("topic2", publishes.get(1).getTopic());
+    }
+
+    @Test
+    public void test_group_commit_payload_decremented_after_commit() {
+        persistence.add("client", false, createPublish(0, QoS.AT_MOST_ONCE, "topic"), 100L, DISCARD, false, 0);
+
+        final GroupCommitter groupCommitter = persistence.getGroupCommitter();
+        assertTrue(groupCommitter.begin(0));
+        assertEquals(1, persistence.readNew("client", false, ImmutableIntArray.of(1), 256000, 0).size());
+        verify(payloadPersistence, never()).decrementReferenceCounter(anyLong());
+        groupCommitter.commit(0);
+
+        verify(payloadPersistence).decrementReferenceCounter(1L);
+        assertEquals(0, persistence.size("client", false, 0));
+        assertNull(persistence.getClientQos0MemoryMap().get("client"));
+    }
+
     private PUBLISH createPublish(final int packetId, final QoS qos) {
         return createPublish(packetId, qos, "topic");
     }
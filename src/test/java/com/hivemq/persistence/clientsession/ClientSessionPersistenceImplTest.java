@@ -60,6 +60,7 @@ public class ClientSessionPersistenceImplTest {
     @Before
     public void setUp() throws Exception {
         localPersistence = mock(ClientSessionLocalPersistence.class);
+        doCallRealMethod().when(localPersistence).afterCommit(anyInt(), any());
         subscriptionPersistence = mock(ClientSessionSubscriptionPersistence.class);
         clientQueuePersistence = mock(ClientQueuePersistence.class);
         pendingWillMessages = mock(PendingWillMessages.class);
@@ -76,6 +76,7 @@ public class ClientSessionSubscriptionPersistenceImplTest {
     @Before
     public void setUp() throws Exception {
         closeableMock = MockitoAnnotations.openMocks(this);
+        doCallRealMethod().when(localPersistence).afterCommit(anyInt(), any());
         when(topicTree.addTopic(anyString(), any(Topic.class), anyByte(), anyString())).thenReturn(true);
         singleWriterService = TestSingleWriterFactory.defaultSingleWriter();
         persistence = new ClientSessionSubscriptionPersistenceImpl(localPersistence, topicTree, sharedSubscriptionService, singleWriterService, connectionPersistence, clientSessionLocalPersistence, publishPollService, new Chunker(), mock(MqttServerDisconnector.class));
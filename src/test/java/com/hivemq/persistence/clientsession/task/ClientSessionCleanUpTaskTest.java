@@ -25,6 +25,10 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 /**
@@ -46,6 +50,7 @@ public class ClientSessionCleanUpTaskTest {
     @Before
     public void setUp() throws Exception {
         MockitoAnnotations.initMocks(this);
+        doCallRealMethod().when(localPersistence).afterCommit(anyInt(), any());
         task = new ClientSessionCleanUpTask(localPersistence, clientSessionPersistence, pendingWillMessages);
     }
 
@@ -57,4 +62,21 @@ public class ClientSessionCleanUpTaskTest {
         verify(pendingWillMessages).sendWillIfPending(clientId);
         verify(clientSessionPersistence).cleanClientData(clientId);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void test_clean_up_side_effects_after_commit() {
+        final String clientId = "client";
+        Mockito.when(localPersistence.cleanUp(0)).thenReturn(ImmutableSet.of(clientId));
+        // the local persistence has an open group transaction, the side effects are deferred
+        final Runnable[] deferred = new Runnable[1];
+        Mockito.doAnswer(invocation -> deferred[0] = invocation.getArgument(1))
+                .when(localPersistence).afterCommit(anyInt(), any());
+
+        task.doTask(0);
+        verify(pendingWillMessages, never()).sendWillIfPending(clientId);
+
+        deferred[0].run();
+        verify(pendingWillMessages).sendWillIfPending(clientId);
+        verify(clientSessionPersistence).cleanClientData(clientId);
+    }
+}
@@ -28,10 +28,10 @@ import com.hivemq.mqtt.message.dropping.MessageDroppedService;
 import com.hivemq.mqtt.message.publish.PUBLISH;
 import com.hivemq.mqtt.message.publish.PUBLISHFactory;
 import com.hivemq.mqtt.message.pubrel.PUBREL;
+import com.hivemq.persistence.clientqueue.ClientQueuePublish;
 import com.hivemq.persistence.local.memory.ClientQueueMemoryLocalPersistence.PublishWithRetained;
 import com.hivemq.persistence.local.xodus.bucket.BucketUtils;
 import com.hivemq.persistence.payload.PublishPayloadPersistence;
-import com.hivemq.util.ObjectMemoryEstimation;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.After;
 import org.junit.Before;
@@ -41,6 +41,7 @@ import org.junit.rules.TemporaryFolder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -305,6 +306,27 @@ public class ClientQueueMemoryLocalPersistenceTest {
         verify(messageDroppedService, times(3)).queueFull(eq("client"), anyString(), anyInt());
     }
 
+    @Test
+    public void test_add_to_many() {
+        persistence.add("client2", false, createPublish(1, QoS.AT_LEAST_ONCE, "topic1"), 1L, DISCARD, false, 0);
+
+        persistence.addToMany(List.of(
+                new ClientQueuePublish("client1", createPublish(2, QoS.AT_LEAST_ONCE, "topic2"), 10L),
+                new ClientQueuePublish("client2", createPublish(3, QoS.AT_LEAST_ONCE, "topic3"), 1L),
+                new ClientQueuePublish("client3", createPublish(0, QoS.AT_MOST_ONCE, "topic4"), 10L)), false, DISCARD,
+                false, 0);
+
+        assertEquals(1, persistence.size("client1", false, 0));
+        assertEquals(1, persistence.size("client2", false, 0));
+        assertEquals(1, persistence.size("client3", false, 0));
+
+        final ImmutableList<PUBLISH> client2Publishes =
+                persistence.readNew("client2", false, ImmutableIntArray.of(1, 2), byteLimit, 0);
+        assertEquals(1, client2Publishes.size());
+        assertEquals("topic1", client2Publishes.get(0).getTopic());
+        verify(messageDroppedService).queueFull(eq("client2"), eq("topic3"), anyInt());
+    }
+
     @Test
     public void test_add_discard_oldest() {
         for (int i = 1; i <= 6; i++) {
@@ -675,6 +697,34 @@ public class ClientQueueMemoryLocalPersistenceTest {
         assertEquals(0, persistence.size("client1", false, 0));
     }
 
+    @Test
+    public void test_clean_up_only_expired_queues() {
+
+        persistence.add(
+                "client1", false, createPublish(0, QoS.AT_LEAST_ONCE, 10, System.currentTimeMillis() - 10000), 10,
+                DISCARD, false, 0);
+        persistence.add(
+                "client1", false, createPublish(0, QoS.AT_LEAST_ONCE, 1000, System.currentTimeMillis()), 10,
+                DISCARD, false, 0);
+        persistence.add(
+                "client2", false, createPublish(0, QoS.AT_LEAST_ONCE, 1000, System.currentTimeMillis() - 10000), 10,
+                DISCARD, false, 0);
+        persistence.add("client3", false, createPublish(0, QoS.AT_LEAST_ONCE, "topic"), 10, DISCARD, false, 0);
+
+        persistence.cleanUp(0);
+
+        verify(payloadPersistence, times(1)).decrementReferenceCounter(anyLong());
+        assertEquals(1, persistence.size("client1", false, 0));
+        assertEquals(1, persistence.size("client2", false, 0));
+        assertEquals(1, persistence.size("client3", false, 0));
+        assertEquals(1, metricRegistry.counter(HiveMQMetrics.QUEUED_MESSAGES_EXPIRED_COUNT.name()).getCount());
+
+        // the remaining messages are not expired yet
+        persistence.cleanUp(0);
+
+        verify(payloadPersistence, times(1)).decrementReferenceCounter(anyLong());
+    }
+
     @Test
     public void test_clean_up_expired_pubrels_not_configured() throws InterruptedException {
 
@@ -828,9 +878,10 @@ public class ClientQueueMemoryLocalPersistenceTest {
         persistence.add("client1", false, publish2, 100L, DISCARD, false, 0);
         persistence.add("client1", false, publish3, 100L, DISCARD, false, 0);
 
-        final int size = new PublishWithRetained(publish1, false).getEstimatedSize() + ObjectMemoryEstimation.linkedListNodeOverhead() +
-                new PublishWithRetained(publish2, false).getEstimatedSize() + ObjectMemoryEstimation.linkedListNodeOverhead() +
-                new PublishWithRetained(publish3, false).getEstimatedSize() + ObjectMemoryEstimation.linkedListNodeOverhead();
+        final int size = new PublishWithRetained(publish1, false).getEstimatedSize() +
+                new PublishWithRetained(publish2, false).getEstimatedSize() +
+                new PublishWithRetained(publish3, false).getEstimatedSize() +
+                2 * bufferSize(1, false);
 
         assertEquals(size, gauge.getValue().longValue());
 
@@ -843,7 +894,9 @@ public class ClientQueueMemoryLocalPersistenceTest {
         verify(payloadPersistence, times(2)).decrementReferenceCounter(anyLong());
 
         assertTrue(gauge.getValue() > 0);
-        assertEquals(new PublishWithRetained(messages.get(0), false).getEstimatedSize() + ObjectMemoryEstimation.linkedListNodeOverhead(), gauge.getValue().longValue());
+        // the qos 0 buffer is released, the message of the qos 1 buffer got a packet id and is indexed
+        assertEquals(new PublishWithRetained(messages.get(0), false).getEstimatedSize() + bufferSize(1, true),
+                gauge.getValue().longValue());
     }
 
     @Test
@@ -1192,6 +1245,34 @@ public class ClientQueueMemoryLocalPersistenceTest {
         return createPublish(packetId, qos, "topic");
     }
 
+    @Test
+    public void test_buffer_capacity_counted_and_released() {
+        final Gauge<Long> gauge = metricRegistry.getGauges().get(HiveMQMetrics.QUEUED_MESSAGES_MEMORY_PERSISTENCE_TOTAL_SIZE.name());
+
+        long messagesSize = 0;
+        for (int i = 0; i < 100; i++) {
+            final PUBLISH publish = createPublish(1, QoS.AT_LEAST_ONCE, "topic" + i, i);
+            messagesSize += new PublishWithRetained(publish, false).getEstimatedSize();
+            persistence.add("client", false, publish, 1000L, DISCARD, false, 0);
+        }
+        // 100 messages need 128 slots
+        assertEquals(messagesSize + bufferSize(100, false), gauge.getValue().longValue());
+
+        persistence.clear("client", false, 0);
+        assertEquals(0, gauge.getValue().longValue());
+    }
+
+    /**
+     * @return the estimated size of a ring buffer with the amount of messages without the size of the messages.
+     */
+    private static int bufferSize(final int messages, final boolean packetIds) {
+        final MessageRingBuffer<PUBREL> buffer = new MessageRingBuffer<>(packetIds);
+        for (int i = 1; i <= messages; i++) {
+            buffer.addLast(new PUBREL(packetIds ? i : 0));
+        }
+        return buffer.getEstimatedSizeWithoutElements();
+    }
+
     private PUBLISH createPublish(final int packetId, final QoS qos, final long expiryInterval, final long timestamp) {
         return new PUBLISHFactory.Mqtt5Builder().withPacketIdentifier(packetId)
                 .withQoS(qos)
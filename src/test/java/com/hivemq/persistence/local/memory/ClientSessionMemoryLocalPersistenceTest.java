@@ -308,6 +308,24 @@ public class ClientSessionMemoryLocalPersistenceTest {
         verify(eventLog, times(1)).clientSessionExpired(anyLong(), anyString());
     }
 
+    @Test
+    public void test_next_expiry_follows_session_changes() {
+        final int bucket = BucketUtils.getBucket("clientid1", BUCKET_COUNT);
+
+        persistence.put("clientid1", new ClientSession(true, 10), 1000, bucket);
+        assertEquals(Long.MAX_VALUE, persistence.getNextExpiry(bucket));
+
+        persistence.disconnect("clientid1", 2000, false, bucket, 10);
+        assertEquals(12000, persistence.getNextExpiry(bucket));
+
+        persistence.setSessionExpiryInterval("clientid1", 20, bucket);
+        assertTrue(persistence.getNextExpiry(bucket) <= 22000);
+
+        final Set<String> expired = persistence.cleanUp(bucket);
+        assertTrue(expired.contains("clientid1"));
+        assertEquals(Long.MAX_VALUE, persistence.getNextExpiry(bucket));
+    }
+
     @Test
     public void test_clean_up_expired_sessions_twice() throws Exception {
 
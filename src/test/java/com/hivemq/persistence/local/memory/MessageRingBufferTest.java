@@ -0,0 +1,192 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.local.memory;
+
+import com.hivemq.mqtt.message.pubrel.PUBREL;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MessageRingBufferTest {
+
+    @Test
+    public void test_add_and_poll_in_order() {
+        final MessageRingBuffer<PUBREL> buffer = new MessageRingBuffer<>(false);
+        for (int i = 1; i <= 20; i++) {
+            buffer.addLast(new PUBREL(i));
+        }
+
+        assertEquals(20, buffer.size());
+        for (int i = 1; i <= 20; i++) {
+            assertEquals(i, buffer.pollFirst().getPacketIdentifier());
+        }
+        assertTrue(buffer.isEmpty());
+        assertNull(buffer.pollFirst());
+    }
+
+    @Test
+    public void test_add_first() {
+        final MessageRingBuffer<PUBREL> buffer = new MessageRingBuffer<>(true);
+        buffer.addLast(new PUBREL(2));
+        buffer.addFirst(new PUBREL(1));
+
+        assertEquals(1, buffer.get(buffer.firstSequence()).getPacketIdentifier());
+        assertEquals(2, buffer.get(buffer.endSequence() - 1).getPacketIdentifier());
+        assertEquals(buffer.firstSequence(), buffer.sequenceOf(1));
+    }
+
+    @Test
+    public void test_remove_in_the_middle() {
+        final MessageRingBuffer<PUBREL> buffer = new MessageRingBuffer<>(true);
+        final long first = buffer.addLast(new PUBREL(1));
+        final long second = buffer.addLast(new PUBREL(2));
+        final long third = buffer.addLast(new PUBREL(3));
+
+        assertEquals(2, buffer.remove(second).getPacketIdentifier());
+
+        assertNull(buffer.get(second));
+        assertNull(buffer.remove(second));
+        assertEquals(2, buffer.size());
+        assertEquals(MessageRingBuffer.NOT_FOUND, buffer.sequenceOf(2));
+        assertEquals(third, buffer.sequenceOf(3));
+
+        buffer.remove(first);
+
+        assertEquals(third, buffer.firstSequence());
+        assertEquals(third + 1, buffer.endSequence());
+    }
+
+    @Test
+    public void test_set_and_packet_id_changed() {
+        final MessageRingBuffer<PUBREL> buffer = new MessageRingBuffer<>(true);
+        final long sequence = buffer.addLast(new PUBREL(0));
+        assertEquals(MessageRingBuffer.NOT_FOUND, buffer.sequenceOf(5));
+
+        buffer.get(sequence).setPacketIdentifier(5);
+        buffer.packetIdChanged(sequence, 0);
+        assertEquals(sequence, buffer.sequenceOf(5));
+
+        buffer.set(sequence, new PUBREL(6));
+        assertEquals(MessageRingBuffer.NOT_FOUND, buffer.sequenceOf(5));
+        assertEquals(sequence, buffer.sequenceOf(6));
+    }
+
+    @Test
+    public void test_grow_keeps_sequences() {
+        final MessageRingBuffer<PUBREL> buffer = new MessageRingBuffer<>(true);
+        final long first = buffer.addFirst(new PUBREL(1));
+        for (int i = 2; i <= 100; i++) {
+            buffer.addLast(new PUBREL(i));
+        }
+
+        assertEquals(100, buffer.size());
+        assertEquals(first, buffer.firstSequence());
+        for (int i = 1; i <= 100; i++) {
+            assertEquals(i, buffer.get(buffer.sequenceOf(i)).getPacketIdentifier());
+        }
+    }
+
+    @Test
+    public void test_compact_instead_of_grow() {
+        final MessageRingBuffer<PUBREL> buffer = new MessageRingBuffer<>(true);
+        final long[] sequences = new long[8];
+        for (int i = 0; i < 8; i++) {
+            sequences[i] = buffer.addLast(new PUBREL(i + 1));
+        }
+        // remove every message but the first and the last
+        for (int i = 1; i < 7; i++) {
+            buffer.remove(sequences[i]);
+        }
+        final int capacity = buffer.capacity();
+
+        buffer.addLast(new PUBREL(9));
+
+        assertEquals(capacity, buffer.capacity());
+        assertEquals(3, buffer.size());
+        assertEquals(3, buffer.endSequence() - buffer.firstSequence());
+        assertEquals(1, buffer.pollFirst().getPacketIdentifier());
+        assertEquals(buffer.firstSequence(), buffer.sequenceOf(8));
+        assertEquals(buffer.endSequence() - 1, buffer.sequenceOf(9));
+    }
+
+    @Test
+    public void test_clear() {
+        final MessageRingBuffer<PUBREL> buffer = new MessageRingBuffer<>(true);
+        buffer.addLast(new PUBREL(1));
+        buffer.addLast(new PUBREL(2));
+
+        buffer.clear();
+
+        assertTrue(buffer.isEmpty());
+        assertEquals(buffer.firstSequence(), buffer.endSequence());
+        assertEquals(MessageRingBuffer.NOT_FOUND, buffer.sequenceOf(1));
+    }
+
+    @Test
+    public void test_array_and_index_allocated_lazily() {
+        final MessageRingBuffer<PUBREL> buffer = new MessageRingBuffer<>(true);
+        assertEquals(0, buffer.capacity());
+        assertEquals(0, buffer.getEstimatedSizeWithoutElements());
+
+        buffer.addLast(new PUBREL(0));
+        final int withoutIndex = buffer.getEstimatedSizeWithoutElements();
+        assertTrue(withoutIndex > 0);
+
+        buffer.addLast(new PUBREL(1));
+        assertTrue(buffer.getEstimatedSizeWithoutElements() > withoutIndex);
+    }
+
+    @Test
+    public void test_shrink_on_drain_keeps_sequences() {
+        final MessageRingBuffer<PUBREL> buffer = new MessageRingBuffer<>(true);
+        for (int i = 1; i <= 100; i++) {
+            buffer.addLast(new PUBREL(i));
+        }
+        assertEquals(128, buffer.capacity());
+        final int fullSize = buffer.getEstimatedSizeWithoutElements();
+
+        for (int i = 1; i <= 90; i++) {
+            assertEquals(i, buffer.pollFirst().getPacketIdentifier());
+        }
+
+        assertTrue(buffer.capacity() < 128);
+        assertTrue(buffer.getEstimatedSizeWithoutElements() < fullSize);
+        for (int i = 91; i <= 100; i++) {
+            assertEquals(i, buffer.get(buffer.sequenceOf(i)).getPacketIdentifier());
+        }
+
+        while (buffer.pollFirst() != null) {
+            // drain
+        }
+        assertEquals(0, buffer.capacity());
+        assertEquals(0, buffer.getEstimatedSizeWithoutElements());
+    }
+
+    @Test
+    public void test_clear_releases_array() {
+        final MessageRingBuffer<PUBREL> buffer = new MessageRingBuffer<>(true);
+        for (int i = 1; i <= 100; i++) {
+            buffer.addLast(new PUBREL(i));
+        }
+
+        buffer.clear();
+
+        assertEquals(0, buffer.capacity());
+        assertEquals(0, buffer.getEstimatedSizeWithoutElements());
+        buffer.addLast(new PUBREL(1));
+        assertEquals(buffer.firstSequence(), buffer.sequenceOf(1));
+    }
+}
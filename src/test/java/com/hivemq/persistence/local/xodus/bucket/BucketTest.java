@@ -17,13 +17,20 @@ package com.hivemq.persistence.local.xodus.bucket;
 
 import jetbrains.exodus.env.Environment;
 import jetbrains.exodus.env.Store;
+import jetbrains.exodus.env.Transaction;
+import jetbrains.exodus.env.TransactionalExecutable;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
-import static org.junit.Assert.assertFalse;
-import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
 
 /**
  * @author Lukas Brandl
@@ -48,4 +55,115 @@ public class BucketTest {
         assertFalse(bucket.close());
         assertFalse(bucket.close());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void group_transaction_is_joined_by_owner_thread() throws Exception {
+        final Transaction transaction = mock(Transaction.class);
+        when(environment.isOpen()).thenReturn(true);
+        when(environment.beginExclusiveTransaction()).thenReturn(transaction);
+        when(transaction.commit()).thenReturn(true);
+        final Bucket bucket = new Bucket(environment, store);
+
+        assertTrue(bucket.beginGroupTransaction());
+
+        final AtomicReference<Transaction> used = new AtomicReference<>();
+        bucket.executeInExclusiveTransaction(used::set);
+        assertSame(transaction, used.get());
+        assertSame(transaction, bucket.computeInReadonlyTransaction(txn -> txn));
+
+        final Thread otherThread = new Thread(() -> bucket.executeInTransaction(txn -> {}));
+        otherThread.start();
+        otherThread.join();
+        verify(environment).executeInTransaction(any(TransactionalExecutable.class));
+        verify(environment, never()).executeInExclusiveTransaction(any(TransactionalExecutable.class));
+
+        bucket.commitGroupTransaction();
+        verify(transaction).commit();
+
+        bucket.executeInExclusiveTransaction(txn -> {});
+        verify(environment).executeInExclusiveTransaction(any(TransactionalExecutable.class));
+    }
+
+    @Test
+    public void group_transaction_abort() throws Exception {
+        final Transaction transaction = mock(Transaction.class);
+        when(environment.isOpen()).thenReturn(true);
+        when(environment.beginExclusiveTransaction()).thenReturn(transaction);
+        final Bucket bucket = new Bucket(environment, store);
+
+        assertTrue(bucket.beginGroupTransaction());
+        bucket.abortGroupTransaction();
+
+        verify(transaction).abort();
+        verify(transaction, never()).commit();
+    }
+
+    @Test
+    public void group_transaction_not_begun_when_closing() throws Exception {
+        when(environment.isOpen()).thenReturn(true);
+        final Bucket bucket = new Bucket(environment, store);
+        bucket.close();
+
+        assertFalse(bucket.beginGroupTransaction());
+        verify(environment, never()).beginExclusiveTransaction();
+    }
+
+    @Test
+    public void afterCommit_without_group_transaction_runs_immediately() throws Exception {
+        final Bucket bucket = new Bucket(environment, store);
+        final List<String> events = new ArrayList<>();
+
+        bucket.afterCommit(() -> events.add("commit"));
+        bucket.afterAbort(() -> events.add("abort"));
+
+        assertEquals(List.of("commit"), events);
+        assertFalse(bucket.inGroupTransaction());
+    }
+
+    @Test
+    public void afterCommit_group_transaction_runs_after_commit() throws Exception {
+        final Transaction transaction = mock(Transaction.class);
+        when(environment.isOpen()).thenReturn(true);
+        when(environment.beginExclusiveTransaction()).thenReturn(transaction);
+        final List<String> events = new ArrayList<>();
+        when(transaction.commit()).thenAnswer(invocation -> events.add("committed"));
+        final Bucket bucket = new Bucket(environment, store);
+
+        assertTrue(bucket.beginGroupTransaction());
+        assertTrue(bucket.inGroupTransaction());
+        bucket.executeInTransaction(txn -> {
+            bucket.setCommitHook(txn, () -> events.add("hook 1"));
+            bucket.afterAbort(() -> events.add("abort"));
+        });
+        bucket.executeInTransaction(txn -> bucket.setCommitHook(txn, () -> events.add("hook 2")));
+        bucket.afterCommit(() -> events.add("index"));
+        assertTrue(events.isEmpty());
+
+        bucket.commitGroupTransaction();
+
+        assertEquals(List.of("committed", "hook 1", "hook 2", "index"), events);
+        verify(transaction, never()).setCommitHook(any());
+    }
+
+    @Test
+    public void afterCommit_group_transaction_discarded_on_abort() throws Exception {
+        final Transaction transaction = mock(Transaction.class);
+        when(environment.isOpen()).thenReturn(true);
+        when(environment.beginExclusiveTransaction()).thenReturn(transaction);
+        final List<String> events = new ArrayList<>();
+        final Bucket bucket = new Bucket(environment, store);
+
+        assertTrue(bucket.beginGroupTransaction());
+        bucket.afterCommit(() -> events.add("index"));
+        bucket.afterAbort(() -> events.add("abort"));
+        bucket.abortGroupTransaction();
+
+        assertEquals(List.of("abort"), events);
+
+        // a new group starts without the actions of the aborted one
+        assertTrue(bucket.beginGroupTransaction());
+        when(transaction.commit()).thenReturn(true);
+        bucket.commitGroupTransaction();
+        assertEquals(List.of("abort"), events);
+    }
+}
@@ -34,6 +34,17 @@ public class BucketUtilsTest {
         }
     }
 
+    @Test
+    public void test_long_buckets_between_0_and_bucketsize() throws Exception {
+        for (long i = -5000; i < 5000; i++) {
+            final int bucket = BucketUtils.getBucket(i, 3);
+            assertTrue(bucket >= 0);
+            assertTrue(bucket < 3);
+        }
+        assertTrue(BucketUtils.getBucket(Long.MIN_VALUE, 5) >= 0);
+        assertTrue(BucketUtils.getBucket(Long.MAX_VALUE, 5) >= 0);
+    }
+
     @Test
     public void test_integer_min_value() throws Exception {
 
@@ -25,6 +25,7 @@ import com.hivemq.metrics.MetricsHolder;
 import com.hivemq.mqtt.message.QoS;
 import com.hivemq.mqtt.message.connect.MqttWillPublish;
 import com.hivemq.mqtt.message.mqtt5.Mqtt5UserProperties;
+import com.hivemq.persistence.GroupCommitter;
 import com.hivemq.persistence.NoSessionException;
 import com.hivemq.persistence.PersistenceEntry;
 import com.hivemq.persistence.PersistenceStartup;
@@ -614,6 +615,75 @@ public class ClientSessionXodusLocalPersistenceTest {
         assertEquals(10L, session.getQueueLimit().longValue());
     }
 
+    @Test(timeout = 10_000)
+    public void test_session_state_without_will_follows_changes() {
+        final int bucket = BucketUtils.getBucket("clientId", BUCKET_COUNT);
+        persistence.put("clientId", new ClientSession(true, 1000L, null, 10L), System.currentTimeMillis(), bucket);
+
+        final ClientSession connected = persistence.getSession("clientId", true, false);
+        assertTrue(connected.isConnected());
+        assertEquals(10L, connected.getQueueLimit().longValue());
+        assertEquals(1000L, connected.getSessionExpiryIntervalSec());
+
+        persistence.disconnect("clientId", System.currentTimeMillis(), false, bucket, 2000L);
+        final ClientSession disconnected = persistence.getSession("clientId", true, false);
+        assertFalse(disconnected.isConnected());
+        assertEquals(2000L, disconnected.getSessionExpiryIntervalSec());
+
+        persistence.setSessionExpiryInterval("clientId", 0L, bucket);
+        assertNull(persistence.getSession("clientId", true, false));
+        assertNotNull(persistence.getSession("clientId", false, false));
+
+        persistence.removeWithTimestamp("clientId", bucket);
+        assertNull(persistence.getSession("clientId", false, false));
+    }
+
+    @Test(timeout = 10_000)
+    public void test_session_state_is_shared_and_immutable() {
+        final int bucket = BucketUtils.getBucket("clientId", BUCKET_COUNT);
+        persistence.put("clientId", new ClientSession(true, 1000L), System.currentTimeMillis(), bucket);
+
+        final ClientSession session = persistence.getSession("clientId", true, false);
+        assertSame(session, persistence.getSession("clientId", true, false));
+        assertThrows(UnsupportedOperationException.class, () -> session.setConnected(false));
+        assertThrows(UnsupportedOperationException.class, () -> session.setSessionExpiryIntervalSec(0));
+        assertThrows(UnsupportedOperationException.class, () -> session.setWillPublish(null));
+    }
+
+    @Test(timeout = 10_000)
+    public void test_session_state_keeps_client_id_instance() {
+        final int bucket = BucketUtils.getBucket("clientId", BUCKET_COUNT);
+        final String clientId = new String("clientId");
+        final String sameClientId = new String("clientId");
+
+        assertSame(clientId, persistence.stateIndex.put(bucket, clientId, new ClientSession(true, 1000L), 1L));
+        assertSame(clientId, persistence.stateIndex.put(bucket, sameClientId, new ClientSession(false, 1000L), 2L));
+    }
+
+    @Test(timeout = 10_000)
+    public void test_session_state_removed_on_clean_up() {
+        final int bucket = BucketUtils.getBucket("clientId", BUCKET_COUNT);
+        persistence.put("clientId", new ClientSession(false, 0L), System.currentTimeMillis() - 1000L, bucket);
+        assertNotNull(persistence.getSession("clientId", false, false));
+
+        persistence.cleanUp(bucket);
+
+        assertNull(persistence.getSession("clientId", false, false));
+    }
+
+    @Test(timeout = 10_000)
+    public void test_session_state_rebuilt_on_start() {
+        final int bucket = BucketUtils.getBucket("clientId", BUCKET_COUNT);
+        persistence.put("clientId", new ClientSession(false, SESSION_EXPIRY_MAX, null, 5L), 123L, bucket);
+
+        persistence.stateIndex.clear(bucket);
+        persistence.init();
+
+        final ClientSession session = persistence.getSession("clientId", true, false);
+        assertFalse(session.isConnected());
+        assertEquals(5L, session.getQueueLimit().longValue());
+    }
+
     @NotNull
     public ArrayList<String> getRandomUniqueIds() {
         final Set<String> clientIdSet = new HashSet<>();
@@ -625,5 +695,40 @@ public class ClientSessionXodusLocalPersistenceTest {
         return new ArrayList<>(clientIdSet);
     }
 
-}
 
+    @Test
+    public void test_group_commit_index_updated_after_commit() throws Exception {
+        final int bucketIndex = BucketUtils.getBucket("clientid", BUCKET_COUNT);
+        final GroupCommitter groupCommitter = persistence.getGroupCommitter();
+        assertTrue(groupCommitter.begin(bucketIndex));
+
+        persistence.put("clientid", new ClientSession(true, SESSION_EXPIRY_MAX), 123L, bucketIndex);
+
+        // the writer of the group reads its own changes, other threads only see committed changes
+        assertNotNull(persistence.getSession("clientid", bucketIndex));
+        final ClientSession[] otherThreadSession = new ClientSession[1];
+        final Thread otherThread = new Thread(() -> otherThreadSession[0] = persistence.getSession("clientid", bucketIndex));
+        otherThread.start();
+        otherThread.join();
+        assertNull(otherThreadSession[0]);
+        assertEquals(0, persistence.getSessionsCount());
+
+        groupCommitter.commit(bucketIndex);
+
+        assertNotNull(persistence.getSession("clientid", bucketIndex));
+        assertEquals(1, persistence.getSessionsCount());
+    }
+
+    @Test
+    public void test_group_abort_index_not_updated() {
+        final int bucketIndex = BucketUtils.getBucket("clientid", BUCKET_COUNT);
+        final GroupCommitter groupCommitter = persistence.getGroupCommitter();
+        assertTrue(groupCommitter.begin(bucketIndex));
+
+        persistence.put("clientid", new ClientSession(true, SESSION_EXPIRY_MAX), 123L, bucketIndex);
+        groupCommitter.abort(bucketIndex);
+
+        assertNull(persistence.getSession("clientid", bucketIndex));
+        assertEquals(0, persistence.getSessionsCount());
+    }
+}
@@ -15,9 +15,12 @@
  */
 package com.hivemq.persistence.payload;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.util.concurrent.ListeningScheduledExecutorService;
 import com.hivemq.configuration.service.InternalConfigurations;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
+import com.hivemq.metrics.HiveMQMetrics;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -25,6 +28,9 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import util.LogbackCapturingAppender;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
@@ -43,6 +49,7 @@ public class PublishPayloadPersistenceImplTest {
     @Mock
     private @NotNull ListeningScheduledExecutorService scheduledExecutorService;
 
+    private @NotNull MetricRegistry metricRegistry;
     private @NotNull PublishPayloadPersistenceImpl persistence;
 
     @Before
@@ -52,7 +59,8 @@ public class PublishPayloadPersistenceImplTest {
         InternalConfigurations.PAYLOAD_PERSISTENCE_CLEANUP_SCHEDULE_MSEC.set(10000);
         InternalConfigurations.PAYLOAD_PERSISTENCE_BUCKET_COUNT.set(64);
 
-        persistence = new PublishPayloadPersistenceImpl(localPersistence, scheduledExecutorService);
+        metricRegistry = new MetricRegistry();
+        persistence = new PublishPayloadPersistenceImpl(localPersistence, scheduledExecutorService, metricRegistry);
         persistence.init();
         LogbackCapturingAppender.Factory.weaveInto(PublishPayloadPersistenceImpl.log);
     }
@@ -132,6 +140,19 @@ public class PublishPayloadPersistenceImplTest {
         persistence.decrementReferenceCounter(0L);
     }
 
+    @Test
+    public void decrementReferenceCounter_toZero_increasesCleanupBacklog() {
+        persistence.incrementReferenceCounterOnBootstrap(0L);
+        persistence.incrementReferenceCounterOnBootstrap(1L);
+        persistence.decrementReferenceCounter(0L);
+        persistence.decrementReferenceCounter(1L);
+
+        final Gauge<?> backlog =
+                metricRegistry.getGauges().get(HiveMQMetrics.PAYLOAD_PERSISTENCE_CLEANUP_BACKLOG.name());
+        assertEquals(2L, backlog.getValue());
+        assertTrue(metricRegistry.getHistograms().containsKey(HiveMQMetrics.PAYLOAD_PERSISTENCE_CLEANUP_LAG.name()));
+    }
+
     @Test
     public void decrementReferenceCounter_forExistingPayloadId_decrementsReferenceCounterMaxToZero() {
         persistence.incrementReferenceCounterOnBootstrap(0L);
@@ -145,11 +166,39 @@ public class PublishPayloadPersistenceImplTest {
         assertNull(persistence.getReferenceCountersAsMap().get(0L));
     }
 
+    @Test
+    public void addAndDecrementReferenceCounter_fromMultipleThreads_keepsReferenceCountersConsistent() throws Exception {
+        final byte[] payload = "payload".getBytes();
+        for (long payloadId = 0; payloadId < 100; payloadId++) {
+            persistence.add(payload, 1, payloadId);
+        }
+        final int threadCount = 8;
+        final ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        final CountDownLatch latch = new CountDownLatch(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            executorService.execute(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    final long payloadId = j % 100;
+                    persistence.add(payload, 1, payloadId);
+                    persistence.decrementReferenceCounter(payloadId);
+                }
+                latch.countDown();
+            });
+        }
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        executorService.shutdown();
+
+        for (long payloadId = 0; payloadId < 100; payloadId++) {
+            assertEquals(1, persistence.getReferenceCountersAsMap().get(payloadId).intValue());
+        }
+        verify(localPersistence, times(100)).put(anyLong(), any());
+    }
+
     @Test
     public void init_schedulesPayloadCleanup() {
         InternalConfigurations.PAYLOAD_PERSISTENCE_CLEANUP_SCHEDULE_MSEC.set(250);
         InternalConfigurations.PAYLOAD_PERSISTENCE_CLEANUP_THREADS.set(4);
-        persistence = new PublishPayloadPersistenceImpl(localPersistence, scheduledExecutorService);
+        persistence = new PublishPayloadPersistenceImpl(localPersistence, scheduledExecutorService, new MetricRegistry());
         persistence.init();
 
         verify(scheduledExecutorService).scheduleAtFixedRate(any(RemoveEntryTask.class), eq(0L), eq(250L * 4L), eq(TimeUnit.MILLISECONDS));
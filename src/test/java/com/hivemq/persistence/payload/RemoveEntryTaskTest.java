@@ -15,18 +15,25 @@
  */
 package com.hivemq.persistence.payload;
 
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Histogram;
+import com.hivemq.configuration.service.InternalConfigurations;
 import com.hivemq.extension.sdk.api.annotations.NotNull;
+import org.eclipse.collections.api.list.primitive.LongList;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.Assert.*;
-import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.*;
 
 /**
  * @author Lukas Brandl
@@ -39,6 +46,8 @@ public class RemoveEntryTaskTest {
     private @NotNull BucketLock bucketLock;
     private @NotNull Queue<RemovablePayload> removablePayloads;
     private @NotNull PayloadReferenceCounterRegistry referenceCounterRegistry;
+    private @NotNull AtomicLong backlog;
+    private @NotNull Histogram cleanupLag;
 
     @Before
     public void setUp() throws Exception {
@@ -47,6 +56,15 @@ public class RemoveEntryTaskTest {
         bucketLock = new BucketLock(1);
         removablePayloads = new LinkedTransferQueue<>();
         referenceCounterRegistry = new PayloadReferenceCounterRegistryImpl(bucketLock);
+        backlog = new AtomicLong();
+        cleanupLag = new Histogram(new ExponentiallyDecayingReservoir());
+        InternalConfigurations.PAYLOAD_PERSISTENCE_CLEANUP_BATCH_SIZE.set(256);
+        when(localPersistence.removeAll(any())).thenReturn(new LongArrayList());
+    }
+
+    @After
+    public void tearDown() {
+        InternalConfigurations.PAYLOAD_PERSISTENCE_CLEANUP_BATCH_SIZE.set(256);
     }
 
     @Test
@@ -54,7 +72,7 @@ public class RemoveEntryTaskTest {
         removablePayloads.add(new RemovablePayload(1, System.currentTimeMillis()));
         referenceCounterRegistry.getAndIncrementBy(1L, 1);
         referenceCounterRegistry.decrementAndGet(1L);
-        final RemoveEntryTask task = new RemoveEntryTask(localPersistence, bucketLock, removablePayloads, 10000L, referenceCounterRegistry, 10000);
+        final RemoveEntryTask task = new RemoveEntryTask(localPersistence, bucketLock, removablePayloads, 10000L, referenceCounterRegistry, 10000, backlog, cleanupLag);
         task.run();
         assertEquals(1, removablePayloads.size());
         assertEquals(1, referenceCounterRegistry.size());
@@ -64,7 +82,7 @@ public class RemoveEntryTaskTest {
     public void run_whenTheRemoveDelayIsExpired_removesThePayloadWithoutDecrementingTheReferenceCounter() {
         removablePayloads.add(new RemovablePayload(1, System.currentTimeMillis() - 100L));
         referenceCounterRegistry.getAndIncrementBy(1L, 1);
-        final RemoveEntryTask task = new RemoveEntryTask(localPersistence, bucketLock, removablePayloads, 10L, referenceCounterRegistry, 10000);
+        final RemoveEntryTask task = new RemoveEntryTask(localPersistence, bucketLock, removablePayloads, 10L, referenceCounterRegistry, 10000, backlog, cleanupLag);
         task.run();
         assertEquals(0, removablePayloads.size());
         assertEquals(1, referenceCounterRegistry.size());
@@ -74,7 +92,7 @@ public class RemoveEntryTaskTest {
     public void run_whenPayloadsHaveExpiredRemoveDelaysOrNot_removesExpiredPayloadsOnlyWithoutDecrementingTheReferenceCounters() {
         removablePayloads.add(new RemovablePayload(1, System.currentTimeMillis() - 100000L));
         removablePayloads.add(new RemovablePayload(2, System.currentTimeMillis()));
-        final RemoveEntryTask task = new RemoveEntryTask(localPersistence, bucketLock, removablePayloads, 10000L, referenceCounterRegistry, 10000);
+        final RemoveEntryTask task = new RemoveEntryTask(localPersistence, bucketLock, removablePayloads, 10000L, referenceCounterRegistry, 10000, backlog, cleanupLag);
         referenceCounterRegistry.getAndIncrementBy(1L,0);
         referenceCounterRegistry.getAndIncrementBy(2L,0);
         task.run();
@@ -86,7 +104,7 @@ public class RemoveEntryTaskTest {
     public void run_forDuplicateEntries_removesAPayloadOnlyOnce() {
         removablePayloads.add(new RemovablePayload(1, System.currentTimeMillis() - 100L));
         removablePayloads.add(new RemovablePayload(1, System.currentTimeMillis() - 500L));
-        final RemoveEntryTask task = new RemoveEntryTask(localPersistence, bucketLock, removablePayloads, 10L, referenceCounterRegistry, 10000);
+        final RemoveEntryTask task = new RemoveEntryTask(localPersistence, bucketLock, removablePayloads, 10L, referenceCounterRegistry, 10000, backlog, cleanupLag);
         referenceCounterRegistry.getAndIncrementBy(1L,0);
         task.run();
         assertEquals(0, removablePayloads.size());
@@ -94,10 +112,79 @@ public class RemoveEntryTaskTest {
     }
 
     @Test
-    public void run_whenAThrowableIsThrownDuringRemoval_thenDontReThrow() {
-        final RemoveEntryTask task = createWithThrowableDuringRun(new Throwable());
+    public void run_forMultipleExpiredPayloads_removesThemInOneBatch() {
+        for (long id = 1; id <= 3; id++) {
+            removablePayloads.add(new RemovablePayload(id, System.currentTimeMillis() - 100L));
+            referenceCounterRegistry.getAndIncrementBy(id, 0);
+        }
+        backlog.set(3);
+        final RemoveEntryTask task = new RemoveEntryTask(localPersistence, bucketLock, removablePayloads, 10L, referenceCounterRegistry, 10000, backlog, cleanupLag);
+        task.run();
+        verify(localPersistence).removeAll(LongArrayList.newListWith(1L, 2L, 3L));
+        verify(localPersistence, never()).remove(anyLong());
+        assertEquals(0, removablePayloads.size());
+        assertEquals(0, referenceCounterRegistry.size());
+        assertEquals(0, backlog.get());
+        assertEquals(3, cleanupLag.getCount());
+    }
+
+    @Test
+    public void run_whenBatchSizeIsReached_removesPayloadsInMultipleBatches() {
+        InternalConfigurations.PAYLOAD_PERSISTENCE_CLEANUP_BATCH_SIZE.set(2);
+        for (long id = 1; id <= 5; id++) {
+            removablePayloads.add(new RemovablePayload(id, System.currentTimeMillis() - 100L));
+            referenceCounterRegistry.getAndIncrementBy(id, 0);
+        }
+        final List<LongList> batches = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            batches.add(LongArrayList.newList(invocation.getArgument(0)));
+            return new LongArrayList();
+        }).when(localPersistence).removeAll(any());
+        final RemoveEntryTask task = new RemoveEntryTask(localPersistence, bucketLock, removablePayloads, 10L, referenceCounterRegistry, 10000, backlog, cleanupLag);
+        task.run();
+        assertEquals(3, batches.size());
+        assertEquals(LongArrayList.newListWith(1L, 2L), batches.get(0));
+        assertEquals(LongArrayList.newListWith(3L, 4L), batches.get(1));
+        assertEquals(LongArrayList.newListWith(5L), batches.get(2));
+        assertEquals(0, referenceCounterRegistry.size());
+    }
+
+    @Test
+    public void run_whenPayloadIsReferencedAgain_doesNotRemoveIt() {
+        removablePayloads.add(new RemovablePayload(1, System.currentTimeMillis() - 100L));
+        removablePayloads.add(new RemovablePayload(2, System.currentTimeMillis() - 100L));
+        referenceCounterRegistry.getAndIncrementBy(1L, 1);
+        referenceCounterRegistry.getAndIncrementBy(2L, 0);
+        final RemoveEntryTask task = new RemoveEntryTask(localPersistence, bucketLock, removablePayloads, 10L, referenceCounterRegistry, 10000, backlog, cleanupLag);
+        task.run();
+        verify(localPersistence).removeAll(LongArrayList.newListWith(2L));
+        assertEquals(1, referenceCounterRegistry.get(1L));
+    }
+
+    @Test
+    public void run_whenSomePayloadsCouldNotBeRemoved_retriesExactlyThoseLater() {
+        for (long id = 1; id <= 3; id++) {
+            removablePayloads.add(new RemovablePayload(id, System.currentTimeMillis() - 100L));
+            referenceCounterRegistry.getAndIncrementBy(id, 0);
+        }
+        backlog.set(3);
+        when(localPersistence.removeAll(any())).thenReturn(LongArrayList.newListWith(2L));
+        final RemoveEntryTask task = new RemoveEntryTask(localPersistence, bucketLock, removablePayloads, 10L, referenceCounterRegistry, 10000, backlog, cleanupLag);
         task.run();
         assertEquals(1, removablePayloads.size());
+        assertEquals(2L, removablePayloads.peek().getId());
+        assertFalse(removablePayloads.peek().inProgress.get());
+        assertEquals(1, referenceCounterRegistry.size());
+        assertEquals(0, referenceCounterRegistry.get(2L));
+        assertEquals(1, backlog.get());
+        assertEquals(2, cleanupLag.getCount());
+    }
+
+    @Test
+    public void run_whenAThrowableIsThrownDuringRemoval_thenDontReThrowAndRetryLater() {
+        final RemoveEntryTask task = createWithThrowableDuringRun(new Throwable());
+        task.run();
+        assertEquals(2, removablePayloads.size());
         assertEquals(1, referenceCounterRegistry.size());
     }
 
@@ -116,7 +203,7 @@ public class RemoveEntryTaskTest {
         referenceCounterRegistry.getAndIncrementBy(1L,0);
         doAnswer(invocation -> {
             throw throwable;
-        }).when(localPersistence).remove(anyLong());
-        return new RemoveEntryTask(localPersistence, bucketLock, removablePayloads, 10L, referenceCounterRegistry, 10000);
+        }).when(localPersistence).removeAll(any());
+        return new RemoveEntryTask(localPersistence, bucketLock, removablePayloads, 10L, referenceCounterRegistry, 10000, backlog, cleanupLag);
     }
 }
\ No newline at end of file
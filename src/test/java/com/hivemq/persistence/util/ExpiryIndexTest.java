@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.persistence.util;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ExpiryIndexTest {
+
+    private final ExpiryIndex<String> index = new ExpiryIndex<>();
+
+    @Test
+    public void test_update_replaces_deadline() {
+        index.update("client", 100);
+        index.update("client", 300);
+
+        assertTrue(index.pollExpired(200).isEmpty());
+        assertEquals(1, index.size());
+        assertEquals(ImmutableList.of("client"), index.pollExpired(300));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void test_update_to_earlier_deadline() {
+        index.update("client", 300);
+        index.update("client", 100);
+
+        assertEquals(ImmutableList.of("client"), index.pollExpired(100));
+        assertTrue(index.pollExpired(1000).isEmpty());
+    }
+
+    @Test
+    public void test_update_without_deadline_removes_key() {
+        index.update("client", 100);
+        index.update("client", ExpiryIndex.NO_DEADLINE);
+
+        assertEquals(0, index.size());
+        assertTrue(index.pollExpired(1000).isEmpty());
+    }
+
+    @Test
+    public void test_poll_expired_respects_max() {
+        for (int i = 0; i < 10; i++) {
+            index.update("client" + i, i);
+        }
+
+        assertEquals(ImmutableList.of("client0", "client1", "client2"), index.pollExpired(100, 3));
+        assertEquals(7, index.size());
+        assertEquals(3, index.nextDeadline());
+        assertEquals(7, index.pollExpired(100, 100).size());
+        assertEquals(ExpiryIndex.NO_DEADLINE, index.nextDeadline());
+    }
+
+    @Test
+    public void test_outdated_entries_do_not_count_towards_max() {
+        index.update("client1", 10);
+        index.update("client1", 500);
+        index.update("client2", 20);
+
+        assertEquals(ImmutableList.of("client2"), index.pollExpired(100, 1));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void test_compaction_keeps_current_deadlines() {
+        for (int round = 0; round < 100; round++) {
+            for (int i = 0; i < 10; i++) {
+                index.update("client" + i, 1000 + round * 10 + i);
+            }
+        }
+
+        assertEquals(10, index.size());
+        assertTrue(index.pollExpired(1989).isEmpty());
+        assertEquals(9, index.pollExpired(1998).size());
+        assertEquals(ImmutableList.of("client9"), index.pollExpired(1999));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void test_clear() {
+        index.update("client", 100);
+        index.clear();
+
+        assertEquals(0, index.size());
+        assertEquals(ExpiryIndex.NO_DEADLINE, index.nextDeadline());
+    }
+}
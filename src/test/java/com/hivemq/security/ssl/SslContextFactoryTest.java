@@ -0,0 +1,43 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.security.ssl;
+
+import com.hivemq.configuration.service.entity.Tls;
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.SslProvider;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SslContextFactoryTest {
+
+    private static final SslProvider OPENSSL_IF_AVAILABLE = OpenSsl.isAvailable() ? SslProvider.OPENSSL : SslProvider.JDK;
+
+    @Test
+    public void test_jdk_provider() {
+        assertEquals(SslProvider.JDK, SslContextFactory.toSslProvider(Tls.Provider.JDK));
+    }
+
+    @Test
+    public void test_openssl_provider_falls_back_to_jdk() {
+        assertEquals(OPENSSL_IF_AVAILABLE, SslContextFactory.toSslProvider(Tls.Provider.OPENSSL));
+    }
+
+    @Test
+    public void test_auto_provider() {
+        assertEquals(OPENSSL_IF_AVAILABLE, SslContextFactory.toSslProvider(Tls.Provider.AUTO));
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.security.ssl;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.hivemq.metrics.HiveMQMetrics;
+import io.netty.channel.Channel;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.util.concurrent.DefaultPromise;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSession;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TlsHandshakeMetricsTest {
+
+    private static final String COUNT = String.format(HiveMQMetrics.TLS_HANDSHAKE_COUNT_NAME_FORMAT, "listener");
+    private static final String FAILED_COUNT =
+            String.format(HiveMQMetrics.TLS_HANDSHAKE_FAILED_COUNT_NAME_FORMAT, "listener");
+    private static final String RESUMED_COUNT =
+            String.format(HiveMQMetrics.TLS_HANDSHAKE_RESUMED_COUNT_NAME_FORMAT, "listener");
+    private static final String TIME = String.format(HiveMQMetrics.TLS_HANDSHAKE_TIME_NAME_FORMAT, "listener");
+    private static final String RESUMPTION_RATIO =
+            String.format(HiveMQMetrics.TLS_HANDSHAKE_RESUMPTION_RATIO_NAME_FORMAT, "listener");
+
+    private MetricRegistry metricRegistry;
+    private TlsHandshakeMetrics tlsHandshakeMetrics;
+
+    @Before
+    public void setUp() {
+        metricRegistry = new MetricRegistry();
+        tlsHandshakeMetrics = new TlsHandshakeMetrics(metricRegistry, "listener");
+    }
+
+    @Test
+    public void test_full_and_resumed_handshakes() {
+        handshake(true, Long.MAX_VALUE);
+        handshake(true, 0);
+
+        assertEquals(2, metricRegistry.counter(COUNT).getCount());
+        assertEquals(1, metricRegistry.counter(RESUMED_COUNT).getCount());
+        assertEquals(0, metricRegistry.counter(FAILED_COUNT).getCount());
+        assertEquals(2, metricRegistry.timer(TIME).getCount());
+        assertEquals(0.5, (Double) metricRegistry.getGauges().get(RESUMPTION_RATIO).getValue(), 0.0001);
+    }
+
+    @Test
+    public void test_failed_handshake() {
+        handshake(false, 0);
+
+        assertEquals(0, metricRegistry.counter(COUNT).getCount());
+        assertEquals(1, metricRegistry.counter(FAILED_COUNT).getCount());
+        assertEquals(0, metricRegistry.timer(TIME).getCount());
+    }
+
+    @Test
+    public void test_metrics_are_shared_per_listener() {
+        new TlsHandshakeMetrics(metricRegistry, "listener").track(mockSslHandler(successfulHandshake(), 0));
+        handshake(true, 0);
+
+        assertEquals(2, metricRegistry.counter(COUNT).getCount());
+        final Gauge<?> gauge = metricRegistry.getGauges().get(RESUMPTION_RATIO);
+        assertEquals(1.0, (Double) gauge.getValue(), 0.0001);
+    }
+
+    private void handshake(final boolean success, final long sessionCreationTime) {
+        final Promise<Channel> handshakeFuture = new DefaultPromise<>(ImmediateEventExecutor.INSTANCE);
+        tlsHandshakeMetrics.track(mockSslHandler(handshakeFuture, sessionCreationTime));
+        if (success) {
+            handshakeFuture.setSuccess(mock(Channel.class));
+        } else {
+            handshakeFuture.setFailure(new Exception("handshake failed"));
+        }
+    }
+
+    private static Promise<Channel> successfulHandshake() {
+        return new DefaultPromise<Channel>(ImmediateEventExecutor.INSTANCE).setSuccess(mock(Channel.class));
+    }
+
+    private static SslHandler mockSslHandler(final Promise<Channel> handshakeFuture, final long sessionCreationTime) {
+        final SslHandler sslHandler = mock(SslHandler.class);
+        final SSLEngine sslEngine = mock(SSLEngine.class);
+        final SSLSession sslSession = mock(SSLSession.class);
+        when(sslHandler.handshakeFuture()).thenReturn(handshakeFuture);
+        when(sslHandler.engine()).thenReturn(sslEngine);
+        when(sslEngine.getSession()).thenReturn(sslSession);
+        when(sslSession.getCreationTime()).thenReturn(sessionCreationTime);
+        return sslHandler;
+    }
+}
@@ -129,4 +129,68 @@ public class Utf8UtilsTest {
             }
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void test_decode_validated_ascii() {
+        final String ascii = "!\"#$%&'()*+,-./0123456789:;<=>?@ABCDEFGHIJKLMNOPQRSTUVWXYZ[\\]^_`abcdefghijklmnopqrstuvwxyz{|}~";
+        final ByteBuf heap = Unpooled.wrappedBuffer(("xy" + ascii).getBytes(Charsets.UTF_8));
+        final ByteBuf direct = Unpooled.directBuffer().writeBytes(heap, 0, heap.readableBytes());
+
+        for (int length = 0; length <= ascii.length(); length++) {
+            assertEquals(ascii.substring(0, length), Utf8Utils.decodeValidated(heap, 2, length, true));
+            assertEquals(ascii.substring(0, length), Utf8Utils.decodeValidated(direct, 2, length, true));
+        }
+        assertEquals(0, heap.readerIndex());
+        direct.release();
+    }
+
+    @Test
+    public void test_decode_validated_multi_byte() {
+        final String string = "topic/¡¢£/ঁংঃ/\uD83D\uDE00/end";
+        final ByteBuf buf = Unpooled.wrappedBuffer(string.getBytes(Charsets.UTF_8));
+
+        assertEquals(string, Utf8Utils.decodeValidated(buf, 0, buf.readableBytes(), true));
+    }
+
+    @Test
+    public void test_decode_validated_must_not_characters() {
+        for (int i = 0; i < 20; i++) {
+            final byte[] withNull = "abcdefghijklmnopqrst".getBytes(Charsets.UTF_8);
+            withNull[i] = 0;
+            assertNull(Utf8Utils.decodeValidated(Unpooled.wrappedBuffer(withNull), 0, withNull.length, false));
+        }
+        // UTF-16 surrogate U+D800
+        final byte[] surrogate = {'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', (byte) 0xED, (byte) 0xA0, (byte) 0x80};
+        assertNull(Utf8Utils.decodeValidated(Unpooled.wrappedBuffer(surrogate), 0, surrogate.length, false));
+        // truncated two byte character
+        final byte[] truncated = {'a', (byte) 0xC2};
+        assertNull(Utf8Utils.decodeValidated(Unpooled.wrappedBuffer(truncated), 0, truncated.length, false));
+    }
+
+    @Test
+    public void test_decode_validated_should_not_characters() {
+        for (int i = 0; i < 20; i++) {
+            for (final byte controlCharacter : new byte[]{1, 0x1F, 0x7F}) {
+                final byte[] bytes = "abcdefghijklmnopqrst".getBytes(Charsets.UTF_8);
+                bytes[i] = controlCharacter;
+                final ByteBuf buf = Unpooled.wrappedBuffer(bytes);
+                assertNull(Utf8Utils.decodeValidated(buf, 0, bytes.length, true));
+                assertEquals(new String(bytes, Charsets.UTF_8), Utf8Utils.decodeValidated(buf, 0, bytes.length, false));
+            }
+        }
+        final byte[] nonCharacter = "abc\uFFFEdef".getBytes(Charsets.UTF_8);
+        assertNull(Utf8Utils.decodeValidated(Unpooled.wrappedBuffer(nonCharacter), 0, nonCharacter.length, true));
+    }
+
+    @Test
+    public void test_contains_must_not_characters_equals_well_formed() {
+        for (int b1 = 0x80; b1 <= 0xFF; b1++) {
+            for (int b2 = 0; b2 <= 0xFF; b2++) {
+                for (final int b3 : new int[]{0x41, 0x80, 0x9F, 0xA0, 0xBF, 0xC0}) {
+                    final byte[] bytes = {(byte) b1, (byte) b2, (byte) b3, (byte) 0x80};
+                    assertEquals(!Utf8.isWellFormed(bytes) || b2 == 0, Utf8Utils.containsMustNotCharacters(bytes));
+                }
+            }
+        }
+    }
+}
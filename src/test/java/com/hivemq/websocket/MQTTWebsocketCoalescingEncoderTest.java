@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019-present HiveMQ GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hivemq.websocket;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MQTTWebsocketCoalescingEncoderTest {
+
+    private EmbeddedChannel channel;
+
+    @Before
+    public void setUp() throws Exception {
+        channel = new EmbeddedChannel(new MQTTWebsocketCoalescingEncoder(8));
+    }
+
+    @Test
+    public void test_packets_flushed_together_are_written_as_one_frame() {
+        final ChannelFuture future1 = channel.write(buffer(1, 2));
+        final ChannelFuture future2 = channel.write(buffer(3));
+        final ChannelFuture future3 = channel.write(buffer(4, 5, 6));
+
+        assertNull(channel.readOutbound());
+        assertFalse(future1.isDone());
+
+        channel.flush();
+
+        final BinaryWebSocketFrame frame = channel.readOutbound();
+        assertArrayEquals(new byte[]{1, 2, 3, 4, 5, 6}, bytes(frame.content()));
+        frame.release();
+        assertNull(channel.readOutbound());
+        assertTrue(future1.isSuccess());
+        assertTrue(future2.isSuccess());
+        assertTrue(future3.isSuccess());
+    }
+
+    @Test
+    public void test_frame_is_split_at_max_frame_size() {
+        channel.write(buffer(1, 2, 3, 4, 5));
+        channel.write(buffer(6, 7, 8, 9));
+        channel.write(buffer(10, 11, 12, 13, 14, 15, 16, 17, 18, 19));
+        channel.flush();
+
+        final BinaryWebSocketFrame frame1 = channel.readOutbound();
+        final BinaryWebSocketFrame frame2 = channel.readOutbound();
+        final BinaryWebSocketFrame frame3 = channel.readOutbound();
+        assertArrayEquals(new byte[]{1, 2, 3, 4, 5}, bytes(frame1.content()));
+        assertArrayEquals(new byte[]{6, 7, 8, 9}, bytes(frame2.content()));
+        assertArrayEquals(new byte[]{10, 11, 12, 13, 14, 15, 16, 17, 18, 19}, bytes(frame3.content()));
+        frame1.release();
+        frame2.release();
+        frame3.release();
+        assertNull(channel.readOutbound());
+    }
+
+    @Test
+    public void test_other_messages_keep_order() {
+        channel.write(buffer(1));
+        channel.write(new PingWebSocketFrame());
+        channel.write(buffer(2));
+        channel.flush();
+
+        final BinaryWebSocketFrame frame1 = channel.readOutbound();
+        assertArrayEquals(new byte[]{1}, bytes(frame1.content()));
+        assertTrue(channel.readOutbound() instanceof PingWebSocketFrame);
+        final BinaryWebSocketFrame frame2 = channel.readOutbound();
+        assertArrayEquals(new byte[]{2}, bytes(frame2.content()));
+        frame1.release();
+        frame2.release();
+    }
+
+    @Test
+    public void test_pending_packets_are_written_on_close() {
+        final ByteBuf buffer = buffer(1, 2);
+        channel.write(buffer);
+        channel.close();
+
+        final BinaryWebSocketFrame frame = channel.readOutbound();
+        assertArrayEquals(new byte[]{1, 2}, bytes(frame.content()));
+        frame.release();
+        assertEquals(0, buffer.refCnt());
+    }
+
+    private static ByteBuf buffer(final int... values) {
+        final ByteBuf buffer = Unpooled.buffer(values.length);
+        for (final int value : values) {
+            buffer.writeByte(value);
+        }
+        return buffer;
+    }
+
+    private static byte[] bytes(final ByteBuf buffer) {
+        final byte[] bytes = new byte[buffer.readableBytes()];
+        buffer.getBytes(buffer.readerIndex(), bytes);
+        return bytes;
+    }
+}
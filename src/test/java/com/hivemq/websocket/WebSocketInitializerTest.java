@@ -16,6 +16,7 @@
 package com.hivemq.websocket;
 
 import com.google.common.collect.Lists;
+import com.hivemq.configuration.service.InternalConfigurations;
 import com.hivemq.configuration.service.entity.WebsocketListener;
 import io.netty.channel.embedded.EmbeddedChannel;
 import org.junit.Before;
@@ -28,6 +29,7 @@ import java.util.List;
 
 import static com.hivemq.bootstrap.netty.ChannelHandlerNames.*;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class WebSocketInitializerTest {
@@ -90,6 +92,31 @@ public class WebSocketInitializerTest {
         assertTrue(wtfhIdx < mweIdx);
     }
 
+    @Test
+    public void test_coalescing_encoder_and_compression_handler() throws Exception {
+        InternalConfigurations.WEBSOCKET_FRAME_COALESCING_ENABLED.set(true);
+        InternalConfigurations.WEBSOCKET_PERMESSAGE_DEFLATE_ENABLED.set(true);
+        try {
+            new WebSocketInitializer(websocketListener).addHandlers(channel, "dummy");
+
+            final List<String> handlerNames = channel.pipeline().names();
+            assertTrue(handlerNames.indexOf(HTTP_OBJECT_AGGREGATOR) < handlerNames.indexOf(WEBSOCKET_SERVER_COMPRESSION_HANDLER));
+            assertTrue(handlerNames.indexOf(WEBSOCKET_SERVER_COMPRESSION_HANDLER) < handlerNames.indexOf(WEBSOCKET_SERVER_PROTOCOL_HANDLER));
+            assertTrue(channel.pipeline().get(MQTT_WEBSOCKET_ENCODER) instanceof MQTTWebsocketCoalescingEncoder);
+        } finally {
+            InternalConfigurations.WEBSOCKET_FRAME_COALESCING_ENABLED.set(false);
+            InternalConfigurations.WEBSOCKET_PERMESSAGE_DEFLATE_ENABLED.set(false);
+        }
+    }
+
+    @Test
+    public void test_no_compression_handler_by_default() throws Exception {
+        new WebSocketInitializer(websocketListener).addHandlers(channel, "dummy");
+
+        assertFalse(channel.pipeline().names().contains(WEBSOCKET_SERVER_COMPRESSION_HANDLER));
+        assertTrue(channel.pipeline().get(MQTT_WEBSOCKET_ENCODER) instanceof MQTTWebsocketEncoder);
+    }
+
     @Test
     public void test_no_subprotocols() throws Exception {
         websocketListener = new WebsocketListener.Builder()
@@ -33,6 +33,7 @@ import com.hivemq.mqtt.handler.connack.MqttConnacker;
 import com.hivemq.mqtt.handler.connack.MqttConnackerImpl;
 import com.hivemq.mqtt.handler.disconnect.MqttServerDisconnector;
 import com.hivemq.mqtt.handler.disconnect.MqttServerDisconnectorImpl;
+import com.hivemq.mqtt.topic.TopicInternPool;
 import com.hivemq.util.ClientIds;
 
 import static com.hivemq.mqtt.message.connect.Mqtt5CONNECT.SESSION_EXPIRY_MAX;
@@ -58,6 +59,7 @@ public class TestMqttDecoder {
         final MqttServerDisconnector disconnector = new MqttServerDisconnectorImpl(eventLog);
         final MqttConnacker mqttConnacker = new MqttConnackerImpl(eventLog);
         final MetricsHolder metricsHolder = new MetricsHolder(new MetricRegistry());
+        final TopicInternPool topicInternPool = new TopicInternPool(metricsHolder);
 
         final MqttConnectDecoder mqttConnectDecoder = new MqttConnectDecoder(mqttConnacker,
                 fullConfigurationService,
@@ -68,7 +70,7 @@ public class TestMqttDecoder {
                 mqttConnectDecoder,
                 fullConfigurationService.mqttConfiguration(),
                 new MqttDecoders(
-                        new Mqtt3PublishDecoder(hiveMQId, disconnector, fullConfigurationService),
+                        new Mqtt3PublishDecoder(hiveMQId, disconnector, fullConfigurationService, topicInternPool),
                         new Mqtt3PubackDecoder(disconnector, fullConfigurationService),
                         new Mqtt3PubrecDecoder(disconnector, fullConfigurationService),
                         new Mqtt3PubcompDecoder(disconnector, fullConfigurationService),
@@ -77,7 +79,8 @@ public class TestMqttDecoder {
                         new Mqtt3SubscribeDecoder(disconnector, fullConfigurationService),
                         new Mqtt3UnsubscribeDecoder(disconnector, fullConfigurationService),
                         new MqttPingreqDecoder(disconnector),
-                        new Mqtt5PublishDecoder(disconnector, hiveMQId, fullConfigurationService, new TopicAliasLimiterImpl()),
+                        new Mqtt5PublishDecoder(disconnector, hiveMQId, fullConfigurationService, new TopicAliasLimiterImpl(),
+                                topicInternPool),
                         new Mqtt5DisconnectDecoder(disconnector, fullConfigurationService),
                         new Mqtt5SubscribeDecoder(disconnector, fullConfigurationService),
                         new Mqtt5PubackDecoder(disconnector, fullConfigurationService),